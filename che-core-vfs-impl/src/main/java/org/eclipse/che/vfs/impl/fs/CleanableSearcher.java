@@ -24,7 +24,8 @@ import java.util.concurrent.atomic.AtomicReference;
 import static org.eclipse.che.commons.lang.IoUtil.deleteRecursive;
 
 /**
- * Filesystem based LuceneSearcher which cleans index directory after call method {@link #close()}.
+ * Filesystem based LuceneSearcher which cleans index directory after call method {@link #close()}. Index is built in
+ * parallel, index that is left in the index directory by previous run is reused.
  *
  * @author andrew00x
  */
@@ -44,16 +45,29 @@ public class CleanableSearcher extends FSIndexSearcher {
 
     @Override
     public void init(final MountPoint mountPoint) throws ServerException {
-        doInit();
+        try {
+            doInit();
+        } catch (ServerException e) {
+            // Index that is left by previous run may be broken, start from scratch.
+            LOG.warn("Unable open index in '{}', index is rebuilt. {}", getIndexDir(), e.getMessage());
+            if (!deleteRecursive(getIndexDir())) {
+                throw e;
+            }
+            doInit();
+        }
         final ExecutorService executor = searcherService.getExecutor();
+        if (searcherService.getMaxPendingChanges() > 0) {
+            startBatchIndexing(searcherService.getIndexingPipelineExecutor(), searcherService.getMaxPendingChanges(),
+                               searcherService.getMaxStalenessMillis());
+        }
         if (!executor.isShutdown()) {
             executor.execute(new Runnable() {
                 @Override
                 public void run() {
                     try {
-                        CleanableSearcher.this.addTree(mountPoint.getRoot());
+                        CleanableSearcher.this.indexTree(mountPoint.getRoot(), searcherService.getIndexingPool());
                         initFlag.set(true);
-                    } catch (ServerException e) {
+                    } catch (ServerException | RuntimeException e) {
                         initError.set(e);
                         LOG.error(e.getMessage());
                     }
@@ -77,11 +91,13 @@ public class CleanableSearcher extends FSIndexSearcher {
         searcherService.close(this);
     }
 
-    void doClose() {
+    void doClose(boolean deleteIndex) {
         super.close();
-        final java.io.File dir = getIndexDir();
-        if (!deleteRecursive(dir)) {
-            LOG.warn("Unable delete index directory '{}'", dir);
+        if (deleteIndex) {
+            final java.io.File dir = getIndexDir();
+            if (!deleteRecursive(dir)) {
+                LOG.warn("Unable delete index directory '{}'", dir);
+            }
         }
     }
 }
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.che.vfs.impl.fs;
 
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.eclipse.che.api.core.ServerException;
@@ -19,6 +20,8 @@ import org.eclipse.che.api.vfs.server.search.LuceneSearcherProvider;
 import org.eclipse.che.api.vfs.server.search.Searcher;
 import org.eclipse.che.api.vfs.server.util.MediaTypeFilter;
 import org.eclipse.che.api.vfs.server.util.VirtualFileFilters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
@@ -32,20 +35,43 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
- * NOTE: This implementation always create new index in new directory. Index is not reused after call {@link
- * CleanableSearcher#close()}. Index directory is cleaned after close Searcher.
+ * NOTE: Index directory is cleaned after call {@link CleanableSearcher#close()}, e.g. when virtual filesystem is unmounted.
+ * Indexes of searchers that are still open when this provider is stopped are saved and reused next time when searcher for
+ * the same virtual filesystem is created. Such index is updated only for files that were changed since it was saved.
  *
  * @author andrew00x
  */
 @Singleton
 public class CleanableSearcherProvider extends LuceneSearcherProvider {
+    private static final Logger LOG = LoggerFactory.getLogger(CleanableSearcherProvider.class);
+
+    /** Default max number of index changes that are not applied yet, zero disables asynchronous indexing. */
+    static final int  DEFAULT_MAX_PENDING_CHANGES  = 10000;
+    /** Default max time in milliseconds between refreshes of searcher while index changes are applied. */
+    static final long DEFAULT_MAX_STALENESS_MILLIS = 1000;
+    /** Max time in seconds to wait for indexing tasks to complete when provider is stopped. */
+    static final long STOP_TIMEOUT_SECONDS         = 30;
+
     private final ConcurrentMap<java.io.File, CleanableSearcher> instances;
     private final ExecutorService                                executor;
+    /**
+     * Applies queued index changes. Separate from {@link #executor} which runs long indexing of whole trees, so changes are not
+     * delayed while trees are indexed. Each searcher has at most one task at a time in this executor.
+     */
+    private final ExecutorService                                indexingPipelineExecutor;
+    private final ForkJoinPool                                   indexingPool;
     private final java.io.File                                   indexRootDir;
     private final Set<VirtualFileFilter>                         filters;
 
+    private int  maxPendingChanges;
+    private long maxStalenessMillis;
+
     @Inject
     CleanableSearcherProvider(@Named("vfs.local.fs_index_root_dir") java.io.File indexRootDir,
                               @Named("vfs.index_filter") Set<VirtualFileFilter> filters) {
@@ -54,7 +80,27 @@ public class CleanableSearcherProvider extends LuceneSearcherProvider {
         executor = Executors.newFixedThreadPool(1 + Runtime.getRuntime().availableProcessors(),
                                                 new ThreadFactoryBuilder().setNameFormat("LocalVirtualFileSystem-CleanableSearcher-%d")
                                                                           .setDaemon(true).build());
+        indexingPipelineExecutor = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setNameFormat("LocalVirtualFileSystem-IndexingPipeline-%d").setDaemon(true).build());
+        indexingPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
         instances = new ConcurrentHashMap<>();
+        maxPendingChanges = DEFAULT_MAX_PENDING_CHANGES;
+        maxStalenessMillis = DEFAULT_MAX_STALENESS_MILLIS;
+    }
+
+    /**
+     * Configures asynchronous indexing.
+     *
+     * @param maxPendingChanges
+     *         max number of index changes that are not applied yet, zero or negative value disables asynchronous indexing
+     * @param maxStalenessMillis
+     *         max time in milliseconds between refreshes of searcher while index changes are applied
+     */
+    @com.google.inject.Inject(optional = true)
+    void setIndexingParameters(@Named("vfs.index.max_pending_changes") int maxPendingChanges,
+                               @Named("vfs.index.max_staleness_ms") long maxStalenessMillis) {
+        this.maxPendingChanges = maxPendingChanges;
+        this.maxStalenessMillis = maxStalenessMillis;
     }
 
     @Override
@@ -62,34 +108,32 @@ public class CleanableSearcherProvider extends LuceneSearcherProvider {
         final java.io.File vfsIoRoot = ((VirtualFileImpl)mountPoint.getRoot()).getIoFile();
         CleanableSearcher searcher = instances.get(vfsIoRoot);
         if (searcher == null && create) {
-            final java.io.File myIndexDir;
-            final CleanableSearcher newSearcher;
-            try {
-                Files.createDirectories(indexRootDir.toPath());
-                myIndexDir = Files.createTempDirectory(indexRootDir.toPath(), null).toFile();
-                final VirtualFileFilter filter;
-                if (!filters.isEmpty()) {
-                    final VirtualFileFilter[] myFilters = new VirtualFileFilter[filters.size() + 1];
-                    final Iterator<VirtualFileFilter> iterator = filters.iterator();
-                    for (int i = 1; i < myFilters.length; i++) {
-                        myFilters[i] = iterator.next();
-                    }
-                    myFilters[0] = new MediaTypeFilter();
-                    filter = VirtualFileFilters.createAndFilter(myFilters);
-                } else {
-                    filter = new MediaTypeFilter();
+            // Name of index directory is the same for the same virtual filesystem, so index may be reused.
+            final java.io.File myIndexDir =
+                    new java.io.File(indexRootDir, Hashing.sha1().hashString(vfsIoRoot.getAbsolutePath(), UTF_8).toString());
+            final VirtualFileFilter filter;
+            if (!filters.isEmpty()) {
+                final VirtualFileFilter[] myFilters = new VirtualFileFilter[filters.size() + 1];
+                final Iterator<VirtualFileFilter> iterator = filters.iterator();
+                for (int i = 1; i < myFilters.length; i++) {
+                    myFilters[i] = iterator.next();
                 }
-                newSearcher = new CleanableSearcher(this, myIndexDir, filter);
-            } catch (IOException e) {
-                throw new ServerException("Unable create searcher. " + e.getMessage(), e);
+                myFilters[0] = new MediaTypeFilter();
+                filter = VirtualFileFilters.createAndFilter(myFilters);
+            } else {
+                filter = new MediaTypeFilter();
             }
+            final CleanableSearcher newSearcher = new CleanableSearcher(this, myIndexDir, filter);
             searcher = instances.putIfAbsent(vfsIoRoot, newSearcher);
             if (searcher == null) {
                 searcher = newSearcher;
+                try {
+                    Files.createDirectories(myIndexDir.toPath());
+                } catch (IOException e) {
+                    instances.remove(vfsIoRoot, newSearcher);
+                    throw new ServerException("Unable create searcher. " + e.getMessage(), e);
+                }
                 searcher.init(mountPoint);
-            } else {
-                // not need this directory
-                myIndexDir.delete();
             }
         }
         return searcher;
@@ -97,19 +141,57 @@ public class CleanableSearcherProvider extends LuceneSearcherProvider {
 
     void close(CleanableSearcher searcher) {
         instances.values().remove(searcher);
-        searcher.doClose();
+        searcher.doClose(true);
     }
 
     @PreDestroy
-    private void stop() {
-        executor.shutdownNow();
+    void stop() {
+        // Don't interrupt indexing threads, interrupted i/o may break index that we are going to save.
+        executor.shutdown();
+        indexingPipelineExecutor.shutdown();
+        indexingPool.shutdown();
+        // Indexing tasks write to index writers of searchers, let them complete before writers are closed.
+        final long endTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(STOP_TIMEOUT_SECONDS);
+        final boolean terminated = awaitTermination(executor, endTime)
+                                   & awaitTermination(indexingPipelineExecutor, endTime)
+                                   & awaitTermination(indexingPool, endTime);
+        if (!terminated) {
+            // Some changes might not get in index, don't reuse such index next time.
+            LOG.warn("Indexing is not completed in {} seconds, indexes of searchers are not saved", STOP_TIMEOUT_SECONDS);
+        }
         for (CleanableSearcher searcher : instances.values()) {
-            searcher.close();
+            instances.values().remove(searcher);
+            searcher.doClose(!terminated);
+        }
+    }
+
+    private boolean awaitTermination(ExecutorService executor, long endTime) {
+        try {
+            return executor.awaitTermination(Math.max(endTime - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return executor.isTerminated();
         }
     }
 
     ExecutorService getExecutor() {
         return executor;
     }
+
+    ExecutorService getIndexingPipelineExecutor() {
+        return indexingPipelineExecutor;
+    }
+
+    ForkJoinPool getIndexingPool() {
+        return indexingPool;
+    }
+
+    int getMaxPendingChanges() {
+        return maxPendingChanges;
+    }
+
+    long getMaxStalenessMillis() {
+        return maxStalenessMillis;
+    }
 }
 
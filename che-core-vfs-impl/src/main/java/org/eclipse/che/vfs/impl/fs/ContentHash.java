@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * MD5 hash sum of file together with attributes of file at the moment when hash sum was counted.
+ *
+ * @see ContentHashIndex
+ */
+public class ContentHash {
+    private final long   lastModified;
+    private final long   length;
+    private final String fileKey;
+    private final String hash;
+
+    public ContentHash(long lastModified, long length, String fileKey, String hash) {
+        this.lastModified = lastModified;
+        this.length = length;
+        this.fileKey = fileKey;
+        this.hash = hash;
+    }
+
+    public ContentHash(BasicFileAttributes attributes, String hash) {
+        this(attributes.lastModifiedTime().toMillis(), attributes.size(), fileKeyOf(attributes), hash);
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /** Identifier of file in the file system, e.g. device and inode on unix like systems, empty string if not available. */
+    public String getFileKey() {
+        return fileKey;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    /** Returns {@code true} if file wasn't changed since this hash sum was counted. */
+    public boolean matches(BasicFileAttributes attributes) {
+        return lastModified == attributes.lastModifiedTime().toMillis()
+               && length == attributes.size()
+               && fileKey.equals(fileKeyOf(attributes));
+    }
+
+    private static String fileKeyOf(BasicFileAttributes attributes) {
+        final Object fileKey = attributes.fileKey();
+        return fileKey == null ? "" : fileKey.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "ContentHash{" +
+               "lastModified=" + lastModified +
+               ", length=" + length +
+               ", fileKey='" + fileKey + '\'' +
+               ", hash='" + hash + '\'' +
+               '}';
+    }
+}
@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import com.google.common.hash.Hashing;
+
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.core.notification.EventSubscriber;
+import org.eclipse.che.api.vfs.server.LazyIterator;
+import org.eclipse.che.api.vfs.server.VirtualFile;
+import org.eclipse.che.api.vfs.server.VirtualFileFilter;
+import org.eclipse.che.api.vfs.server.observation.MoveEvent;
+import org.eclipse.che.api.vfs.server.observation.RenameEvent;
+import org.eclipse.che.api.vfs.server.observation.VirtualFileEvent;
+import org.eclipse.che.api.vfs.shared.dto.VirtualFileSystemInfo.BasicPermissions;
+import org.eclipse.che.commons.lang.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Index of MD5 hash sums of files of {@link FSMountPoint}. Hash sum of file is counted once and then reused while modification
+ * date, length and file key (inode) of file stay the same. Entries of index are dropped or moved when VFS events about
+ * updates of files are published. Hash sums of files that are not indexed yet are counted in parallel.
+ * <p/>
+ * Index is saved in the service directory of mount point when mount point is reset and is loaded when it's used first
+ * time.
+ */
+class ContentHashIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(ContentHashIndex.class);
+
+    static final String INDEX_FILE = FSMountPoint.SERVICE_DIR + java.io.File.separatorChar + "md5sums";
+
+    private static final int INDEX_VERSION = 1;
+
+    private final FSMountPoint    mountPoint;
+    private final ExecutorService executor;
+    private final java.io.File    indexFile;
+
+    private final EventSubscriber<VirtualFileEvent> vfsSubscriber;
+
+    /** Indexed hash sums. Key is path of file, sorted map helps to find all files in subtree. */
+    private volatile ConcurrentNavigableMap<String, ContentHash> hashes;
+
+    ContentHashIndex(FSMountPoint mountPoint, ExecutorService executor) {
+        this.mountPoint = mountPoint;
+        this.executor = executor;
+        indexFile = new java.io.File(mountPoint.getRoot().getIoFile(), INDEX_FILE);
+        vfsSubscriber = new EventSubscriber<VirtualFileEvent>() {
+            @Override
+            public void onEvent(VirtualFileEvent event) {
+                if (ContentHashIndex.this.mountPoint.getWorkspaceId().equals(event.getWorkspaceId())) {
+                    update(event);
+                }
+            }
+        };
+    }
+
+    /**
+     * Gets MD5 hash sums of all files in the {@code folder}.
+     *
+     * @return pairs of hash sum and path of file relative to the {@code folder}
+     */
+    List<Pair<String, String>> countMd5Sums(VirtualFileImpl folder) throws ServerException {
+        final NavigableMap<String, ContentHash> myHashes = getHashes();
+        final int trimPathLength = folder.getPath().length() + 1;
+        final List<String> paths = new ArrayList<>();
+        final List<Future<String>> results = new ArrayList<>();
+        final LinkedList<VirtualFile> q = new LinkedList<>();
+        q.add(folder);
+        while (!q.isEmpty()) {
+            final LazyIterator<VirtualFile> children = q.pop().getChildren(VirtualFileFilter.ALL);
+            while (children.hasNext()) {
+                final VirtualFileImpl child = (VirtualFileImpl)children.next();
+                if (child.isFile()) {
+                    paths.add(child.getPath().substring(trimPathLength));
+                    results.add(getHash(myHashes, child));
+                } else {
+                    q.add(child);
+                }
+            }
+        }
+        final List<Pair<String, String>> result = new ArrayList<>(paths.size());
+        try {
+            for (int i = 0, size = paths.size(); i < size; i++) {
+                result.add(Pair.of(results.get(i).get(), paths.get(i)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ServerException) {
+                throw (ServerException)cause;
+            }
+            throw new ServerException(cause.getMessage(), cause);
+        } finally {
+            for (Future<String> future : results) {
+                future.cancel(false);
+            }
+        }
+        return result;
+    }
+
+    private Future<String> getHash(final NavigableMap<String, ContentHash> myHashes, final VirtualFileImpl file)
+            throws ServerException {
+        final String path = file.getPath();
+        // Index is shared between users, check permissions before any hash sum, cached or not, is given to the caller.
+        if (!mountPoint.hasPermission(file, BasicPermissions.READ.value(), false)) {
+            throw new ServerException(String.format("Unable count hash sum of '%s'. Operation not permitted. ", path));
+        }
+        final BasicFileAttributes attributes = readAttributes(file);
+        final ContentHash cached = myHashes.get(path);
+        if (cached != null && cached.matches(attributes)) {
+            return CompletableFuture.completedFuture(cached.getHash());
+        }
+        return executor.submit(() -> {
+            final String hash;
+            try {
+                hash = mountPoint.newLockedByteSource(file).hash(Hashing.md5()).toString();
+            } catch (IOException e) {
+                throw new ServerException(String.format("Unable count hash sum of '%s'. %s", path, e.getMessage()), e);
+            }
+            // Save attributes that were read before counting of hash sum. If file was updated while we were counting
+            // hash sum then attributes don't match next time and hash sum is counted again.
+            myHashes.put(path, new ContentHash(attributes, hash));
+            return hash;
+        });
+    }
+
+    private BasicFileAttributes readAttributes(VirtualFileImpl file) throws ServerException {
+        try {
+            return Files.readAttributes(file.getIoFile().toPath(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new ServerException(String.format("Unable read attributes of '%s'. %s", file.getPath(), e.getMessage()), e);
+        }
+    }
+
+    private void update(VirtualFileEvent event) {
+        final ConcurrentNavigableMap<String, ContentHash> myHashes = hashes;
+        if (myHashes == null) {
+            return;
+        }
+        switch (event.getType()) {
+            case CONTENT_UPDATED:
+                myHashes.remove(event.getPath());
+                break;
+            case CREATED:
+            case DELETED:
+                removeTree(myHashes, event.getPath());
+                break;
+            case MOVED:
+                moveTree(myHashes, ((MoveEvent)event).getOldPath(), event.getPath());
+                break;
+            case RENAMED:
+                moveTree(myHashes, ((RenameEvent)event).getOldPath(), event.getPath());
+                break;
+        }
+    }
+
+    private static void removeTree(ConcurrentNavigableMap<String, ContentHash> myHashes, String path) {
+        myHashes.remove(path);
+        subTree(myHashes, path).clear();
+    }
+
+    private static void moveTree(ConcurrentNavigableMap<String, ContentHash> myHashes, String oldPath, String newPath) {
+        // Content of files is not changed when they are moved.
+        removeTree(myHashes, newPath);
+        final ContentHash hash = myHashes.remove(oldPath);
+        if (hash != null) {
+            myHashes.put(newPath, hash);
+        }
+        final ConcurrentNavigableMap<String, ContentHash> oldTree = subTree(myHashes, oldPath);
+        for (Map.Entry<String, ContentHash> entry : oldTree.entrySet()) {
+            myHashes.put(newPath + entry.getKey().substring(oldPath.length()), entry.getValue());
+        }
+        oldTree.clear();
+    }
+
+    private static ConcurrentNavigableMap<String, ContentHash> subTree(ConcurrentNavigableMap<String, ContentHash> myHashes,
+                                                                       String path) {
+        if ("/".equals(path)) {
+            return myHashes;
+        }
+        // All paths which start with 'path/'. Character '0' follows '/' in ASCII table.
+        return myHashes.subMap(path + '/', path + '0');
+    }
+
+    private ConcurrentNavigableMap<String, ContentHash> getHashes() {
+        ConcurrentNavigableMap<String, ContentHash> myHashes = hashes;
+        if (myHashes == null) {
+            synchronized (this) {
+                myHashes = hashes;
+                if (myHashes == null) {
+                    myHashes = load();
+                    mountPoint.getEventService().subscribe(vfsSubscriber);
+                    hashes = myHashes;
+                }
+            }
+        }
+        return myHashes;
+    }
+
+    /** Saves index and releases memory used by it. */
+    synchronized void reset() {
+        final ConcurrentNavigableMap<String, ContentHash> myHashes = hashes;
+        if (myHashes != null) {
+            mountPoint.getEventService().unsubscribe(vfsSubscriber);
+            hashes = null;
+            save(myHashes);
+        }
+    }
+
+    private ConcurrentNavigableMap<String, ContentHash> load() {
+        final ConcurrentNavigableMap<String, ContentHash> myHashes = new ConcurrentSkipListMap<>();
+        if (indexFile.exists()) {
+            final ContentHashSerializer serializer = new ContentHashSerializer();
+            try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+                if (dis.readInt() == INDEX_VERSION) {
+                    for (int i = 0, size = dis.readInt(); i < size; i++) {
+                        final String path = dis.readUTF();
+                        myHashes.put(path, serializer.read(dis));
+                    }
+                }
+            } catch (IOException e) {
+                // Not critical, hash sums are counted again.
+                LOG.warn(String.format("Unable load index of hash sums from '%s'. %s", indexFile, e.getMessage()));
+                myHashes.clear();
+            }
+        }
+        return myHashes;
+    }
+
+    private void save(NavigableMap<String, ContentHash> myHashes) {
+        if (myHashes.isEmpty()) {
+            if (indexFile.exists() && !indexFile.delete()) {
+                LOG.warn("Unable delete index of hash sums '{}'", indexFile);
+            }
+            return;
+        }
+        indexFile.getParentFile().mkdirs(); // Ignore result of 'mkdirs' here, we get FileNotFoundException at the next line.
+        final ContentHashSerializer serializer = new ContentHashSerializer();
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            final List<Map.Entry<String, ContentHash>> entries = new ArrayList<>(myHashes.entrySet());
+            dos.writeInt(INDEX_VERSION);
+            dos.writeInt(entries.size());
+            for (Map.Entry<String, ContentHash> entry : entries) {
+                dos.writeUTF(entry.getKey());
+                serializer.write(dos, entry.getValue());
+            }
+        } catch (IOException e) {
+            LOG.warn(String.format("Unable save index of hash sums to '%s'. %s", indexFile, e.getMessage()));
+            indexFile.delete();
+        }
+    }
+}
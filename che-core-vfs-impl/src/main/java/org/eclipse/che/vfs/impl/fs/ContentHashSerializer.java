@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Serializer for hash sums of files.
+ *
+ * @see ContentHash
+ */
+public class ContentHashSerializer implements DataSerializer<ContentHash> {
+    @Override
+    public void write(DataOutput output, ContentHash contentHash) throws IOException {
+        output.writeLong(contentHash.getLastModified());
+        output.writeLong(contentHash.getLength());
+        output.writeUTF(contentHash.getFileKey());
+        output.writeUTF(contentHash.getHash());
+    }
+
+    @Override
+    public ContentHash read(DataInput input) throws IOException {
+        final long lastModified = input.readLong();
+        final long length = input.readLong();
+        final String fileKey = input.readUTF();
+        final String hash = input.readUTF();
+        return new ContentHash(lastModified, length, fileKey, hash);
+    }
+}
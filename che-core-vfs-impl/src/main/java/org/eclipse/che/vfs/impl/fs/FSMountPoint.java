@@ -11,10 +11,16 @@
 package org.eclipse.che.vfs.impl.fs;
 
 import com.google.common.annotations.Beta;
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hashing;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
 import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import org.apache.commons.codec.binary.Base64;
 import org.eclipse.che.api.core.ConflictException;
@@ -22,17 +28,16 @@ import org.eclipse.che.api.core.ForbiddenException;
 import org.eclipse.che.api.core.NotFoundException;
 import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.core.notification.EventService;
-import org.eclipse.che.api.core.util.ValueHolder;
+import org.eclipse.che.api.vfs.server.ContentChannelSource;
 import org.eclipse.che.api.vfs.server.ContentStream;
+import org.eclipse.che.api.vfs.server.HierarchicalPathLockFactory;
 import org.eclipse.che.api.vfs.server.LazyIterator;
 import org.eclipse.che.api.vfs.server.MountPoint;
 import org.eclipse.che.api.vfs.server.Path;
-import org.eclipse.che.api.vfs.server.PathLockFactory;
 import org.eclipse.che.api.vfs.server.SystemPathsFilter;
 import org.eclipse.che.api.vfs.server.VirtualFile;
 import org.eclipse.che.api.vfs.server.VirtualFileFilter;
 import org.eclipse.che.api.vfs.server.VirtualFileSystemUserContext;
-import org.eclipse.che.api.vfs.server.VirtualFileVisitor;
 import org.eclipse.che.api.vfs.server.observation.CreateEvent;
 import org.eclipse.che.api.vfs.server.observation.DeleteEvent;
 import org.eclipse.che.api.vfs.server.observation.MoveEvent;
@@ -43,6 +48,8 @@ import org.eclipse.che.api.vfs.server.observation.UpdatePropertiesEvent;
 import org.eclipse.che.api.vfs.server.search.SearcherProvider;
 import org.eclipse.che.api.vfs.server.util.DeleteOnCloseFileInputStream;
 import org.eclipse.che.api.vfs.server.util.NotClosableInputStream;
+import org.eclipse.che.api.vfs.server.util.BlockingPipe;
+import org.eclipse.che.api.vfs.server.util.ParallelZipOutputStream;
 import org.eclipse.che.api.vfs.server.util.ZipContent;
 import org.eclipse.che.api.vfs.shared.PropertyFilter;
 import org.eclipse.che.api.vfs.shared.dto.AccessControlEntry;
@@ -51,9 +58,7 @@ import org.eclipse.che.api.vfs.shared.dto.Property;
 import org.eclipse.che.api.vfs.shared.dto.VirtualFileSystemInfo.BasicPermissions;
 import org.eclipse.che.commons.lang.NameGenerator;
 import org.eclipse.che.commons.lang.Pair;
-import org.eclipse.che.commons.lang.cache.Cache;
-import org.eclipse.che.commons.lang.cache.LoadingValueSLRUCache;
-import org.eclipse.che.commons.lang.cache.SynchronizedCache;
+import org.eclipse.che.commons.lang.concurrent.ThreadLocalPropagateContext;
 import org.eclipse.che.commons.lang.ws.rs.ExtMediaType;
 import org.eclipse.che.dto.server.DtoFactory;
 import org.slf4j.Logger;
@@ -68,9 +73,16 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -81,7 +93,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Strings.nullToEmpty;
 import static java.util.Collections.singletonList;
@@ -102,24 +116,53 @@ public class FSMountPoint implements MountPoint {
 
     /*
      * Configuration parameters for caches.
-     * Caches are split to the few partitions to reduce lock contention.
-     * Use SLRU cache algorithm here.
-     * This is required some additional parameters, e.g. protected and probationary size.
-     * See details about SLRU algorithm: http://en.wikipedia.org/wiki/Cache_algorithms#Segmented_LRU
+     * Max number of cached lock tokens, max weight (approximate size in bytes) of cached metadata and max number of entries in
+     * cached listings of folders. All may be overridden with system properties.
      */
-    private static final int CACHE_PARTITIONS_NUM        = 1 << 3;
-    private static final int CACHE_PROTECTED_SIZE        = 100;
-    private static final int CACHE_PROBATIONARY_SIZE     = 200;
-    private static final int MASK                        = CACHE_PARTITIONS_NUM - 1;
-    private static final int PARTITION_PROTECTED_SIZE    = CACHE_PROTECTED_SIZE / CACHE_PARTITIONS_NUM;
-    private static final int PARTITION_PROBATIONARY_SIZE = CACHE_PROBATIONARY_SIZE / CACHE_PARTITIONS_NUM;
+    static final String LOCK_TOKENS_CACHE_SIZE_PROPERTY = "org.eclipse.che.vfs.lock_tokens_cache_size";
+    static final String METADATA_CACHE_WEIGHT_PROPERTY  = "org.eclipse.che.vfs.metadata_cache_weight";
+    static final String LISTING_CACHE_WEIGHT_PROPERTY   = "org.eclipse.che.vfs.listing_cache_weight";
+
+    private static final long LOCK_TOKENS_CACHE_SIZE  = Long.getLong(LOCK_TOKENS_CACHE_SIZE_PROPERTY, 10000);
+    private static final long METADATA_CACHE_WEIGHT   = Long.getLong(METADATA_CACHE_WEIGHT_PROPERTY, 4 * 1024 * 1024); // 4M
+    /** Max total number of entries in cached listings of folders. */
+    private static final long LISTING_CACHE_WEIGHT    = Long.getLong(LISTING_CACHE_WEIGHT_PROPERTY, 100000);
+    private static final int  CACHE_CONCURRENCY_LEVEL = 8;
+    /**
+     * Listing of folder is cached only if it is read later than this interval after the last modification of folder.
+     * Otherwise the next modification might not change modification date of folder because of low resolution of timestamps
+     * of file system.
+     */
+    private static final long LISTING_CACHE_RACY_INTERVAL = 2000;
     // end cache parameters
 
     private static final int MAX_BUFFER_SIZE  = 200 * 1024; // 200k
     private static final int COPY_BUFFER_SIZE = 8 * 1024; // 8k
 
-    private static final long LOCK_FILE_TIMEOUT     = 60000; // 60 seconds
-    private static final int  FILE_LOCK_MAX_THREADS = 1024;
+    private static final long LOCK_FILE_TIMEOUT = 60000; // 60 seconds
+
+    /** Max number of bytes of file that are sent to the client while file is locked for reading. */
+    private static final long TRANSFER_CHUNK_SIZE = 1024 * 1024; // 1M
+    /** Max number of bytes of file that are read to the buffer of zip export while file is locked for reading. */
+    private static final int  READ_CHUNK_SIZE     = 64 * 1024; // 64k
+
+    /* Configuration of zip export. */
+    private static final int  ZIP_PIPE_CHUNK_SIZE     = 8 * 1024; // 8k
+    private static final int  ZIP_PIPE_MAX_CHUNKS     = 8;
+    /** Max time that thread which writes zip waits for the client to read the next chunk of archive. */
+    private static final long ZIP_PIPE_WRITE_TIMEOUT  = 120000; // 2 minutes
+    /** Max number of files that may be read and compressed in advance for one export. */
+    private static final int  ZIP_MAX_PENDING_ENTRIES = 64;
+
+    /** Writes exported zip archives to the pipes, one thread per export. */
+    private static final ExecutorService ZIP_EXPORT_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("FSMountPoint-ZipExport-%d").setDaemon(true).build());
+    // end zip export parameters
+
+    /** Reads and compresses files for zip exports and counts hash sums of files, shared by all mount points. */
+    private static final ExecutorService FILE_WORKER_EXECUTOR = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("FSMountPoint-FileWorker-%d").setDaemon(true).build());
 
     static final String SERVICE_DIR = ".vfs";
 
@@ -165,20 +208,16 @@ public class FSMountPoint implements MountPoint {
 
     private static final FileLock NO_LOCK = new FileLock("no_lock", 0);
 
-    private class FileLockCache extends LoadingValueSLRUCache<Path, FileLock> {
-        FileLockCache() {
-            super(PARTITION_PROTECTED_SIZE, PARTITION_PROBATIONARY_SIZE);
-        }
-
+    private class FileLockLoader extends CacheLoader<Path, FileLock> {
         @Override
-        protected FileLock loadValue(Path key) {
+        public FileLock load(Path key) {
             DataInputStream dis = null;
 
             try {
                 final Path lockFilePath = getLockFilePath(key);
                 final java.io.File lockIoFile = new java.io.File(ioRoot, toIoPath(lockFilePath));
                 if (lockIoFile.exists()) {
-                    final PathLockFactory.PathLock lockFilePathLock =
+                    final HierarchicalPathLockFactory.PathLock lockFilePathLock =
                             pathLockFactory.getLock(lockFilePath, false).acquire(LOCK_FILE_TIMEOUT);
                     try {
                         dis = new DataInputStream(new BufferedInputStream(new FileInputStream(lockIoFile)));
@@ -199,19 +238,15 @@ public class FSMountPoint implements MountPoint {
     }
 
 
-    private class FileMetadataCache extends LoadingValueSLRUCache<Path, Map<String, String[]>> {
-        FileMetadataCache() {
-            super(PARTITION_PROTECTED_SIZE, PARTITION_PROBATIONARY_SIZE);
-        }
-
+    private class FileMetadataLoader extends CacheLoader<Path, Map<String, String[]>> {
         @Override
-        protected Map<String, String[]> loadValue(Path key) {
+        public Map<String, String[]> load(Path key) {
             DataInputStream dis = null;
             try {
                 final Path metadataFilePath = getMetadataFilePath(key);
                 java.io.File metadataIoFile = new java.io.File(ioRoot, toIoPath(metadataFilePath));
                 if (metadataIoFile.exists()) {
-                    final PathLockFactory.PathLock metadataFilePathLock =
+                    final HierarchicalPathLockFactory.PathLock metadataFilePathLock =
                             pathLockFactory.getLock(metadataFilePath, false).acquire(LOCK_FILE_TIMEOUT);
                     try {
                         dis = new DataInputStream(new BufferedInputStream(new FileInputStream(metadataIoFile)));
@@ -231,6 +266,43 @@ public class FSMountPoint implements MountPoint {
         }
     }
 
+    /** Approximate size of cached metadata in bytes. */
+    private static class FileMetadataWeigher implements Weigher<Path, Map<String, String[]>> {
+        @Override
+        public int weigh(Path key, Map<String, String[]> metadata) {
+            int weight = 64 + 2 * key.toString().length();
+            for (Map.Entry<String, String[]> entry : metadata.entrySet()) {
+                weight += 32 + 2 * entry.getKey().length();
+                for (String value : entry.getValue()) {
+                    weight += 16 + (value == null ? 0 : 2 * value.length());
+                }
+            }
+            return weight;
+        }
+    }
+
+    /** Names and types of files in folder. Cached listing is valid while modification date of folder is not changed. */
+    private static class DirectoryListing {
+        final long                  lastModified;
+        final long                  readTime;
+        final String[]              names;
+        final int[]                 types;
+        /** Attributes of files, available only in listing that is just read from file system, never cached. */
+        final BasicFileAttributes[] attributes;
+
+        DirectoryListing(long lastModified, long readTime, String[] names, int[] types, BasicFileAttributes[] attributes) {
+            this.lastModified = lastModified;
+            this.readTime = readTime;
+            this.names = names;
+            this.types = types;
+            this.attributes = attributes;
+        }
+
+        boolean isValid(long folderLastModified) {
+            return lastModified == folderLastModified && readTime - lastModified > LISTING_CACHE_RACY_INTERVAL;
+        }
+    }
+
 
     private final String           workspaceId;
     private final java.io.File     ioRoot;
@@ -239,20 +311,30 @@ public class FSMountPoint implements MountPoint {
     private final SystemPathsFilter systemFilter;
 
     /* NOTE -- This does not related to virtual file system locking in any kind. -- */
-    private final PathLockFactory pathLockFactory;
+    private final HierarchicalPathLockFactory pathLockFactory;
 
     private final VirtualFileImpl root;
 
     /* ----- Virtual file system lock feature. ----- */
-    private final FileLockSerializer      locksSerializer;
-    private final Cache<Path, FileLock>[] lockTokensCache;
+    private final FileLockSerializer           locksSerializer;
+    private final LoadingCache<Path, FileLock> lockTokensCache;
 
     /* ----- File metadata. ----- */
-    private final FileMetadataSerializer               metadataSerializer;
-    private final Cache<Path, Map<String, String[]>>[] metadataCache;
+    private final FileMetadataSerializer                      metadataSerializer;
+    private final LoadingCache<Path, Map<String, String[]>> metadataCache;
+
+    /* ----- Listings of folders. ----- */
+    private final Cache<Path, DirectoryListing> listingCache;
+    /**
+     * Counter of deletions and updates of files made through this mount point. Types and attributes of files cached by
+     * instances of {@link VirtualFileImpl} are dropped when counter is changed.
+     */
+    private final AtomicLong                    modifications = new AtomicLong();
 
     private final VirtualFileSystemUserContext userContext;
 
+    private final ContentHashIndex contentHashIndex;
+
     /**
      * ACL that returned for any fs entry.
      */
@@ -274,19 +356,30 @@ public class FSMountPoint implements MountPoint {
         this.systemFilter = systemFilter;
 
         root = new VirtualFileImpl(ioRoot, Path.ROOT, pathToId(Path.ROOT), this);
-        pathLockFactory = new PathLockFactory(FILE_LOCK_MAX_THREADS);
+        pathLockFactory = new HierarchicalPathLockFactory();
 
         locksSerializer = new FileLockSerializer();
-        lockTokensCache = new Cache[CACHE_PARTITIONS_NUM];
+        lockTokensCache = CacheBuilder.newBuilder()
+                                      .concurrencyLevel(CACHE_CONCURRENCY_LEVEL)
+                                      .maximumSize(LOCK_TOKENS_CACHE_SIZE)
+                                      .recordStats()
+                                      .build(new FileLockLoader());
 
         metadataSerializer = new FileMetadataSerializer();
-        metadataCache = new Cache[CACHE_PARTITIONS_NUM];
-
-        for (int i = 0; i < CACHE_PARTITIONS_NUM; i++) {
-            lockTokensCache[i] = new SynchronizedCache(new FileLockCache());
-            metadataCache[i] = new SynchronizedCache(new FileMetadataCache());
-        }
+        metadataCache = CacheBuilder.newBuilder()
+                                    .concurrencyLevel(CACHE_CONCURRENCY_LEVEL)
+                                    .maximumWeight(METADATA_CACHE_WEIGHT)
+                                    .weigher(new FileMetadataWeigher())
+                                    .recordStats()
+                                    .build(new FileMetadataLoader());
+        listingCache = CacheBuilder.newBuilder()
+                                   .concurrencyLevel(CACHE_CONCURRENCY_LEVEL)
+                                   .maximumWeight(LISTING_CACHE_WEIGHT)
+                                   .weigher((Path key, DirectoryListing listing) -> 1 + listing.names.length)
+                                   .recordStats()
+                                   .build();
         userContext = VirtualFileSystemUserContext.newInstance();
+        contentHashIndex = new ContentHashIndex(this, FILE_WORKER_EXECUTOR);
 
         List<AccessControlEntry> acl = new ArrayList<>(2);
         acl.add(newDto(AccessControlEntry.class)
@@ -353,13 +446,30 @@ public class FSMountPoint implements MountPoint {
 
     /** Call after unmount this MountPoint. Clear all caches. */
     public void reset() {
-        clearMetadataCache();
-        clearLockTokensCache();
+        metadataCache.invalidateAll();
+        lockTokensCache.invalidateAll();
+        listingCache.invalidateAll();
+        contentHashIndex.reset();
+    }
+
+    /** Hit, miss and eviction counters of cache of lock tokens. */
+    CacheStats getLockTokensCacheStats() {
+        return lockTokensCache.stats();
     }
 
-    // Used in tests. Need this to check state of PathLockFactory.
+    /** Hit, miss and eviction counters of cache of metadata. */
+    CacheStats getMetadataCacheStats() {
+        return metadataCache.stats();
+    }
+
+    /** Hit, miss and eviction counters of cache of listings of folders. */
+    CacheStats getListingCacheStats() {
+        return listingCache.stats();
+    }
+
+    // Used in tests. Need this to check state of HierarchicalPathLockFactory.
     // All locks MUST be released at the end of request lifecycle.
-    PathLockFactory getPathLockFactory() {
+    HierarchicalPathLockFactory getPathLockFactory() {
         return pathLockFactory;
     }
 
@@ -455,19 +565,68 @@ public class FSMountPoint implements MountPoint {
 
 
     private List<VirtualFile> doGetChildren(VirtualFileImpl virtualFile, java.io.FilenameFilter filter) throws ServerException {
-        final String[] names = virtualFile.getIoFile().list(filter);
-        if (names == null) {
-            // Something wrong. According to java docs may be null only if i/o error occurs.
-            throw new ServerException(String.format("Unable get children '%s'. ", virtualFile.getPath()));
-        }
-        final List<VirtualFile> children = new ArrayList<>(names.length);
-        for (String name : names) {
-            final Path childPath = virtualFile.getVirtualFilePath().newPath(name);
-            children.add(new VirtualFileImpl(new java.io.File(ioRoot, toIoPath(childPath)), childPath, pathToId(childPath), this));
+        final DirectoryListing listing = getDirectoryListing(virtualFile);
+        final java.io.File ioFile = virtualFile.getIoFile();
+        final List<VirtualFile> children = new ArrayList<>(listing.names.length);
+        for (int i = 0, length = listing.names.length; i < length; i++) {
+            final String name = listing.names[i];
+            if (filter.accept(ioFile, name)) {
+                final Path childPath = virtualFile.getVirtualFilePath().newPath(name);
+                children.add(new VirtualFileImpl(new java.io.File(ioRoot, toIoPath(childPath)), childPath, pathToId(childPath), this,
+                                                 listing.types[i], listing.attributes == null ? null : listing.attributes[i]));
+            }
         }
         return children;
     }
 
+    /**
+     * Gets names and types of files in folder. Cached listing is used if modification date of folder is not changed since
+     * listing was read. Otherwise folder is read with NIO, attributes of every file are read in the same pass.
+     */
+    private DirectoryListing getDirectoryListing(VirtualFileImpl virtualFile) throws ServerException {
+        final java.nio.file.Path dir = virtualFile.getIoFile().toPath();
+        try {
+            final long lastModified = Files.getLastModifiedTime(dir).toMillis();
+            final DirectoryListing cached = listingCache.getIfPresent(virtualFile.getVirtualFilePath());
+            if (cached != null && cached.isValid(lastModified)) {
+                return cached;
+            }
+            final long readTime = System.currentTimeMillis();
+            final List<String> names = new ArrayList<>();
+            final List<BasicFileAttributes> attributes = new ArrayList<>();
+            try (DirectoryStream<java.nio.file.Path> children = Files.newDirectoryStream(dir)) {
+                for (java.nio.file.Path child : children) {
+                    names.add(child.getFileName().toString());
+                    BasicFileAttributes childAttributes;
+                    try {
+                        childAttributes = Files.readAttributes(child, BasicFileAttributes.class);
+                    } catch (IOException e) {
+                        // Removed after listing or broken symbolic link. Type is unknown, java.io.File decides later as before.
+                        childAttributes = null;
+                    }
+                    attributes.add(childAttributes);
+                }
+            }
+            final int size = names.size();
+            final int[] types = new int[size];
+            for (int i = 0; i < size; i++) {
+                final BasicFileAttributes childAttributes = attributes.get(i);
+                types[i] = childAttributes == null ? VirtualFileImpl.TYPE_UNKNOWN : VirtualFileImpl.typeOf(childAttributes);
+            }
+            final String[] namesArray = names.toArray(new String[size]);
+            final DirectoryListing listing = new DirectoryListing(lastModified, readTime, namesArray, types,
+                                                                  attributes.toArray(new BasicFileAttributes[size]));
+            if (listing.isValid(lastModified)) {
+                listingCache.put(virtualFile.getVirtualFilePath(), new DirectoryListing(lastModified, readTime, namesArray, types, null));
+            }
+            return listing;
+        } catch (IOException e) {
+            String msg = String.format("Unable get children '%s'. ", virtualFile.getPath());
+            LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
+            throw new ServerException(msg);
+        }
+    }
+
 
     VirtualFileImpl createFile(VirtualFileImpl parent, String name, InputStream content)
             throws ForbiddenException, ConflictException, ServerException {
@@ -661,6 +820,10 @@ public class FSMountPoint implements MountPoint {
                 nioCopy(sourceMetadataFile, destinationMetadataFile, filter);
             }
             nioCopy(source.getIoFile(), destination.getIoFile(), filter);
+            // Destination may be cached as not existed item, e.g. without metadata.
+            invalidateTree(lockTokensCache, destination.getVirtualFilePath());
+            invalidateTree(metadataCache, destination.getVirtualFilePath());
+            invalidateTree(listingCache, destination.getVirtualFilePath());
 
             if (searcherProvider != null) {
                 try {
@@ -820,7 +983,8 @@ public class FSMountPoint implements MountPoint {
             throw new ForbiddenException(String.format("Unable get content. Item '%s' is not a file. ", virtualFile.getPath()));
         }
 
-        final PathLockFactory.PathLock lock = pathLockFactory.getLock(virtualFile.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
+        final HierarchicalPathLockFactory.PathLock lock =
+                pathLockFactory.getLock(virtualFile.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
         try {
             final java.io.File ioFile = virtualFile.getIoFile();
             FileInputStream fIn = null;
@@ -841,11 +1005,10 @@ public class FSMountPoint implements MountPoint {
                                              virtualFile.getMediaType(), buff.length, new Date(ioFile.lastModified()));
                 }
 
-                // Otherwise copy this file to be able release the file lock before leave this method.
-                final java.io.File f = java.io.File.createTempFile("spool_file", null);
-                nioCopy(ioFile, f, null);
-                return new ContentStream(virtualFile.getName(), new DeleteOnCloseFileInputStream(f),
-                                         virtualFile.getMediaType(), fLength, new Date(ioFile.lastModified()));
+                // Otherwise read this file only when content is needed.
+                final long lastModified = ioFile.lastModified();
+                return new ContentStream(virtualFile.getName(), new FileChannelSource(virtualFile, fLength, lastModified),
+                                         virtualFile.getMediaType(), fLength, new Date(lastModified));
             } catch (IOException e) {
                 String msg = String.format("Unable get content of '%s'. ", virtualFile.getPath());
                 LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
@@ -888,7 +1051,8 @@ public class FSMountPoint implements MountPoint {
     }
 
     private void doUpdateContent(VirtualFileImpl virtualFile, InputStream content) throws ServerException {
-        final PathLockFactory.PathLock lock = pathLockFactory.getLock(virtualFile.getVirtualFilePath(), true).acquire(LOCK_FILE_TIMEOUT);
+        final HierarchicalPathLockFactory.PathLock lock =
+                pathLockFactory.getLock(virtualFile.getVirtualFilePath(), true).acquire(LOCK_FILE_TIMEOUT);
         try {
             _doUpdateContent(virtualFile, content);
         } finally {
@@ -912,6 +1076,8 @@ public class FSMountPoint implements MountPoint {
             throw new ServerException(msg);
         } finally {
             closeQuietly(fOut);
+            virtualFile.invalidateAttributes();
+            modifications.incrementAndGet();
         }
     }
 
@@ -965,12 +1131,16 @@ public class FSMountPoint implements MountPoint {
         }
 
         // clear caches
-        clearLockTokensCache();
-        clearMetadataCache();
+        invalidateTree(lockTokensCache, virtualFile.getVirtualFilePath());
+        invalidateTree(metadataCache, virtualFile.getVirtualFilePath());
+        invalidateTree(listingCache, virtualFile.getVirtualFilePath());
 
         final String path = virtualFile.getPath();
         boolean isFile = virtualFile.isFile();
-        if (!deleteRecursive(virtualFile.getIoFile())) {
+        final boolean deleted = deleteRecursive(virtualFile.getIoFile());
+        // Some files may be deleted even if operation failed.
+        modifications.incrementAndGet();
+        if (!deleted) {
             LOG.error("Unable delete file {}", virtualFile.getIoFile());
             throw new ServerException(String.format("Unable delete item '%s'. ", path));
         }
@@ -1003,80 +1173,279 @@ public class FSMountPoint implements MountPoint {
     }
 
 
-    private void clearLockTokensCache() {
-        for (Cache<Path, FileLock> cache : lockTokensCache) {
-            cache.clear();
+    /** Gets lock of file from cache, causes read from file if need. */
+    private FileLock getCachedLock(Path path) {
+        try {
+            return lockTokensCache.getUnchecked(path);
+        } catch (UncheckedExecutionException e) {
+            throw (RuntimeException)e.getCause();
+        }
+    }
+
+    /** Gets metadata of file from cache, causes read from file if need. */
+    private Map<String, String[]> getCachedMetadata(Path path) {
+        try {
+            return metadataCache.getUnchecked(path);
+        } catch (UncheckedExecutionException e) {
+            throw (RuntimeException)e.getCause();
         }
     }
 
+    /** Gets counter of modifications of files, see {@link VirtualFileImpl}. */
+    long getModificationCount() {
+        return modifications.get();
+    }
 
-    private void clearMetadataCache() {
-        for (Cache<Path, Map<String, String[]>> cache : metadataCache) {
-            cache.clear();
+    /** Removes from {@code cache} entries for {@code path} and all its children. */
+    private static void invalidateTree(Cache<Path, ?> cache, Path path) {
+        if (path.isRoot()) {
+            cache.invalidateAll();
+            return;
+        }
+        cache.invalidate(path);
+        for (Iterator<Path> iterator = cache.asMap().keySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().isChild(path)) {
+                iterator.remove();
+            }
         }
     }
 
 
-    ContentStream zip(VirtualFileImpl virtualFile, VirtualFileFilter filter) throws ForbiddenException, ServerException {
+    ContentStream zip(final VirtualFileImpl virtualFile, final VirtualFileFilter filter) throws ForbiddenException, ServerException {
         if (!virtualFile.isFolder()) {
             throw new ForbiddenException(String.format("Unable export to zip. Item '%s' is not a folder. ", virtualFile.getPath()));
         }
-        java.io.File zipFile = null;
-        FileOutputStream out = null;
-        try {
-            zipFile = java.io.File.createTempFile("export", ".zip");
-            out = new FileOutputStream(zipFile);
-            final ZipOutputStream zipOut = new ZipOutputStream(out);
-            final LinkedList<VirtualFile> q = new LinkedList<>();
-            q.add(virtualFile);
-            final int zipEntryNameTrim = virtualFile.getVirtualFilePath().length();
-            final byte[] buff = new byte[COPY_BUFFER_SIZE];
-            while (!q.isEmpty()) {
-                for (VirtualFile current : doGetChildren((VirtualFileImpl)q.pop(), SERVICE_GIT_DIR_FILTER)) {
-                    // (1) Check filter.
-                    // (2) Check permission directly for current file only.
-                    // We already know parent accessible for current user otherwise we should not be here.
-                    // Ignore item if don't have permission to read it.
-                    if (filter.accept(current) && hasPermission((VirtualFileImpl)current, BasicPermissions.READ.value(), false)) {
-                        final String zipEntryName = current.getVirtualFilePath().subPath(zipEntryNameTrim).toString().substring(1);
-                        if (current.isFile()) {
-                            final ZipEntry zipEntry = new ZipEntry(zipEntryName);
-                            zipOut.putNextEntry(zipEntry);
-                            InputStream in = null;
-                            final PathLockFactory.PathLock lock =
-                                    pathLockFactory.getLock(current.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
+        // Zip is written to the pipe by separate thread while caller reads it.
+        // Failure of this thread is reported to the caller as IOException instead of truncated archive.
+        final BlockingPipe zipPipe = new BlockingPipe(ZIP_PIPE_CHUNK_SIZE, ZIP_PIPE_MAX_CHUNKS, ZIP_PIPE_WRITE_TIMEOUT);
+        ZIP_EXPORT_EXECUTOR.execute(ThreadLocalPropagateContext.wrap(() -> {
+            final ParallelZipOutputStream zipOut =
+                    new ParallelZipOutputStream(zipPipe.getOutputStream(), FILE_WORKER_EXECUTOR, ZIP_MAX_PENDING_ENTRIES,
+                                                MAX_BUFFER_SIZE);
+            Throwable failure = null;
+            try {
+                doZip(virtualFile, filter, zipOut);
+                zipOut.finish();
+                zipPipe.getOutputStream().close();
+            } catch (IOException | ServerException | RuntimeException e) {
+                failure = e;
+                LOG.debug(String.format("Unable export '%s' to zip. %s", virtualFile.getPath(), e.getMessage()), e);
+            } catch (Error e) {
+                failure = e;
+                throw e;
+            } finally {
+                if (failure != null) {
+                    zipOut.abort();
+                    zipPipe.fail(failure);
+                }
+            }
+        }));
+        return new ContentStream(virtualFile.getName() + ".zip", zipPipe.getInputStream(), ExtMediaType.APPLICATION_ZIP, new Date());
+    }
+
+    // Runs in separate thread, see zip(VirtualFileImpl, VirtualFileFilter).
+    private void doZip(VirtualFileImpl virtualFile, VirtualFileFilter filter, ParallelZipOutputStream zipOut)
+            throws IOException, ServerException {
+        final LinkedList<VirtualFile> q = new LinkedList<>();
+        q.add(virtualFile);
+        final int zipEntryNameTrim = virtualFile.getVirtualFilePath().length();
+        final long time = virtualFile.getLastModificationDate();
+        while (!q.isEmpty()) {
+            for (VirtualFile current : doGetChildren((VirtualFileImpl)q.pop(), SERVICE_GIT_DIR_FILTER)) {
+                // (1) Check filter.
+                // (2) Check permission directly for current file only.
+                // We already know parent accessible for current user otherwise we should not be here.
+                // Ignore item if don't have permission to read it.
+                if (filter.accept(current) && hasPermission((VirtualFileImpl)current, BasicPermissions.READ.value(), false)) {
+                    final String zipEntryName = current.getVirtualFilePath().subPath(zipEntryNameTrim).toString().substring(1);
+                    if (current.isFile()) {
+                        zipOut.putFile(zipEntryName, time, current.getLength(), newChunkLockedByteSource((VirtualFileImpl)current));
+                    } else if (current.isFolder()) {
+                        zipOut.putFolder(zipEntryName + '/', 0);
+                        q.add(current);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Content of big file that is read when it is sent to the client. File is locked for reading only while the next chunk
+     * of it is transferred, so slow client doesn't block updates of file for a long time. Content is not sent if file is
+     * changed after ContentStream was created.
+     */
+    private class FileChannelSource implements ContentChannelSource {
+        private final VirtualFileImpl virtualFile;
+        private final long            length;
+        private final long            lastModified;
+
+        FileChannelSource(VirtualFileImpl virtualFile, long length, long lastModified) {
+            this.virtualFile = virtualFile;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            final HierarchicalPathLockFactory.PathLock lock =
+                    pathLockFactory.getLock(virtualFile.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
+            try {
+                checkNotModified();
+                // Copy this file to be able release the file lock before leave this method.
+                final java.io.File f = java.io.File.createTempFile("spool_file", null);
+                try {
+                    nioCopy(virtualFile.getIoFile(), f, null);
+                } catch (IOException e) {
+                    f.delete();
+                    throw e;
+                }
+                return new DeleteOnCloseFileInputStream(f);
+            } finally {
+                lock.release();
+            }
+        }
+
+        @Override
+        public void transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            try (FileChannel channel = FileChannel.open(virtualFile.getIoFile().toPath(), StandardOpenOption.READ)) {
+                while (count > 0) {
+                    final HierarchicalPathLockFactory.PathLock lock =
+                            pathLockFactory.getLock(virtualFile.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
+                    try {
+                        checkNotModified();
+                        final long transferred = channel.transferTo(position, Math.min(count, TRANSFER_CHUNK_SIZE), target);
+                        if (transferred <= 0) {
+                            throw new IOException(String.format("Unexpected end of file '%s'. ", virtualFile.getPath()));
+                        }
+                        position += transferred;
+                        count -= transferred;
+                    } finally {
+                        lock.release();
+                    }
+                }
+            }
+        }
+
+        private void checkNotModified() throws IOException {
+            FSMountPoint.checkNotModified(virtualFile, length, lastModified);
+        }
+    }
+
+    private static void checkNotModified(VirtualFileImpl virtualFile, long length, long lastModified) throws IOException {
+        final java.io.File ioFile = virtualFile.getIoFile();
+        if (ioFile.length() != length || ioFile.lastModified() != lastModified) {
+            throw new IOException(String.format("Content of file '%s' was changed. ", virtualFile.getPath()));
+        }
+    }
+
+    /** Content of file. File is locked for reading while stream that is opened with {@link ByteSource#openStream()} is open. */
+    ByteSource newLockedByteSource(final VirtualFileImpl virtualFile) {
+        return new ByteSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                final HierarchicalPathLockFactory.PathLock lock =
+                        pathLockFactory.getLock(virtualFile.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
+                try {
+                    return new FilterInputStream(new FileInputStream(virtualFile.getIoFile())) {
+                        private boolean closed;
+
+                        @Override
+                        public void close() throws IOException {
+                            if (closed) {
+                                return;
+                            }
+                            closed = true;
                             try {
-                                zipEntry.setTime(virtualFile.getLastModificationDate());
-                                in = new FileInputStream(((VirtualFileImpl)current).getIoFile());
-                                int r;
-                                while ((r = in.read(buff)) != -1) {
-                                    zipOut.write(buff, 0, r);
-                                }
+                                super.close();
                             } finally {
-                                closeQuietly(in);
                                 lock.release();
                             }
-                            zipOut.closeEntry();
-                        } else if (current.isFolder()) {
-                            final ZipEntry zipEntry = new ZipEntry(zipEntryName + '/');
-                            zipEntry.setTime(0);
-                            zipOut.putNextEntry(zipEntry);
-                            q.add(current);
-                            zipOut.closeEntry();
                         }
-                    }
+                    };
+                } catch (IOException | RuntimeException e) {
+                    lock.release();
+                    throw e;
                 }
             }
-            closeQuietly(zipOut);
-            final String name = virtualFile.getName() + ".zip";
-            return new ContentStream(name, new DeleteOnCloseFileInputStream(zipFile), ExtMediaType.APPLICATION_ZIP, zipFile.length(), new Date());
-        } catch (IOException | RuntimeException ioe) {
-            if (zipFile != null) {
-                zipFile.delete();
+        };
+    }
+
+    /**
+     * Content of file that may be read slowly, e.g. file that is added to zip which is sent to the client. File is locked for
+     * reading only while the next chunk of it is read to the buffer of stream, so slow reader doesn't block updates of file
+     * and its parents for a long time. Stream throws {@code IOException} if file is changed after the stream was opened.
+     */
+    ByteSource newChunkLockedByteSource(final VirtualFileImpl virtualFile) {
+        return new ByteSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                return new ChunkLockedInputStream(virtualFile);
+            }
+        };
+    }
+
+    private class ChunkLockedInputStream extends InputStream {
+        private final VirtualFileImpl virtualFile;
+        private final FileInputStream in;
+        private final long            length;
+        private final long            lastModified;
+        private final byte[]          buffer;
+        private int                   position;
+        private int                   count;
+
+        ChunkLockedInputStream(VirtualFileImpl virtualFile) throws IOException {
+            this.virtualFile = virtualFile;
+            final HierarchicalPathLockFactory.PathLock lock =
+                    pathLockFactory.getLock(virtualFile.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
+            try {
+                final java.io.File ioFile = virtualFile.getIoFile();
+                length = ioFile.length();
+                lastModified = ioFile.lastModified();
+                in = new FileInputStream(ioFile);
+            } finally {
+                lock.release();
             }
-            throw new ServerException(ioe.getMessage(), ioe);
-        } finally {
-            closeQuietly(out);
+            buffer = new byte[(int)Math.min(Math.max(length, 1), READ_CHUNK_SIZE)];
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == count && !fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position == count && !fill()) {
+                return -1;
+            }
+            final int n = Math.min(len, count - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private boolean fill() throws IOException {
+            final HierarchicalPathLockFactory.PathLock lock =
+                    pathLockFactory.getLock(virtualFile.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
+            try {
+                checkNotModified(virtualFile, length, lastModified);
+                position = 0;
+                count = ByteStreams.read(in, buffer, 0, buffer.length);
+            } finally {
+                lock.release();
+            }
+            return count > 0;
         }
     }
 
@@ -1180,6 +1549,8 @@ public class FSMountPoint implements MountPoint {
             throw new ServerException(e.getMessage(), e);
         } finally {
             closeQuietly(zip);
+            // Existing files may be overwritten.
+            modifications.incrementAndGet();
         }
     }
 
@@ -1198,8 +1569,7 @@ public class FSMountPoint implements MountPoint {
 
 
     private String doLock(VirtualFileImpl virtualFile, long timeout) throws ConflictException, ServerException {
-        final int index = virtualFile.getVirtualFilePath().hashCode() & MASK;
-        if (NO_LOCK == lockTokensCache[index].get(virtualFile.getVirtualFilePath())) // causes read from file if need.
+        if (NO_LOCK == getCachedLock(virtualFile.getVirtualFilePath())) // causes read from file if need.
         {
             final String lockToken = NameGenerator.generate(null, 16);
             final long expired = timeout > 0 ? (System.currentTimeMillis() + timeout) : Long.MAX_VALUE;
@@ -1210,7 +1580,8 @@ public class FSMountPoint implements MountPoint {
                 final java.io.File lockIoFile = new java.io.File(ioRoot, toIoPath(lockFilePath));
                 lockIoFile.getParentFile().mkdirs(); // Ignore result of 'mkdirs' here. If we are failed to create
                 // directory we will get FileNotFoundException at the next line when try to create FileOutputStream.
-                final PathLockFactory.PathLock lockFilePathLock = pathLockFactory.getLock(lockFilePath, true).acquire(LOCK_FILE_TIMEOUT);
+                final HierarchicalPathLockFactory.PathLock lockFilePathLock =
+                        pathLockFactory.getLock(lockFilePath, true).acquire(LOCK_FILE_TIMEOUT);
                 try {
                     dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(lockIoFile)));
                     locksSerializer.write(dos, fileLock);
@@ -1226,7 +1597,7 @@ public class FSMountPoint implements MountPoint {
             }
 
             // Save lock token in cache if lock successful.
-            lockTokensCache[index].put(virtualFile.getVirtualFilePath(), fileLock);
+            lockTokensCache.put(virtualFile.getVirtualFilePath(), fileLock);
             return lockToken;
         }
 
@@ -1250,7 +1621,6 @@ public class FSMountPoint implements MountPoint {
     }
 
     private void doUnlock(VirtualFileImpl virtualFile, FileLock lock, String lockToken) throws ForbiddenException, ServerException {
-        final int index = virtualFile.getVirtualFilePath().hashCode() & MASK;
         try {
             if (!lock.getLockToken().equals(lockToken)) {
                 throw new ForbiddenException(String.format("Unable unlock file '%s'. Lock token does not match. ", virtualFile.getPath()));
@@ -1260,7 +1630,7 @@ public class FSMountPoint implements MountPoint {
                 throw new IOException(String.format("Unable delete lock file %s. ", lockIoFile));
             }
             // Mark as unlocked in cache.
-            lockTokensCache[index].put(virtualFile.getVirtualFilePath(), NO_LOCK);
+            lockTokensCache.put(virtualFile.getVirtualFilePath(), NO_LOCK);
         } catch (IOException e) {
             String msg = String.format("Unable unlock file '%s'. ", virtualFile.getPath());
             LOG.error(msg + e.getMessage(), e); // More details in log but do not show internal error to caller.
@@ -1274,9 +1644,8 @@ public class FSMountPoint implements MountPoint {
     }
 
     private FileLock checkIsLockValidAndGet(VirtualFileImpl virtualFile) {
-        final int index = virtualFile.getVirtualFilePath().hashCode() & MASK;
         // causes read from file if need
-        final FileLock lock = lockTokensCache[index].get(virtualFile.getVirtualFilePath());
+        final FileLock lock = getCachedLock(virtualFile.getVirtualFilePath());
         if (NO_LOCK == lock) {
             return NO_LOCK;
         }
@@ -1288,7 +1657,7 @@ public class FSMountPoint implements MountPoint {
                     LOG.warn("Unable delete lock file %s. ", lockIoFile);
                 }
             }
-            lockTokensCache[index].put(virtualFile.getVirtualFilePath(), NO_LOCK);
+            lockTokensCache.put(virtualFile.getVirtualFilePath(), NO_LOCK);
             return NO_LOCK;
         }
         return lock;
@@ -1320,7 +1689,7 @@ public class FSMountPoint implements MountPoint {
     }
 
 
-    private boolean hasPermission(VirtualFileImpl virtualFile, String p, boolean checkParent) {
+    boolean hasPermission(VirtualFileImpl virtualFile, String p, boolean checkParent) {
         return true;
     }
 
@@ -1355,7 +1724,6 @@ public class FSMountPoint implements MountPoint {
 
     void updateProperties(VirtualFileImpl virtualFile, List<Property> properties, String lockToken)
             throws ForbiddenException, ServerException {
-        final int index = virtualFile.getVirtualFilePath().hashCode() & MASK;
         if (!hasPermission(virtualFile, BasicPermissions.WRITE.value(), true)) {
             throw new ForbiddenException(
                     String.format("Unable update properties for '%s'. Operation not permitted. ", virtualFile.getPath()));
@@ -1367,7 +1735,7 @@ public class FSMountPoint implements MountPoint {
         }
 
         // 1. make copy of properties
-        final Map<String, String[]> metadata = copyMetadataMap(metadataCache[index].get(virtualFile.getVirtualFilePath()));
+        final Map<String, String[]> metadata = copyMetadataMap(getCachedMetadata(virtualFile.getVirtualFilePath()));
         // 2. update
         for (Property property : properties) {
             final String name = property.getName();
@@ -1382,7 +1750,7 @@ public class FSMountPoint implements MountPoint {
         // 3. save in file
         saveFileMetadata(virtualFile, metadata);
         // 4. update cache
-        metadataCache[index].put(virtualFile.getVirtualFilePath(), metadata);
+        metadataCache.put(virtualFile.getVirtualFilePath(), metadata);
         // 5. update last modification time
         if (!virtualFile.getIoFile().setLastModified(System.currentTimeMillis())) {
             LOG.warn("Unable to set timestamp to '{}'. ", virtualFile.getIoFile());
@@ -1392,23 +1760,20 @@ public class FSMountPoint implements MountPoint {
 
 
     private Map<String, String[]> getFileMetadata(VirtualFileImpl virtualFile) {
-        final int index = virtualFile.getVirtualFilePath().hashCode() & MASK;
-        return copyMetadataMap(metadataCache[index].get(virtualFile.getVirtualFilePath()));
+        return copyMetadataMap(getCachedMetadata(virtualFile.getVirtualFilePath()));
     }
 
 
     String getPropertyValue(VirtualFileImpl virtualFile, String name) {
         // Do not check permission here. We already check 'read' permission when get VirtualFile.
-        final int index = virtualFile.getVirtualFilePath().hashCode() & MASK;
-        final String[] value = metadataCache[index].get(virtualFile.getVirtualFilePath()).get(name);
+        final String[] value = getCachedMetadata(virtualFile.getVirtualFilePath()).get(name);
         return value == null || value.length == 0 ? null : value[0];
     }
 
 
     String[] getPropertyValues(VirtualFileImpl virtualFile, String name) {
         // Do not check permission here. We already check 'read' permission when get VirtualFile.
-        final int index = virtualFile.getVirtualFilePath().hashCode() & MASK;
-        final String[] value = metadataCache[index].get(virtualFile.getVirtualFilePath()).get(name);
+        final String[] value = getCachedMetadata(virtualFile.getVirtualFilePath()).get(name);
         final String[] copyValue = new String[value.length];
         System.arraycopy(value, 0, copyValue, 0, value.length);
         return copyValue;
@@ -1421,9 +1786,8 @@ public class FSMountPoint implements MountPoint {
 
 
     void setProperty(VirtualFileImpl virtualFile, String name, String... value) throws ServerException {
-        final int index = virtualFile.getVirtualFilePath().hashCode() & MASK;
         // 1. make copy of properties
-        final Map<String, String[]> metadata = copyMetadataMap(metadataCache[index].get(virtualFile.getVirtualFilePath()));
+        final Map<String, String[]> metadata = copyMetadataMap(getCachedMetadata(virtualFile.getVirtualFilePath()));
         // 2. update
         if (value != null) {
             String[] copyValue = new String[value.length];
@@ -1435,7 +1799,7 @@ public class FSMountPoint implements MountPoint {
         // 3. save in file
         saveFileMetadata(virtualFile, metadata);
         // 4. update cache
-        metadataCache[index].put(virtualFile.getVirtualFilePath(), metadata);
+        metadataCache.put(virtualFile.getVirtualFilePath(), metadata);
     }
 
 
@@ -1454,7 +1818,8 @@ public class FSMountPoint implements MountPoint {
             } else {
                 metadataFile.getParentFile().mkdirs(); // Ignore result of 'mkdirs' here. If we are failed to create
                 // directory we will get FileNotFoundException at the next line when try to create FileOutputStream.
-                final PathLockFactory.PathLock lock = pathLockFactory.getLock(metadataFilePath, true).acquire(LOCK_FILE_TIMEOUT);
+                final HierarchicalPathLockFactory.PathLock lock =
+                        pathLockFactory.getLock(metadataFilePath, true).acquire(LOCK_FILE_TIMEOUT);
                 try {
                     dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(metadataFile)));
                     metadataSerializer.write(dos, properties);
@@ -1512,42 +1877,7 @@ public class FSMountPoint implements MountPoint {
         if (!virtualFile.isFolder()) {
             return LazyIterator.emptyIterator();
         }
-        final List<Pair<String, String>> hashes = new ArrayList<>();
-        final int trimPathLength = virtualFile.getPath().length() + 1;
-        final HashFunction hashFunction = Hashing.md5();
-        final ValueHolder<ServerException> errorHolder = new ValueHolder<>();
-        virtualFile.accept(new VirtualFileVisitor() {
-            @Override
-            public void visit(final VirtualFile virtualFile) {
-                try {
-                    if (virtualFile.isFile()) {
-                        hashes.add(Pair.of(countHashSum(virtualFile, hashFunction), virtualFile.getPath().substring(trimPathLength)));
-                    } else {
-                        final LazyIterator<VirtualFile> children = virtualFile.getChildren(VirtualFileFilter.ALL);
-                        while (children.hasNext()) {
-                            children.next().accept(this);
-                        }
-                    }
-                } catch (ServerException e) {
-                    errorHolder.set(e);
-                }
-            }
-        });
-        return LazyIterator.fromList(hashes);
-    }
-
-
-    private String countHashSum(VirtualFile virtualFile, HashFunction hashFunction) throws ServerException {
-        final PathLockFactory.PathLock lock = pathLockFactory.getLock(virtualFile.getVirtualFilePath(), false).acquire(LOCK_FILE_TIMEOUT);
-        try (InputStream contentStream = virtualFile.getContent().getStream()) {
-            return ByteSource.wrap(ByteStreams.toByteArray(contentStream)).hash(hashFunction).toString();
-        } catch (ForbiddenException e) {
-            throw new ServerException(e.getServiceError());
-        } catch (IOException e) {
-            throw new ServerException(e);
-        } finally {
-            lock.release();
-        }
+        return LazyIterator.fromList(contentHashIndex.countMd5Sums(virtualFile));
     }
 
    /* ============ HELPERS  ============ */
@@ -114,6 +114,7 @@ public class LocalFileSystemProvider extends VirtualFileSystemProvider {
                     LOG.error(e.getMessage(), e);
                 }
             }
+            mount.reset();
         }
         super.close();
     }
@@ -28,7 +28,10 @@ import org.eclipse.che.api.vfs.shared.dto.Principal;
 import org.eclipse.che.api.vfs.shared.dto.Property;
 import org.eclipse.che.commons.lang.Pair;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -40,16 +43,121 @@ import java.util.Set;
  * @author andrew00x
  */
 public class VirtualFileImpl implements VirtualFile {
+    /* Types of file known from listing of parent folder. */
+    static final int TYPE_UNKNOWN = 0;
+    static final int TYPE_FILE    = 1;
+    static final int TYPE_FOLDER  = 2;
+    static final int TYPE_OTHER   = 3;
+
+    /** Max time that cached type and attributes are reused. Limits staleness when files are changed outside of mount point. */
+    private static final long MAX_CACHED_AGE_MILLIS = 2000;
+
     private final java.io.File ioFile;
     private final String       id;
     private final Path         path;
     private final FSMountPoint mountPoint;
+    private final boolean      cacheable;
+
+    /**
+     * Type and attributes of file that are got with listing of parent folder. Attributes are read together with type of file or
+     * lazily when length or modification date is requested first time. Dropped when file is updated or deleted through the
+     * mount point and when they get old, then read again.
+     */
+    private volatile CachedInfo cached;
 
     VirtualFileImpl(java.io.File ioFile, Path path, String id, FSMountPoint mountPoint) {
+        this(ioFile, path, id, mountPoint, TYPE_UNKNOWN, null);
+    }
+
+    /**
+     * Creates file with known type.
+     *
+     * @param type
+     *         type of file, one of TYPE_* constants. If type is {@link #TYPE_UNKNOWN} then attributes of file are not cached and
+     *         every request of type, length and modification date goes to file system
+     * @param attributes
+     *         attributes of file if they are already read or {@code null}
+     */
+    VirtualFileImpl(java.io.File ioFile, Path path, String id, FSMountPoint mountPoint, int type, BasicFileAttributes attributes) {
         this.ioFile = ioFile;
         this.path = path;
         this.id = id;
         this.mountPoint = mountPoint;
+        cacheable = type != TYPE_UNKNOWN;
+        if (cacheable) {
+            cached = new CachedInfo(type, attributes, mountPoint.getModificationCount());
+        }
+    }
+
+    static int typeOf(BasicFileAttributes attributes) {
+        if (attributes.isRegularFile()) {
+            return TYPE_FILE;
+        }
+        return attributes.isDirectory() ? TYPE_FOLDER : TYPE_OTHER;
+    }
+
+    /** Drops cached type and attributes of file, e.g. when content of file is updated. */
+    void invalidateAttributes() {
+        cached = null;
+    }
+
+    /**
+     * Gets cached type and attributes of file. Reads them again if they are dropped or outdated, file may be deleted or replaced
+     * by item of other type since they were read. Returns {@code null} if file doesn't exist or isn't accessible.
+     */
+    private CachedInfo getCachedInfo(boolean needAttributes) {
+        final long modifications = mountPoint.getModificationCount();
+        CachedInfo myCached = cached;
+        if (myCached != null && myCached.isValid(modifications) && (myCached.attributes != null || !needAttributes)) {
+            return myCached;
+        }
+        final BasicFileAttributes myAttributes;
+        try {
+            myAttributes = Files.readAttributes(ioFile.toPath(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            // File is removed or not accessible.
+            cached = null;
+            return null;
+        }
+        if (myCached != null && myCached.isValid(modifications)) {
+            // Only attributes were missed, keep time of listing.
+            myCached = new CachedInfo(typeOf(myAttributes), myAttributes, myCached.modifications, myCached.time);
+        } else {
+            myCached = new CachedInfo(typeOf(myAttributes), myAttributes, modifications);
+        }
+        cached = myCached;
+        return myCached;
+    }
+
+    /** Gets attributes of file or {@code null} if attributes of this file are not cached or file doesn't exist. */
+    private BasicFileAttributes getListedAttributes() {
+        if (!cacheable) {
+            return null;
+        }
+        final CachedInfo myCached = getCachedInfo(true);
+        return myCached == null ? null : myCached.attributes;
+    }
+
+    private static class CachedInfo {
+        final int                 type;
+        final BasicFileAttributes attributes;
+        final long                modifications;
+        final long                time;
+
+        CachedInfo(int type, BasicFileAttributes attributes, long modifications) {
+            this(type, attributes, modifications, System.currentTimeMillis());
+        }
+
+        CachedInfo(int type, BasicFileAttributes attributes, long modifications, long time) {
+            this.type = type;
+            this.attributes = attributes;
+            this.modifications = modifications;
+            this.time = time;
+        }
+
+        boolean isValid(long currentModifications) {
+            return modifications == currentModifications && System.currentTimeMillis() - time < MAX_CACHED_AGE_MILLIS;
+        }
     }
 
     @Override
@@ -84,12 +192,20 @@ public class VirtualFileImpl implements VirtualFile {
 
     @Override
     public boolean isFile() {
-        return getIoFile().isFile();
+        if (!cacheable) {
+            return getIoFile().isFile();
+        }
+        final CachedInfo myCached = getCachedInfo(false);
+        return myCached != null && myCached.type == TYPE_FILE;
     }
 
     @Override
     public boolean isFolder() {
-        return getIoFile().isDirectory();
+        if (!cacheable) {
+            return getIoFile().isDirectory();
+        }
+        final CachedInfo myCached = getCachedInfo(false);
+        return myCached != null && myCached.type == TYPE_FOLDER;
     }
 
     @Override
@@ -142,12 +258,14 @@ public class VirtualFileImpl implements VirtualFile {
 
     @Override
     public long getLastModificationDate() {
-        return getIoFile().lastModified();
+        final BasicFileAttributes myAttributes = getListedAttributes();
+        return myAttributes == null ? getIoFile().lastModified() : myAttributes.lastModifiedTime().toMillis();
     }
 
     @Override
     public long getLength() throws ServerException {
-        return getIoFile().length();
+        final BasicFileAttributes myAttributes = getListedAttributes();
+        return myAttributes == null ? getIoFile().length() : myAttributes.size();
     }
 
     //
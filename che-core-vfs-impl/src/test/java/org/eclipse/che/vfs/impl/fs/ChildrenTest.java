@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.che.vfs.impl.fs;
 
+import org.eclipse.che.api.vfs.server.VirtualFile;
+import org.eclipse.che.api.vfs.server.VirtualFileFilter;
 import org.eclipse.che.api.vfs.shared.ItemType;
 import org.eclipse.che.api.vfs.shared.dto.Item;
 import org.eclipse.che.api.vfs.shared.dto.ItemList;
@@ -102,6 +104,63 @@ public class ChildrenTest extends LocalFileSystemTest {
         }
     }
 
+    public void testCachedListingIsInvalidatedWhenFolderIsChanged() throws Exception {
+        java.io.File ioFolder = getIoFile(folderPath);
+        // Listing of folder that was modified just now is not cached, make folder 'old'.
+        assertTrue(ioFolder.setLastModified(System.currentTimeMillis() - 10000));
+        VirtualFile folder = mountPoint.getVirtualFile(folderPath);
+        assertEquals(4, folder.getChildren(VirtualFileFilter.ALL).size());
+        long hits = mountPoint.getListingCacheStats().hitCount();
+        List<VirtualFile> children = getChildren(folder);
+        assertEquals(4, children.size());
+        assertEquals(hits + 1, mountPoint.getListingCacheStats().hitCount());
+        for (VirtualFile child : children) {
+            assertEquals(child.getName().startsWith("FILE"), child.isFile());
+            assertEquals(child.getName().startsWith("FOLDER"), child.isFolder());
+            if (child.isFile()) {
+                assertEquals(DEFAULT_CONTENT_BYTES.length, child.getLength());
+            }
+        }
+
+        // Add file outside of virtual file system, modification date of folder is changed.
+        assertTrue(new java.io.File(ioFolder, "FILE03").createNewFile());
+        assertTrue(ioFolder.setLastModified(System.currentTimeMillis() - 5000));
+        children = getChildren(folder);
+        assertEquals(5, children.size());
+        assertTrue(children.get(4).isFile());
+        assertEquals("FILE03", children.get(4).getName());
+        assertEquals(0, children.get(4).getLength());
+    }
+
+    public void testCachedTypeIsDroppedWhenFileIsReplaced() throws Exception {
+        VirtualFile folder = mountPoint.getVirtualFile(folderPath);
+        VirtualFile file = null;
+        for (VirtualFile child : getChildren(folder)) {
+            if ("FILE01".equals(child.getName())) {
+                file = child;
+            }
+        }
+        assertNotNull(file);
+        assertTrue(file.isFile());
+        assertEquals(DEFAULT_CONTENT_BYTES.length, file.getLength());
+
+        file.delete(null);
+        assertFalse(file.isFile());
+        assertFalse(file.isFolder());
+
+        folder.createFolder("FILE01");
+        assertFalse(file.isFile());
+        assertTrue(file.isFolder());
+    }
+
+    private List<VirtualFile> getChildren(VirtualFile folder) throws Exception {
+        List<VirtualFile> children = new ArrayList<>();
+        for (Iterator<VirtualFile> iterator = folder.getChildren(VirtualFileFilter.ALL); iterator.hasNext(); ) {
+            children.add(iterator.next());
+        }
+        return children;
+    }
+
     public void testGetChildren_File() throws Exception {
         ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
         String requestPath = SERVICE_URI + "children/" + fileId;
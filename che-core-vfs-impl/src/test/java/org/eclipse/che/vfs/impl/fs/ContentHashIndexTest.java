@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.vfs.impl.fs;
+
+import com.google.common.hash.Hashing;
+
+import org.eclipse.che.api.core.notification.EventService;
+import org.eclipse.che.api.vfs.server.LazyIterator;
+import org.eclipse.che.api.vfs.server.SystemPathsFilter;
+import org.eclipse.che.commons.lang.Pair;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.eclipse.che.api.vfs.shared.dto.VirtualFileSystemInfo.BasicPermissions;
+
+public class ContentHashIndexTest extends LocalFileSystemTest {
+    private final byte[] content       = "__ContentHashIndexTest__".getBytes();
+    private final byte[] updateContent = "__ContentHashIndexTest_Update__".getBytes();
+
+    private String folderPath;
+    private String filePath;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        folderPath = createDirectory(testRootPath, "ContentHashIndexTest_Folder");
+        String childFolderPath = createDirectory(folderPath, "child");
+        filePath = createFile(folderPath, "file.txt", content);
+        createFile(childFolderPath, "file.txt", content);
+    }
+
+    public void testCountMd5Sums() throws Exception {
+        Map<String, String> expected = new HashMap<>(2);
+        expected.put("file.txt", md5(content));
+        expected.put("child/file.txt", md5(content));
+        assertEquals(expected, countMd5Sums(folderPath));
+        // Second time hash sums are taken from index.
+        assertEquals(expected, countMd5Sums(folderPath));
+    }
+
+    public void testHashSumIsUpdatedAfterUpdateContent() throws Exception {
+        assertEquals(md5(content), countMd5Sums(folderPath).get("file.txt"));
+        mountPoint.getVirtualFile(filePath).updateContent(new ByteArrayInputStream(updateContent), null);
+        assertEquals(md5(updateContent), countMd5Sums(folderPath).get("file.txt"));
+    }
+
+    public void testHashSumsAreMovedAfterRename() throws Exception {
+        assertEquals(2, countMd5Sums(folderPath).size());
+        mountPoint.getVirtualFile(folderPath + "/child").rename("renamed", null, null);
+        Map<String, String> hashes = countMd5Sums(folderPath);
+        assertEquals(md5(content), hashes.get("renamed/file.txt"));
+        assertFalse(hashes.containsKey("child/file.txt"));
+    }
+
+    public void testIndexIsSavedOnReset() throws Exception {
+        Map<String, String> expected = countMd5Sums(folderPath);
+        mountPoint.reset();
+        assertTrue(new java.io.File(testFsIoRoot, ContentHashIndex.INDEX_FILE).exists());
+        assertEquals(expected, countMd5Sums(folderPath));
+    }
+
+    public void testHashSumOfFileThatMayNotBeReadIsNotReturned() throws Exception {
+        final boolean[] denied = new boolean[1];
+        FSMountPoint restrictedMountPoint = new FSMountPoint(MY_WORKSPACE_ID, testFsIoRoot, new EventService(), null,
+                                                             SystemPathsFilter.ANY) {
+            @Override
+            boolean hasPermission(VirtualFileImpl virtualFile, String p, boolean checkParent) {
+                return !(denied[0] && BasicPermissions.READ.value().equals(p) && filePath.equals(virtualFile.getPath()));
+            }
+        };
+        try {
+            // Hash sum of file gets in index while it is readable.
+            assertEquals(md5(content), countMd5Sums(restrictedMountPoint, folderPath).get("file.txt"));
+            denied[0] = true;
+            Map<String, String> hashes = countMd5Sums(restrictedMountPoint, folderPath);
+            assertFalse(hashes.containsKey("file.txt"));
+            assertEquals(md5(content), hashes.get("child/file.txt"));
+        } finally {
+            restrictedMountPoint.reset();
+        }
+    }
+
+    private Map<String, String> countMd5Sums(String path) throws Exception {
+        return countMd5Sums(mountPoint, path);
+    }
+
+    private Map<String, String> countMd5Sums(FSMountPoint mountPoint, String path) throws Exception {
+        Map<String, String> hashes = new HashMap<>();
+        LazyIterator<Pair<String, String>> iterator = mountPoint.getVirtualFile(path).countMd5Sums();
+        while (iterator.hasNext()) {
+            Pair<String, String> hash = iterator.next();
+            hashes.put(hash.second, hash.first);
+        }
+        return hashes;
+    }
+
+    private String md5(byte[] bytes) {
+        return Hashing.md5().hashBytes(bytes).toString();
+    }
+}
@@ -20,9 +20,15 @@ import org.everrest.core.tools.ByteArrayContainerResponseWriter;
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import static org.eclipse.che.api.vfs.shared.dto.VirtualFileSystemInfo.BasicPermissions;
@@ -105,6 +111,62 @@ public class ContentTest extends LocalFileSystemTest {
         assertEquals(MediaType.TEXT_PLAIN, writer.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
     }
 
+    public void testGetContentRange() throws Exception {
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+        String requestPath = SERVICE_URI + "content/" + fileId;
+        Map<String, List<String>> headers = new HashMap<>(1);
+        headers.put("Range", Collections.singletonList("bytes=2-8"));
+        ContainerResponse response = launcher.service(HttpMethod.GET, requestPath, BASE_URI, headers, null, writer, null);
+        assertEquals("Error: " + response.getEntity(), 206, response.getStatus());
+        assertTrue(Arrays.equals(Arrays.copyOfRange(content, 2, 9), writer.getBody()));
+        assertEquals("bytes 2-8/" + content.length, writer.getHeaders().getFirst("Content-Range"));
+    }
+
+    public void testGetContentRangeNotSatisfiable() throws Exception {
+        String requestPath = SERVICE_URI + "content/" + fileId;
+        Map<String, List<String>> headers = new HashMap<>(1);
+        headers.put("Range", Collections.singletonList("bytes=" + content.length + "-"));
+        ContainerResponse response = launcher.service(HttpMethod.GET, requestPath, BASE_URI, headers, null, null);
+        assertEquals(416, response.getStatus());
+    }
+
+    public void testGetContentRangeOfBigFile() throws Exception {
+        // Big file is sent directly from file channel.
+        byte[] bigContent = new byte[1024 * 1024 + 3];
+        new Random().nextBytes(bigContent);
+        String bigFileId = pathToId(createFile(testRootPath, "ContentTest_BigFile.bin", bigContent));
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+        String requestPath = SERVICE_URI + "content/" + bigFileId;
+        ContainerResponse response = launcher.service(HttpMethod.GET, requestPath, BASE_URI, null, null, writer, null);
+        assertEquals("Error: " + response.getEntity(), 200, response.getStatus());
+        assertTrue(Arrays.equals(bigContent, writer.getBody()));
+
+        writer = new ByteArrayContainerResponseWriter();
+        Map<String, List<String>> headers = new HashMap<>(1);
+        headers.put("Range", Collections.singletonList("bytes=-1000"));
+        response = launcher.service(HttpMethod.GET, requestPath, BASE_URI, headers, null, writer, null);
+        assertEquals("Error: " + response.getEntity(), 206, response.getStatus());
+        assertTrue(Arrays.equals(Arrays.copyOfRange(bigContent, bigContent.length - 1000, bigContent.length), writer.getBody()));
+    }
+
+    public void testGetContentNotModified() throws Exception {
+        String requestPath = SERVICE_URI + "content/" + fileId;
+        ContainerResponse response = launcher.service(HttpMethod.GET, requestPath, BASE_URI, null, null, null);
+        assertEquals(200, response.getStatus());
+        Object eTag = response.getHttpHeaders().getFirst(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        Map<String, List<String>> headers = new HashMap<>(1);
+        headers.put(HttpHeaders.IF_NONE_MATCH, Collections.singletonList(eTag.toString()));
+        response = launcher.service(HttpMethod.GET, requestPath, BASE_URI, headers, null, null);
+        assertEquals(304, response.getStatus());
+
+        // ETag is changed when file is updated.
+        launcher.service(HttpMethod.POST, requestPath, BASE_URI, null, updateContent, null);
+        response = launcher.service(HttpMethod.GET, requestPath, BASE_URI, headers, null, null);
+        assertEquals(200, response.getStatus());
+    }
+
     public void testUpdateContent() throws Exception {
         String requestPath = SERVICE_URI + "content/" + fileId;
         ContainerResponse response = launcher.service(HttpMethod.POST, requestPath, BASE_URI, null, updateContent, null);
@@ -138,4 +200,37 @@ public class ContentTest extends LocalFileSystemTest {
         assertTrue("Content must not be updated", Arrays.equals(content, readFile(lockedFilePath)));
         assertNull("Properties must not be updated", readProperties(lockedFilePath));
     }
+
+    public void testChunkLockedContentDoesNotHoldLockBetweenReads() throws Exception {
+        VirtualFileImpl file = (VirtualFileImpl)mountPoint.getVirtualFile(filePath);
+        try (InputStream in = mountPoint.newChunkLockedByteSource(file).openStream()) {
+            assertEquals(content[0], in.read());
+            final Throwable[] failure = new Throwable[1];
+            Thread writer = new Thread(() -> {
+                try {
+                    mountPoint.getPathLockFactory().getLock(file.getVirtualFilePath(), true).acquire(1000).release();
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+            });
+            writer.start();
+            writer.join();
+            assertNull("Exclusive lock must be available while content is read", failure[0]);
+        }
+    }
+
+    public void testChunkLockedContentFailsWhenFileUpdated() throws Exception {
+        VirtualFileImpl file = (VirtualFileImpl)mountPoint.getVirtualFile(filePath);
+        try (InputStream in = mountPoint.newChunkLockedByteSource(file).openStream()) {
+            byte[] buf = new byte[content.length];
+            assertEquals(content.length, in.read(buf));
+            assertTrue(Arrays.equals(content, buf));
+            file.updateContent(new ByteArrayInputStream(updateContent), null);
+            try {
+                in.read();
+                fail("IOException expected when file is updated while content is read");
+            } catch (IOException expected) {
+            }
+        }
+    }
 }
@@ -122,6 +122,18 @@ public class DeleteTest extends LocalFileSystemTest {
         assertNull("Properties must be removed. ", readProperties(filePath));
     }
 
+    public void testDeleteFileKeepsCachedLocksOfOtherFiles() throws Exception {
+        assertTrue(mountPoint.getVirtualFile(lockedFilePath).isLocked());
+        long hits = mountPoint.getLockTokensCacheStats().hitCount();
+        String requestPath = SERVICE_URI + "delete/" + fileId;
+        ContainerResponse response = launcher.service(HttpMethod.POST, requestPath, BASE_URI, null, null, null);
+        assertEquals(204, response.getStatus());
+        long misses = mountPoint.getLockTokensCacheStats().missCount();
+        assertTrue(mountPoint.getVirtualFile(lockedFilePath).isLocked());
+        assertEquals(misses, mountPoint.getLockTokensCacheStats().missCount());
+        assertTrue(mountPoint.getLockTokensCacheStats().hitCount() > hits);
+    }
+
     public void testDeleteFileLocked() throws Exception {
         String requestPath = SERVICE_URI + "delete/" + lockedFileId + '?' + "lockToken=" + lockToken;
         ContainerResponse response = launcher.service(HttpMethod.POST, requestPath, BASE_URI, null, null, null);
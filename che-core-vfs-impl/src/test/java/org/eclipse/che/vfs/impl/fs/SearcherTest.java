@@ -13,6 +13,8 @@ package org.eclipse.che.vfs.impl.fs;
 import org.eclipse.che.api.core.notification.EventService;
 import org.eclipse.che.api.vfs.server.SystemPathsFilter;
 import org.eclipse.che.api.vfs.server.VirtualFileFilter;
+import org.eclipse.che.api.vfs.server.search.QueryExpression;
+import org.eclipse.che.api.vfs.server.search.SearchResult;
 import org.eclipse.che.api.vfs.shared.dto.Item;
 import org.eclipse.che.api.vfs.shared.dto.ItemList;
 import org.eclipse.che.commons.lang.Pair;
@@ -51,8 +53,9 @@ public class SearcherTest extends LocalFileSystemTest {
     private String file3;
     private String file4;
 
-    private CleanableSearcher searcher;
-    private SearcherManager   searcherManager;
+    private CleanableSearcherProvider searcherProvider;
+    private CleanableSearcher         searcher;
+    private SearcherManager           searcherManager;
 
     @SuppressWarnings("unchecked")
     @Override
@@ -92,7 +95,7 @@ public class SearcherTest extends LocalFileSystemTest {
         queryToResult[8] = new Pair<>(new String[]{file2, file3}, "name=SearcherTest*&mediaType=text/plain");
         queryToResult[9] = new Pair<>(new String[]{file1}, "name=SearcherTest*&mediaType=text/xml");
 
-        CleanableSearcherProvider searcherProvider = new CleanableSearcherProvider(root.getParentFile(), Collections.<VirtualFileFilter>emptySet());
+        searcherProvider = new CleanableSearcherProvider(root.getParentFile(), Collections.<VirtualFileFilter>emptySet());
         // Re-register virtual file system with searching enabled.
         // remove old one first
         provider.close();
@@ -145,6 +148,7 @@ public class SearcherTest extends LocalFileSystemTest {
     }
 
     public void testDeleteFile() throws Exception {
+        searcher.flush();
         searcherManager.maybeRefresh();
         IndexSearcher luceneSearcher = searcherManager.acquire();
         TopDocs topDocs = luceneSearcher.search(new TermQuery(new Term("path", file1)), 10);
@@ -152,6 +156,7 @@ public class SearcherTest extends LocalFileSystemTest {
         searcherManager.release(luceneSearcher);
 
         mountPoint.getVirtualFile(file1).delete(null);
+        searcher.flush();
         searcherManager.maybeRefresh();
         luceneSearcher = searcherManager.acquire();
         topDocs = luceneSearcher.search(new TermQuery(new Term("path", file1)), 10);
@@ -160,6 +165,7 @@ public class SearcherTest extends LocalFileSystemTest {
     }
 
     public void testDeleteFolder() throws Exception {
+        searcher.flush();
         searcherManager.maybeRefresh();
         IndexSearcher luceneSearcher = searcherManager.acquire();
         TopDocs topDocs = luceneSearcher.search(new PrefixQuery(new Term("path", searchTestPath)), 10);
@@ -167,6 +173,7 @@ public class SearcherTest extends LocalFileSystemTest {
         searcherManager.release(luceneSearcher);
 
         mountPoint.getVirtualFile(searchTestPath).delete(null);
+        searcher.flush();
         searcherManager.maybeRefresh();
         luceneSearcher = searcherManager.acquire();
         topDocs = luceneSearcher.search(new PrefixQuery(new Term("path", searchTestPath)), 10);
@@ -175,6 +182,7 @@ public class SearcherTest extends LocalFileSystemTest {
     }
 
     public void testAdd() throws Exception {
+        searcher.flush();
         searcherManager.maybeRefresh();
         IndexSearcher luceneSearcher = searcherManager.acquire();
         TopDocs topDocs = luceneSearcher.search(new PrefixQuery(new Term("path", searchTestPath)), 10);
@@ -182,6 +190,7 @@ public class SearcherTest extends LocalFileSystemTest {
         searcherManager.release(luceneSearcher);
         mountPoint.getVirtualFile(searchTestPath).createFile("new_file.txt", new ByteArrayInputStream(DEFAULT_CONTENT_BYTES));
 
+        searcher.flush();
         searcherManager.maybeRefresh();
         luceneSearcher = searcherManager.acquire();
         topDocs = luceneSearcher.search(new PrefixQuery(new Term("path", searchTestPath)), 10);
@@ -190,6 +199,7 @@ public class SearcherTest extends LocalFileSystemTest {
     }
 
     public void testUpdate() throws Exception {
+        searcher.flush();
         searcherManager.maybeRefresh();
         IndexSearcher luceneSearcher = searcherManager.acquire();
         TopDocs topDocs = luceneSearcher.search(new QueryParser("text", new SimpleAnalyzer()).parse("updated"), 10);
@@ -197,6 +207,7 @@ public class SearcherTest extends LocalFileSystemTest {
         searcherManager.release(luceneSearcher);
         mountPoint.getVirtualFile(file2).updateContent(new ByteArrayInputStream("updated content".getBytes()), null);
 
+        searcher.flush();
         searcherManager.maybeRefresh();
         luceneSearcher = searcherManager.acquire();
         topDocs = luceneSearcher.search(new QueryParser("text", new SimpleAnalyzer()).parse("updated"), 10);
@@ -204,7 +215,88 @@ public class SearcherTest extends LocalFileSystemTest {
         searcherManager.release(luceneSearcher);
     }
 
+    public void testUpdatesAreAppliedAsynchronously() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            mountPoint.getVirtualFile(file2).updateContent(new ByteArrayInputStream(("updated " + i).getBytes()), null);
+        }
+        searcher.flush();
+        assertEquals(0, searcher.getPendingChanges());
+        assertEquals(0, searcher.getIndexingLag());
+        searcherManager.maybeRefresh();
+        IndexSearcher luceneSearcher = searcherManager.acquire();
+        TopDocs topDocs = luceneSearcher.search(new QueryParser("text", new SimpleAnalyzer()).parse("updated"), 10);
+        assertEquals(1, topDocs.totalHits);
+        searcherManager.release(luceneSearcher);
+    }
+
+    public void testPagingWithToken() throws Exception {
+        QueryExpression query = new QueryExpression().setText("to be or").setMaxItems(1);
+        List<String> found = new ArrayList<>();
+        SearchResult result = searcher.search(query);
+        assertEquals(3, result.getTotalHits());
+        found.addAll(Arrays.asList(result.getFilePaths()));
+        while (result.getNextPageToken() != null) {
+            result = searcher.search(query.setPageToken(result.getNextPageToken()));
+            assertEquals(1, result.getFilePaths().length);
+            found.addAll(Arrays.asList(result.getFilePaths()));
+        }
+        Collections.sort(found);
+        assertEquals(Arrays.asList(file1, file2, file3), found);
+    }
+
+    public void testPagingWithTokenAfterIndexIsChanged() throws Exception {
+        QueryExpression query = new QueryExpression().setText("to be or").setMaxItems(2);
+        SearchResult firstPage = searcher.search(query);
+        assertEquals(2, firstPage.getFilePaths().length);
+        assertNotNull(firstPage.getNextPageToken());
+
+        // Token is not valid after update of index, searcher must skip first page of results.
+        writeFile(file4, "maybe you should think three times".getBytes());
+        searcher.update(mountPoint.getVirtualFile(file4));
+        searcher.flush();
+
+        SearchResult secondPage = searcher.search(query.setPageToken(firstPage.getNextPageToken()));
+        assertEquals(1, secondPage.getFilePaths().length);
+        assertNull(secondPage.getNextPageToken());
+        List<String> found = new ArrayList<>(Arrays.asList(firstPage.getFilePaths()));
+        found.addAll(Arrays.asList(secondPage.getFilePaths()));
+        Collections.sort(found);
+        assertEquals(Arrays.asList(file1, file2, file3), found);
+    }
+
+    public void testIndexIsReusedAfterRestart() throws Exception {
+        searcherManager.close();
+        searcherProvider.stop();
+        assertTrue(searcher.getIndexDir().exists());
+        // Change files while searcher is stopped.
+        writeFile(file2, "updated while stopped".getBytes());
+        assertTrue(getIoFile(file2).setLastModified(getIoFile(file2).lastModified() + 1000));
+        assertTrue(getIoFile(file3).delete());
+
+        CleanableSearcherProvider newSearcherProvider =
+                new CleanableSearcherProvider(root.getParentFile(), Collections.<VirtualFileFilter>emptySet());
+        CleanableSearcher newSearcher = (CleanableSearcher)newSearcherProvider.getSearcher(mountPoint, true);
+        try {
+            assertEquals(searcher.getIndexDir(), newSearcher.getIndexDir());
+            Throwable error;
+            while ((error = newSearcher.initializationError()) == null && !newSearcher.initialized()) {
+                Thread.sleep(100);
+            }
+            if (error != null) {
+                fail(error.getMessage());
+            }
+            assertEquals(Arrays.asList(file2), Arrays.asList(newSearcher.search(new QueryExpression().setText("stopped")).getFilePaths()));
+            assertEquals(Arrays.asList(file1), Arrays.asList(newSearcher.search(new QueryExpression().setPath(file1)).getFilePaths()));
+            assertEquals(0, newSearcher.search(new QueryExpression().setPath(file3)).getFilePaths().length);
+        } finally {
+            newSearcher.close();
+            newSearcherProvider.stop();
+        }
+        assertFalse(newSearcher.getIndexDir().exists());
+    }
+
     public void testMove() throws Exception {
+        searcher.flush();
         searcherManager.maybeRefresh();
         IndexSearcher luceneSearcher = searcherManager.acquire();
         String destination = createDirectory(testRootPath, "___destination");
@@ -214,6 +306,7 @@ public class SearcherTest extends LocalFileSystemTest {
         searcherManager.release(luceneSearcher);
         mountPoint.getVirtualFile(file3).moveTo(mountPoint.getVirtualFile(destination), null);
 
+        searcher.flush();
         searcherManager.maybeRefresh();
         luceneSearcher = searcherManager.acquire();
         topDocs = luceneSearcher.search(new PrefixQuery(new Term("path", expected)), 10);
@@ -224,6 +317,7 @@ public class SearcherTest extends LocalFileSystemTest {
     }
 
     public void testCopy() throws Exception {
+        searcher.flush();
         searcherManager.maybeRefresh();
         IndexSearcher luceneSearcher = searcherManager.acquire();
         String destination = createDirectory(testRootPath, "___destination");
@@ -233,6 +327,7 @@ public class SearcherTest extends LocalFileSystemTest {
         searcherManager.release(luceneSearcher);
         mountPoint.getVirtualFile(file3).copyTo(mountPoint.getVirtualFile(destination));
 
+        searcher.flush();
         searcherManager.maybeRefresh();
         luceneSearcher = searcherManager.acquire();
         topDocs = luceneSearcher.search(new PrefixQuery(new Term("path", expected)), 10);
@@ -244,6 +339,7 @@ public class SearcherTest extends LocalFileSystemTest {
 
     public void testRename() throws Exception {
         String newName = "___renamed";
+        searcher.flush();
         searcherManager.maybeRefresh();
         IndexSearcher luceneSearcher = searcherManager.acquire();
         TopDocs topDocs = luceneSearcher.search(new PrefixQuery(new Term("path", file2)), 10);
@@ -251,6 +347,7 @@ public class SearcherTest extends LocalFileSystemTest {
         searcherManager.release(luceneSearcher);
         mountPoint.getVirtualFile(file2).rename(newName, null, null);
 
+        searcher.flush();
         searcherManager.maybeRefresh();
         luceneSearcher = searcherManager.acquire();
         topDocs = luceneSearcher.search(new PrefixQuery(new Term("path", searchTestPath + '/' + newName)), 10);
@@ -264,6 +361,7 @@ public class SearcherTest extends LocalFileSystemTest {
         String newName = FILE_NAME + "A";
         String newPath =searchTestPath + '/' + newName;
 
+        searcher.flush();
         searcherManager.maybeRefresh();
         IndexSearcher luceneSearcher = searcherManager.acquire();
         TopDocs topDocs = luceneSearcher.search(new PrefixQuery(new Term("path", file4)), 10);
@@ -271,6 +369,7 @@ public class SearcherTest extends LocalFileSystemTest {
         searcherManager.release(luceneSearcher);
         mountPoint.getVirtualFile(file4).rename(newName, null, null);
 
+        searcher.flush();
         searcherManager.maybeRefresh();
         luceneSearcher = searcherManager.acquire();
         topDocs = luceneSearcher.search(new PrefixQuery(new Term("path", newPath)), 10);
@@ -288,6 +387,7 @@ public class SearcherTest extends LocalFileSystemTest {
 
     public void testRenameFolder() throws Exception {
         String newName = "___renamed";
+        searcher.flush();
         searcherManager.maybeRefresh();
         IndexSearcher luceneSearcher = searcherManager.acquire();
         TopDocs topDocs = luceneSearcher.search(new PrefixQuery(new Term("path", searchTestPath)), 10);
@@ -295,6 +395,7 @@ public class SearcherTest extends LocalFileSystemTest {
         searcherManager.release(luceneSearcher);
         mountPoint.getVirtualFile(searchTestPath).rename(newName, null, null);
 
+        searcher.flush();
         searcherManager.maybeRefresh();
         luceneSearcher = searcherManager.acquire();
 
@@ -310,6 +411,7 @@ public class SearcherTest extends LocalFileSystemTest {
     public void testRenameFolderByAddingFewNewSymbol() throws Exception {
         String newName = SEARCH_FOLDER_PATH + "A";
         String newPath = searchTestPath + "A";
+        searcher.flush();
         searcherManager.maybeRefresh();
         IndexSearcher luceneSearcher = searcherManager.acquire();
         TopDocs topDocs = luceneSearcher.search(new PrefixQuery(new Term("path", searchTestPath)), 10);
@@ -317,6 +419,7 @@ public class SearcherTest extends LocalFileSystemTest {
         searcherManager.release(luceneSearcher);
         mountPoint.getVirtualFile(searchTestPath).rename(newName, null, null);
 
+        searcher.flush();
         searcherManager.maybeRefresh();
         luceneSearcher = searcherManager.acquire();
 
@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Mailbox of asynchronous subscriber. Events are put to the bounded queue by publishers and passed to subscriber by tasks of
+ * shared executor. At most one task delivers events to the same subscriber at a time, so subscriber gets events in order of
+ * publishing and doesn't need to be thread-safe.
+ *
+ * @see AsyncSubscriber
+ */
+class AsyncEventSubscriber implements EventSubscriber<Object> {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncEventSubscriber.class);
+
+    /** Max number of events that are delivered by one task, then task is resubmitted to let other subscribers go. */
+    private static final int BATCH_SIZE = 64;
+
+    private final EventSubscriber<Object> subscriber;
+    private final int                     capacity;
+    private final OverflowPolicy          overflowPolicy;
+    private final Executor                executor;
+    private final Runnable                deliveryTask;
+
+    // Fields below are guarded by monitor of this mailbox.
+    private final ArrayDeque<Envelope>  queue;
+    /** Events that wait in queue, used for coalescing only. */
+    private final Map<Object, Envelope> pending;
+    private       boolean               scheduled;
+    private       boolean               closed;
+    private       Thread                deliveryThread;
+    private       int                   maxQueueSize;
+    private       long                  delivered;
+    private       long                  dropped;
+    private       long                  coalesced;
+    private       long                  totalLatencyNanos;
+    private       long                  maxLatencyNanos;
+
+    @SuppressWarnings("unchecked")
+    AsyncEventSubscriber(EventSubscriber<?> subscriber, int capacity, OverflowPolicy overflowPolicy, Executor executor) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity of mailbox must be greater than 0.");
+        }
+        this.subscriber = (EventSubscriber<Object>)subscriber;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.executor = executor;
+        this.queue = new ArrayDeque<>();
+        this.pending = overflowPolicy == OverflowPolicy.COALESCE ? new HashMap<Object, Envelope>() : null;
+        this.deliveryTask = new Runnable() {
+            @Override
+            public void run() {
+                deliver();
+            }
+        };
+    }
+
+    EventSubscriber<?> getSubscriber() {
+        return subscriber;
+    }
+
+    /** Puts event to the mailbox. */
+    @Override
+    public void onEvent(Object event) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (pending != null) {
+                final Envelope envelope = pending.get(event);
+                if (envelope != null) {
+                    // Keep position in queue and time of the replaced event.
+                    envelope.event = event;
+                    coalesced++;
+                    return;
+                }
+            }
+            while (queue.size() >= capacity) {
+                if (overflowPolicy != OverflowPolicy.BLOCK) {
+                    removed(queue.poll());
+                    dropped++;
+                } else if (deliveryThread == Thread.currentThread()) {
+                    // Subscriber publishes event to itself, waiting leads to deadlock.
+                    break;
+                } else {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped++;
+                        LOG.warn("Publishing of event {} to {} was interrupted, event is dropped", event, subscriber);
+                        return;
+                    }
+                    if (closed) {
+                        return;
+                    }
+                }
+            }
+            final Envelope envelope = new Envelope(event, System.nanoTime());
+            queue.add(envelope);
+            if (pending != null) {
+                pending.put(event, envelope);
+            }
+            maxQueueSize = Math.max(maxQueueSize, queue.size());
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(deliveryTask);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                scheduled = false;
+            }
+            LOG.warn("Unable deliver events to {}. {}", subscriber, e.getMessage());
+        }
+    }
+
+    private void deliver() {
+        synchronized (this) {
+            deliveryThread = Thread.currentThread();
+        }
+        boolean done = false;
+        try {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                final Object event;
+                synchronized (this) {
+                    final Envelope envelope = queue.poll();
+                    if (envelope == null || closed) {
+                        scheduled = false;
+                        done = true;
+                        return;
+                    }
+                    removed(envelope);
+                    notifyAll();
+                    final long latency = System.nanoTime() - envelope.time;
+                    totalLatencyNanos += latency;
+                    maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+                    delivered++;
+                    event = envelope.event;
+                }
+                try {
+                    LOG.debug("Deliver event {} to {}", event, subscriber);
+                    subscriber.onEvent(event);
+                } catch (RuntimeException e) {
+                    LOG.error(e.getMessage(), e);
+                }
+            }
+        } finally {
+            // Batch is delivered or subscriber failed with Error. This task still owns the mailbox: continue with new task if
+            // events are waiting, otherwise let publishers schedule delivery, mailbox must not stay scheduled with no task.
+            boolean reschedule = false;
+            synchronized (this) {
+                deliveryThread = null;
+                if (!done) {
+                    reschedule = !queue.isEmpty() && !closed;
+                    if (!reschedule) {
+                        scheduled = false;
+                    }
+                }
+            }
+            if (reschedule) {
+                schedule();
+            }
+        }
+    }
+
+    private void removed(Envelope envelope) {
+        if (pending != null) {
+            pending.remove(envelope.event);
+        }
+    }
+
+    /** Drops all events that wait for delivery and stops accepting of new events. */
+    synchronized void close() {
+        closed = true;
+        queue.clear();
+        if (pending != null) {
+            pending.clear();
+        }
+        notifyAll();
+    }
+
+    synchronized DeliveryStats getStats() {
+        return new DeliveryStats(subscriber.toString(), overflowPolicy, capacity, queue.size(), maxQueueSize, delivered, dropped,
+                                 coalesced, totalLatencyNanos, maxLatencyNanos);
+    }
+
+    private static class Envelope {
+        final long   time;
+        Object event;
+
+        Envelope(Object event, long time) {
+            this.event = event;
+            this.time = time;
+        }
+    }
+}
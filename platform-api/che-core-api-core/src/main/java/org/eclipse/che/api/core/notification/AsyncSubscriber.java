@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.notification;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks {@link EventSubscriber} that receives events asynchronously. {@link EventService} puts events for such subscriber to
+ * its own bounded mailbox and returns immediately, events are delivered by the shared thread pool in order of publishing.
+ * Anonymous subscribers may use {@link EventService#subscribeAsync(EventSubscriber, int, OverflowPolicy)} instead.
+ *
+ * @see EventService#getDeliveryStats()
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AsyncSubscriber {
+    /** Max number of events that wait for delivery to subscriber. */
+    int capacity() default 1000;
+
+    /** What to do when mailbox of subscriber is full. */
+    OverflowPolicy overflowPolicy() default OverflowPolicy.BLOCK;
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.notification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of delivery of events to one asynchronous subscriber. Instance is a snapshot and isn't updated.
+ *
+ * @see EventService#getDeliveryStats()
+ */
+public final class DeliveryStats {
+    private final String         subscriber;
+    private final OverflowPolicy overflowPolicy;
+    private final int            capacity;
+    private final int            queueSize;
+    private final int            maxQueueSize;
+    private final long           delivered;
+    private final long           dropped;
+    private final long           coalesced;
+    private final long           totalLatencyNanos;
+    private final long           maxLatencyNanos;
+
+    DeliveryStats(String subscriber, OverflowPolicy overflowPolicy, int capacity, int queueSize, int maxQueueSize, long delivered,
+                  long dropped, long coalesced, long totalLatencyNanos, long maxLatencyNanos) {
+        this.subscriber = subscriber;
+        this.overflowPolicy = overflowPolicy;
+        this.capacity = capacity;
+        this.queueSize = queueSize;
+        this.maxQueueSize = maxQueueSize;
+        this.delivered = delivered;
+        this.dropped = dropped;
+        this.coalesced = coalesced;
+        this.totalLatencyNanos = totalLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    /** String representation of subscriber. */
+    public String getSubscriber() {
+        return subscriber;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /** Max number of events in mailbox of subscriber. */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Number of events that wait for delivery. */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /** Max number of events that waited for delivery at the same time. */
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    /** Number of events passed to subscriber. */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    /** Number of events dropped because mailbox was full. */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /** Number of events replaced with newer equal events, see {@link OverflowPolicy#COALESCE}. */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /** Average time between publishing of event and its delivery to subscriber. */
+    public long getAverageLatency(TimeUnit unit) {
+        return delivered == 0 ? 0 : unit.convert(totalLatencyNanos / delivered, TimeUnit.NANOSECONDS);
+    }
+
+    /** Max time between publishing of event and its delivery to subscriber. */
+    public long getMaxLatency(TimeUnit unit) {
+        return unit.convert(maxLatencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "DeliveryStats{" +
+               "subscriber='" + subscriber + '\'' +
+               ", overflowPolicy=" + overflowPolicy +
+               ", capacity=" + capacity +
+               ", queueSize=" + queueSize +
+               ", maxQueueSize=" + maxQueueSize +
+               ", delivered=" + delivered +
+               ", dropped=" + dropped +
+               ", coalesced=" + coalesced +
+               ", averageLatencyMs=" + getAverageLatency(TimeUnit.MILLISECONDS) +
+               ", maxLatencyMs=" + getMaxLatency(TimeUnit.MILLISECONDS) +
+               '}';
+    }
+}
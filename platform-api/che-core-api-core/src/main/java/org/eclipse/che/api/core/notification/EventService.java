@@ -13,20 +13,28 @@ package org.eclipse.che.api.core.notification;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Singleton;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Dispatchers events to listeners. Usage example:
@@ -40,6 +48,10 @@ import java.util.concurrent.CopyOnWriteArraySet;
  *     });
  *     bus.publish(new MyEvent());
  * </pre>
+ * By default subscribers are called by the thread that publishes event. Subscriber that is annotated with {@link
+ * AsyncSubscriber} or subscribed with {@link #subscribeAsync(EventSubscriber, int, OverflowPolicy)} gets events
+ * asynchronously: events are put to its bounded mailbox and delivered by the thread pool that is shared by all asynchronous
+ * subscribers of this EventService. Such subscriber doesn't slow down publisher.
  *
  * @author andrew00x
  */
@@ -51,12 +63,19 @@ public class EventService {
     private static final int CACHE_MASK = CACHE_NUM - 1;
     private static final int SEG_SIZE   = 32;
 
-    private final LoadingCache<Class<?>, Set<Class<?>>>[]       typeCache;
-    private final ConcurrentMap<Class<?>, Set<EventSubscriber>> subscribersByEventType;
+    /** Number of threads that deliver events to asynchronous subscribers. */
+    private static final int ASYNC_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final LoadingCache<Class<?>, Set<Class<?>>>[]                 typeCache;
+    private final ConcurrentMap<Class<?>, Set<EventSubscriber>>           subscribersByEventType;
+    private final ConcurrentMap<EventSubscriber<?>, AsyncEventSubscriber> asyncSubscribers;
+
+    private volatile ExecutorService asyncExecutor;
 
     @SuppressWarnings("unchecked")
     public EventService() {
         subscribersByEventType = new ConcurrentHashMap<>();
+        asyncSubscribers = new ConcurrentHashMap<>();
         typeCache = new LoadingCache[CACHE_NUM];
         for (int i = 0; i < CACHE_NUM; i++) {
             typeCache[i] = CacheBuilder.newBuilder().concurrencyLevel(SEG_SIZE).build(
@@ -123,6 +142,23 @@ public class EventService {
         doSubscribe(subscriber, eventType);
     }
 
+    /**
+     * Subscribe event listener that gets events asynchronously. The event to subscribe to is inferred by checking the generic
+     * type arguments of the given subscriber.
+     *
+     * @param subscriber
+     *         event subscriber
+     * @param capacity
+     *         max number of events that wait for delivery to subscriber
+     * @param overflowPolicy
+     *         what to do when there are {@code capacity} events that wait for delivery
+     * @see AsyncSubscriber
+     */
+    public void subscribeAsync(EventSubscriber<?> subscriber, int capacity, OverflowPolicy overflowPolicy) {
+        final Class<?> eventType = getEventType(subscriber);
+        doSubscribe(getAsyncSubscriber(subscriber, capacity, overflowPolicy), eventType);
+    }
+
     /**
      * Subscribe to an event. The given subscriber will be called whenever an instance of the specified event is
      * published.
@@ -135,6 +171,10 @@ public class EventService {
     }
 
     private void doSubscribe(EventSubscriber<?> subscriber, Class<?> eventType) {
+        final AsyncSubscriber async = subscriber.getClass().getAnnotation(AsyncSubscriber.class);
+        if (async != null) {
+            subscriber = getAsyncSubscriber(subscriber, async.capacity(), async.overflowPolicy());
+        }
         Set<EventSubscriber> entries = subscribersByEventType.get(eventType);
         if (entries == null) {
             Set<EventSubscriber> newEntries = new CopyOnWriteArraySet<>();
@@ -154,9 +194,13 @@ public class EventService {
      */
     public void unsubscribe(EventSubscriber<?> subscriber) {
         final Class<?> eventType = getEventType(subscriber);
+        final AsyncEventSubscriber asyncSubscriber = asyncSubscribers.remove(subscriber);
+        if (asyncSubscriber != null) {
+            asyncSubscriber.close();
+        }
         final Set<EventSubscriber> entries = subscribersByEventType.get(eventType);
         if (entries != null && !entries.isEmpty()) {
-            boolean changed = entries.remove(subscriber);
+            boolean changed = entries.remove(asyncSubscriber != null ? asyncSubscriber : subscriber);
             if (changed) {
                 if (entries.isEmpty()) {
                     subscribersByEventType.remove(eventType);
@@ -165,6 +209,65 @@ public class EventService {
         }
     }
 
+    /** Gets statistics of delivery of events to all asynchronous subscribers. */
+    public List<DeliveryStats> getDeliveryStats() {
+        final List<DeliveryStats> stats = new ArrayList<>(asyncSubscribers.size());
+        for (AsyncEventSubscriber asyncSubscriber : asyncSubscribers.values()) {
+            stats.add(asyncSubscriber.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Stops delivery of events to asynchronous subscribers and unsubscribes them. Events that wait for delivery are dropped.
+     * Asynchronous subscribers that are subscribed after that get new threads.
+     */
+    @PreDestroy
+    public void stop() {
+        for (EventSubscriber<?> subscriber : new ArrayList<>(asyncSubscribers.keySet())) {
+            unsubscribe(subscriber);
+        }
+        final ExecutorService executor;
+        synchronized (this) {
+            executor = asyncExecutor;
+            asyncExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private AsyncEventSubscriber getAsyncSubscriber(EventSubscriber<?> subscriber, int capacity, OverflowPolicy overflowPolicy) {
+        AsyncEventSubscriber asyncSubscriber = asyncSubscribers.get(subscriber);
+        if (asyncSubscriber == null) {
+            final AsyncEventSubscriber newAsyncSubscriber = new AsyncEventSubscriber(subscriber, capacity, overflowPolicy,
+                                                                                     getAsyncExecutor());
+            asyncSubscriber = asyncSubscribers.putIfAbsent(subscriber, newAsyncSubscriber);
+            if (asyncSubscriber == null) {
+                asyncSubscriber = newAsyncSubscriber;
+            }
+        }
+        return asyncSubscriber;
+    }
+
+    /** Threads are created only when there are asynchronous subscribers and stop when they are idle. */
+    private ExecutorService getAsyncExecutor() {
+        ExecutorService executor = asyncExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = asyncExecutor;
+                if (executor == null) {
+                    final ThreadPoolExecutor threadPool =
+                            new ThreadPoolExecutor(ASYNC_THREADS, ASYNC_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                                   new ThreadFactoryBuilder().setNameFormat("EventService-%d").setDaemon(true).build());
+                    threadPool.allowCoreThreadTimeOut(true);
+                    asyncExecutor = executor = threadPool;
+                }
+            }
+        }
+        return executor;
+    }
+
     private Class<?> getEventType(EventSubscriber<?> subscriber) {
         Class<?> eventType = null;
         Class<?> clazz = subscriber.getClass();
@@ -11,11 +11,14 @@
 package org.eclipse.che.api.core.notification;
 
 import org.eclipse.che.commons.lang.NameGenerator;
+import org.eclipse.che.dto.server.DtoFactory;
+import org.eclipse.che.dto.shared.DTO;
 import org.everrest.core.impl.provider.json.JsonGenerator;
 import org.everrest.core.impl.provider.json.JsonParser;
 import org.everrest.core.impl.provider.json.JsonValue;
 import org.everrest.core.impl.provider.json.JsonWriter;
 import org.everrest.core.impl.provider.json.ObjectBuilder;
+import org.everrest.core.impl.provider.json.ObjectValue;
 import org.everrest.core.impl.provider.json.StringValue;
 import org.everrest.websockets.message.ChannelBroadcastMessage;
 import org.everrest.websockets.message.InputMessage;
@@ -25,17 +28,27 @@ import org.everrest.websockets.message.RestOutputMessage;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.Base64;
 
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.MediaType;
 
 /**
+ * Events are sent as JSON objects with field "$type" that contains name of event class. DTO events that support the compact
+ * binary format (see {@link org.eclipse.che.dto.server.BinaryStreams}) are sent as "$type" that contains name of DTO interface and
+ * "$binary" that contains base64 encoded binary form of DTO. Such form is smaller and much cheaper to produce than JSON that is
+ * built with reflection.
+ * <p/>
+ * Both forms are always accepted but the binary form is sent only when the sender is configured to use it, peers of older
+ * versions understand only JSON form. See {@link WSocketEventBusServer#setBinaryEnvelope(boolean)} and {@link
+ * WSocketEventBusClient#setBinaryEnvelope(boolean)}.
+ *
  * @author andrew00x
  */
 class Messages {
-    static RestInputMessage clientMessage(Object event) throws Exception {
+    static RestInputMessage clientMessage(Object event, boolean binaryEnvelope) throws Exception {
         RestInputMessage message = new RestInputMessage();
-        message.setBody(toJson(event));
+        message.setBody(toJson(event, binaryEnvelope));
         message.setMethod(HttpMethod.POST);
         message.setHeaders(new org.everrest.websockets.message.Pair[]{
                 new org.everrest.websockets.message.Pair("Content-type", MediaType.APPLICATION_JSON)});
@@ -48,9 +61,9 @@ class Messages {
         return RestInputMessage.newSubscribeChannelMessage(NameGenerator.generate(null, 8), channel);
     }
 
-    static ChannelBroadcastMessage broadcastMessage(String channel, Object event) throws Exception {
+    static ChannelBroadcastMessage broadcastMessage(String channel, Object event, boolean binaryEnvelope) throws Exception {
         final ChannelBroadcastMessage message = new ChannelBroadcastMessage();
-        message.setBody(toJson(event));
+        message.setBody(toJson(event, binaryEnvelope));
         message.setChannel(channel);
         return message;
     }
@@ -66,10 +79,17 @@ class Messages {
         return null;
     }
 
-    private static String toJson(Object event) throws Exception {
-        final String type = event.getClass().getName();
-        final JsonValue json = JsonGenerator.createJsonObject(event);
-        json.addElement("$type", new StringValue(type));
+    private static String toJson(Object event, boolean binaryEnvelope) throws Exception {
+        final DtoFactory dtoFactory = DtoFactory.getInstance();
+        final JsonValue json;
+        if (binaryEnvelope && dtoFactory.hasBinaryCodec(event.getClass())) {
+            json = new ObjectValue();
+            json.addElement("$type", new StringValue(getDtoInterface(event.getClass()).getName()));
+            json.addElement("$binary", new StringValue(Base64.getEncoder().encodeToString(dtoFactory.toBinary(event))));
+        } else {
+            json = JsonGenerator.createJsonObject(event);
+            json.addElement("$type", new StringValue(event.getClass().getName()));
+        }
         final Writer w = new StringWriter();
         json.writeTo(new JsonWriter(w));
         return w.toString();
@@ -87,9 +107,23 @@ class Messages {
         if (typeNode == null || (type = typeNode.getStringValue()) == null) {
             return null;
         }
+        final JsonValue binaryNode = node.getElement("$binary");
+        if (binaryNode != null) {
+            return DtoFactory.getInstance().createDtoFromBinary(Base64.getDecoder().decode(binaryNode.getStringValue()),
+                                                                Class.forName(type));
+        }
         return ObjectBuilder.createObject(Class.forName(type), node);
     }
 
+    private static Class<?> getDtoInterface(Class<?> implClass) {
+        for (Class<?> i : implClass.getInterfaces()) {
+            if (i.isAnnotationPresent(DTO.class)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unable determine DTO interface of " + implClass.getName());
+    }
+
     private Messages() {
     }
 }
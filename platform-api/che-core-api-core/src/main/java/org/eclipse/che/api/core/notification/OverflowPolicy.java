@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.notification;
+
+/**
+ * Defines what {@link EventService} does when mailbox of asynchronous subscriber is full.
+ *
+ * @see AsyncSubscriber
+ */
+public enum OverflowPolicy {
+    /** Publisher waits until subscriber takes next event from mailbox. No events are lost. */
+    BLOCK,
+
+    /** The oldest event in mailbox is dropped to free space for the new one. */
+    DROP_OLDEST,
+
+    /**
+     * Event that is equal to the new one and still waits in mailbox is replaced with the new event, so subscriber gets only the
+     * latest of them. Suitable for events that describe current state of something and implement {@link Object#equals(Object)}
+     * to compare identity of that something. If there is no equal event and mailbox is full, the oldest event is dropped.
+     */
+    COALESCE
+}
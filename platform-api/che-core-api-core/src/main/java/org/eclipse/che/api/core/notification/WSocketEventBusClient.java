@@ -65,6 +65,7 @@ public final class WSocketEventBusClient {
     private final AtomicBoolean                        start;
 
     private ExecutorService executor;
+    private boolean         binaryEnvelope;
 
     @Inject
     public WSocketEventBusClient(EventService eventService,
@@ -79,6 +80,15 @@ public final class WSocketEventBusClient {
         start = new AtomicBoolean(false);
     }
 
+    /**
+     * Enables sending of DTO events in the compact binary form, see {@link Messages}. Must be enabled only when all servers that
+     * events are sent to are able to read such form.
+     */
+    @com.google.inject.Inject(optional = true)
+    public void setBinaryEnvelope(@Named("notification.client.binary_envelope") boolean binaryEnvelope) {
+        this.binaryEnvelope = binaryEnvelope;
+    }
+
     @PostConstruct
     void start() {
         if (start.compareAndSet(false, true)) {
@@ -122,7 +132,7 @@ public final class WSocketEventBusClient {
             try {
                 final WSClient client = future.get();
                 if (policy != null && policy.shouldPropagated(client.getServerUri(), event)) {
-                    client.send(messageConverter.toString(Messages.clientMessage(event)));
+                    client.send(messageConverter.toString(Messages.clientMessage(event, binaryEnvelope)));
                 }
             } catch (Exception e) {
                 LOG.error(e.getMessage(), e);
@@ -17,6 +17,7 @@ import org.slf4j.LoggerFactory;
 import org.eclipse.che.commons.annotation.Nullable;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
@@ -32,10 +33,15 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public final class WSocketEventBusServer {
     private static final Logger LOG = LoggerFactory.getLogger(WSocketEventBusServer.class);
 
+    /** Max number of events that wait for sending to websockets. */
+    private static final int PROPAGATION_QUEUE_SIZE = 10000;
+
     private final EventService                 eventService;
     private final ServerEventPropagationPolicy policy;
     private final AtomicBoolean                start;
 
+    private boolean binaryEnvelope;
+
     @Inject
     public WSocketEventBusServer(EventService eventService, @Nullable ServerEventPropagationPolicy policy) {
         this.eventService = eventService;
@@ -44,6 +50,15 @@ public final class WSocketEventBusServer {
         start = new AtomicBoolean(false);
     }
 
+    /**
+     * Enables sending of DTO events in the compact binary form, see {@link Messages}. Must be enabled only when all clients of
+     * event bus are able to read such form.
+     */
+    @com.google.inject.Inject(optional = true)
+    public void setBinaryEnvelope(@Named("notification.server.binary_envelope") boolean binaryEnvelope) {
+        this.binaryEnvelope = binaryEnvelope;
+    }
+
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     public void event(String message) {
@@ -61,12 +76,13 @@ public final class WSocketEventBusServer {
     void start() {
         if (start.compareAndSet(false, true)) {
             if (policy != null) {
-                eventService.subscribe(new EventSubscriber<Object>() {
+                // Sending of events to websockets may be slow, don't let it block publishers.
+                eventService.subscribeAsync(new EventSubscriber<Object>() {
                     @Override
                     public void onEvent(Object event) {
                         propagate(event);
                     }
-                });
+                }, PROPAGATION_QUEUE_SIZE, OverflowPolicy.BLOCK);
             }
         }
     }
@@ -74,7 +90,7 @@ public final class WSocketEventBusServer {
     protected void propagate(Object event) {
         if (policy.shouldPropagated(event)) {
             try {
-                WSConnectionContext.sendMessage(Messages.broadcastMessage(resolveChannelName(event), event));
+                WSConnectionContext.sendMessage(Messages.broadcastMessage(resolveChannelName(event), event, binaryEnvelope));
             } catch (Exception e) {
                 LOG.error(e.getMessage(), e);
             }
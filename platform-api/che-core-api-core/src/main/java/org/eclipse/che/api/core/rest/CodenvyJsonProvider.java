@@ -10,9 +10,13 @@
  *******************************************************************************/
 package org.eclipse.che.api.core.rest;
 
+import com.google.gson.stream.JsonWriter;
+
 import org.eclipse.che.commons.annotation.Nullable;
+import org.eclipse.che.dto.server.BinaryStreams;
 import org.eclipse.che.dto.server.DtoFactory;
 import org.eclipse.che.dto.server.JsonSerializable;
+import org.eclipse.che.dto.server.JsonStreams;
 import org.eclipse.che.dto.shared.DTO;
 import org.everrest.core.impl.provider.JsonEntityProvider;
 
@@ -43,6 +47,9 @@ import java.util.Set;
 
 /**
  * Implementation of {@link MessageBodyReader} and {@link MessageBodyWriter} needed for binding JSON content to and from Java Objects.
+ * <p/>
+ * DTOs that support the compact binary format (see {@link BinaryStreams}) are also read and written in this format if content type
+ * of request or acceptable type of response is {@link BinaryStreams#MEDIA_TYPE}.
  *
  * @author andrew00x
  * @see DTO
@@ -50,9 +57,11 @@ import java.util.Set;
  */
 @Singleton
 @Provider
-@Produces({MediaType.APPLICATION_JSON})
-@Consumes({MediaType.APPLICATION_JSON})
+@Produces({MediaType.APPLICATION_JSON, BinaryStreams.MEDIA_TYPE})
+@Consumes({MediaType.APPLICATION_JSON, BinaryStreams.MEDIA_TYPE})
 public class CodenvyJsonProvider<T> implements MessageBodyReader<T>, MessageBodyWriter<T> {
+    private static final MediaType BINARY_MEDIA_TYPE = MediaType.valueOf(BinaryStreams.MEDIA_TYPE);
+
     private Set<Class> ignoredClasses;
     private final JsonEntityProvider delegate = new JsonEntityProvider<>();
 
@@ -64,6 +73,9 @@ public class CodenvyJsonProvider<T> implements MessageBodyReader<T>, MessageBody
     @SuppressWarnings("unchecked")
     @Override
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        if (isBinary(mediaType)) {
+            return !ignoredClasses.contains(type) && DtoFactory.getInstance().hasBinaryCodec(type);
+        }
         return !ignoredClasses.contains(type) &&
                (type.isAnnotationPresent(DTO.class) || delegate.isWriteable(type, genericType, annotations, mediaType));
     }
@@ -79,9 +91,14 @@ public class CodenvyJsonProvider<T> implements MessageBodyReader<T>, MessageBody
                         MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
         // Add Cache-Control before start write body.
         httpHeaders.putSingle(HttpHeaders.CACHE_CONTROL, "public, no-cache, no-store, no-transform");
-        if (t instanceof JsonSerializable) {
+        if (isBinary(mediaType)) {
+            DtoFactory.getInstance().writeBinary(t, entityStream);
+        } else if (t instanceof JsonSerializable) {
             try (Writer w = new OutputStreamWriter(entityStream, Charset.forName("UTF-8"))) {
-                w.write(((JsonSerializable)t).toJson());
+                // Write DTO straight to the entity stream without building JSON string.
+                final JsonWriter writer = JsonStreams.newJsonWriter(w);
+                ((JsonSerializable)t).writeTo(writer);
+                writer.flush();
             }
         } else {
             delegate.writeTo(t, type, genericType, annotations, mediaType, httpHeaders, entityStream);
@@ -91,6 +108,9 @@ public class CodenvyJsonProvider<T> implements MessageBodyReader<T>, MessageBody
     @SuppressWarnings("unchecked")
     @Override
     public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        if (isBinary(mediaType)) {
+            return !ignoredClasses.contains(type) && type.isAnnotationPresent(DTO.class) && DtoFactory.getInstance().hasBinaryCodec(type);
+        }
         return !ignoredClasses.contains(type) &&
                (type.isAnnotationPresent(DTO.class) || delegate.isReadable(type, genericType, annotations, mediaType));
     }
@@ -99,7 +119,9 @@ public class CodenvyJsonProvider<T> implements MessageBodyReader<T>, MessageBody
     @Override
     public T readFrom(Class<T> type, Type genericType, Annotation[] annotations, MediaType mediaType,
                       MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException, WebApplicationException {
-        if (type.isAnnotationPresent(DTO.class)) {
+        if (isBinary(mediaType)) {
+            return DtoFactory.getInstance().createDtoFromBinary(entityStream, type);
+        } else if (type.isAnnotationPresent(DTO.class)) {
             return DtoFactory.getInstance().createDtoFromJson(entityStream, type);
         } else if (type.isAssignableFrom(List.class) && genericType instanceof ParameterizedType) {
             ParameterizedType parameterizedType = (ParameterizedType)genericType;
@@ -114,6 +136,13 @@ public class CodenvyJsonProvider<T> implements MessageBodyReader<T>, MessageBody
         return (T)delegate.readFrom(type, genericType, annotations, mediaType, httpHeaders, entityStream);
     }
 
+    /** Wildcard types are not considered as binary, JSON is preferable if client accepts any type. */
+    private static boolean isBinary(MediaType mediaType) {
+        return mediaType != null
+               && BINARY_MEDIA_TYPE.getType().equalsIgnoreCase(mediaType.getType())
+               && BINARY_MEDIA_TYPE.getSubtype().equalsIgnoreCase(mediaType.getSubtype());
+    }
+
     /**
      * Get Set of classes that we never try to serialize or deserialize. Returned Set is mutable and new classes may be added in ignored
      * Set.
@@ -65,6 +65,12 @@ public class DefaultHttpJsonRequest implements HttpJsonRequest {
     private static final int      DEFAULT_QUERY_PARAMS_LIST_SIZE = 5;
     private static final Object[] EMPTY_ARRAY                    = new Object[0];
 
+    static final ResponseReader<DefaultHttpJsonResponse> STRING_RESPONSE_READER = (conn, responseCode) -> {
+        try (Reader reader = new InputStreamReader(conn.getInputStream())) {
+            return new DefaultHttpJsonResponse(CharStreams.toString(reader), responseCode);
+        }
+    };
+
     private final String url;
 
     private int                   timeout;
@@ -180,7 +186,31 @@ public class DefaultHttpJsonRequest implements HttpJsonRequest {
                                                                                UnauthorizedException,
                                                                                ConflictException,
                                                                                BadRequestException {
-        final String authToken = getAuthenticationToken();
+        return doRequest(timeout, url, method, body, parameters, getAuthenticationToken(), STRING_RESPONSE_READER);
+    }
+
+    /**
+     * Makes request the same as {@link #doRequest(int, String, String, Object, List)} does but reads successful response with
+     * the given {@code responseReader}.
+     *
+     * @param authToken
+     *         value of {@link HttpHeaders#AUTHORIZATION} header, may be null
+     * @param responseReader
+     *         reads body of successful response from connection
+     */
+    <R> R doRequest(int timeout,
+                    String url,
+                    String method,
+                    Object body,
+                    List<Pair<String, ?>> parameters,
+                    String authToken,
+                    ResponseReader<R> responseReader) throws IOException,
+                                                             ServerException,
+                                                             ForbiddenException,
+                                                             NotFoundException,
+                                                             UnauthorizedException,
+                                                             ConflictException,
+                                                             BadRequestException {
         final boolean hasQueryParams = parameters != null && !parameters.isEmpty();
         if (hasQueryParams || authToken != null) {
             final UriBuilder ub = UriBuilder.fromUri(url);
@@ -201,6 +231,7 @@ public class DefaultHttpJsonRequest implements HttpJsonRequest {
         final HttpURLConnection conn = (HttpURLConnection)new URL(url).openConnection();
         conn.setConnectTimeout(timeout > 0 ? timeout : 60000);
         conn.setReadTimeout(timeout > 0 ? timeout : 60000);
+        boolean responseConsumed = false;
         try {
             conn.setRequestMethod(method);
             //drop a hint for server side that we want to receive application/json
@@ -232,6 +263,7 @@ public class DefaultHttpJsonRequest implements HttpJsonRequest {
                 try (Reader reader = new InputStreamReader(in)) {
                     str = CharStreams.toString(reader);
                 }
+                responseConsumed = true;
                 final String contentType = conn.getContentType();
                 if (contentType != null && contentType.startsWith(MediaType.APPLICATION_JSON)) {
                     final ServiceError serviceError = DtoFactory.getInstance().createDtoFromJson(str, ServiceError.class);
@@ -261,15 +293,50 @@ public class DefaultHttpJsonRequest implements HttpJsonRequest {
                 throw new IOException(conn.getResponseMessage());
             }
 
-            try (Reader reader = new InputStreamReader(conn.getInputStream())) {
-                return new DefaultHttpJsonResponse(CharStreams.toString(reader), responseCode);
-            }
+            final R response = responseReader.read(conn, responseCode);
+            responseConsumed = true;
+            return response;
         } finally {
-            conn.disconnect();
+            releaseConnection(conn, responseConsumed);
         }
     }
 
-    private String getAuthenticationToken() {
+    /**
+     * Called when request is completed.
+     *
+     * @param responseConsumed
+     *         {@code true} if body of response was read till the end, connection may be reused for the next request
+     */
+    void releaseConnection(HttpURLConnection conn, boolean responseConsumed) {
+        conn.disconnect();
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    Object getBody() {
+        return body;
+    }
+
+    int getTimeout() {
+        return timeout;
+    }
+
+    List<Pair<String, ?>> getQueryParams() {
+        return queryParams;
+    }
+
+    /** Reads body of successful response. */
+    interface ResponseReader<R> {
+        R read(HttpURLConnection conn, int responseCode) throws IOException;
+    }
+
+    String getAuthenticationToken() {
         final User user = EnvironmentContext.getCurrent().getUser();
         if (user != null) {
             return user.getToken();
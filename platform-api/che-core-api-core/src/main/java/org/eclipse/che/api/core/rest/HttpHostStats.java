@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.rest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of requests to one host made by {@link PooledHttpJsonRequestFactory}. Instance is a snapshot and isn't updated.
+ *
+ * @see PooledHttpJsonRequestFactory#getHostStats()
+ */
+public final class HttpHostStats {
+    private final String host;
+    private final int    maxConnections;
+    private final int    activeConnections;
+    private final int    waitingRequests;
+    private final long   requests;
+    private final long   failures;
+    private final long   totalLatencyNanos;
+    private final long   maxLatencyNanos;
+
+    HttpHostStats(String host, int maxConnections, int activeConnections, int waitingRequests, long requests, long failures,
+                  long totalLatencyNanos, long maxLatencyNanos) {
+        this.host = host;
+        this.maxConnections = maxConnections;
+        this.activeConnections = activeConnections;
+        this.waitingRequests = waitingRequests;
+        this.requests = requests;
+        this.failures = failures;
+        this.totalLatencyNanos = totalLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    /** Host and port in format {@code host:port}. */
+    public String getHost() {
+        return host;
+    }
+
+    /** Max number of requests to the host that may be performed at the same time. */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /** Number of requests to the host that are performed now. */
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    /** Number of requests that wait for free connection. */
+    public int getWaitingRequests() {
+        return waitingRequests;
+    }
+
+    /** Number of completed requests, including failed ones. */
+    public long getRequests() {
+        return requests;
+    }
+
+    /** Number of requests completed with error, either io error or error response of server. */
+    public long getFailures() {
+        return failures;
+    }
+
+    /** Average time of request, time of waiting for free connection isn't included. */
+    public long getAverageLatency(TimeUnit unit) {
+        return requests == 0 ? 0 : unit.convert(totalLatencyNanos / requests, TimeUnit.NANOSECONDS);
+    }
+
+    /** Max time of request, time of waiting for free connection isn't included. */
+    public long getMaxLatency(TimeUnit unit) {
+        return unit.convert(maxLatencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "HttpHostStats{" +
+               "host='" + host + '\'' +
+               ", maxConnections=" + maxConnections +
+               ", activeConnections=" + activeConnections +
+               ", waitingRequests=" + waitingRequests +
+               ", requests=" + requests +
+               ", failures=" + failures +
+               ", averageLatencyMs=" + getAverageLatency(TimeUnit.MILLISECONDS) +
+               ", maxLatencyMs=" + getMaxLatency(TimeUnit.MILLISECONDS) +
+               '}';
+    }
+}
@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Defines simple set of methods for requesting json objects.
@@ -160,6 +161,44 @@ public interface HttpJsonRequest {
                                       ConflictException,
                                       BadRequestException;
 
+    /**
+     * Makes the same request as {@link #request()} does and converts response to the DTO of the given type.
+     *
+     * <p>Implementations may parse DTO directly from the response stream without reading it to the string.
+     *
+     * @param dtoInterface
+     *         type of DTO
+     * @return DTO parsed from the response
+     * @see #request()
+     */
+    default <T> T requestDto(@NotNull Class<T> dtoInterface) throws IOException,
+                                                                     ServerException,
+                                                                     UnauthorizedException,
+                                                                     ForbiddenException,
+                                                                     NotFoundException,
+                                                                     ConflictException,
+                                                                     BadRequestException {
+        return request().asDto(dtoInterface);
+    }
+
+    /**
+     * Makes the same request as {@link #request()} does but doesn't wait for the response.
+     *
+     * <p>Returned future is completed exceptionally with the exception which {@link #request()} throws.
+     * Default implementation makes request in the current thread and returns already completed future.
+     *
+     * @return future of the response
+     */
+    default CompletableFuture<HttpJsonResponse> requestAsync() {
+        final CompletableFuture<HttpJsonResponse> future = new CompletableFuture<>();
+        try {
+            future.complete(request());
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /**
      * Uses {@link HttpMethod#GET} as a request method.
      *
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.rest;
+
+import org.eclipse.che.api.core.BadRequestException;
+import org.eclipse.che.api.core.ConflictException;
+import org.eclipse.che.api.core.ForbiddenException;
+import org.eclipse.che.api.core.NotFoundException;
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.core.UnauthorizedException;
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.commons.lang.Pair;
+import org.eclipse.che.dto.server.DtoFactory;
+
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Implementation of {@link HttpJsonRequest} which reuses connections and limits number of concurrent requests to one host.
+ *
+ * <p>The implementation is not thread-safe, but {@link #requestAsync()} takes snapshot of request so the instance may be
+ * changed and reused right after method returns.
+ *
+ * @see PooledHttpJsonRequestFactory
+ */
+public class PooledHttpJsonRequest extends DefaultHttpJsonRequest {
+    private final PooledHttpJsonRequestFactory factory;
+
+    PooledHttpJsonRequest(PooledHttpJsonRequestFactory factory, String url) {
+        super(url);
+        this.factory = factory;
+    }
+
+    PooledHttpJsonRequest(PooledHttpJsonRequestFactory factory, Link link) {
+        super(link);
+        this.factory = factory;
+    }
+
+    @Override
+    public <T> T requestDto(@NotNull Class<T> dtoInterface) throws IOException,
+                                                                    ServerException,
+                                                                    UnauthorizedException,
+                                                                    ForbiddenException,
+                                                                    NotFoundException,
+                                                                    ConflictException,
+                                                                    BadRequestException {
+        requireNonNull(dtoInterface, "Required non-null dto interface");
+        checkMethod();
+        return doRequest(getTimeout(), getUrl(), getMethod(), getBody(), getQueryParams(), getAuthenticationToken(),
+                         (conn, responseCode) -> {
+                             try (Reader reader = new InputStreamReader(conn.getInputStream(), UTF_8)) {
+                                 final T dto = DtoFactory.getInstance().createDtoFromJson(reader, dtoInterface);
+                                 // Read the rest of response, connection can't be reused otherwise.
+                                 while (reader.read() != -1) {
+                                 }
+                                 return dto;
+                             }
+                         });
+    }
+
+    /**
+     * Makes request with thread of {@link PooledHttpJsonRequestFactory}. Authorization token of the current {@link
+     * org.eclipse.che.commons.env.EnvironmentContext} is used for request.
+     */
+    @Override
+    public CompletableFuture<HttpJsonResponse> requestAsync() {
+        checkMethod();
+        final int timeout = getTimeout();
+        final String url = getUrl();
+        final String method = getMethod();
+        final Object body = getBody();
+        final List<Pair<String, ?>> queryParams = getQueryParams() == null ? null : new ArrayList<>(getQueryParams());
+        final String authToken = getAuthenticationToken();
+        final CompletableFuture<HttpJsonResponse> future = new CompletableFuture<>();
+        try {
+            factory.getAsyncExecutor().execute(() -> {
+                if (future.isDone()) {
+                    return; // cancelled
+                }
+                try {
+                    future.complete(doRequest(timeout, url, method, body, queryParams, authToken, STRING_RESPONSE_READER));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    <R> R doRequest(int timeout,
+                    String url,
+                    String method,
+                    Object body,
+                    List<Pair<String, ?>> parameters,
+                    String authToken,
+                    ResponseReader<R> responseReader) throws IOException,
+                                                             ServerException,
+                                                             ForbiddenException,
+                                                             NotFoundException,
+                                                             UnauthorizedException,
+                                                             ConflictException,
+                                                             BadRequestException {
+        final PooledHttpJsonRequestFactory.HostPool pool = factory.getPool(new URL(url));
+        pool.acquire(timeout > 0 ? timeout : 60000);
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            final R response = super.doRequest(timeout, url, method, body, parameters, authToken, responseReader);
+            failed = false;
+            return response;
+        } finally {
+            pool.release(System.nanoTime() - start, failed);
+        }
+    }
+
+    /** Keeps connection open if response is read, so underlying socket is reused by the next request to the same host. */
+    @Override
+    void releaseConnection(HttpURLConnection conn, boolean responseConsumed) {
+        if (!responseConsumed) {
+            conn.disconnect();
+        }
+    }
+
+    private void checkMethod() {
+        if (getMethod() == null) {
+            throw new IllegalStateException("Could not perform request, request method wasn't set");
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.rest;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Creates {@link PooledHttpJsonRequest} instances.
+ *
+ * <p>Unlike {@link DefaultHttpJsonRequestFactory} requests created by this factory:
+ * <ul>
+ * <li>don't close connection after response is read, so the socket is returned to the keep-alive cache of {@link
+ * java.net.HttpURLConnection} and reused by the next request to the same host. Size of cache is controlled with system
+ * property {@code http.maxConnections}</li>
+ * <li>limit number of concurrent requests to one host with {@code http.json.max_connections_per_host}, request waits for
+ * free connection not longer than its timeout</li>
+ * <li>parse DTOs directly from response stream, see {@link HttpJsonRequest#requestDto(Class)}</li>
+ * <li>support asynchronous requests, see {@link HttpJsonRequest#requestAsync()}. Number of threads which perform such
+ * requests is set with {@code http.json.async_threads}</li>
+ * </ul>
+ * Statistics of requests to every host is available with {@link #getHostStats()}.
+ *
+ * <p>Factory isn't used by default, to use it bind {@link HttpJsonRequestFactory} to this class.
+ */
+@Singleton
+public class PooledHttpJsonRequestFactory implements HttpJsonRequestFactory {
+    static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+    static final int DEFAULT_ASYNC_THREADS            = 10;
+
+    private final ConcurrentMap<String, HostPool> pools = new ConcurrentHashMap<>();
+
+    private int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    private int asyncThreads          = DEFAULT_ASYNC_THREADS;
+
+    private volatile ExecutorService asyncExecutor;
+
+    @com.google.inject.Inject(optional = true)
+    public void setMaxConnectionsPerHost(@Named("http.json.max_connections_per_host") int maxConnectionsPerHost) {
+        if (maxConnectionsPerHost < 1) {
+            throw new IllegalArgumentException("Max number of connections per host must be greater than 0");
+        }
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    @com.google.inject.Inject(optional = true)
+    public void setAsyncThreads(@Named("http.json.async_threads") int asyncThreads) {
+        if (asyncThreads < 1) {
+            throw new IllegalArgumentException("Number of threads for asynchronous requests must be greater than 0");
+        }
+        this.asyncThreads = asyncThreads;
+    }
+
+    @Override
+    public HttpJsonRequest fromUrl(@NotNull String url) {
+        return new PooledHttpJsonRequest(this, url);
+    }
+
+    @Override
+    public HttpJsonRequest fromLink(@NotNull Link link) {
+        return new PooledHttpJsonRequest(this, link);
+    }
+
+    /** Gets statistics of requests to every host this factory ever sent requests to. */
+    public List<HttpHostStats> getHostStats() {
+        final List<HttpHostStats> stats = new ArrayList<>(pools.size());
+        for (HostPool pool : pools.values()) {
+            stats.add(pool.getStats());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void stop() {
+        final ExecutorService executor = asyncExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    HostPool getPool(URL url) {
+        final String host = url.getHost() + ':' + (url.getPort() == -1 ? url.getDefaultPort() : url.getPort());
+        HostPool pool = pools.get(host);
+        if (pool == null) {
+            final HostPool newPool = new HostPool(host, maxConnectionsPerHost);
+            pool = pools.putIfAbsent(host, newPool);
+            if (pool == null) {
+                pool = newPool;
+            }
+        }
+        return pool;
+    }
+
+    /** Threads are created only when there are asynchronous requests and stop when they are idle. */
+    ExecutorService getAsyncExecutor() {
+        ExecutorService executor = asyncExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = asyncExecutor;
+                if (executor == null) {
+                    final ThreadPoolExecutor threadPool =
+                            new ThreadPoolExecutor(asyncThreads, asyncThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                                   new ThreadFactoryBuilder().setNameFormat("HttpJsonRequest-%d").setDaemon(true).build());
+                    threadPool.allowCoreThreadTimeOut(true);
+                    asyncExecutor = executor = threadPool;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /** Limits number of concurrent requests to one host and collects statistics of these requests. */
+    static class HostPool {
+        private final String        host;
+        private final int           maxConnections;
+        private final Semaphore     permits;
+        private final AtomicInteger waiting           = new AtomicInteger();
+        private final LongAdder     requests          = new LongAdder();
+        private final LongAdder     failures          = new LongAdder();
+        private final LongAdder     totalLatencyNanos = new LongAdder();
+        private final AtomicLong    maxLatencyNanos   = new AtomicLong();
+
+        HostPool(String host, int maxConnections) {
+            this.host = host;
+            this.maxConnections = maxConnections;
+            permits = new Semaphore(maxConnections, true);
+        }
+
+        /**
+         * Waits for free connection.
+         *
+         * @throws IOException
+         *         if there is no free connection after {@code timeoutMs} or thread is interrupted
+         */
+        void acquire(long timeoutMs) throws IOException {
+            if (permits.tryAcquire()) {
+                return;
+            }
+            waiting.incrementAndGet();
+            try {
+                if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new IOException(String.format("Timeout of waiting for free connection to %s, all %d connections are busy",
+                                                        host, maxConnections));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e.getMessage(), e);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+
+        /**
+         * Releases connection acquired with {@link #acquire(long)} and records statistics of request.
+         *
+         * @param latencyNanos
+         *         time of request in nanoseconds
+         */
+        void release(long latencyNanos, boolean failed) {
+            permits.release();
+            requests.increment();
+            if (failed) {
+                failures.increment();
+            }
+            totalLatencyNanos.add(latencyNanos);
+            long max;
+            while (latencyNanos > (max = maxLatencyNanos.get()) && !maxLatencyNanos.compareAndSet(max, latencyNanos)) {
+                // retry
+            }
+        }
+
+        HttpHostStats getStats() {
+            return new HttpHostStats(host,
+                                     maxConnections,
+                                     maxConnections - permits.availablePermits(),
+                                     waiting.get(),
+                                     requests.sum(),
+                                     failures.sum(),
+                                     totalLatencyNanos.sum(),
+                                     maxLatencyNanos.get());
+        }
+    }
+}
@@ -46,9 +46,6 @@ public class RemoteServiceDescriptor {
     protected final String baseUrl;
     private final   URL    baseUrlURL;
 
-    // will be initialized when it is needed
-    private volatile ServiceDescriptor serviceDescriptor;
-
     /**
      * Creates new descriptor of remote RESTful service.
      *
@@ -74,7 +71,7 @@ public class RemoteServiceDescriptor {
 
     /** @see ServiceDescriptor#getLinks() */
     public List<Link> getLinks() throws ServerException, IOException {
-        final List<Link> links = getServiceDescriptor().getLinks();
+        final List<Link> links = getCachedServiceDescriptor().getLinks();
         // always copy list and links itself!
         final List<Link> copy = new ArrayList<>(links.size());
         for (Link link : links) {
@@ -84,38 +81,48 @@ public class RemoteServiceDescriptor {
     }
 
     public Link getLink(String rel) throws ServerException, IOException {
-        final Link link = getServiceDescriptor().getLink(rel);
+        final Link link = getCachedServiceDescriptor().getLink(rel);
         return link == null ? null : DtoFactory.getInstance().clone(link);
     }
 
+    /**
+     * Gets descriptor of remote service. Descriptors are shared by all instances of this class with the same base URL and
+     * are reloaded periodically, see {@link ServiceDescriptorCache}.
+     */
     public ServiceDescriptor getServiceDescriptor() throws IOException, ServerException {
-        ServiceDescriptor myServiceDescriptor = serviceDescriptor;
-        if (myServiceDescriptor == null) {
-            synchronized (this) {
-                myServiceDescriptor = serviceDescriptor;
-                if (myServiceDescriptor == null) {
-                    try {
-                        myServiceDescriptor = serviceDescriptor = HttpJsonHelper.options(getServiceDescriptorClass(), baseUrl);
-                    } catch (NotFoundException | ConflictException | UnauthorizedException | ForbiddenException e) {
-                        throw new ServerException(e.getServiceError());
-                    }
-                }
-            }
+        return DtoFactory.getInstance().clone(getCachedServiceDescriptor());
+    }
+
+    /** Returns shared instance of descriptor, it must not be modified. */
+    private ServiceDescriptor getCachedServiceDescriptor() throws IOException, ServerException {
+        return ServiceDescriptorCache.getInstance().get(baseUrl, getServiceDescriptorClass(), this::loadServiceDescriptor);
+    }
+
+    /** Requests descriptor from remote service. */
+    protected ServiceDescriptor loadServiceDescriptor() throws IOException, ServerException {
+        try {
+            return HttpJsonHelper.options(getServiceDescriptorClass(), baseUrl);
+        } catch (NotFoundException | ConflictException e) {
+            throw new ServerException(e.getServiceError());
+        } catch (UnauthorizedException | ForbiddenException e) {
+            // Keep cause, such failures aren't cached by ServiceDescriptorCache.
+            throw new ServerException(e.getServiceError().getMessage(), e);
         }
-        return myServiceDescriptor;
     }
 
     protected Class<? extends ServiceDescriptor> getServiceDescriptorClass() {
         return ServiceDescriptor.class;
     }
 
-    /** Checks service availability. */
+    /**
+     * Checks service availability. Result of the last check is reused for some time, see {@link ServiceDescriptorCache}.
+     */
     public boolean isAvailable() {
         LOG.debug("Testing availability {}", baseUrl);
         try {
-            return (HttpJsonHelper.options(getServiceDescriptorClass(), baseUrl) != null);
+            return getCachedServiceDescriptor() != null;
         } catch (Exception e) {
-            LOG.warn(e.getLocalizedMessage());
+            LOG.debug(e.getLocalizedMessage());
             return false;
         }
     }
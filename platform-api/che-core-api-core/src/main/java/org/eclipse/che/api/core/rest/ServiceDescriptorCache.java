@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.rest;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.eclipse.che.api.core.ForbiddenException;
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.core.UnauthorizedException;
+import org.eclipse.che.api.core.rest.shared.dto.ServiceDescriptor;
+import org.eclipse.che.commons.lang.concurrent.ThreadLocalPropagateContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide cache of {@link ServiceDescriptor}s of remote services, used by {@link RemoteServiceDescriptor}. Key of cache is
+ * base URL of service and type of descriptor.
+ * <ul>
+ * <li>Descriptor is reused without any request to the remote service during {@code refreshAfter} period after it was
+ * loaded.</li>
+ * <li>When it's older than {@code refreshAfter} but younger than {@code expireAfter}, cached descriptor is still returned
+ * and new one is loaded in background. If background loading fails, cached descriptor is kept until it expires. Background
+ * loading runs with context (e.g. current user) of the caller which triggered it.</li>
+ * <li>When it's older than {@code expireAfter}, caller waits while new descriptor is loaded.</li>
+ * <li>Failure of loading is cached for {@code failureTtl} period, so unavailable service isn't requested again and again.
+ * Authentication and authorization failures (loader throws exception caused by {@link UnauthorizedException} or
+ * {@link ForbiddenException}) are never cached since they depend on the caller.</li>
+ * <li>Descriptor of one service is never loaded by a few threads at the same time, concurrent callers wait for the same
+ * result.</li>
+ * </ul>
+ * Periods for the shared instance are set in milliseconds with system properties
+ * {@code org.eclipse.che.service-descriptor.refresh-after}, {@code org.eclipse.che.service-descriptor.expire-after} and
+ * {@code org.eclipse.che.service-descriptor.failure-ttl}.
+ */
+public final class ServiceDescriptorCache {
+    private static final Logger LOG = LoggerFactory.getLogger(ServiceDescriptorCache.class);
+
+    private static final long DEFAULT_REFRESH_AFTER = TimeUnit.MINUTES.toMillis(1);
+    private static final long DEFAULT_EXPIRE_AFTER  = TimeUnit.MINUTES.toMillis(10);
+    private static final long DEFAULT_FAILURE_TTL   = TimeUnit.SECONDS.toMillis(10);
+
+    private static final ServiceDescriptorCache INSTANCE =
+            new ServiceDescriptorCache(Long.getLong("org.eclipse.che.service-descriptor.refresh-after", DEFAULT_REFRESH_AFTER),
+                                       Long.getLong("org.eclipse.che.service-descriptor.expire-after", DEFAULT_EXPIRE_AFTER),
+                                       Long.getLong("org.eclipse.che.service-descriptor.failure-ttl", DEFAULT_FAILURE_TTL),
+                                       TimeUnit.MILLISECONDS,
+                                       Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("ServiceDescriptorCache-%d")
+                                                                                               .setDaemon(true)
+                                                                                               .build()),
+                                       Ticker.systemTicker());
+
+    public static ServiceDescriptorCache getInstance() {
+        return INSTANCE;
+    }
+
+    /** Loads descriptor from remote service. */
+    public interface Loader {
+        ServiceDescriptor load() throws IOException, ServerException;
+    }
+
+    private final long     refreshAfterNanos;
+    private final long     expireAfterNanos;
+    private final long     failureTtlNanos;
+    private final Executor refreshExecutor;
+    private final Ticker   ticker;
+
+    private final ConcurrentMap<Key, Entry>                    entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Key, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+    ServiceDescriptorCache(long refreshAfter, long expireAfter, long failureTtl, TimeUnit unit, Executor refreshExecutor,
+                           Ticker ticker) {
+        if (refreshAfter > expireAfter) {
+            throw new IllegalArgumentException("Refresh period must not be greater than expiration period");
+        }
+        this.refreshAfterNanos = unit.toNanos(refreshAfter);
+        this.expireAfterNanos = unit.toNanos(expireAfter);
+        this.failureTtlNanos = unit.toNanos(failureTtl);
+        this.refreshExecutor = refreshExecutor;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Gets descriptor of remote service.
+     *
+     * @param baseUrl
+     *         base URL of service
+     * @param type
+     *         type of descriptor
+     * @param loader
+     *         loads descriptor if there is no cached one or cached one is too old
+     * @throws IOException
+     *         if descriptor can't be loaded because of io error, this error may be cached
+     * @throws ServerException
+     *         if descriptor can't be loaded because of any other error, this error may be cached
+     */
+    public ServiceDescriptor get(String baseUrl, Class<? extends ServiceDescriptor> type, Loader loader)
+            throws IOException, ServerException {
+        final Key key = new Key(baseUrl, type);
+        final Entry entry = entries.get(key);
+        if (entry != null) {
+            final long age = ticker.read() - entry.loadTime;
+            if (entry.error != null) {
+                if (age < failureTtlNanos) {
+                    return entry.get();
+                }
+            } else if (age < refreshAfterNanos) {
+                return entry.get();
+            } else if (age < expireAfterNanos) {
+                refresh(key, loader);
+                return entry.get();
+            }
+        }
+        return load(key, loader).get();
+    }
+
+    /** Drops cached descriptors of service with specified base URL, next call to the service loads descriptor again. */
+    public void invalidate(String baseUrl) {
+        entries.keySet().removeIf(key -> key.baseUrl.equals(baseUrl));
+    }
+
+    /** Drops all cached descriptors. */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /** Loads descriptor in the current thread or waits for the thread which is already loading it. */
+    private Entry load(Key key, Loader loader) throws IOException {
+        final CompletableFuture<Entry> future = new CompletableFuture<>();
+        final CompletableFuture<Entry> existing = loading.putIfAbsent(key, future);
+        if (existing == null) {
+            return doLoad(key, loader, future);
+        }
+        try {
+            return existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(String.format("Interrupted while waiting for descriptor of service %s", key.baseUrl), e);
+        } catch (ExecutionException e) {
+            // Never happens, doLoad always completes future normally.
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Loads descriptor in background unless it's already being loaded. */
+    private void refresh(Key key, Loader loader) {
+        final CompletableFuture<Entry> future = new CompletableFuture<>();
+        if (loading.putIfAbsent(key, future) == null) {
+            try {
+                final Runnable task = () -> doLoad(key, loader, future);
+                refreshExecutor.execute(ThreadLocalPropagateContext.wrap(task));
+            } catch (RejectedExecutionException e) {
+                loading.remove(key, future);
+                future.complete(entries.get(key));
+            }
+        }
+    }
+
+    private Entry doLoad(Key key, Loader loader, CompletableFuture<Entry> future) {
+        Entry entry;
+        try {
+            entry = new Entry(loader.load(), null, ticker.read());
+        } catch (IOException | ServerException e) {
+            LOG.warn("Unable get descriptor of service {}. {}", key.baseUrl, e.getMessage());
+            entry = new Entry(null, e, ticker.read());
+        } catch (RuntimeException e) {
+            LOG.error(e.getMessage(), e);
+            entry = new Entry(null, new ServerException(e.getMessage(), e), ticker.read());
+        }
+        if (entry.error == null) {
+            entries.put(key, entry);
+        } else {
+            final Entry previous = entries.get(key);
+            if (previous != null && previous.error == null && entry.loadTime - previous.loadTime < expireAfterNanos) {
+                // Failed refresh, keep serving descriptor which is still valid.
+                entry = previous;
+            } else if (isAuthFailure(entry.error)) {
+                entries.remove(key);
+            } else {
+                entries.put(key, entry);
+            }
+        }
+        loading.remove(key, future);
+        future.complete(entry);
+        return entry;
+    }
+
+    private static boolean isAuthFailure(Exception error) {
+        final Throwable cause = error.getCause();
+        return cause instanceof UnauthorizedException || cause instanceof ForbiddenException;
+    }
+
+    private static final class Entry {
+        final ServiceDescriptor descriptor;
+        final Exception         error;
+        final long              loadTime;
+
+        Entry(ServiceDescriptor descriptor, Exception error, long loadTime) {
+            this.descriptor = descriptor;
+            this.error = error;
+            this.loadTime = loadTime;
+        }
+
+        /** Returns descriptor or throws new exception caused by cached error, so every caller gets own stack trace. */
+        ServiceDescriptor get() throws IOException, ServerException {
+            if (error instanceof IOException) {
+                throw new IOException(error.getMessage(), error);
+            }
+            if (error != null) {
+                throw new ServerException(error.getMessage(), error);
+            }
+            return descriptor;
+        }
+    }
+
+    private static final class Key {
+        final String   baseUrl;
+        final Class<?> type;
+
+        Key(String baseUrl, Class<?> type) {
+            this.baseUrl = baseUrl;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key)o;
+            return baseUrl.equals(other.baseUrl) && type == other.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(baseUrl, type);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Line consumer that passes lines to the delegate asynchronously. Lines are put in the bounded buffer and background task
+ * passes them to {@link LineConsumer#writeLines(List)} of the delegate in groups. Group is written when buffer contains
+ * {@code batchSize} lines or when {@code flushDelayMillis} elapsed, whichever comes first.
+ * <p/>
+ * If the buffer is full {@link #writeLine(String)} waits for free space up to {@code offerTimeoutMillis} and then drops the
+ * line. Number of dropped lines is available with {@link #getDroppedLines()}, also the delegate gets a line that tells how
+ * many lines were dropped, so the gap is visible in the log.
+ * <p/>
+ * Lines which are buffered when consumer is closed are written to the delegate by {@link #close()}.
+ */
+public class AsyncLineConsumer implements LineConsumer {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncLineConsumer.class);
+
+    public static final int  DEFAULT_CAPACITY           = 10000;
+    public static final int  DEFAULT_BATCH_SIZE         = 500;
+    public static final long DEFAULT_FLUSH_DELAY_MILLIS = 200;
+
+    private final LineConsumer             delegate;
+    private final ScheduledExecutorService executor;
+    private final BlockingQueue<String>    buffer;
+    private final int                      batchSize;
+    private final long                     offerTimeoutMillis;
+    private final ScheduledFuture<?>       flushTask;
+    private final ReentrantLock            drainLock;
+    private final AtomicLong               writtenLines;
+    private final AtomicLong               droppedLines;
+    private final AtomicLong               unreportedDroppedLines;
+
+    private volatile boolean closed;
+
+    /**
+     * @param delegate
+     *         consumer that gets lines
+     * @param executor
+     *         executor that runs background writes, it is shared between consumers
+     * @param capacity
+     *         max number of lines in the buffer
+     * @param batchSize
+     *         max number of lines which are passed to the delegate at once
+     * @param flushDelayMillis
+     *         max time (in milliseconds) that line stays in the buffer if buffer doesn't get {@code batchSize} lines
+     * @param offerTimeoutMillis
+     *         max time (in milliseconds) that {@link #writeLine(String)} waits for free space in full buffer, zero means line
+     *         is dropped immediately if buffer is full
+     */
+    public AsyncLineConsumer(LineConsumer delegate,
+                             ScheduledExecutorService executor,
+                             int capacity,
+                             int batchSize,
+                             long flushDelayMillis,
+                             long offerTimeoutMillis) {
+        if (batchSize < 1 || capacity < batchSize) {
+            throw new IllegalArgumentException(String.format("Invalid capacity %d or batch size %d", capacity, batchSize));
+        }
+        this.delegate = delegate;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        buffer = new ArrayBlockingQueue<>(capacity);
+        drainLock = new ReentrantLock();
+        writtenLines = new AtomicLong();
+        droppedLines = new AtomicLong();
+        unreportedDroppedLines = new AtomicLong();
+        flushTask = executor.scheduleWithFixedDelay(this::drain, flushDelayMillis, flushDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public AsyncLineConsumer(LineConsumer delegate, ScheduledExecutorService executor, long offerTimeoutMillis) {
+        this(delegate, executor, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_DELAY_MILLIS, offerTimeoutMillis);
+    }
+
+    @Override
+    public void writeLine(String line) throws IOException {
+        if (closed) {
+            throw new IOException("Line consumer is closed");
+        }
+        if (line == null) {
+            // Buffer doesn't accept nulls, other consumers write empty line for null.
+            line = "";
+        }
+        boolean added = buffer.offer(line);
+        if (!added && offerTimeoutMillis > 0) {
+            try {
+                added = buffer.offer(line, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!added) {
+            droppedLines.incrementAndGet();
+            unreportedDroppedLines.incrementAndGet();
+        } else if (buffer.size() >= batchSize && !drainLock.isLocked()) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Executor is shut down, lines are written when consumer is closed.
+            }
+        }
+    }
+
+    /** Returns number of lines that were passed to the delegate. */
+    public long getWrittenLines() {
+        return writtenLines.get();
+    }
+
+    /** Returns number of lines that were dropped because buffer was full. */
+    public long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    /** Returns number of lines that are waiting in the buffer. */
+    public int getBufferedLines() {
+        return buffer.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flushTask.cancel(false);
+        drainLock.lock();
+        try {
+            doDrain();
+        } finally {
+            drainLock.unlock();
+        }
+        delegate.close();
+    }
+
+    private void drain() {
+        // Skip if other thread writes lines, they are picked up by it or by the next scheduled flush.
+        if (drainLock.tryLock()) {
+            try {
+                doDrain();
+            } catch (RuntimeException e) {
+                // Don't let exception cancel the periodic flush task.
+                LOG.error(e.getMessage(), e);
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    private void doDrain() {
+        final List<String> batch = new ArrayList<>(Math.min(batchSize, buffer.size() + 1));
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+        final long dropped = unreportedDroppedLines.getAndSet(0);
+        if (dropped > 0) {
+            batch.add(String.format("[WARN] %d lines of output were dropped, log consumer is too slow", dropped));
+            write(batch);
+        }
+    }
+
+    private void write(List<String> batch) {
+        try {
+            delegate.writeLines(batch);
+            writtenLines.addAndGet(batch.size());
+        } catch (IOException e) {
+            LOG.error(String.format("An error occurred while writing lines to the line consumer %s", delegate), e);
+        }
+    }
+}
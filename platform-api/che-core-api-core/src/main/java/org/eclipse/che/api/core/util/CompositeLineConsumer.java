@@ -14,6 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * @author andrew00x
@@ -48,4 +49,15 @@ public class CompositeLineConsumer implements LineConsumer {
             }
         }
     }
+
+    @Override
+    public void writeLines(List<String> lines) throws IOException {
+        for (LineConsumer lineConsumer : lineConsumers) {
+            try {
+                lineConsumer.writeLines(lines);
+            } catch (IOException e) {
+                LOG.error(String.format("An error occurred while writing lines to the line consumer %s", lineConsumer), e);
+            }
+        }
+    }
 }
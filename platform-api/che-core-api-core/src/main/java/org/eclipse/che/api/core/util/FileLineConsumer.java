@@ -12,19 +12,48 @@ package org.eclipse.che.api.core.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 /**
+ * Writes lines to the file.
+ * <p/>
+ * If max size of file is set then file is rotated when it gets bigger: content of file is compressed to the archive
+ * {@code <file name>.1.gz} and file is replaced with the new empty one, so readers may detect rotation with
+ * {@link LogFileReader#getFileId(File)}. Previous archives are renamed to {@code <file name>.2.gz},
+ * {@code <file name>.3.gz}, etc. The oldest archive is removed when number of archives exceeds the limit.
+ *
  * @author andrew00x
  */
 public class FileLineConsumer implements LineConsumer {
-    private final File   file;
-    private final Writer writer;
+    private final File file;
+    private final long maxSize;
+    private final int  maxArchives;
+
+    private Writer writer;
 
     public FileLineConsumer(File file) throws IOException {
+        this(file, 0, 0);
+    }
+
+    /**
+     * @param maxSize
+     *         max size of file in bytes, zero means file is never rotated
+     * @param maxArchives
+     *         max number of archives which are kept after rotation of file
+     */
+    public FileLineConsumer(File file, long maxSize, int maxArchives) throws IOException {
         this.file = file;
+        this.maxSize = maxSize;
+        this.maxArchives = maxArchives;
         writer = Files.newBufferedWriter(file.toPath(), Charset.defaultCharset());
     }
 
@@ -32,6 +61,11 @@ public class FileLineConsumer implements LineConsumer {
         return file;
     }
 
+    /** Gets archive of file with specified index, index of the newest archive is 1. */
+    public File getArchive(int index) {
+        return new File(file.getParentFile(), file.getName() + '.' + index + ".gz");
+    }
+
     @Override
     public void writeLine(String line) throws IOException {
         if (line != null) {
@@ -39,10 +73,46 @@ public class FileLineConsumer implements LineConsumer {
         }
         writer.write('\n');
         writer.flush();
+        rotateIfNeeded();
+    }
+
+    /** Writes all lines and flushes underlying writer once. */
+    @Override
+    public void writeLines(List<String> lines) throws IOException {
+        for (String line : lines) {
+            if (line != null) {
+                writer.write(line);
+            }
+            writer.write('\n');
+        }
+        writer.flush();
+        rotateIfNeeded();
     }
 
     @Override
     public void close() throws IOException {
         writer.close();
     }
+
+    private void rotateIfNeeded() throws IOException {
+        if (maxSize > 0 && file.length() > maxSize) {
+            writer.close();
+            if (maxArchives > 0) {
+                Files.deleteIfExists(getArchive(maxArchives).toPath());
+                for (int i = maxArchives - 1; i > 0; i--) {
+                    final File archive = getArchive(i);
+                    if (archive.exists()) {
+                        Files.move(archive.toPath(), getArchive(i + 1).toPath(), REPLACE_EXISTING);
+                    }
+                }
+                try (OutputStream archive = new GZIPOutputStream(Files.newOutputStream(getArchive(1).toPath()))) {
+                    Files.copy(file.toPath(), archive);
+                }
+            }
+            // New file is created while the old one still exists, so it always gets new identity.
+            final Path newFile = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".new");
+            Files.move(newFile, file.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+            writer = Files.newBufferedWriter(file.toPath(), Charset.defaultCharset());
+        }
+    }
 }
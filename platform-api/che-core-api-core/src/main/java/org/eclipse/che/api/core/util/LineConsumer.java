@@ -12,6 +12,7 @@ package org.eclipse.che.api.core.util;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Consumes text line by line for analysing, writing, storing, etc.
@@ -22,6 +23,16 @@ public interface LineConsumer extends Closeable {
     /** Consumes single line. */
     void writeLine(String line) throws IOException;
 
+    /**
+     * Consumes group of lines. Implementation may override this method to handle all lines at once, e.g. write them to the
+     * underlying stream and flush it once. By default lines are passed to {@link #writeLine(String)} one by one.
+     */
+    default void writeLines(List<String> lines) throws IOException {
+        for (String line : lines) {
+            writeLine(line);
+        }
+    }
+
     LineConsumer DEV_NULL = new LineConsumer() {
         @Override
         public void writeLine(String line) {
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Helps to read parts of log files which are written by {@link FileLineConsumer}. File is never read whole, it is read from
+ * the specified position, so clients may get only the last lines of log or only bytes which were appended since the previous
+ * request.
+ */
+public final class LogFileReader {
+    private static final int  BUFFER_SIZE      = 8192;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    /**
+     * Finds position of the first byte of last {@code lines} lines of file. Line separator at the end of file doesn't start
+     * a new line.
+     *
+     * @return position of the first byte of last lines or {@code 0} if file has less lines than requested
+     */
+    public static long findTailOffset(File file, int lines) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+            long end = channel.size();
+            if (lines <= 0) {
+                return end;
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            if (end > 0 && read(channel, buffer, end - 1, 1) == 1 && buffer.get(0) == '\n') {
+                end--;
+            }
+            int found = 0;
+            while (end > 0) {
+                final int size = (int)Math.min(BUFFER_SIZE, end);
+                final long position = end - size;
+                final int read = read(channel, buffer, position, size);
+                for (int i = read - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n' && ++found == lines) {
+                        return position + i + 1;
+                    }
+                }
+                end = position;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Gets identifier of file which changes when log is rotated, since {@link FileLineConsumer} writes log to the new file
+     * after rotation. Identifier is based on file key (e.g. inode) or, if file system doesn't provide file keys, on creation
+     * time of file, so clients may detect that log was rotated even if new file is already bigger than the offset they have
+     * read up to.
+     *
+     * @return opaque identifier of file
+     */
+    public static String getFileId(File file) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        final Object fileKey = attributes.fileKey();
+        if (fileKey != null) {
+            return Integer.toHexString(fileKey.hashCode());
+        }
+        // Some file systems return time of last modification if creation time isn't supported, but they have file keys
+        return Long.toHexString(attributes.creationTime().to(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Waits until length of file becomes different from {@code length}, e.g. new lines are appended to log or log is rotated.
+     *
+     * @param timeoutMillis
+     *         max time (in milliseconds) to wait
+     * @return current length of file
+     */
+    public static long waitForChange(File file, long length, long timeoutMillis) {
+        final long endTime = System.currentTimeMillis() + timeoutMillis;
+        long current;
+        while ((current = file.length()) == length && System.currentTimeMillis() < endTime) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Copies bytes of file from position {@code from} (inclusive) to position {@code to} (exclusive) to the {@code output}.
+     *
+     * @return position after the last copied byte, it is less than {@code to} if file was truncated while it was read
+     */
+    public static long copy(File file, long from, long to, OutputStream output) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+            final WritableByteChannel target = Channels.newChannel(output);
+            long position = from;
+            while (position < to) {
+                final long transferred = channel.transferTo(position, to - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            return position;
+        }
+    }
+
+    private static int read(FileChannel channel, ByteBuffer buffer, long position, int size) throws IOException {
+        buffer.clear().limit(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+
+    private LogFileReader() {
+    }
+}
@@ -10,40 +10,102 @@
  *******************************************************************************/
 package org.eclipse.che.api.core.util;
 
+import com.google.common.annotations.VisibleForTesting;
+
 import org.everrest.core.impl.provider.json.JsonUtils;
 import org.everrest.websockets.WSConnectionContext;
 import org.everrest.websockets.message.ChannelBroadcastMessage;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
- * Line consumer that send messages to specified websocket channel
+ * Line consumer that send messages to specified websocket channel.
+ *
+ * <p>Every line is sent as separate message with JSON string in body. Consumer may be created with grouping of lines,
+ * then group of lines passed to {@link #writeLines(List)} is sent as one message with JSON array of strings in body to
+ * channel {@code channel + }{@link #GROUPED_LINES_CHANNEL_SUFFIX}, so clients which expect one line per message on
+ * {@code channel} never get grouped lines.
  *
  * @author Alexander Garagatyi
  */
 public class WebsocketLineConsumer implements LineConsumer {
+    /** Suffix of channel to which groups of lines are sent if grouping is enabled. */
+    public static final String GROUPED_LINES_CHANNEL_SUFFIX = ":lines";
+
     private static final Logger LOG = getLogger(WebsocketLineConsumer.class);
-    private final String channel;
+
+    private final String  channel;
+    private final boolean groupLines;
 
     public WebsocketLineConsumer(String channel) {
+        this(channel, false);
+    }
+
+    /**
+     * @param channel
+     *         websocket channel
+     * @param groupLines
+     *         if {@code true} group of lines is sent as one message with JSON array of lines to channel
+     *         {@code channel + }{@link #GROUPED_LINES_CHANNEL_SUFFIX}, otherwise every line is sent as separate message to
+     *         {@code channel}
+     */
+    public WebsocketLineConsumer(String channel, boolean groupLines) {
         this.channel = channel;
+        this.groupLines = groupLines;
     }
 
     @Override
     public void writeLine(String line) throws IOException {
+        if (groupLines) {
+            writeLines(Collections.singletonList(line));
+        } else {
+            send(channel, JsonUtils.getJsonString(line));
+        }
+    }
+
+    @Override
+    public void writeLines(List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        if (!groupLines) {
+            for (String line : lines) {
+                send(channel, JsonUtils.getJsonString(line));
+            }
+            return;
+        }
+        final StringBuilder body = new StringBuilder("[");
+        for (String line : lines) {
+            if (body.length() > 1) {
+                body.append(',');
+            }
+            body.append(JsonUtils.getJsonString(line == null ? "" : line));
+        }
+        body.append(']');
+        send(channel + GROUPED_LINES_CHANNEL_SUFFIX, body.toString());
+    }
+
+    private void send(String channel, String body) {
         final ChannelBroadcastMessage bm = new ChannelBroadcastMessage();
         bm.setChannel(channel);
-        bm.setBody(JsonUtils.getJsonString(line));
+        bm.setBody(body);
         try {
-            WSConnectionContext.sendMessage(bm);
+            sendMessage(bm);
         } catch (Exception e) {
             LOG.error("A problem occurred while sending websocket message", e);
         }
     }
 
+    @VisibleForTesting
+    void sendMessage(ChannelBroadcastMessage message) throws Exception {
+        WSConnectionContext.sendMessage(message);
+    }
+
     @Override
     public void close() throws IOException {
     }
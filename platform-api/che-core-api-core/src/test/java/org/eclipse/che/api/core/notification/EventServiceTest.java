@@ -11,12 +11,16 @@
 package org.eclipse.che.api.core.notification;
 
 import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * @author andrew00x
@@ -157,4 +161,143 @@ public class EventServiceTest {
         bus.publish(new Event());
         Assert.assertEquals(events.size(), 0);
     }
+
+    @AsyncSubscriber(capacity = 10)
+    static class AsyncListener implements EventSubscriber<String> {
+        final List<String>   events = new CopyOnWriteArrayList<>();
+        final CountDownLatch start  = new CountDownLatch(1);
+        volatile Thread thread;
+
+        @Override
+        public void onEvent(String event) {
+            thread = Thread.currentThread();
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        }
+    }
+
+    @Test
+    public void testAsyncSubscriberDoesNotBlockPublisher() throws Exception {
+        AsyncListener listener = new AsyncListener();
+        bus.subscribe(listener);
+        for (int i = 0; i < 5; i++) {
+            bus.publish("hello" + i);
+        }
+        // Listener is blocked but publisher is not.
+        Assert.assertTrue(listener.events.isEmpty());
+        listener.start.countDown();
+        waitForDelivery(listener.events, 5);
+        Assert.assertEquals(listener.events, Arrays.asList("hello0", "hello1", "hello2", "hello3", "hello4"));
+        Assert.assertNotSame(listener.thread, Thread.currentThread());
+        List<DeliveryStats> stats = bus.getDeliveryStats();
+        Assert.assertEquals(stats.size(), 1);
+        Assert.assertEquals(stats.get(0).getDelivered(), 5);
+        Assert.assertEquals(stats.get(0).getQueueSize(), 0);
+    }
+
+    @Test
+    public void testAsyncSubscriberDropOldest() throws Exception {
+        AsyncListener listener = new AsyncListener();
+        bus.subscribeAsync(listener, 2, OverflowPolicy.DROP_OLDEST);
+        bus.publish("first");
+        waitForThread(listener);
+        // 'first' is being delivered, mailbox keeps two of next events.
+        bus.publish("a");
+        bus.publish("b");
+        bus.publish("c");
+        listener.start.countDown();
+        waitForDelivery(listener.events, 3);
+        Assert.assertEquals(listener.events, Arrays.asList("first", "b", "c"));
+        Assert.assertEquals(bus.getDeliveryStats().get(0).getDropped(), 1);
+    }
+
+    @Test
+    public void testAsyncSubscriberCoalesce() throws Exception {
+        AsyncListener listener = new AsyncListener();
+        bus.subscribeAsync(listener, 10, OverflowPolicy.COALESCE);
+        bus.publish("first");
+        waitForThread(listener);
+        bus.publish("a");
+        bus.publish("b");
+        bus.publish("a");
+        listener.start.countDown();
+        waitForDelivery(listener.events, 3);
+        Assert.assertEquals(listener.events, Arrays.asList("first", "a", "b"));
+        Assert.assertEquals(bus.getDeliveryStats().get(0).getCoalesced(), 1);
+    }
+
+    @Test
+    public void testUnsubscribeAsync() throws Exception {
+        AsyncListener listener = new AsyncListener();
+        listener.start.countDown();
+        bus.subscribe(listener);
+        bus.publish("hello");
+        waitForDelivery(listener.events, 1);
+        bus.unsubscribe(listener);
+        bus.publish("hello");
+        Assert.assertTrue(bus.getDeliveryStats().isEmpty());
+        Thread.sleep(100);
+        Assert.assertEquals(listener.events.size(), 1);
+    }
+
+    @Test
+    public void testAsyncSubscriberGetsEventsAfterError() throws Exception {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        bus.subscribeAsync(new EventSubscriber<String>() {
+            @Override
+            public void onEvent(String event) {
+                if ("error".equals(event)) {
+                    throw new AssertionError(event);
+                }
+                events.add(event);
+            }
+        }, 10, OverflowPolicy.BLOCK);
+        bus.publish("error");
+        bus.publish("hello");
+        waitForDelivery(events, 1);
+        bus.publish("error");
+        Thread.sleep(100);
+        bus.publish("world");
+        waitForDelivery(events, 2);
+        Assert.assertEquals(events, Arrays.asList("hello", "world"));
+    }
+
+    @Test
+    public void testAsyncSubscriberAfterStop() throws Exception {
+        AsyncListener listener = new AsyncListener();
+        listener.start.countDown();
+        bus.subscribe(listener);
+        bus.stop();
+        bus.publish("hello");
+        Assert.assertTrue(bus.getDeliveryStats().isEmpty());
+
+        bus.subscribe(listener);
+        bus.publish("hello");
+        waitForDelivery(listener.events, 1);
+    }
+
+    private void waitForThread(AsyncListener listener) throws InterruptedException {
+        long endTime = System.currentTimeMillis() + 5000;
+        while (listener.thread == null && System.currentTimeMillis() < endTime) {
+            Thread.sleep(10);
+        }
+        Assert.assertNotNull(listener.thread);
+    }
+
+    private void waitForDelivery(List<String> events, int expected) throws InterruptedException {
+        long endTime = System.currentTimeMillis() + 5000;
+        while (events.size() < expected && System.currentTimeMillis() < endTime) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(events.size(), expected);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        bus.stop();
+    }
 }
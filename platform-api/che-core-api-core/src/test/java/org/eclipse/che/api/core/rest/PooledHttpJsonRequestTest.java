@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.rest;
+
+import org.eclipse.che.api.core.NotFoundException;
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.api.core.util.LinksHelper;
+import org.eclipse.che.commons.env.EnvironmentContext;
+import org.eclipse.che.commons.user.User;
+import org.eclipse.che.commons.user.UserImpl;
+import org.everrest.assured.EverrestJetty;
+import org.everrest.core.Filter;
+import org.everrest.core.GenericContainerRequest;
+import org.everrest.core.RequestFilter;
+import org.testng.ITestContext;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests of {@link PooledHttpJsonRequest} and {@link PooledHttpJsonRequestFactory}.
+ */
+@Listeners(EverrestJetty.class)
+public class PooledHttpJsonRequestTest {
+
+    @SuppressWarnings("unused") // used by EverrestJetty
+    private static final EnvironmentFilter  FILTER           = new EnvironmentFilter();
+    @SuppressWarnings("unused") // used by EverrestJetty
+    private static final ApiExceptionMapper EXCEPTION_MAPPER = new ApiExceptionMapper();
+    @SuppressWarnings("unused") // used by EverrestJetty
+    private static final TestService        TEST_SERVICE     = new TestService();
+    private static final User               TEST_USER        = new UserImpl("name", "id", "token", null, false);
+
+    private PooledHttpJsonRequestFactory factory;
+
+    @BeforeMethod
+    public void setUp() {
+        factory = new PooledHttpJsonRequestFactory();
+        factory.setMaxConnectionsPerHost(2);
+        factory.setAsyncThreads(4);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        factory.stop();
+    }
+
+    @Test
+    public void shouldParseDtoFromResponseStream(ITestContext ctx) throws Exception {
+        final Link link = factory.fromUrl(getUrl(ctx) + "/link").useGetMethod().requestDto(Link.class);
+
+        assertEquals(link, LinksHelper.createLink("GET", "localhost:8080/link", "rel"));
+    }
+
+    @Test
+    public void shouldReuseRequestForManyRequests(ITestContext ctx) throws Exception {
+        final HttpJsonRequest request = factory.fromUrl(getUrl(ctx) + "/application-json").useGetMethod();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(request.request().asString(), TestService.JSON_OBJECT);
+        }
+
+        final List<HttpHostStats> stats = factory.getHostStats();
+        assertEquals(stats.size(), 1);
+        assertEquals(stats.get(0).getRequests(), 10);
+        assertEquals(stats.get(0).getFailures(), 0);
+        assertEquals(stats.get(0).getActiveConnections(), 0);
+    }
+
+    @Test
+    public void shouldMakeAsyncRequests(ITestContext ctx) throws Exception {
+        final EnvironmentContext context = new EnvironmentContext();
+        context.setUser(TEST_USER);
+        EnvironmentContext.setCurrent(context);
+
+        final List<CompletableFuture<HttpJsonResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(factory.fromUrl(getUrl(ctx) + "/token").usePostMethod().requestAsync());
+        }
+        for (CompletableFuture<HttpJsonResponse> future : futures) {
+            assertEquals(future.get(10, TimeUnit.SECONDS).getResponseCode(), 204);
+        }
+
+        final HttpHostStats stats = factory.getHostStats().get(0);
+        assertEquals(stats.getRequests(), 20);
+        assertEquals(stats.getFailures(), 0);
+        assertTrue(stats.getMaxConnections() == 2);
+    }
+
+    @Test
+    public void shouldCompleteAsyncRequestExceptionally(ITestContext ctx) throws Exception {
+        final CompletableFuture<HttpJsonResponse> future = factory.fromUrl(getUrl(ctx) + "/404/response-code-test")
+                                                                  .useGetMethod()
+                                                                  .requestAsync();
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NotFoundException);
+        }
+
+        assertEquals(factory.getHostStats().get(0).getFailures(), 1);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void shouldThrowIOExceptionIfServerReturnsTypeDifferentFromApplicationJson(ITestContext ctx) throws Exception {
+        factory.fromUrl(getUrl(ctx) + "/text-plain").useGetMethod().requestDto(Link.class);
+    }
+
+    @Filter
+    public static class EnvironmentFilter implements RequestFilter {
+
+        public void doFilter(GenericContainerRequest request) {
+            EnvironmentContext.getCurrent().setUser(TEST_USER);
+        }
+    }
+
+    private String getUrl(ITestContext ctx) {
+        return "http://localhost:" + ctx.getAttribute(EverrestJetty.JETTY_PORT) + "/rest/test";
+    }
+}
@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.rest;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.core.UnauthorizedException;
+import org.eclipse.che.api.core.rest.shared.dto.ServiceDescriptor;
+import org.eclipse.che.commons.lang.concurrent.ThreadLocalPropagateContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests of {@link ServiceDescriptorCache}.
+ */
+public class ServiceDescriptorCacheTest {
+    private static final String URL = "http://localhost:8080/api/service";
+
+    private FakeTicker             ticker;
+    private ServiceDescriptorCache cache;
+    private AtomicInteger          loads;
+
+    @BeforeMethod
+    public void setUp() {
+        ticker = new FakeTicker();
+        cache = new ServiceDescriptorCache(10, 100, 5, TimeUnit.SECONDS, MoreExecutors.directExecutor(), ticker);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void shouldReuseDescriptorUntilRefreshPeriodExpires() throws Exception {
+        final ServiceDescriptor descriptor = mock(ServiceDescriptor.class);
+
+        assertSame(cache.get(URL, ServiceDescriptor.class, countingLoader(descriptor)), descriptor);
+        ticker.advance(9, TimeUnit.SECONDS);
+        assertSame(cache.get(URL, ServiceDescriptor.class, countingLoader(descriptor)), descriptor);
+
+        assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    public void shouldReturnCachedDescriptorAndRefreshItInBackground() throws Exception {
+        final ServiceDescriptor first = mock(ServiceDescriptor.class);
+        final ServiceDescriptor second = mock(ServiceDescriptor.class);
+        cache.get(URL, ServiceDescriptor.class, countingLoader(first));
+
+        ticker.advance(20, TimeUnit.SECONDS);
+
+        assertSame(cache.get(URL, ServiceDescriptor.class, countingLoader(second)), first);
+        assertSame(cache.get(URL, ServiceDescriptor.class, countingLoader(second)), second);
+        assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void shouldLoadDescriptorAgainWhenItExpires() throws Exception {
+        final ServiceDescriptor first = mock(ServiceDescriptor.class);
+        final ServiceDescriptor second = mock(ServiceDescriptor.class);
+        cache.get(URL, ServiceDescriptor.class, countingLoader(first));
+
+        ticker.advance(100, TimeUnit.SECONDS);
+
+        assertSame(cache.get(URL, ServiceDescriptor.class, countingLoader(second)), second);
+        assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void shouldCacheFailure() throws Exception {
+        final ServiceDescriptorCache.Loader failing = () -> {
+            loads.incrementAndGet();
+            throw new IOException("Connection refused");
+        };
+        for (int i = 0; i < 3; i++) {
+            try {
+                cache.get(URL, ServiceDescriptor.class, failing);
+                fail("IOException expected");
+            } catch (IOException expected) {
+                assertEquals(expected.getMessage(), "Connection refused");
+            }
+        }
+        assertEquals(loads.get(), 1);
+
+        ticker.advance(5, TimeUnit.SECONDS);
+        final ServiceDescriptor descriptor = mock(ServiceDescriptor.class);
+
+        assertSame(cache.get(URL, ServiceDescriptor.class, countingLoader(descriptor)), descriptor);
+        assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void shouldKeepDescriptorWhenRefreshFails() throws Exception {
+        final ServiceDescriptor descriptor = mock(ServiceDescriptor.class);
+        cache.get(URL, ServiceDescriptor.class, countingLoader(descriptor));
+        final ServiceDescriptorCache.Loader failing = () -> {
+            loads.incrementAndGet();
+            throw new IOException("Connection refused");
+        };
+
+        ticker.advance(20, TimeUnit.SECONDS);
+        assertSame(cache.get(URL, ServiceDescriptor.class, failing), descriptor);
+        assertSame(cache.get(URL, ServiceDescriptor.class, failing), descriptor);
+        assertEquals(loads.get(), 3);
+
+        ticker.advance(80, TimeUnit.SECONDS);
+        try {
+            cache.get(URL, ServiceDescriptor.class, failing);
+            fail("IOException expected");
+        } catch (IOException expected) {
+            assertEquals(expected.getMessage(), "Connection refused");
+        }
+    }
+
+    @Test
+    public void shouldNotCacheAuthFailure() throws Exception {
+        final ServiceDescriptorCache.Loader unauthorized = () -> {
+            loads.incrementAndGet();
+            throw new ServerException("Unauthorized", new UnauthorizedException("Unauthorized"));
+        };
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.get(URL, ServiceDescriptor.class, unauthorized);
+                fail("ServerException expected");
+            } catch (ServerException expected) {
+                assertEquals(expected.getMessage(), "Unauthorized");
+            }
+        }
+        assertEquals(loads.get(), 2);
+
+        final ServiceDescriptor descriptor = mock(ServiceDescriptor.class);
+        assertSame(cache.get(URL, ServiceDescriptor.class, countingLoader(descriptor)), descriptor);
+    }
+
+    @Test
+    public void shouldRefreshDescriptorWithContextOfCaller() throws Exception {
+        final ThreadLocal<String> context = new ThreadLocal<>();
+        final AtomicReference<String> refreshContext = new AtomicReference<>();
+        final CountDownLatch refreshed = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        ThreadLocalPropagateContext.addThreadLocal(context);
+        try {
+            cache = new ServiceDescriptorCache(10, 100, 5, TimeUnit.SECONDS, executor, ticker);
+            final ServiceDescriptor descriptor = mock(ServiceDescriptor.class);
+            cache.get(URL, ServiceDescriptor.class, countingLoader(descriptor));
+            ticker.advance(20, TimeUnit.SECONDS);
+
+            context.set("user");
+            cache.get(URL, ServiceDescriptor.class, () -> {
+                refreshContext.set(context.get());
+                refreshed.countDown();
+                return descriptor;
+            });
+
+            assertTrue(refreshed.await(10, TimeUnit.SECONDS));
+            assertEquals(refreshContext.get(), "user");
+        } finally {
+            context.remove();
+            ThreadLocalPropagateContext.removeThreadLocal(context);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldLoadDescriptorOnceForConcurrentCallers() throws Exception {
+        final ServiceDescriptor descriptor = mock(ServiceDescriptor.class);
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ServiceDescriptorCache.Loader slow = () -> {
+            loads.incrementAndGet();
+            loadStarted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new ServerException(e);
+            }
+            return descriptor;
+        };
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<ServiceDescriptor>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get(URL, ServiceDescriptor.class, slow)));
+            loadStarted.await();
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> cache.get(URL, ServiceDescriptor.class, slow)));
+            }
+            release.countDown();
+
+            for (Future<ServiceDescriptor> result : results) {
+                assertSame(result.get(10, TimeUnit.SECONDS), descriptor);
+            }
+            assertEquals(loads.get(), 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldLoadDescriptorAgainAfterInvalidation() throws Exception {
+        final ServiceDescriptor descriptor = mock(ServiceDescriptor.class);
+        cache.get(URL, ServiceDescriptor.class, countingLoader(descriptor));
+
+        cache.invalidate(URL);
+        cache.get(URL, ServiceDescriptor.class, countingLoader(descriptor));
+
+        assertEquals(loads.get(), 2);
+    }
+
+    private ServiceDescriptorCache.Loader countingLoader(ServiceDescriptor descriptor) {
+        return () -> {
+            loads.incrementAndGet();
+            return descriptor;
+        };
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(long time, TimeUnit unit) {
+            nanos += unit.toNanos(time);
+        }
+    }
+}
@@ -13,6 +13,7 @@ package org.eclipse.che.api.core.rest;
 import org.eclipse.che.api.core.UnauthorizedException;
 import org.eclipse.che.api.core.rest.shared.dto.Link;
 import org.eclipse.che.api.core.rest.shared.dto.ServiceError;
+import org.eclipse.che.api.core.util.LinksHelper;
 import org.eclipse.che.commons.env.EnvironmentContext;
 import org.eclipse.che.dto.server.DtoFactory;
 import org.eclipse.che.dto.server.JsonArrayImpl;
@@ -37,7 +38,7 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
 
 /**
- * Test service class, used in {@link DefaultHttpJsonRequestTest}.
+ * Test service class, used in {@link DefaultHttpJsonRequestTest} and {@link PooledHttpJsonRequestTest}.
  *
  * @author Yevhenii Voevodin
  */
@@ -75,6 +76,13 @@ public class TestService {
         return elements;
     }
 
+    @GET
+    @Path("/link")
+    @Produces(APPLICATION_JSON)
+    public Link getLink() {
+        return LinksHelper.createLink("GET", "localhost:8080/link", "rel");
+    }
+
     @PUT
     @Path("/query-parameters")
     @Produces(APPLICATION_JSON)
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.util;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class AsyncLineConsumerTest {
+    private ScheduledExecutorService executor;
+    private CollectingLineConsumer   delegate;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = Executors.newScheduledThreadPool(2);
+        delegate = new CollectingLineConsumer();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldWriteLinesInBatchesAndKeepOrder() throws Exception {
+        final AsyncLineConsumer consumer = new AsyncLineConsumer(delegate, executor, 100, 3, TimeUnit.HOURS.toMillis(1), 0);
+
+        for (int i = 0; i < 10; i++) {
+            consumer.writeLine("line" + i);
+        }
+        consumer.close();
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expected.add("line" + i);
+        }
+        assertEquals(delegate.getLines(), expected);
+        for (List<String> batch : delegate.getBatches()) {
+            assertTrue(batch.size() <= 3, "Batch is too big: " + batch);
+        }
+        assertEquals(consumer.getWrittenLines(), 10);
+        assertTrue(delegate.closed);
+    }
+
+    @Test
+    public void shouldFlushLinesAfterDelay() throws Exception {
+        final AsyncLineConsumer consumer = new AsyncLineConsumer(delegate, executor, 100, 50, 20, 0);
+
+        consumer.writeLine("line");
+
+        final long end = System.currentTimeMillis() + 5000;
+        while (delegate.getLines().isEmpty() && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(delegate.getLines(), Arrays.asList("line"));
+        consumer.close();
+    }
+
+    @Test
+    public void shouldDropLinesWhenBufferIsFull() throws Exception {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        delegate = new CollectingLineConsumer() {
+            @Override
+            public void writeLines(List<String> lines) throws IOException {
+                writing.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                super.writeLines(lines);
+            }
+        };
+        final AsyncLineConsumer consumer = new AsyncLineConsumer(delegate, executor, 2, 1, TimeUnit.HOURS.toMillis(1), 0);
+
+        consumer.writeLine("a");
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        // Background writer is blocked, so only two lines fit in the buffer.
+        consumer.writeLine("b");
+        consumer.writeLine("c");
+        consumer.writeLine("d");
+        consumer.writeLine("e");
+        release.countDown();
+        consumer.close();
+
+        assertEquals(consumer.getDroppedLines(), 2);
+        assertEquals(delegate.getLines(), Arrays.asList("a", "b", "c",
+                                                        "[WARN] 2 lines of output were dropped, log consumer is too slow"));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void shouldNotAcceptLinesAfterClose() throws Exception {
+        final AsyncLineConsumer consumer = new AsyncLineConsumer(delegate, executor, 100, 10, 100, 0);
+        consumer.close();
+
+        consumer.writeLine("line");
+    }
+
+    private static class CollectingLineConsumer implements LineConsumer {
+        private final List<List<String>> batches = new ArrayList<>();
+        volatile boolean closed;
+
+        @Override
+        public void writeLine(String line) throws IOException {
+            writeLines(Arrays.asList(line));
+        }
+
+        @Override
+        public synchronized void writeLines(List<String> lines) throws IOException {
+            batches.add(new ArrayList<>(lines));
+        }
+
+        synchronized List<List<String>> getBatches() {
+            return new ArrayList<>(batches);
+        }
+
+        synchronized List<String> getLines() {
+            final List<String> lines = new ArrayList<>();
+            batches.forEach(lines::addAll);
+            return lines;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.util;
+
+import com.google.common.io.ByteStreams;
+
+import org.eclipse.che.commons.lang.IoUtil;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class FileLineConsumerTest {
+    private File dir;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("logs").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        IoUtil.deleteRecursive(dir);
+    }
+
+    @Test
+    public void shouldWriteGroupOfLines() throws Exception {
+        final File file = new File(dir, "log");
+        try (FileLineConsumer consumer = new FileLineConsumer(file)) {
+            consumer.writeLine("line1");
+            consumer.writeLines(Arrays.asList("line2", null, "line3"));
+
+            assertEquals(read(file), "line1\nline2\n\nline3\n");
+        }
+    }
+
+    @Test
+    public void shouldRotateFileWhenItGetsBiggerThanLimit() throws Exception {
+        final File file = new File(dir, "log");
+        try (FileLineConsumer consumer = new FileLineConsumer(file, 10, 2)) {
+            consumer.writeLine("line1-----"); // 11 bytes, rotated
+            consumer.writeLine("line2-----");
+            consumer.writeLine("line3-----");
+            consumer.writeLine("line4");
+
+            assertEquals(read(file), "line4\n");
+            assertEquals(readArchive(consumer.getArchive(1)), "line3-----\n");
+            assertEquals(readArchive(consumer.getArchive(2)), "line2-----\n");
+            assertFalse(consumer.getArchive(3).exists());
+        }
+    }
+
+    @Test
+    public void shouldChangeFileIdWhenFileIsRotated() throws Exception {
+        final File file = new File(dir, "log");
+        try (FileLineConsumer consumer = new FileLineConsumer(file, 10, 1)) {
+            consumer.writeLine("line1");
+            final String id = LogFileReader.getFileId(file);
+
+            consumer.writeLine("line2-----"); // rotated
+
+            assertFalse(LogFileReader.getFileId(file).equals(id));
+            assertEquals(read(file), "");
+            assertEquals(dir.list().length, 2); // file and archive
+        }
+    }
+
+    private String read(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), Charset.defaultCharset());
+    }
+
+    private String readArchive(File archive) throws Exception {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(archive.toPath()))) {
+            return new String(ByteStreams.toByteArray(in), Charset.defaultCharset());
+        }
+    }
+}
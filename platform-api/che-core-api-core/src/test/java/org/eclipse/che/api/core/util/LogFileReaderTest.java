@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.util;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class LogFileReaderTest {
+    private File file;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        file = File.createTempFile("logs", ".txt");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void shouldFindBeginningOfLastLines() throws Exception {
+        write("line1\nline2\nline3\n");
+
+        assertEquals(read(LogFileReader.findTailOffset(file, 2)), "line2\nline3\n");
+        assertEquals(read(LogFileReader.findTailOffset(file, 1)), "line3\n");
+        assertEquals(read(LogFileReader.findTailOffset(file, 10)), "line1\nline2\nline3\n");
+        assertEquals(LogFileReader.findTailOffset(file, 0), file.length());
+    }
+
+    @Test
+    public void shouldFindBeginningOfLastLinesWhenFileDoesNotEndWithLineSeparator() throws Exception {
+        write("line1\nline2\nline3");
+
+        assertEquals(read(LogFileReader.findTailOffset(file, 1)), "line3");
+    }
+
+    @Test
+    public void shouldFindBeginningOfLastLinesInBigFile() throws Exception {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            content.append("line").append(i).append('\n');
+        }
+        write(content.toString());
+
+        assertEquals(read(LogFileReader.findTailOffset(file, 3)), "line9997\nline9998\nline9999\n");
+    }
+
+    @Test
+    public void shouldCopyRangeOfFile() throws Exception {
+        write("line1\nline2\nline3\n");
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final long end = LogFileReader.copy(file, 6, 12, out);
+
+        assertEquals(end, 12);
+        assertEquals(out.toString("UTF-8"), "line2\n");
+    }
+
+    @Test
+    public void shouldReturnWhenFileIsChanged() throws Exception {
+        write("line1\n");
+        final Thread writer = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+                Files.write(file.toPath(), "line2\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            } catch (Exception ignored) {
+            }
+        });
+        writer.start();
+
+        final long length = LogFileReader.waitForChange(file, file.length(), 5000);
+        writer.join();
+
+        assertEquals(length, 12);
+    }
+
+    @Test
+    public void shouldReturnAfterTimeoutWhenFileIsNotChanged() throws Exception {
+        write("line1\n");
+        final long start = System.currentTimeMillis();
+
+        final long length = LogFileReader.waitForChange(file, file.length(), 200);
+
+        assertEquals(length, 6);
+        assertTrue(System.currentTimeMillis() - start >= 200);
+    }
+
+    @Test
+    public void shouldKeepFileIdWhenLinesAreAppended() throws Exception {
+        write("line1\n");
+        final String id = LogFileReader.getFileId(file);
+
+        Files.write(file.toPath(), "line2\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        assertEquals(LogFileReader.getFileId(file), id);
+    }
+
+    private void write(String content) throws Exception {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String read(long from) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LogFileReader.copy(file, from, file.length(), out);
+        return out.toString("UTF-8");
+    }
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.util;
+
+import org.everrest.websockets.message.ChannelBroadcastMessage;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class WebsocketLineConsumerTest {
+    private static final String CHANNEL = "machine:logs:machine123";
+
+    private List<ChannelBroadcastMessage> messages;
+
+    @BeforeMethod
+    public void setUp() {
+        messages = new ArrayList<>();
+    }
+
+    @Test
+    public void shouldSendEveryLineAsSeparateMessageByDefault() throws Exception {
+        final WebsocketLineConsumer consumer = recordingConsumer(false);
+
+        consumer.writeLine("line1");
+        consumer.writeLines(Arrays.asList("line2", "line3"));
+
+        assertEquals(messages.size(), 3);
+        for (ChannelBroadcastMessage message : messages) {
+            assertEquals(message.getChannel(), CHANNEL);
+        }
+        assertEquals(messages.get(0).getBody(), "\"line1\"");
+        assertEquals(messages.get(1).getBody(), "\"line2\"");
+        assertEquals(messages.get(2).getBody(), "\"line3\"");
+    }
+
+    @Test
+    public void shouldSendGroupOfLinesAsJsonArrayToSeparateChannel() throws Exception {
+        final WebsocketLineConsumer consumer = recordingConsumer(true);
+
+        consumer.writeLines(Arrays.asList("line1", null, "say \"hello\"\nworld"));
+
+        assertEquals(messages.size(), 1);
+        assertEquals(messages.get(0).getChannel(), CHANNEL + WebsocketLineConsumer.GROUPED_LINES_CHANNEL_SUFFIX);
+        assertEquals(messages.get(0).getBody(), "[\"line1\",\"\",\"say \\\"hello\\\"\\nworld\"]");
+    }
+
+    @Test
+    public void shouldSendSingleLineAsJsonArrayWhenGroupingIsEnabled() throws Exception {
+        final WebsocketLineConsumer consumer = recordingConsumer(true);
+
+        consumer.writeLine("line1");
+        consumer.writeLines(new ArrayList<>());
+
+        assertEquals(messages.size(), 1);
+        assertEquals(messages.get(0).getChannel(), CHANNEL + WebsocketLineConsumer.GROUPED_LINES_CHANNEL_SUFFIX);
+        assertEquals(messages.get(0).getBody(), "[\"line1\"]");
+    }
+
+    @Test
+    public void shouldNotSendAnythingForEmptyGroup() throws Exception {
+        recordingConsumer(false).writeLines(new ArrayList<>());
+
+        assertTrue(messages.isEmpty());
+    }
+
+    private WebsocketLineConsumer recordingConsumer(boolean groupLines) {
+        return new WebsocketLineConsumer(CHANNEL, groupLines) {
+            @Override
+            void sendMessage(ChannelBroadcastMessage message) {
+                messages.add(message);
+            }
+        };
+    }
+}
@@ -11,8 +11,11 @@
 
 package org.eclipse.che.dto.generator;
 
+import org.eclipse.che.dto.server.BinarySerializable;
+import org.eclipse.che.dto.server.BinaryStreams;
 import org.eclipse.che.dto.server.JsonArrayImpl;
 import org.eclipse.che.dto.server.JsonSerializable;
+import org.eclipse.che.dto.server.JsonStreams;
 import org.eclipse.che.dto.server.JsonStringMapImpl;
 import org.eclipse.che.dto.shared.DelegateRule;
 import org.eclipse.che.dto.shared.DTOImpl;
@@ -23,10 +26,12 @@ import org.eclipse.che.dto.shared.SerializationIndex;
 import com.google.common.base.Preconditions;
 import com.google.common.primitives.Primitives;
 
+import java.io.DataInput;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -39,8 +44,12 @@ import java.util.Set;
 public class DtoImplServerTemplate extends DtoImpl {
     private static final String JSON_ARRAY_IMPL   = JsonArrayImpl.class.getCanonicalName();
     private static final String JSON_MAP_IMPL     = JsonStringMapImpl.class.getCanonicalName();
+    private static final String JSON_STREAMS      = JsonStreams.class.getCanonicalName();
+    private static final String BINARY_STREAMS    = BinaryStreams.class.getCanonicalName();
     private static final String SERVER_DTO_MARKER = "  @" + DTOImpl.class.getCanonicalName() + "(\"server\")\n";
 
+    private Boolean binaryCodec;
+
     DtoImplServerTemplate(DtoTemplate template, Class<?> superInterface) {
         super(template, superInterface);
     }
@@ -55,23 +64,20 @@ public class DtoImplServerTemplate extends DtoImpl {
         // Enumerate the getters and emit field names and getters + setters.
         emitFields(getters, builder);
         emitGettersAndSetters(getters, builder);
-        List<Method> inheritedGetters = getInheritedDtoGetters(dtoInterface);
-        List<Method> methods = new ArrayList<>();
-        methods.addAll(getters);
-        Set<String> getterNames = new HashSet<>();
-        for (Method getter : getters) {
-            getterNames.add(getter.getName());
-        }
-        for (Method getter : inheritedGetters) {
-            if (getterNames.add(getter.getName())) {
-                methods.add(getter);
-            }
-        }
+        List<Method> methods = getAllDtoGetters(getters);
         // equals, hashCode, serialization and copy constructor
         emitEqualsAndHashCode(methods, builder);
         emitSerializer(methods, builder);
         emitDeserializer(methods, builder);
         emitDeserializerShortcut(builder);
+        emitStreamingSerializer(methods, builder);
+        emitStreamingDeserializer(methods, builder);
+        if (hasBinaryCodec()) {
+            List<Method> indexedMethods = new ArrayList<>(methods);
+            indexedMethods.sort(Comparator.comparingInt(method -> method.getAnnotation(SerializationIndex.class).value()));
+            emitBinarySerializer(indexedMethods, builder);
+            emitBinaryDeserializer(indexedMethods, builder);
+        }
         emitCopyConstructor(methods, builder);
         // Delegation DTO methods.
         emitDelegateMethods(builder);
@@ -93,7 +99,7 @@ public class DtoImplServerTemplate extends DtoImpl {
         //     // Override method to return type B instead of A.
         //     B withProperty();
         // }
-        getterNames.clear();
+        Set<String> getterNames = new HashSet<>();
         for (Method getter : getters) {
             getterNames.add(getter.getName());
         }
@@ -113,6 +119,85 @@ public class DtoImplServerTemplate extends DtoImpl {
         return builder.toString();
     }
 
+    /** Returns getters declared in DTO interface and getters inherited from super DTO interfaces. */
+    private List<Method> getAllDtoGetters(List<Method> getters) {
+        List<Method> methods = new ArrayList<>();
+        methods.addAll(getters);
+        Set<String> getterNames = new HashSet<>();
+        for (Method getter : getters) {
+            getterNames.add(getter.getName());
+        }
+        for (Method getter : getInheritedDtoGetters(getDtoInterface())) {
+            if (getterNames.add(getter.getName())) {
+                methods.add(getter);
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * Tests whether or not implementation of DTO supports the compact binary format. Binary format is supported if all getters of
+     * DTO interface are annotated with {@link SerializationIndex} and all fields have types that binary format is able to
+     * handle, see {@link BinaryStreams}.
+     */
+    boolean hasBinaryCodec() {
+        if (binaryCodec == null) {
+            binaryCodec = checkBinaryCodec(new HashSet<>());
+        }
+        return binaryCodec;
+    }
+
+    private boolean checkBinaryCodec(Set<Class<?>> visited) {
+        if (binaryCodec != null) {
+            return binaryCodec;
+        }
+        if (!visited.add(getDtoInterface())) {
+            // Recursive reference to the DTO that is being checked.
+            return true;
+        }
+        final Set<Integer> indexes = new HashSet<>();
+        for (Method getter : getAllDtoGetters(getDtoGetters(getDtoInterface()))) {
+            final SerializationIndex serializationIndex = getter.getAnnotation(SerializationIndex.class);
+            if (serializationIndex == null) {
+                return false;
+            }
+            final int index = serializationIndex.value();
+            Preconditions.checkState(index > 0, "Serialization index must be positive for %s in %s",
+                                     getter.getName(), getDtoInterface().getSimpleName());
+            Preconditions.checkState(indexes.add(index), "Duplicate serialization index for %s in %s",
+                                     getter.getName(), getDtoInterface().getSimpleName());
+            for (Type type : expandType(getter.getGenericReturnType())) {
+                if (!isBinaryType(getRawClass(type), visited)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isBinaryType(Class<?> rawClass, Set<Class<?>> visited) {
+        if (isList(rawClass) || isMap(rawClass) || isAny(rawClass) || rawClass.isEnum() || rawClass == String.class) {
+            return true;
+        }
+        if (rawClass.isPrimitive() || Primitives.isWrapperType(rawClass)) {
+            return rawClass != char.class && rawClass != Character.class;
+        }
+        if (getEnclosingTemplate().isDtoInterface(rawClass)) {
+            return ((DtoImplServerTemplate)getEnclosingTemplate().getDtoImpl(rawClass)).checkBinaryCodec(visited);
+        }
+        final Class<?> dtoImplementation = getEnclosingTemplate().getDtoImplementation(rawClass);
+        if (dtoImplementation != null) {
+            try {
+                // Implementation may inherit binary serializer from implementation of its super DTO, check it has own one.
+                dtoImplementation.getDeclaredMethod("readBinary", DataInput.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
     private void emitEqualsAndHashCode(List<Method> getters, StringBuilder builder) {
         builder.append("    @Override\n");
         builder.append("    public boolean equals(Object o) {\n");
@@ -301,8 +386,8 @@ public class DtoImplServerTemplate extends DtoImpl {
         builder.append("\n");
         builder.append("    @Override\n");
         builder.append("    public String toJson() {\n");
-        // The default toJson() creates its own JSON for internal printing, thus keeping JSONs values is safe
-        builder.append("      return gson.toJson(toJsonElementInt(false));\n");
+        // Write JSON straight to the string, there is no need to build JSON object for that
+        builder.append("      return ").append(JSON_STREAMS).append(".toJson(this);\n");
         builder.append("    }\n");
         builder.append("\n");
         builder.append("    @Override\n");
@@ -605,6 +690,473 @@ public class DtoImplServerTemplate extends DtoImpl {
         }
     }
     
+    /** Generates method that writes JSON to the JsonWriter without building JsonElement. */
+    private void emitStreamingSerializer(List<Method> getters, StringBuilder builder) {
+        builder.append("    @Override\n");
+        builder.append("    public void writeTo(JsonWriter writer) throws java.io.IOException {\n");
+        if (isCompactJson()) {
+            // Compact form is an array with positional fields, reuse its serializer.
+            builder.append("      gson.toJson(toJsonElementInt(false), writer);\n");
+        } else {
+            builder.append("      writer.beginObject();\n");
+            for (Method getter : getters) {
+                builder.append("      writer.name(").append(quoteStringLiteral(getJsonFieldName(getter))).append(");\n");
+                emitStreamingSerializerImpl(expandType(getter.getGenericReturnType()), 0, builder,
+                                            getJavaFieldName(getter.getName()), "      ");
+            }
+            builder.append("      writer.endObject();\n");
+        }
+        builder.append("    }\n\n");
+    }
+
+    /**
+     * Produces code to write the value of the given variable to the JsonWriter.
+     *
+     * @param expandedTypes
+     *         the type and its generic (and its generic (..)) expanded into a list, @see {@link #expandType(java.lang.reflect.Type)}
+     * @param depth
+     *         the depth (in the generics) for this recursive call. This can be used to index into {@code expandedTypes}
+     * @param inVar
+     *         the java variable that will be the input for serialization
+     * @param i
+     *         indentation string
+     */
+    private void emitStreamingSerializerImpl(List<Type> expandedTypes, int depth, StringBuilder builder, String inVar, String i) {
+        final Type type = expandedTypes.get(depth);
+        final Class<?> rawClass = getRawClass(type);
+        final String value = depth == 0 ? "this." + inVar : inVar;
+        final String childInVar = inVar + "_";
+        if (isList(rawClass) || isMap(rawClass)) {
+            final String childInTypeName = getImplName(expandedTypes.get(depth + 1), false);
+            String ci = i;
+            if (depth == 0) {
+                // Top level collections are never null, the same as in toJsonElement().
+                builder.append(i).append("this.").append(getEnsureName(inVar)).append("();\n");
+            } else {
+                builder.append(i).append("if (").append(value).append(" == null) {\n");
+                builder.append(i).append("  writer.nullValue();\n");
+                builder.append(i).append("} else {\n");
+                ci = i + "  ";
+            }
+            if (isList(rawClass)) {
+                builder.append(ci).append("writer.beginArray();\n");
+                builder.append(ci).append("for (").append(childInTypeName).append(" ").append(childInVar).append(" : ").append(value)
+                       .append(") {\n");
+                emitStreamingSerializerImpl(expandedTypes, depth + 1, builder, childInVar, ci + "  ");
+                builder.append(ci).append("}\n");
+                builder.append(ci).append("writer.endArray();\n");
+            } else {
+                final String entryVar = "entry" + depth;
+                builder.append(ci).append("writer.beginObject();\n");
+                builder.append(ci).append("for (java.util.Map.Entry<String, ").append(childInTypeName).append("> ").append(entryVar)
+                       .append(" : ").append(value).append(".entrySet()) {\n");
+                builder.append(ci).append("  writer.name(").append(entryVar).append(".getKey());\n");
+                builder.append(ci).append("  ").append(childInTypeName).append(" ").append(childInVar).append(" = ").append(entryVar)
+                       .append(".getValue();\n");
+                emitStreamingSerializerImpl(expandedTypes, depth + 1, builder, childInVar, ci + "  ");
+                builder.append(ci).append("}\n");
+                builder.append(ci).append("writer.endObject();\n");
+            }
+            if (depth != 0) {
+                builder.append(i).append("}\n");
+            }
+        } else if (rawClass.isEnum()) {
+            builder.append(i).append("writer.value(").append(value).append(" == null ? null : ").append(value).append(".name());\n");
+        } else if (getEnclosingTemplate().isDtoInterface(rawClass)) {
+            emitStreamingSerializeDto(getImplNameForDto(rawClass), value, builder, i);
+        } else if (rawClass == String.class
+                   || rawClass == boolean.class
+                   || rawClass == int.class
+                   || rawClass == long.class
+                   || rawClass == double.class
+                   || rawClass == short.class
+                   || rawClass == byte.class
+                   || rawClass == Integer.class
+                   || rawClass == Long.class
+                   || rawClass == Double.class
+                   || rawClass == Float.class
+                   || rawClass == Short.class
+                   || rawClass == Byte.class) {
+            // JsonWriter writes null for null String and Number.
+            builder.append(i).append("writer.value(").append(value).append(");\n");
+        } else if (rawClass == float.class) {
+            // Keep float representation, e.g. 0.1 but not 0.10000000149011612.
+            builder.append(i).append("writer.value(Float.valueOf(").append(value).append("));\n");
+        } else if (rawClass == Boolean.class) {
+            builder.append(i).append("if (").append(value).append(" == null) {\n");
+            builder.append(i).append("  writer.nullValue();\n");
+            builder.append(i).append("} else {\n");
+            builder.append(i).append("  writer.value(").append(value).append(".booleanValue());\n");
+            builder.append(i).append("}\n");
+        } else if (isAny(rawClass)) {
+            builder.append(i).append("if (").append(value).append(" instanceof JsonElement) {\n");
+            builder.append(i).append("  gson.toJson((JsonElement)").append(value).append(", writer);\n");
+            builder.append(i).append("} else {\n");
+            builder.append(i).append("  writer.nullValue();\n");
+            builder.append(i).append("}\n");
+        } else {
+            final Class<?> dtoImplementation = getEnclosingTemplate().getDtoImplementation(rawClass);
+            if (dtoImplementation != null) {
+                emitStreamingSerializeDto(dtoImplementation.getCanonicalName(), value, builder, i);
+            } else {
+                throw new IllegalArgumentException("Unable to generate server implementation for DTO interface " +
+                                                   getDtoInterface().getCanonicalName() + ". Type " + rawClass +
+                                                   " is not allowed to use in DTO interface.");
+            }
+        }
+    }
+
+    private void emitStreamingSerializeDto(String implName, String value, StringBuilder builder, String i) {
+        builder.append(i).append("if (").append(value).append(" == null) {\n");
+        builder.append(i).append("  writer.nullValue();\n");
+        builder.append(i).append("} else {\n");
+        builder.append(i).append("  ((").append(implName).append(")").append(value).append(").writeTo(writer);\n");
+        builder.append(i).append("}\n");
+    }
+
+    /** Generates a static factory method that reads a new instance from the JsonReader without building JsonElement. */
+    private void emitStreamingDeserializer(List<Method> getters, StringBuilder builder) {
+        builder.append("    public static ").append(getImplClassName()).append(" readFrom(JsonReader reader) throws java.io.IOException {\n");
+        if (isCompactJson()) {
+            // Compact form is an array with positional fields, reuse its deserializer.
+            builder.append("      return fromJsonElement(gson.getAdapter(JsonElement.class).read(reader), false);\n");
+            builder.append("    }\n\n");
+            return;
+        }
+        builder.append("      if (reader.peek() == JsonToken.NULL) {\n");
+        builder.append("        reader.nextNull();\n");
+        builder.append("        return null;\n");
+        builder.append("      }\n\n");
+        builder.append("      ").append(getImplClassName()).append(" dto = new ").append(getImplClassName()).append("();\n");
+        builder.append("      reader.beginObject();\n");
+        builder.append("      while (reader.hasNext()) {\n");
+        builder.append("        switch (reader.nextName()) {\n");
+        for (Method getter : getters) {
+            final String fieldName = getFieldNameFromGetterName(getter.getName());
+            final String fieldNameOut = fieldName + "Out";
+            builder.append("          case ").append(quoteStringLiteral(getJsonFieldName(getter))).append(": {\n");
+            emitStreamingDeserializerImpl(expandType(getter.getGenericReturnType()), 0, builder, fieldNameOut, "            ");
+            builder.append("            dto.").append(getSetterName(fieldName)).append("(").append(fieldNameOut).append(");\n");
+            builder.append("            break;\n");
+            builder.append("          }\n");
+        }
+        builder.append("          default:\n");
+        builder.append("            reader.skipValue();\n");
+        builder.append("        }\n");
+        builder.append("      }\n");
+        builder.append("      reader.endObject();\n");
+        builder.append("      return dto;\n");
+        builder.append("    }\n\n");
+    }
+
+    /**
+     * Produces code to read the type from the JsonReader into the variable with the given name.
+     *
+     * @param expandedTypes
+     *         the type and its generic (and its generic (..)) expanded into a list, @see {@link #expandType(java.lang.reflect.Type)}
+     * @param depth
+     *         the depth (in the generics) for this recursive call. This can be used to index into {@code expandedTypes}
+     * @param outVar
+     *         the java variable that will be the output of deserialization
+     * @param i
+     *         indentation string
+     */
+    private void emitStreamingDeserializerImpl(List<Type> expandedTypes, int depth, StringBuilder builder, String outVar, String i) {
+        final Type type = expandedTypes.get(depth);
+        final Class<?> rawClass = getRawClass(type);
+        final String childOutVar = outVar + "_";
+        if (isList(rawClass) || isMap(rawClass)) {
+            builder.append(i).append(getImplName(type, false)).append(" ").append(outVar).append(" = null;\n");
+            builder.append(i).append("if (reader.peek() == JsonToken.NULL) {\n");
+            builder.append(i).append("  reader.nextNull();\n");
+            builder.append(i).append("} else {\n");
+            builder.append(i).append("  ").append(outVar).append(" = new ").append(getImplName(type, true)).append("();\n");
+            if (isList(rawClass)) {
+                builder.append(i).append("  reader.beginArray();\n");
+                builder.append(i).append("  while (reader.hasNext()) {\n");
+                emitStreamingDeserializerImpl(expandedTypes, depth + 1, builder, childOutVar, i + "    ");
+                builder.append(i).append("    ").append(outVar).append(".add(").append(childOutVar).append(");\n");
+                builder.append(i).append("  }\n");
+                builder.append(i).append("  reader.endArray();\n");
+            } else {
+                final String keyVar = "key" + depth;
+                builder.append(i).append("  reader.beginObject();\n");
+                builder.append(i).append("  while (reader.hasNext()) {\n");
+                builder.append(i).append("    String ").append(keyVar).append(" = reader.nextName();\n");
+                emitStreamingDeserializerImpl(expandedTypes, depth + 1, builder, childOutVar, i + "    ");
+                builder.append(i).append("    ").append(outVar).append(".put(").append(keyVar).append(", ").append(childOutVar)
+                       .append(");\n");
+                builder.append(i).append("  }\n");
+                builder.append(i).append("  reader.endObject();\n");
+            }
+            builder.append(i).append("}\n");
+        } else if (getEnclosingTemplate().isDtoInterface(rawClass)) {
+            builder.append(i).append(getImplName(rawClass, false)).append(" ").append(outVar).append(" = ")
+                   .append(getImplNameForDto(rawClass)).append(".readFrom(reader);\n");
+        } else if (rawClass == boolean.class) {
+            // Be lenient as JsonPrimitive.getAsBoolean() is.
+            builder.append(i).append("boolean ").append(outVar)
+                   .append(" = reader.peek() == JsonToken.STRING ? Boolean.parseBoolean(reader.nextString()) : reader.nextBoolean();\n");
+        } else if (rawClass == int.class || rawClass == long.class || rawClass == double.class) {
+            final String primitiveName = rawClass.getSimpleName();
+            final String primitiveNameCap = primitiveName.substring(0, 1).toUpperCase() + primitiveName.substring(1);
+            builder.append(i).append(primitiveName).append(" ").append(outVar).append(" = reader.next").append(primitiveNameCap)
+                   .append("();\n");
+        } else if (rawClass == float.class) {
+            builder.append(i).append("float ").append(outVar).append(" = (float)reader.nextDouble();\n");
+        } else if (rawClass == short.class || rawClass == byte.class) {
+            final String primitiveName = rawClass.getSimpleName();
+            builder.append(i).append(primitiveName).append(" ").append(outVar).append(" = (").append(primitiveName)
+                   .append(")reader.nextInt();\n");
+        } else if (isAny(rawClass)) {
+            builder.append(i).append("JsonElement ").append(outVar).append(" = gson.getAdapter(JsonElement.class).read(reader);\n");
+        } else {
+            final Class<?> dtoImplementation = getEnclosingTemplate().getDtoImplementation(rawClass);
+            if (dtoImplementation != null) {
+                builder.append(i).append(getImplName(rawClass, false)).append(" ").append(outVar).append(" = ")
+                       .append(dtoImplementation.getCanonicalName()).append(".readFrom(reader);\n");
+            } else {
+                // Use gson to handle all other types.
+                String rawClassName = rawClass.getName().replace('$', '.');
+                builder.append(i).append(rawClassName).append(" ").append(outVar).append(" = gson.getAdapter(").append(rawClassName)
+                       .append(".class).read(reader);\n");
+            }
+        }
+    }
+
+    /** Generates serializer to the compact binary format, see {@link BinaryStreams}. */
+    private void emitBinarySerializer(List<Method> getters, StringBuilder builder) {
+        builder.append("    @Override\n");
+        builder.append("    public void writeBinary(java.io.DataOutput out) throws java.io.IOException {\n");
+        for (Method getter : getters) {
+            final List<Type> expandedTypes = expandType(getter.getGenericReturnType());
+            final Class<?> rawClass = getRawClass(expandedTypes.get(0));
+            final String fieldName = getJavaFieldName(getter.getName());
+            final String value = "this." + fieldName;
+            // Skip fields that have default value, reader leaves such fields untouched.
+            builder.append("      if (");
+            if (rawClass == boolean.class) {
+                builder.append(value);
+            } else if (rawClass == double.class) {
+                builder.append("Double.doubleToRawLongBits(").append(value).append(") != 0L");
+            } else if (rawClass == float.class) {
+                builder.append("Float.floatToRawIntBits(").append(value).append(") != 0");
+            } else if (rawClass.isPrimitive()) {
+                builder.append(value).append(" != 0");
+            } else if (isList(rawClass) || isMap(rawClass)) {
+                builder.append(value).append(" != null && !").append(value).append(".isEmpty()");
+            } else {
+                builder.append(value).append(" != null");
+            }
+            builder.append(") {\n");
+            builder.append("        ").append(BINARY_STREAMS).append(".writeVarInt(out, ").append(getFieldKey(getter)).append(");\n");
+            if (isLengthPrefixed(rawClass)) {
+                // Length lets readers that don't know this field skip it.
+                builder.append("        ").append(BINARY_STREAMS).append(".writeDelimited(out, valueOut -> {\n");
+                emitBinarySerializerImpl(expandedTypes, 0, builder, fieldName, "valueOut", "          ");
+                builder.append("        });\n");
+            } else {
+                emitBinarySerializerImpl(expandedTypes, 0, builder, fieldName, "out", "        ");
+            }
+            builder.append("      }\n");
+        }
+        builder.append("      ").append(BINARY_STREAMS).append(".writeVarInt(out, 0);\n");
+        builder.append("    }\n\n");
+    }
+
+    /**
+     * Produces code to write not {@code null} value of the given variable in the binary format.
+     *
+     * @param expandedTypes
+     *         the type and its generic (and its generic (..)) expanded into a list, @see {@link #expandType(java.lang.reflect.Type)}
+     * @param depth
+     *         the depth (in the generics) for this recursive call. This can be used to index into {@code expandedTypes}
+     * @param inVar
+     *         the java variable that will be the input for serialization
+     * @param out
+     *         the java variable of {@link java.io.DataOutput} to write to
+     * @param i
+     *         indentation string
+     */
+    private void emitBinarySerializerImpl(List<Type> expandedTypes, int depth, StringBuilder builder, String inVar, String out,
+                                          String i) {
+        final Type type = expandedTypes.get(depth);
+        final Class<?> rawClass = getRawClass(type);
+        final String value = depth == 0 ? "this." + inVar : inVar;
+        if (isList(rawClass) || isMap(rawClass)) {
+            final String childInTypeName = getImplName(expandedTypes.get(depth + 1), false);
+            final String childInVar = inVar + "_";
+            builder.append(i).append(BINARY_STREAMS).append(".writeVarInt(").append(out).append(", ").append(value)
+                   .append(".size());\n");
+            if (isList(rawClass)) {
+                builder.append(i).append("for (").append(childInTypeName).append(" ").append(childInVar).append(" : ").append(value)
+                       .append(") {\n");
+            } else {
+                final String entryVar = "entry" + depth;
+                builder.append(i).append("for (java.util.Map.Entry<String, ").append(childInTypeName).append("> ").append(entryVar)
+                       .append(" : ").append(value).append(".entrySet()) {\n");
+                builder.append(i).append("  ").append(BINARY_STREAMS).append(".writeString(").append(out).append(", ")
+                       .append(entryVar).append(".getKey());\n");
+                builder.append(i).append("  ").append(childInTypeName).append(" ").append(childInVar).append(" = ").append(entryVar)
+                       .append(".getValue();\n");
+            }
+            // Elements of collections may be null.
+            builder.append(i).append("  ").append(out).append(".writeBoolean(").append(childInVar).append(" != null);\n");
+            builder.append(i).append("  if (").append(childInVar).append(" != null) {\n");
+            emitBinarySerializerImpl(expandedTypes, depth + 1, builder, childInVar, out, i + "    ");
+            builder.append(i).append("  }\n");
+            builder.append(i).append("}\n");
+        } else if (rawClass.isEnum()) {
+            builder.append(i).append(BINARY_STREAMS).append(".writeString(").append(out).append(", ").append(value)
+                   .append(".name());\n");
+        } else if (rawClass == String.class) {
+            builder.append(i).append(BINARY_STREAMS).append(".writeString(").append(out).append(", ").append(value).append(");\n");
+        } else if (isAny(rawClass)) {
+            builder.append(i).append(BINARY_STREAMS).append(".writeString(").append(out).append(", gson.toJson(").append(value)
+                   .append("));\n");
+        } else if (rawClass.isPrimitive() || Primitives.isWrapperType(rawClass)) {
+            final Class<?> primitive = Primitives.unwrap(rawClass);
+            if (primitive == long.class) {
+                builder.append(i).append(BINARY_STREAMS).append(".writeLong(").append(out).append(", ").append(value).append(");\n");
+            } else if (primitive == int.class || primitive == short.class || primitive == byte.class) {
+                builder.append(i).append(BINARY_STREAMS).append(".writeInt(").append(out).append(", ").append(value).append(");\n");
+            } else {
+                final String primitiveName = primitive.getSimpleName();
+                builder.append(i).append(out).append(".write").append(Character.toUpperCase(primitiveName.charAt(0)))
+                       .append(primitiveName.substring(1)).append("(").append(value).append(");\n");
+            }
+        } else {
+            final String implName = getEnclosingTemplate().isDtoInterface(rawClass)
+                                    ? getImplNameForDto(rawClass)
+                                    : getEnclosingTemplate().getDtoImplementation(rawClass).getCanonicalName();
+            builder.append(i).append("((").append(implName).append(")").append(value).append(").writeBinary(").append(out)
+                   .append(");\n");
+        }
+    }
+
+    /** Generates a static factory method that reads a new instance in the compact binary format, see {@link BinaryStreams}. */
+    private void emitBinaryDeserializer(List<Method> getters, StringBuilder builder) {
+        builder.append("    public static ").append(getImplClassName())
+               .append(" readBinary(java.io.DataInput in) throws java.io.IOException {\n");
+        builder.append("      ").append(getImplClassName()).append(" dto = new ").append(getImplClassName()).append("();\n");
+        builder.append("      for (int key = ").append(BINARY_STREAMS).append(".readVarInt(in); key != 0; key = ")
+               .append(BINARY_STREAMS).append(".readVarInt(in)) {\n");
+        builder.append("        switch (key) {\n");
+        for (Method getter : getters) {
+            final String fieldName = getFieldNameFromGetterName(getter.getName());
+            final String fieldNameOut = fieldName + "Out";
+            builder.append("          case ").append(getFieldKey(getter)).append(": {\n");
+            if (isLengthPrefixed(getRawClass(getter.getGenericReturnType()))) {
+                // Length of value is needed only to skip unknown fields.
+                builder.append("            ").append(BINARY_STREAMS).append(".readVarInt(in);\n");
+            }
+            emitBinaryDeserializerImpl(expandType(getter.getGenericReturnType()), 0, builder, fieldNameOut, "            ");
+            builder.append("            dto.").append(getSetterName(fieldName)).append("(").append(fieldNameOut).append(");\n");
+            builder.append("            break;\n");
+            builder.append("          }\n");
+        }
+        builder.append("          default:\n");
+        builder.append("            // Field is unknown or has other type, e.g. DTO is changed in newer version.\n");
+        builder.append("            ").append(BINARY_STREAMS).append(".skipField(in, key);\n");
+        builder.append("        }\n");
+        builder.append("      }\n");
+        builder.append("      return dto;\n");
+        builder.append("    }\n\n");
+    }
+
+    /** Gets key of field in the binary format, key contains serialization index and wire type of field. */
+    private static int getFieldKey(Method getter) {
+        final Class<?> rawClass = getRawClass(getter.getGenericReturnType());
+        final int wireType;
+        if (rawClass.isPrimitive() || Primitives.isWrapperType(rawClass)) {
+            final Class<?> primitive = Primitives.unwrap(rawClass);
+            wireType = primitive == double.class ? BinaryStreams.WIRE_FIXED64
+                                                 : primitive == float.class ? BinaryStreams.WIRE_FIXED32 : BinaryStreams.WIRE_VARINT;
+        } else {
+            wireType = BinaryStreams.WIRE_DELIMITED;
+        }
+        return BinaryStreams.fieldKey(getter.getAnnotation(SerializationIndex.class).value(), wireType);
+    }
+
+    /** Tests whether value of field must be prefixed with its length. String, enum and Any values have own length prefix. */
+    private static boolean isLengthPrefixed(Class<?> rawClass) {
+        return !(rawClass.isPrimitive() || Primitives.isWrapperType(rawClass) || rawClass.isEnum() || rawClass == String.class
+                 || isAny(rawClass));
+    }
+
+    /**
+     * Produces code to read not {@code null} value of the type in the binary format into the variable with the given name.
+     *
+     * @param expandedTypes
+     *         the type and its generic (and its generic (..)) expanded into a list, @see {@link #expandType(java.lang.reflect.Type)}
+     * @param depth
+     *         the depth (in the generics) for this recursive call. This can be used to index into {@code expandedTypes}
+     * @param outVar
+     *         the java variable that will be the output of deserialization
+     * @param i
+     *         indentation string
+     */
+    private void emitBinaryDeserializerImpl(List<Type> expandedTypes, int depth, StringBuilder builder, String outVar, String i) {
+        final Type type = expandedTypes.get(depth);
+        final Class<?> rawClass = getRawClass(type);
+        if (isList(rawClass) || isMap(rawClass)) {
+            final Type childType = expandedTypes.get(depth + 1);
+            final String childOutVar = outVar + "_";
+            final String sizeVar = "size" + depth;
+            final String counterVar = "i" + depth;
+            final String keyVar = "key" + depth;
+            builder.append(i).append(getImplName(type, false)).append(" ").append(outVar).append(" = new ")
+                   .append(getImplName(type, true)).append("();\n");
+            builder.append(i).append("for (int ").append(counterVar).append(" = 0, ").append(sizeVar).append(" = ")
+                   .append(BINARY_STREAMS).append(".readVarInt(in); ").append(counterVar).append(" < ").append(sizeVar).append("; ")
+                   .append(counterVar).append("++) {\n");
+            if (isMap(rawClass)) {
+                builder.append(i).append("  String ").append(keyVar).append(" = ").append(BINARY_STREAMS).append(".readString(in);\n");
+            }
+            builder.append(i).append("  ").append(getImplName(childType, false)).append(" ").append(childOutVar).append(" = null;\n");
+            builder.append(i).append("  if (in.readBoolean()) {\n");
+            emitBinaryDeserializerImpl(expandedTypes, depth + 1, builder, childOutVar + "v", i + "    ");
+            builder.append(i).append("    ").append(childOutVar).append(" = ").append(childOutVar).append("v;\n");
+            builder.append(i).append("  }\n");
+            if (isList(rawClass)) {
+                builder.append(i).append("  ").append(outVar).append(".add(").append(childOutVar).append(");\n");
+            } else {
+                builder.append(i).append("  ").append(outVar).append(".put(").append(keyVar).append(", ").append(childOutVar)
+                       .append(");\n");
+            }
+            builder.append(i).append("}\n");
+        } else if (rawClass.isEnum()) {
+            final String enumName = rawClass.getCanonicalName();
+            builder.append(i).append(enumName).append(" ").append(outVar).append(" = ").append(enumName).append(".valueOf(")
+                   .append(BINARY_STREAMS).append(".readString(in));\n");
+        } else if (rawClass == String.class) {
+            builder.append(i).append("String ").append(outVar).append(" = ").append(BINARY_STREAMS).append(".readString(in);\n");
+        } else if (isAny(rawClass)) {
+            builder.append(i).append("JsonElement ").append(outVar).append(" = new JsonParser().parse(").append(BINARY_STREAMS)
+                   .append(".readString(in));\n");
+        } else if (rawClass.isPrimitive() || Primitives.isWrapperType(rawClass)) {
+            final Class<?> primitive = Primitives.unwrap(rawClass);
+            final String primitiveName = primitive.getSimpleName();
+            builder.append(i).append(primitiveName).append(" ").append(outVar).append(" = ");
+            if (primitive == long.class) {
+                builder.append(BINARY_STREAMS).append(".readLong(in);\n");
+            } else if (primitive == int.class) {
+                builder.append(BINARY_STREAMS).append(".readInt(in);\n");
+            } else if (primitive == short.class || primitive == byte.class) {
+                builder.append("(").append(primitiveName).append(")").append(BINARY_STREAMS).append(".readInt(in);\n");
+            } else {
+                builder.append("in.read").append(Character.toUpperCase(primitiveName.charAt(0))).append(primitiveName.substring(1))
+                       .append("();\n");
+            }
+        } else {
+            final String implName = getEnclosingTemplate().isDtoInterface(rawClass)
+                                    ? getImplNameForDto(rawClass)
+                                    : getEnclosingTemplate().getDtoImplementation(rawClass).getCanonicalName();
+            builder.append(i).append(getImplName(rawClass, false)).append(" ").append(outVar).append(" = ").append(implName)
+                   .append(".readBinary(in);\n");
+        }
+    }
+
     /**
      * Append the expression that clones the given JsonElement variable into a new value. If the copyJons run-time
      * parameter is set to false, then the expression won't perform a clone but instead will reuse the variable by
@@ -644,6 +1196,9 @@ public class DtoImplServerTemplate extends DtoImpl {
         builder.append(" implements ");
         builder.append(dtoInterface.getCanonicalName());
         builder.append(", JsonSerializable ");
+        if (hasBinaryCodec()) {
+            builder.append(", ").append(BinarySerializable.class.getCanonicalName()).append(" ");
+        }
         builder.append(" {\n\n");
         emitFactoryMethod(builder);
         emitDefaultConstructor(builder);
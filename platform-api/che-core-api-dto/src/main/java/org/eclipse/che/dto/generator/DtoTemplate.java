@@ -157,6 +157,16 @@ public class DtoTemplate {
         return false;
     }
 
+    /** Returns template for the given DTO interface or {@code null} if interface is not added to this template. */
+    DtoImpl getDtoImpl(Class<?> dtoInterface) {
+        for (DtoImpl dto : getDtoInterfaces()) {
+            if (dto.getDtoInterface().equals(dtoInterface)) {
+                return dto;
+            }
+        }
+        return null;
+    }
+
     private DtoImpl createDtoImplTemplate(Class<?> i) {
         if ("server".equals(implType)) {
             return new DtoImplServerTemplate(this, i);
@@ -201,6 +211,9 @@ public class DtoTemplate {
             builder.append("import com.google.gson.JsonObject;\n");
             builder.append("import com.google.gson.JsonParser;\n");
             builder.append("import com.google.gson.JsonPrimitive;\n");
+            builder.append("import com.google.gson.stream.JsonReader;\n");
+            builder.append("import com.google.gson.stream.JsonToken;\n");
+            builder.append("import com.google.gson.stream.JsonWriter;\n");
             builder.append("\n");
             builder.append("import java.util.List;\n");
             builder.append("import java.util.Map;\n");
@@ -248,6 +261,21 @@ public class DtoTemplate {
                 builder.append("        public ").append(dtoInterface).append(" fromJson(com.google.gson.JsonElement json) {\n")
                        .append("            return ").append(dto.getImplClassName()).append(".fromJsonElement(json);\n");
                 builder.append("        }\n\n");
+                builder.append("        public ").append(dtoInterface)
+                       .append(" fromJson(com.google.gson.stream.JsonReader json) throws java.io.IOException {\n")
+                       .append("            return ").append(dto.getImplClassName()).append(".readFrom(json);\n");
+                builder.append("        }\n\n");
+                final boolean binaryCodec = ((DtoImplServerTemplate)dto).hasBinaryCodec();
+                builder.append("        public boolean hasBinaryCodec() {\n")
+                       .append("            return ").append(binaryCodec).append(";\n");
+                builder.append("        }\n\n");
+                builder.append("        public ").append(dtoInterface).append(" fromBinary(java.io.DataInput in) throws java.io.IOException {\n");
+                if (binaryCodec) {
+                    builder.append("            return ").append(dto.getImplClassName()).append(".readBinary(in);\n");
+                } else {
+                    builder.append("            throw new UnsupportedOperationException();\n");
+                }
+                builder.append("        }\n\n");
                 builder.append("        public ").append(dtoInterface).append(" clone(").append(dtoInterface).append(" origin) {\n")
                        .append("            return new ").append(dto.getImplClassName()).append("(origin);\n");
                 builder.append("        }\n");
@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.dto.server;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * An entity that may serialize itself to the compact binary format. Server implementation of DTO implements this interface if
+ * all getters of DTO interface are annotated with {@link org.eclipse.che.dto.shared.SerializationIndex} and types of all fields
+ * are supported by the binary format.
+ *
+ * @see BinaryStreams
+ * @see DtoProvider#fromBinary(java.io.DataInput)
+ */
+public interface BinarySerializable {
+    /**
+     * Writes all not {@code null} fields of DTO as pairs of serialization index and value, sequence of fields is terminated with
+     * zero index.
+     */
+    void writeBinary(DataOutput out) throws IOException;
+}
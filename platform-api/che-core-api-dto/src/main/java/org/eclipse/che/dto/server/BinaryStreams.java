@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.dto.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Primitives of the compact binary format of DTOs.
+ * <p/>
+ * DTO is written as sequence of fields, every field starts with its key (unsigned varint) that is followed by value of field.
+ * Key is serialization index of field shifted left by three bits combined with wire type of field, see {@link #fieldKey(int,
+ * int)}. Fields that have {@code null}, zero or empty value are omitted. Sequence of fields is terminated with zero key. Values
+ * are encoded as follow:
+ * <ul>
+ * <li>int, long, short, byte - zig-zag varint, wire type {@link #WIRE_VARINT}</li>
+ * <li>boolean - one byte as {@link DataOutput} writes it, wire type {@link #WIRE_VARINT}</li>
+ * <li>double - as {@link DataOutput} writes it, wire type {@link #WIRE_FIXED64}</li>
+ * <li>float - as {@link DataOutput} writes it, wire type {@link #WIRE_FIXED32}</li>
+ * <li>String, enum - length of UTF-8 bytes as unsigned varint followed by bytes, enum is written by name, wire type {@link
+ * #WIRE_DELIMITED}</li>
+ * <li>List - number of elements as unsigned varint followed by elements</li>
+ * <li>Map - number of entries as unsigned varint followed by pairs of String key and value</li>
+ * <li>DTO - fields of DTO</li>
+ * </ul>
+ * Elements of List and values of Map are prefixed with boolean flag that is {@code true} if element is not {@code null}. Field of
+ * List, Map or DTO type is prefixed with its length in bytes as unsigned varint and has wire type {@link #WIRE_DELIMITED}, values
+ * inside of it are not prefixed.
+ * <p/>
+ * Reader skips fields with unknown key with help of wire type, so new fields may be added to DTO without breaking of readers that
+ * don't know them yet. Format doesn't have type information otherwise, reader and writer must share serialization indexes of
+ * fields.
+ *
+ * @see BinarySerializable
+ * @see DtoProvider#fromBinary(DataInput)
+ */
+public final class BinaryStreams {
+    /** Media type of DTO in the binary format. */
+    public static final String MEDIA_TYPE = "application/x-che-dto";
+
+    /** Wire type of values that are written as varint. */
+    public static final int WIRE_VARINT    = 0;
+    /** Wire type of values of 8 bytes. */
+    public static final int WIRE_FIXED64   = 1;
+    /** Wire type of values that are prefixed with their length in bytes. */
+    public static final int WIRE_DELIMITED = 2;
+    /** Wire type of values of 4 bytes. */
+    public static final int WIRE_FIXED32   = 5;
+
+    /** Writes value to the binary stream. */
+    public interface ValueWriter {
+        void write(DataOutput out) throws IOException;
+    }
+
+    /** Gets key of field that is written before its value. */
+    public static int fieldKey(int serializationIndex, int wireType) {
+        return (serializationIndex << 3) | wireType;
+    }
+
+    /** Writes value prefixed with its length in bytes. Value is written to the buffer first to get its length. */
+    public static void writeDelimited(DataOutput out, ValueWriter writer) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writer.write(new DataOutputStream(bytes));
+        writeVarInt(out, bytes.size());
+        out.write(bytes.toByteArray());
+    }
+
+    /** Skips value of field with the given key, e.g. field is added in the newer version of DTO. */
+    public static void skipField(DataInput in, int key) throws IOException {
+        switch (key & 7) {
+            case WIRE_VARINT:
+                readVarLong(in);
+                break;
+            case WIRE_FIXED64:
+                skipFully(in, 8);
+                break;
+            case WIRE_DELIMITED:
+                final int length = readVarInt(in);
+                if (length < 0) {
+                    throw new IOException("Malformed length " + length + " of field " + (key >>> 3));
+                }
+                skipFully(in, length);
+                break;
+            case WIRE_FIXED32:
+                skipFully(in, 4);
+                break;
+            default:
+                throw new IOException("Unknown wire type " + (key & 7) + " of field " + (key >>> 3));
+        }
+    }
+
+    private static void skipFully(DataInput in, int length) throws IOException {
+        while (length > 0) {
+            final int skipped = in.skipBytes(length);
+            if (skipped > 0) {
+                length -= skipped;
+            } else {
+                // skipBytes doesn't report end of stream, readByte does.
+                in.readByte();
+                length--;
+            }
+        }
+    }
+
+    /** Writes unsigned varint, 7 bits per byte, the least significant group first. */
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    public static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int)value);
+    }
+
+    public static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.readByte();
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /** Writes signed int in zig-zag encoding, small negative numbers take as less bytes as small positive numbers. */
+    public static void writeInt(DataOutput out, int value) throws IOException {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    public static int readInt(DataInput in) throws IOException {
+        final int value = readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static void writeLong(DataOutput out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    public static long readLong(DataInput in) throws IOException {
+        final long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /** Writes string as UTF-8 bytes prefixed with their number. Unlike {@link DataOutput#writeUTF(String)} length isn't limited. */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        final int length = readVarInt(in);
+        if (length < 0) {
+            throw new IOException("Malformed string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Serializes DTO to the binary format with {@link BinarySerializable#writeBinary(DataOutput)}. */
+    public static byte[] toBinary(BinarySerializable dto) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            dto.writeBinary(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            // Never happens with ByteArrayOutputStream.
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private BinaryStreams() {
+    }
+}
@@ -10,26 +10,26 @@
  *******************************************************************************/
 package org.eclipse.che.dto.server;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
 
-import org.eclipse.che.commons.lang.reflect.ParameterizedTypeImpl;
 import org.eclipse.che.dto.shared.DTO;
 import org.eclipse.che.dto.shared.JsonArray;
 import org.eclipse.che.dto.shared.JsonStringMap;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -43,24 +43,6 @@ import java.util.concurrent.ConcurrentHashMap;
  * @author andrew00x
  */
 public final class DtoFactory {
-    private static final Gson gson = new GsonBuilder().serializeNulls().create();
-
-    private static final LoadingCache<Type, ParameterizedType> listTypeCache = CacheBuilder.newBuilder().concurrencyLevel(16).build(
-            new CacheLoader<Type, ParameterizedType>() {
-                @Override
-                public ParameterizedType load(Type type) {
-                    return new ParameterizedTypeImpl(List.class, type);
-                }
-            });
-
-    private static final LoadingCache<Type, ParameterizedType> mapTypeCache = CacheBuilder.newBuilder().concurrencyLevel(16).build(
-            new CacheLoader<Type, ParameterizedType>() {
-                @Override
-                public ParameterizedType load(Type type) {
-                    return new ParameterizedTypeImpl(Map.class, String.class, type);
-                }
-            });
-
     private static final DtoFactory INSTANCE = new DtoFactory();
 
     public static DtoFactory getInstance() {
@@ -141,6 +123,53 @@ public final class DtoFactory {
         throw new IllegalArgumentException("JsonSerializable instance required. ");
     }
 
+    /**
+     * Tests whether or not DTO supports the compact binary format.
+     *
+     * @param type
+     *         DTO interface or its implementation
+     * @see BinaryStreams
+     */
+    public boolean hasBinaryCodec(Class<?> type) {
+        final DtoProvider<?> provider = type.isInterface() ? dtoInterface2Providers.get(type) : dtoImpl2Providers.get(type);
+        return provider != null && provider.hasBinaryCodec();
+    }
+
+    /**
+     * Serializes DTO to the compact binary format.
+     *
+     * @throws IllegalArgumentException
+     *         if DTO doesn't support binary format
+     * @see #hasBinaryCodec(Class)
+     */
+    public <T> byte[] toBinary(T dto) {
+        return BinaryStreams.toBinary(getBinarySerializable(dto));
+    }
+
+    /**
+     * Writes DTO to the {@code out} stream in the compact binary format. Stream is not closed.
+     *
+     * @throws IllegalArgumentException
+     *         if DTO doesn't support binary format
+     * @throws IOException
+     *         if an i/o error occurs
+     * @see #hasBinaryCodec(Class)
+     */
+    public <T> void writeBinary(T dto, OutputStream out) throws IOException {
+        final DataOutputStream dataOut = new DataOutputStream(out);
+        getBinarySerializable(dto).writeBinary(dataOut);
+        dataOut.flush();
+    }
+
+    private BinarySerializable getBinarySerializable(Object dto) {
+        // Check provider but not just type of instance, implementation of DTO that doesn't support binary format
+        // may extend implementation of its super DTO that supports it.
+        if (dto instanceof BinarySerializable && hasBinaryCodec(dto.getClass())) {
+            return (BinarySerializable)dto;
+        }
+        throw new IllegalArgumentException("Binary format isn't supported for " + dto.getClass());
+    }
+
     /**
      * Creates new instance of class which implements specified DTO interface.
      *
@@ -184,14 +213,8 @@ public final class DtoFactory {
      *         if an i/o error occurs
      */
     public <T> T createDtoFromJson(Reader json, Class<T> dtoInterface) throws IOException {
-        DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
-        StringBuilder sb = new StringBuilder();
-        BufferedReader br = new BufferedReader(json);
-        String line;
-        while ((line = br.readLine()) != null) {
-            sb.append(line);
-        }
-        return dtoProvider.fromJson(sb.toString());
+        final DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
+        return parse(json, dtoProvider::fromJson);
     }
 
     /**
@@ -213,6 +236,40 @@ public final class DtoFactory {
 
     //
 
+    /**
+     * Creates new instance of class which implements specified DTO interface and initializes it with data in the compact binary
+     * format.
+     *
+     * @param data
+     *         DTO in binary format
+     * @param dtoInterface
+     *         DTO interface
+     * @throws IllegalArgumentException
+     *         if can't provide any implementation for specified interface or if DTO doesn't support binary format
+     * @throws IOException
+     *         if an i/o error occurs or data is malformed
+     * @see #hasBinaryCodec(Class)
+     */
+    public <T> T createDtoFromBinary(InputStream data, Class<T> dtoInterface) throws IOException {
+        final DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
+        if (!dtoProvider.hasBinaryCodec()) {
+            throw new IllegalArgumentException("Binary format isn't supported for " + dtoInterface);
+        }
+        return dtoProvider.fromBinary(new DataInputStream(data));
+    }
+
+    /**
+     * Creates new instance of class which implements specified DTO interface and initializes it with data in the compact binary
+     * format.
+     *
+     * @see #createDtoFromBinary(InputStream, Class)
+     */
+    public <T> T createDtoFromBinary(byte[] data, Class<T> dtoInterface) throws IOException {
+        return createDtoFromBinary(new ByteArrayInputStream(data), dtoInterface);
+    }
+
+    //
+
     /**
      * Parses the JSON data from the specified sting into list of objects of the specified type.
      *
@@ -225,13 +282,12 @@ public final class DtoFactory {
      *         if can't provide any implementation for specified interface
      */
     public <T> JsonArray<T> createListDtoFromJson(String json, Class<T> dtoInterface) {
-        final DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
-        final List<JsonElement> list = gson.fromJson(json, listTypeCache.getUnchecked(JsonElement.class));
-        final List<T> result = new ArrayList<>(list.size());
-        for (JsonElement e : list) {
-            result.add(dtoProvider.fromJson(e));
+        try {
+            return createListDtoFromJson(new StringReader(json), dtoInterface);
+        } catch (IOException e) {
+            // Never happens with StringReader except truncated JSON.
+            throw new JsonSyntaxException(e);
         }
-        return new JsonArrayImpl<>(result);
     }
 
 
@@ -248,21 +304,19 @@ public final class DtoFactory {
      */
     public <T> JsonArray<T> createListDtoFromJson(Reader json, Class<T> dtoInterface) throws IOException {
         final DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
-        final List<JsonElement> list;
-        try {
-            list = gson.fromJson(json, listTypeCache.getUnchecked(JsonElement.class));
-        } catch (JsonSyntaxException e) {
-            final Throwable cause = e.getCause();
-            if (cause instanceof IOException) {
-                throw (IOException)cause;
+        return parse(json, reader -> {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
             }
-            throw e;
-        }
-        final List<T> result = new ArrayList<>(list.size());
-        for (JsonElement e : list) {
-            result.add(dtoProvider.fromJson(e));
-        }
-        return new JsonArrayImpl<>(result);
+            final List<T> result = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                result.add(dtoProvider.fromJson(reader));
+            }
+            reader.endArray();
+            return new JsonArrayImpl<>(result);
+        });
     }
 
     /**
@@ -296,13 +350,12 @@ public final class DtoFactory {
      *         if can't provide any implementation for specified interface
      */
     public <T> JsonStringMap<T> createMapDtoFromJson(String json, Class<T> dtoInterface) {
-        final DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
-        final Map<String, JsonElement> map = gson.fromJson(json, mapTypeCache.getUnchecked(JsonElement.class));
-        final Map<String, T> result = new LinkedHashMap<>(map.size());
-        for (Map.Entry<String, JsonElement> e : map.entrySet()) {
-            result.put(e.getKey(), dtoProvider.fromJson(e.getValue()));
+        try {
+            return createMapDtoFromJson(new StringReader(json), dtoInterface);
+        } catch (IOException e) {
+            // Never happens with StringReader except truncated JSON.
+            throw new JsonSyntaxException(e);
         }
-        return new JsonStringMapImpl<>(result);
     }
 
 
@@ -319,24 +372,21 @@ public final class DtoFactory {
      * @throws IOException
      *         if an i/o error occurs
      */
-    @SuppressWarnings("unchecked")
     public <T> JsonStringMap<T> createMapDtoFromJson(Reader json, Class<T> dtoInterface) throws IOException {
         final DtoProvider<T> dtoProvider = getDtoProvider(dtoInterface);
-        final Map<String, JsonElement> map;
-        try {
-            map = gson.fromJson(json, mapTypeCache.getUnchecked(JsonElement.class));
-        } catch (JsonSyntaxException e) {
-            final Throwable cause = e.getCause();
-            if (cause instanceof IOException) {
-                throw (IOException)cause;
+        return parse(json, reader -> {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
             }
-            throw e;
-        }
-        final Map<String, T> result = new LinkedHashMap<>(map.size());
-        for (Map.Entry<String, JsonElement> e : map.entrySet()) {
-            result.put(e.getKey(), dtoProvider.fromJson(e.getValue()));
-        }
-        return new JsonStringMapImpl<>(result);
+            final Map<String, T> result = new LinkedHashMap<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                result.put(reader.nextName(), dtoProvider.fromJson(reader));
+            }
+            reader.endObject();
+            return new JsonStringMapImpl<>(result);
+        });
     }
 
     /**
@@ -358,6 +408,35 @@ public final class DtoFactory {
 
     //
 
+    /**
+     * Reads JSON document from the {@code json} reader incrementally, JSON document is never kept in memory as whole.
+     *
+     * @return result of {@code readFunction} or {@code null} if document is empty
+     */
+    private static <R> R parse(Reader json, JsonReadFunction<R> readFunction) throws IOException {
+        final JsonReader reader = JsonStreams.newJsonReader(json);
+        try {
+            try {
+                reader.peek();
+            } catch (EOFException e) {
+                // Empty document, the same as for JsonParser.
+                return null;
+            }
+            final R result = readFunction.read(reader);
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Did not consume the entire document.");
+            }
+            return result;
+        } catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+            // Invalid JSON or unexpected JSON structure, other IOExceptions are errors of reader.
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private interface JsonReadFunction<R> {
+        R read(JsonReader reader) throws IOException;
+    }
+
     @SuppressWarnings("unchecked")
     private <T> DtoProvider<T> getDtoProvider(Class<T> dtoInterface) {
         DtoProvider<?> dtoProvider = dtoInterface2Providers.get(dtoInterface);
@@ -11,6 +11,10 @@
 package org.eclipse.che.dto.server;
 
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
+
+import java.io.DataInput;
+import java.io.IOException;
 
 /**
  * Provides implementation of DTO interface.
@@ -24,6 +28,21 @@ public interface DtoProvider<DTO> {
 
     DTO fromJson(JsonElement json);
 
+    /** Reads DTO from the next value of the {@code json} stream. */
+    DTO fromJson(JsonReader json) throws IOException;
+
+    /** Tests whether or not DTO supports the compact binary format, see {@link BinaryStreams}. */
+    boolean hasBinaryCodec();
+
+    /**
+     * Reads DTO in the compact binary format.
+     *
+     * @throws UnsupportedOperationException
+     *         if DTO doesn't support binary format
+     * @see #hasBinaryCodec()
+     */
+    DTO fromBinary(DataInput in) throws IOException;
+
     DTO newInstance();
 
     DTO clone(DTO origin);
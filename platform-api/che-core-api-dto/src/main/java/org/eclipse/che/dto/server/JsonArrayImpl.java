@@ -14,7 +14,10 @@ import org.eclipse.che.dto.shared.JsonArray;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -159,6 +162,15 @@ public class JsonArrayImpl<T> implements JsonArray<T> {
         return gson.toJsonTree(this);
     }
 
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        try {
+            gson.toJson(this, getClass(), writer);
+        } catch (JsonIOException e) {
+            throw new IOException(e.getMessage(), e.getCause());
+        }
+    }
+
     @Override
     public String toString() {
         return delegate.toString();
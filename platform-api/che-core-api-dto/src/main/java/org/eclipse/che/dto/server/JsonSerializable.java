@@ -13,9 +13,11 @@
 // limitations under the License.
 package org.eclipse.che.dto.server;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
 
 /** An entity that may serialize itself to JSON. */
 public interface JsonSerializable extends Serializable {
@@ -25,4 +27,10 @@ public interface JsonSerializable extends Serializable {
 
     /** Serializes DTO to JSON object. */
     JsonElement toJsonElement();
+
+    /**
+     * Serializes DTO to JSON straight to the {@code writer} without building intermediate JSON object. Output is the same as
+     * output of {@link #toJson()} if writer is created with {@link JsonStreams#newJsonWriter(java.io.Writer)}.
+     */
+    void writeTo(JsonWriter writer) throws IOException;
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.dto.server;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Creates {@link JsonWriter} and {@link JsonReader} for streaming serialization of DTOs.
+ *
+ * @see JsonSerializable#writeTo(JsonWriter)
+ * @see DtoProvider#fromJson(JsonReader)
+ */
+public final class JsonStreams {
+
+    /**
+     * Creates JsonWriter that produces the same JSON as {@link JsonSerializable#toJson()}: fields that have {@code null} value
+     * are omitted and HTML characters are not escaped.
+     */
+    public static JsonWriter newJsonWriter(Writer out) {
+        final JsonWriter writer = new JsonWriter(out);
+        writer.setSerializeNulls(false);
+        writer.setHtmlSafe(false);
+        writer.setLenient(true);
+        return writer;
+    }
+
+    /** Creates JsonReader that accepts the same JSON as {@link com.google.gson.JsonParser}. */
+    public static JsonReader newJsonReader(Reader in) {
+        final JsonReader reader = new JsonReader(in);
+        reader.setLenient(true);
+        return reader;
+    }
+
+    /** Serializes DTO to JSON string with {@link JsonSerializable#writeTo(JsonWriter)}. */
+    public static String toJson(JsonSerializable dto) {
+        final StringWriter out = new StringWriter();
+        try {
+            dto.writeTo(newJsonWriter(out));
+        } catch (IOException e) {
+            // Never happens with StringWriter.
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        return out.toString();
+    }
+
+    private JsonStreams() {
+    }
+}
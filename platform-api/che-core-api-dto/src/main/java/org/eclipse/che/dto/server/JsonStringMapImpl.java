@@ -14,7 +14,10 @@ import org.eclipse.che.dto.shared.JsonStringMap;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
@@ -106,6 +109,15 @@ public class JsonStringMapImpl<T> implements JsonStringMap<T> {
         return gson.toJsonTree(this);
     }
 
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        try {
+            gson.toJson(this, getClass(), writer);
+        } catch (JsonIOException e) {
+            throw new IOException(e.getMessage(), e.getCause());
+        }
+    }
+
     @Override
     public String toString() {
         return delegate.toString();
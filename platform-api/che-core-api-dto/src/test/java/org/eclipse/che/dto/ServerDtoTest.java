@@ -10,25 +10,36 @@
  *******************************************************************************/
 package org.eclipse.che.dto;
 
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonWriter;
 
 import org.eclipse.che.dto.definitions.ComplicatedDto;
 import org.eclipse.che.dto.definitions.DTOHierarchy;
 import org.eclipse.che.dto.definitions.DtoWithAny;
 import org.eclipse.che.dto.definitions.DtoWithDelegate;
 import org.eclipse.che.dto.definitions.DtoWithFieldNames;
+import org.eclipse.che.dto.definitions.DtoWithSerializationIndex;
 import org.eclipse.che.dto.definitions.SimpleDto;
 import org.eclipse.che.dto.definitions.model.Model;
 import org.eclipse.che.dto.definitions.model.ModelComponentDto;
 import org.eclipse.che.dto.definitions.model.ModelDto;
+import org.eclipse.che.dto.server.BinaryStreams;
 import org.eclipse.che.dto.server.DtoFactory;
+import org.eclipse.che.dto.server.JsonSerializable;
+import org.eclipse.che.dto.server.JsonStreams;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -36,6 +47,7 @@ import java.util.Map;
 
 import static java.util.Arrays.asList;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 /**
@@ -214,6 +226,30 @@ public class ServerDtoTest {
         assertEquals(listDtoFromJson.get(1).getDefault(), _default_2);
     }
 
+    @Test
+    public void testListAndMapDtoDeserializerFromReader() throws Exception {
+        String json1 = "{\"name\":\"name1\",\"id\":1,\"default\":\"default1\"}";
+        String json2 = "{\"name\":\"name2\",\"id\":2,\"default\":\"default2\"}";
+
+        org.eclipse.che.dto.shared.JsonArray<SimpleDto> list =
+                dtoFactory.createListDtoFromJson(new StringReader("[" + json1 + ",\n" + json2 + ", null]"), SimpleDto.class);
+        org.eclipse.che.dto.shared.JsonStringMap<SimpleDto> map =
+                dtoFactory.createMapDtoFromJson(new StringReader("{\"b\":" + json2 + ",\n\"a\":" + json1 + "}"), SimpleDto.class);
+
+        assertEquals(list.size(), 3);
+        checkSimpleDto(list.get(0), "name1", 1, "default1");
+        checkSimpleDto(list.get(1), "name2", 2, "default2");
+        assertEquals(list.get(2), null);
+        assertEquals(new ArrayList<>(map.keySet()), asList("b", "a"));
+        checkSimpleDto(map.get("a"), "name1", 1, "default1");
+        checkSimpleDto(map.get("b"), "name2", 2, "default2");
+    }
+
+    @Test(expectedExceptions = JsonSyntaxException.class)
+    public void testListDtoDeserializerFromReaderFailsOnMalformedJson() throws Exception {
+        dtoFactory.createListDtoFromJson(new StringReader("[{\"name\":}]"), SimpleDto.class);
+    }
+
     @Test
     public void testComplicatedDtoSerializer() throws Exception {
         final String fooString = "Something";
@@ -325,6 +361,140 @@ public class ServerDtoTest {
         assertEquals(complicatedDto.getArrayOfArrayOfEnum().get(0).get(2), ComplicatedDto.SimpleEnum.THREE);
     }
 
+    @Test
+    public void testStreamingSerializerWritesTheSameJsonAsJsonElement() throws Exception {
+        SimpleDto simpleDto = dtoFactory.createDto(SimpleDto.class).withName("<name>").withId(1);
+        Map<String, SimpleDto> mapDtos = new HashMap<>(1);
+        mapDtos.put("key", simpleDto);
+        List<List<ComplicatedDto.SimpleEnum>> listOfListOfEnum = new ArrayList<>(1);
+        listOfListOfEnum.add(asList(ComplicatedDto.SimpleEnum.ONE, null, ComplicatedDto.SimpleEnum.THREE));
+        ComplicatedDto dto = dtoFactory.createDto(ComplicatedDto.class).withStrings(asList("a", null))
+                                       .withMap(mapDtos).withSimpleDtos(asList(simpleDto, null))
+                                       .withArrayOfArrayOfEnum(listOfListOfEnum);
+
+        StringWriter out = new StringWriter();
+        JsonWriter writer = JsonStreams.newJsonWriter(out);
+        ((JsonSerializable)dto).writeTo(writer);
+        writer.flush();
+
+        // Fields with null value are omitted.
+        assertEquals(out.toString(), new GsonBuilder().disableHtmlEscaping().create().toJson(dtoFactory.toJsonElement(dto)));
+        assertEquals(dtoFactory.toJson(dto), out.toString());
+    }
+
+    @Test
+    public void testStreamingSerializerWithAny() throws Exception {
+        DtoWithAny dto = dtoFactory.createDto(DtoWithAny.class).withStuff(createTestValueForAny())
+                                   .withObjects(createListTestValueForAny());
+
+        assertEquals(new JsonParser().parse(dtoFactory.toJson(dto)), dtoFactory.toJsonElement(dto));
+    }
+
+    @Test
+    public void testStreamingDeserializer() throws Exception {
+        SimpleDto simpleDto = dtoFactory.createDto(SimpleDto.class).withName("name").withId(1).withDefault("default");
+        Map<String, SimpleDto> mapDtos = new HashMap<>(1);
+        mapDtos.put("key", simpleDto);
+        List<List<ComplicatedDto.SimpleEnum>> listOfListOfEnum = new ArrayList<>(1);
+        listOfListOfEnum.add(asList(ComplicatedDto.SimpleEnum.TWO, ComplicatedDto.SimpleEnum.THREE));
+        ComplicatedDto dto = dtoFactory.createDto(ComplicatedDto.class).withStrings(asList("a", "b"))
+                                       .withSimpleEnum(ComplicatedDto.SimpleEnum.ONE).withMap(mapDtos)
+                                       .withSimpleDtos(asList(simpleDto, null)).withArrayOfArrayOfEnum(listOfListOfEnum);
+
+        ComplicatedDto copy = dtoFactory.createDtoFromJson(new StringReader(dtoFactory.toJson(dto)), ComplicatedDto.class);
+
+        assertEquals(copy, dto);
+    }
+
+    @Test
+    public void testStreamingDeserializerSkipsUnknownFields() throws Exception {
+        String json = "{\"unknown\":{\"name\":\"wrong\",\"list\":[1,[2],{}]},\"name\":\"name\",\"id\":\"2\",\"default\":null}";
+
+        SimpleDto dto = dtoFactory.createDtoFromJson(new StringReader(json), SimpleDto.class);
+
+        checkSimpleDto(dto, "name", 2, null);
+    }
+
+    @Test
+    public void testBinarySerializer() throws Exception {
+        Map<String, List<Integer>> numbers = new HashMap<>(2);
+        numbers.put("a", asList(-1, null, Integer.MAX_VALUE));
+        numbers.put("b", null);
+        DtoWithSerializationIndex child = dtoFactory.createDto(DtoWithSerializationIndex.class).withId(2).withName("child");
+        DtoWithSerializationIndex dto = dtoFactory.createDto(DtoWithSerializationIndex.class)
+                                                  .withId(-1)
+                                                  .withTime(Long.MIN_VALUE)
+                                                  .withName("\u0442\u0435\u0441\u0442")
+                                                  .withEnabled(true)
+                                                  .withRatio(0.5)
+                                                  .withState(DtoWithSerializationIndex.State.STOPPED)
+                                                  .withTags(asList("a", null, ""))
+                                                  .withNumbers(numbers)
+                                                  .withChildren(asList(child, null));
+
+        DtoWithSerializationIndex copy = dtoFactory.createDtoFromBinary(dtoFactory.toBinary(dto), DtoWithSerializationIndex.class);
+
+        assertEquals(copy, dto);
+        assertEquals(dtoFactory.toJson(copy), dtoFactory.toJson(dto));
+    }
+
+    @Test
+    public void testBinarySerializerOmitsDefaultValues() throws Exception {
+        DtoWithSerializationIndex dto = dtoFactory.createDto(DtoWithSerializationIndex.class).withName("name");
+
+        byte[] binary = dtoFactory.toBinary(dto);
+
+        // Key of field, length of string, string and terminating zero.
+        assertEquals(binary.length, 7);
+        assertEquals(dtoFactory.createDtoFromBinary(binary, DtoWithSerializationIndex.class), dto);
+    }
+
+    @Test
+    public void testBinaryDeserializerSkipsUnknownFields() throws Exception {
+        DtoWithSerializationIndex dto = dtoFactory.createDto(DtoWithSerializationIndex.class)
+                                                  .withName("name")
+                                                  .withTags(asList("a", "b"))
+                                                  .withRatio(0.5);
+        byte[] binary = dtoFactory.toBinary(dto);
+
+        // Fields that are added in newer version of DTO and field that changed its type.
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        BinaryStreams.writeVarInt(out, BinaryStreams.fieldKey(100, BinaryStreams.WIRE_DELIMITED));
+        BinaryStreams.writeDelimited(out, valueOut -> {
+            BinaryStreams.writeVarInt(valueOut, 2);
+            valueOut.writeBoolean(true);
+            BinaryStreams.writeString(valueOut, "unknown");
+            valueOut.writeBoolean(false);
+        });
+        BinaryStreams.writeVarInt(out, BinaryStreams.fieldKey(101, BinaryStreams.WIRE_VARINT));
+        BinaryStreams.writeLong(out, Long.MIN_VALUE);
+        // Known fields, without terminating zero.
+        out.write(binary, 0, binary.length - 1);
+        BinaryStreams.writeVarInt(out, BinaryStreams.fieldKey(102, BinaryStreams.WIRE_FIXED64));
+        out.writeDouble(1.5);
+        BinaryStreams.writeVarInt(out, BinaryStreams.fieldKey(103, BinaryStreams.WIRE_FIXED32));
+        out.writeFloat(1.5f);
+        BinaryStreams.writeVarInt(out, BinaryStreams.fieldKey(1, BinaryStreams.WIRE_DELIMITED));
+        BinaryStreams.writeString(out, "id that is string now");
+        BinaryStreams.writeVarInt(out, 0);
+
+        assertEquals(dtoFactory.createDtoFromBinary(bytes.toByteArray(), DtoWithSerializationIndex.class), dto);
+    }
+
+    @Test
+    public void testBinaryCodecIsGeneratedOnlyForDtoWithSerializationIndexes() throws Exception {
+        assertTrue(dtoFactory.hasBinaryCodec(DtoWithSerializationIndex.class));
+        assertTrue(dtoFactory.hasBinaryCodec(dtoFactory.createDto(DtoWithSerializationIndex.class).getClass()));
+        assertFalse(dtoFactory.hasBinaryCodec(SimpleDto.class));
+        assertFalse(dtoFactory.hasBinaryCodec(dtoFactory.createDto(SimpleDto.class).getClass()));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBinarySerializerFailsForDtoWithoutSerializationIndexes() throws Exception {
+        dtoFactory.toBinary(dtoFactory.createDto(SimpleDto.class));
+    }
+
     private void checkSimpleDto(SimpleDto dto, String expectedName, int expectedId, String expectedDefault) {
         assertEquals(dto.getName(), expectedName);
         assertEquals(dto.getId(), expectedId);
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.dto.definitions;
+
+import org.eclipse.che.dto.shared.DTO;
+import org.eclipse.che.dto.shared.SerializationIndex;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for testing that the {@link org.eclipse.che.dto.generator.DtoGenerator} generates binary serializer for DTO interface
+ * that has serialization indexes.
+ */
+@DTO
+public interface DtoWithSerializationIndex {
+    enum State {
+        ACTIVE, STOPPED
+    }
+
+    @SerializationIndex(1)
+    int getId();
+
+    DtoWithSerializationIndex withId(int id);
+
+    @SerializationIndex(2)
+    long getTime();
+
+    DtoWithSerializationIndex withTime(long time);
+
+    @SerializationIndex(3)
+    String getName();
+
+    DtoWithSerializationIndex withName(String name);
+
+    @SerializationIndex(4)
+    boolean isEnabled();
+
+    DtoWithSerializationIndex withEnabled(boolean enabled);
+
+    @SerializationIndex(5)
+    Double getRatio();
+
+    DtoWithSerializationIndex withRatio(Double ratio);
+
+    @SerializationIndex(6)
+    State getState();
+
+    DtoWithSerializationIndex withState(State state);
+
+    @SerializationIndex(7)
+    List<String> getTags();
+
+    DtoWithSerializationIndex withTags(List<String> tags);
+
+    @SerializationIndex(8)
+    Map<String, List<Integer>> getNumbers();
+
+    DtoWithSerializationIndex withNumbers(Map<String, List<Integer>> numbers);
+
+    @SerializationIndex(9)
+    List<DtoWithSerializationIndex> getChildren();
+
+    DtoWithSerializationIndex withChildren(List<DtoWithSerializationIndex> children);
+}
@@ -26,6 +26,7 @@ import org.eclipse.che.api.core.model.machine.MachineStatus;
 import org.eclipse.che.api.core.model.machine.Recipe;
 import org.eclipse.che.api.core.notification.EventService;
 import org.eclipse.che.api.core.notification.EventSubscriber;
+import org.eclipse.che.api.core.util.AsyncLineConsumer;
 import org.eclipse.che.api.core.util.CompositeLineConsumer;
 import org.eclipse.che.api.core.util.FileCleaner;
 import org.eclipse.che.api.core.util.FileLineConsumer;
@@ -73,6 +74,7 @@ import java.nio.file.Files;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -93,11 +95,27 @@ public class MachineManager {
     private static final Logger  LOG                          = LoggerFactory.getLogger(MachineManager.class);
     /* machine name must contain only {a-zA-Z0-9_-} characters and it's needed for validation machine names */
     private static final Pattern MACHINE_DISPLAY_NAME_PATTERN = Pattern.compile("^/?[a-zA-Z0-9_-]+$");
+    /** Max number of machines destroyed at the same time on server shutdown. */
+    private static final int     CLEANUP_THREADS              = 10;
+    private static final long    CLEANUP_TIMEOUT_MINUTES      = 5;
+    /** Number of threads which write buffered output of machines and processes to files and websocket channels. */
+    private static final int     LOGS_WRITER_THREADS          = 2;
+    /**
+     * Max time that producer of output waits when buffer of log file is full. Output that goes to websocket channels is
+     * dropped immediately if client doesn't keep up.
+     */
+    private static final long    FILE_LOG_OFFER_TIMEOUT_MS    = 1000;
+    /**
+     * Log file is compressed and replaced by a new empty file when it gets bigger, only a few last compressed parts are kept.
+     */
+    private static final long    MAX_LOG_FILE_SIZE            = 10 * 1024 * 1024;
+    private static final int     MAX_LOG_ARCHIVES             = 5;
 
     private final SnapshotDao              snapshotDao;
     private final File                     machineLogsDir;
     private final MachineInstanceProviders machineInstanceProviders;
     private final ExecutorService          executor;
+    private final ScheduledExecutorService logsExecutor;
     private final MachineRegistry          machineRegistry;
     private final EventService             eventService;
     private final String                   apiEndpoint;
@@ -105,6 +123,8 @@ public class MachineManager {
     private final MachineCleaner           machineCleaner;
     private final WsAgentLauncher          wsAgentLauncher;
 
+    private volatile boolean groupOutputLines;
+
     @Inject
     public MachineManager(SnapshotDao snapshotDao,
                           MachineRegistry machineRegistry,
@@ -124,9 +144,22 @@ public class MachineManager {
         this.defaultMachineMemorySizeMB = defaultMachineMemorySizeMB;
 
         executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("MachineManager-%d").setDaemon(true).build());
+        logsExecutor = Executors.newScheduledThreadPool(LOGS_WRITER_THREADS,
+                                                        new ThreadFactoryBuilder().setNameFormat("MachineLogsWriter-%d")
+                                                                                  .setDaemon(true)
+                                                                                  .build());
         this.machineCleaner = new MachineCleaner();
     }
 
+    /**
+     * Enables sending of machine and process output to websocket in groups of lines, see {@link WebsocketLineConsumer}.
+     * Disabled by default as clients must subscribe to other channel to get grouped lines.
+     */
+    @com.google.inject.Inject(optional = true)
+    public void setGroupOutputLines(@Named("machine.logs.websocket_group_lines") boolean groupOutputLines) {
+        this.groupOutputLines = groupOutputLines;
+    }
+
     /**
      * Synchronously creates and starts machine from scratch using recipe.
      *
@@ -299,8 +332,8 @@ public class MachineManager {
             throw new BadRequestException("Invalid machine name " + machineConfig.getName());
         }
 
-        for (MachineStateImpl machine : machineRegistry.getStates()) {
-            if (machine.getWorkspaceId().equals(workspaceId) && machine.getName().equals(machineConfig.getName())) {
+        for (MachineStateImpl machine : machineRegistry.getStates(workspaceId)) {
+            if (machine.getName().equals(machineConfig.getName())) {
                 throw new ConflictException("Machine with name " + machineConfig.getName() + " already exists");
             }
         }
@@ -444,10 +477,9 @@ public class MachineManager {
     public List<Instance> getMachines(String owner, String workspaceId) throws MachineException, BadRequestException {
         requiredNotNull(owner, "Owner");
 
-        return machineRegistry.getMachines()
+        return machineRegistry.getMachines(workspaceId)
                               .stream()
-                              .filter(machine -> owner.equals(machine.getOwner())
-                                                 && machine.getWorkspaceId().equals(workspaceId))
+                              .filter(machine -> owner.equals(machine.getOwner()))
                               .collect(Collectors.toList());
     }
 
@@ -467,10 +499,9 @@ public class MachineManager {
     public List<MachineStateImpl> getMachinesStates(String owner, String workspaceId) throws MachineException, BadRequestException {
         requiredNotNull(owner, "Owner");
 
-        return machineRegistry.getStates()
+        return machineRegistry.getStates(workspaceId)
                               .stream()
-                              .filter(machine -> owner.equals(machine.getOwner())
-                                                 && machine.getWorkspaceId().equals(workspaceId))
+                              .filter(machine -> owner.equals(machine.getOwner()))
                               .collect(Collectors.toList());
     }
 
@@ -672,6 +703,12 @@ public class MachineManager {
                     processLogger.writeLine(String.format("[ERROR] %s", error.getMessage()));
                 } catch (IOException ignored) {
                 }
+            } finally {
+                try {
+                    processLogger.close();
+                } catch (IOException e) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                }
             }
         }));
         return instanceProcess;
@@ -771,15 +808,31 @@ public class MachineManager {
      *         if other error occur
      */
     public Reader getMachineLogReader(String machineId) throws NotFoundException, MachineException {
+        final File machineLogsFile = getMachineLogFile(machineId);
+        try {
+            return Files.newBufferedReader(machineLogsFile.toPath(), Charset.defaultCharset());
+        } catch (IOException e) {
+            throw new MachineException(String.format("Unable read log file for machine '%s'. %s", machineId, e.getMessage()));
+        }
+    }
+
+    /**
+     * Gets current log file of machine. When log file gets bigger than 10 MB, its content is moved to the compressed
+     * archive next to it and file is replaced by a new empty one. Readers that opened the file before keep reading the
+     * old file, readers should check identity of file to find out that it was replaced.
+     *
+     * @param machineId
+     *         machine id whose log file will be returned
+     * @return log file of machine
+     * @throws NotFoundException
+     *         if logs of machine with specified id are not available
+     */
+    public File getMachineLogFile(String machineId) throws NotFoundException {
         final File machineLogsFile = getMachineLogsFile(machineId);
-        if (machineLogsFile.isFile()) {
-            try {
-                return Files.newBufferedReader(machineLogsFile.toPath(), Charset.defaultCharset());
-            } catch (IOException e) {
-                throw new MachineException(String.format("Unable read log file for machine '%s'. %s", machineId, e.getMessage()));
-            }
+        if (!machineLogsFile.isFile()) {
+            throw new NotFoundException(String.format("Logs for machine '%s' are not available", machineId));
         }
-        throw new NotFoundException(String.format("Logs for machine '%s' are not available", machineId));
+        return machineLogsFile;
     }
 
     /**
@@ -807,16 +860,33 @@ public class MachineManager {
      *         if other error occur
      */
     public Reader getProcessLogReader(String machineId, int pid) throws NotFoundException, MachineException {
+        final File processLogsFile = getProcessLogFile(machineId, pid);
+        try {
+            return Files.newBufferedReader(processLogsFile.toPath(), Charset.defaultCharset());
+        } catch (IOException e) {
+            throw new MachineException(
+                    String.format("Unable read log file for process '%s' of machine '%s'. %s", pid, machineId, e.getMessage()));
+        }
+    }
+
+    /**
+     * Gets current log file of process. Log file is rotated in the same way as {@link #getMachineLogFile(String) log file of
+     * machine}.
+     *
+     * @param machineId
+     *         machine id whose process log file will be returned
+     * @param pid
+     *         process id
+     * @return log file of process
+     * @throws NotFoundException
+     *         if logs of process with specified id are not available
+     */
+    public File getProcessLogFile(String machineId, int pid) throws NotFoundException {
         final File processLogsFile = getProcessLogsFile(machineId, pid);
-        if (processLogsFile.isFile()) {
-            try {
-                return Files.newBufferedReader(processLogsFile.toPath(), Charset.defaultCharset());
-            } catch (IOException e) {
-                throw new MachineException(
-                        String.format("Unable read log file for process '%s' of machine '%s'. %s", pid, machineId, e.getMessage()));
-            }
+        if (!processLogsFile.isFile()) {
+            throw new NotFoundException(String.format("Logs for process '%s' of machine '%s' are not available", pid, machineId));
         }
-        throw new NotFoundException(String.format("Logs for process '%s' of machine '%s' are not available", pid, machineId));
+        return processLogsFile;
     }
 
     private SnapshotImpl doSaveMachine(SnapshotImpl snapshot, Instance machine) throws SnapshotException, MachineException {
@@ -900,7 +970,7 @@ public class MachineManager {
 
     private FileLineConsumer getMachineFileLogger(String machineId) throws MachineException {
         try {
-            return new FileLineConsumer(getMachineLogsFile(machineId));
+            return new FileLineConsumer(getMachineLogsFile(machineId), MAX_LOG_FILE_SIZE, MAX_LOG_ARCHIVES);
         } catch (IOException e) {
             throw new MachineException(String.format("Unable create log file for machine '%s'. %s", machineId, e.getMessage()));
         }
@@ -916,7 +986,7 @@ public class MachineManager {
 
     private FileLineConsumer getProcessFileLogger(String machineId, int pid) throws MachineException {
         try {
-            return new FileLineConsumer(getProcessLogsFile(machineId, pid));
+            return new FileLineConsumer(getProcessLogsFile(machineId, pid), MAX_LOG_FILE_SIZE, MAX_LOG_ARCHIVES);
         } catch (IOException e) {
             throw new MachineException(
                     String.format("Unable create log file for process '%s' of machine '%s'. %s", pid, machineId, e.getMessage()));
@@ -935,11 +1005,20 @@ public class MachineManager {
         return getLogger(getProcessFileLogger(machineId, pid), outputChannel);
     }
 
+    /**
+     * Output is written asynchronously: lines are buffered and written to the file and sent to the websocket channel in groups,
+     * so chatty process doesn't produce a file flush per line. Group of lines is sent in one websocket message only if
+     * {@code machine.logs.websocket_group_lines} is enabled.
+     */
     private LineConsumer getLogger(LineConsumer fileLogger, String outputChannel) throws MachineException {
+        final LineConsumer asyncFileLogger = new AsyncLineConsumer(fileLogger, logsExecutor, FILE_LOG_OFFER_TIMEOUT_MS);
         if (outputChannel != null) {
-            return new CompositeLineConsumer(fileLogger, new WebsocketLineConsumer(outputChannel));
+            return new CompositeLineConsumer(asyncFileLogger,
+                                             new AsyncLineConsumer(new WebsocketLineConsumer(outputChannel, groupOutputLines),
+                                                                   logsExecutor,
+                                                                   0));
         }
-        return fileLogger;
+        return asyncFileLogger;
     }
 
     public static ChannelsImpl createMachineChannels(String machineName, String workspaceId, String envName) {
@@ -1056,18 +1135,40 @@ public class MachineManager {
             executor.shutdownNow();
         }
 
+        // Machines are destroyed in parallel, so node shutdown doesn't take the sum of destroy times of all machines.
         try {
-            for (MachineStateImpl machine : machineRegistry.getStates()) {
+            final List<MachineStateImpl> machines = machineRegistry.getStates();
+            if (!machines.isEmpty()) {
+                final ExecutorService cleanupExecutor =
+                        Executors.newFixedThreadPool(Math.min(machines.size(), CLEANUP_THREADS),
+                                                     new ThreadFactoryBuilder().setNameFormat("MachineManagerCleanup-%d")
+                                                                               .setDaemon(true)
+                                                                               .build());
+                for (MachineStateImpl machine : machines) {
+                    cleanupExecutor.execute(() -> {
+                        try {
+                            destroy(machine.getId(), false);
+                        } catch (Exception e) {
+                            LOG.warn(e.getMessage());
+                        }
+                    });
+                }
+                cleanupExecutor.shutdown();
                 try {
-                    destroy(machine.getId(), false);
-                } catch (Exception e) {
-                    LOG.warn(e.getMessage());
+                    if (!cleanupExecutor.awaitTermination(CLEANUP_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                        LOG.warn("Unable destroy all machines in {} minutes", CLEANUP_TIMEOUT_MINUTES);
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
                 }
             }
         } catch (MachineException e) {
             LOG.error(e.getLocalizedMessage(), e);
         }
 
+        // Loggers of destroyed machines are closed and flushed already.
+        logsExecutor.shutdown();
+
         final java.io.File[] files = machineLogsDir.listFiles();
         if (files != null && files.length > 0) {
             for (java.io.File f : files) {
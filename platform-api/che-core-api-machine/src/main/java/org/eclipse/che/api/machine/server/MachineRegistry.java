@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.che.api.machine.server;
 
+import com.google.common.collect.ImmutableList;
+
 import org.eclipse.che.api.core.ConflictException;
 import org.eclipse.che.api.core.NotFoundException;
 import org.eclipse.che.api.machine.server.exception.MachineException;
@@ -18,68 +20,126 @@ import org.eclipse.che.api.machine.server.spi.Instance;
 
 import javax.inject.Singleton;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Holds active machines
  *
+ * <p>Machines which are being started are kept as {@link MachineStateImpl}, launched machines are kept as {@link Instance}.
+ * Besides of lookup by machine id registry keeps indexes of machines by workspace, by owner and dev-machines by workspace.
+ * All lookups are lock-free. Modifications are serialized by the monitor of the registry, after each modification
+ * registry publishes immutable snapshot of all machines, so methods which return all machines never see a machine twice
+ * or miss it while it is moving from starting to launched state.
+ *
  * @author Alexander Garagatyi
  */
 @Singleton
 public class MachineRegistry {
-    private final HashMap<String, Instance>         instances;
-    private final HashMap<String, MachineStateImpl> states;
+    private final ConcurrentMap<String, Instance>         instances;
+    private final ConcurrentMap<String, MachineStateImpl> states;
+    /** Workspace id -> ids of starting and launched machines of workspace. */
+    private final ConcurrentMap<String, Set<String>>      workspaceMachines;
+    /** Owner id -> ids of starting and launched machines of owner. */
+    private final ConcurrentMap<String, Set<String>>      ownerMachines;
+    /** Workspace id -> launched dev-machine of workspace. */
+    private final ConcurrentMap<String, Instance>         devMachines;
+
+    private volatile Snapshot snapshot;
 
     public MachineRegistry() {
-        instances = new HashMap<>();
-        states = new HashMap<>();
+        instances = new ConcurrentHashMap<>();
+        states = new ConcurrentHashMap<>();
+        workspaceMachines = new ConcurrentHashMap<>();
+        ownerMachines = new ConcurrentHashMap<>();
+        devMachines = new ConcurrentHashMap<>();
+        snapshot = new Snapshot(ImmutableList.of(), ImmutableList.of());
     }
 
-    //TODO return unmodifiable lists
-
     /**
      * Get all active machines
      */
-    public synchronized List<MachineStateImpl> getStates() throws MachineException {
-        final List<MachineStateImpl> list = new ArrayList<>(states.size() + instances.size());
-        list.addAll(states.values());
-        for (Instance instance : instances.values()) {
-            list.add(getState(instance));
-        }
-        return list;
+    public List<MachineStateImpl> getStates() throws MachineException {
+        return toStates(snapshot);
     }
 
-    public synchronized MachineStateImpl getState(String machineId) throws NotFoundException, MachineException {
-        MachineStateImpl state = states.get(machineId);
-        if (state == null) {
-            if (instances.get(machineId) == null) {
-                throw new NotFoundException("Machine " + machineId + " is not found");
-            }
-            state = getState(instances.get(machineId));
+    public MachineStateImpl getState(String machineId) throws NotFoundException, MachineException {
+        // Machine is added to instances before it is removed from states, so check states first
+        final MachineStateImpl state = states.get(machineId);
+        if (state != null) {
+            return state;
         }
-
-        return state;
+        final Instance instance = instances.get(machineId);
+        if (instance == null) {
+            throw new NotFoundException("Machine " + machineId + " is not found");
+        }
+        return getState(instance);
     }
 
     /**
      * Get all machines that already were launched
+     *
+     * @return unmodifiable list of machines
      */
-    public synchronized List<Instance> getMachines() throws MachineException {
-        return new ArrayList<>(instances.values());
+    public List<Instance> getMachines() throws MachineException {
+        return snapshot.instances;
     }
 
     /**
      * Get all launched machines of specific workspace
      */
-    public synchronized Instance getDevMachine(String workspaceId) throws NotFoundException, MachineException {
-        for (Instance instance : instances.values()) {
-            if (instance.getWorkspaceId().equals(workspaceId) && instance.isDev()) {
-                return instance;
+    public List<Instance> getMachines(String workspaceId) throws MachineException {
+        final List<Instance> result = new ArrayList<>();
+        for (String machineId : getIds(workspaceMachines, workspaceId)) {
+            final Instance instance = instances.get(machineId);
+            if (instance != null) {
+                result.add(instance);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get all launched machines of specific owner
+     */
+    public List<Instance> getMachinesByOwner(String owner) throws MachineException {
+        final List<Instance> result = new ArrayList<>();
+        for (String machineId : getIds(ownerMachines, owner)) {
+            final Instance instance = instances.get(machineId);
+            if (instance != null) {
+                result.add(instance);
             }
         }
+        return result;
+    }
 
-        throw new NotFoundException("Dev machine of workspace " + workspaceId + " is not running.");
+    /**
+     * Get all active machines of specific workspace
+     */
+    public List<MachineStateImpl> getStates(String workspaceId) throws MachineException {
+        final List<MachineStateImpl> result = new ArrayList<>();
+        for (String machineId : getIds(workspaceMachines, workspaceId)) {
+            try {
+                result.add(getState(machineId));
+            } catch (NotFoundException ignored) {
+                // machine was removed after we got its id
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get launched dev-machine of specific workspace
+     */
+    public Instance getDevMachine(String workspaceId) throws NotFoundException, MachineException {
+        final Instance instance = devMachines.get(workspaceId);
+        if (instance == null) {
+            throw new NotFoundException("Dev machine of workspace " + workspaceId + " is not running.");
+        }
+        return instance;
     }
 
     /**
@@ -91,7 +151,7 @@ public class MachineRegistry {
      * @throws NotFoundException
      *         if machine with specified id not found
      */
-    public synchronized Instance get(String machineId) throws NotFoundException, MachineException {
+    public Instance get(String machineId) throws NotFoundException, MachineException {
         final Instance instance = instances.get(machineId);
         if (instance == null) {
             throw new NotFoundException("Machine " + machineId + " is not found");
@@ -101,10 +161,11 @@ public class MachineRegistry {
     }
 
     public synchronized void add(Instance instance) throws MachineException, ConflictException {
-        final Instance nullOrArgument = instances.put(instance.getId(), instance);
-        if (nullOrArgument != null) {
+        if (instances.containsKey(instance.getId())) {
             throw new ConflictException("Machine with id " + instance.getId() + " is already exist");
         }
+        putInstance(instance);
+        publishSnapshot();
     }
 
     public synchronized void add(MachineStateImpl machineState) throws MachineException, ConflictException {
@@ -112,6 +173,8 @@ public class MachineRegistry {
             throw new ConflictException("Machine with id " + machineState.getId() + " is already exist");
         }
         states.put(machineState.getId(), machineState);
+        addToIndexes(machineState.getId(), machineState.getWorkspaceId(), machineState.getOwner());
+        publishSnapshot();
     }
 
     public synchronized void update(MachineStateImpl state) throws ConflictException, MachineException {
@@ -119,6 +182,7 @@ public class MachineRegistry {
             throw new ConflictException("Machine state " + state.getId() + " not found");
         } else {
             states.put(state.getId(), state);
+            publishSnapshot();
         }
     }
 
@@ -126,8 +190,9 @@ public class MachineRegistry {
         if (!instances.containsKey(instance.getId()) && !states.containsKey(instance.getId())) {
             throw new ConflictException("Machine " + instance.getId() + " not found");
         } else {
-            instances.put(instance.getId(), instance);
+            putInstance(instance);
             states.remove(instance.getId());
+            publishSnapshot();
         }
     }
 
@@ -145,6 +210,70 @@ public class MachineRegistry {
         if (null == instance && null == state) {
             throw new NotFoundException("Machine " + machineId + " is not found");
         }
+        if (instance != null) {
+            devMachines.remove(instance.getWorkspaceId(), instance);
+            removeFromIndexes(machineId, instance.getWorkspaceId(), instance.getOwner());
+        }
+        if (state != null) {
+            removeFromIndexes(machineId, state.getWorkspaceId(), state.getOwner());
+        }
+        publishSnapshot();
+    }
+
+    // Must be called when monitor of this registry is held.
+    private void putInstance(Instance instance) {
+        // Must be done before removing of machine state, see getState(String)
+        instances.put(instance.getId(), instance);
+        addToIndexes(instance.getId(), instance.getWorkspaceId(), instance.getOwner());
+        if (instance.isDev()) {
+            devMachines.put(instance.getWorkspaceId(), instance);
+        }
+    }
+
+    // Must be called when monitor of this registry is held.
+    private void addToIndexes(String machineId, String workspaceId, String owner) {
+        if (workspaceId != null) {
+            workspaceMachines.computeIfAbsent(workspaceId, key -> ConcurrentHashMap.newKeySet()).add(machineId);
+        }
+        if (owner != null) {
+            ownerMachines.computeIfAbsent(owner, key -> ConcurrentHashMap.newKeySet()).add(machineId);
+        }
+    }
+
+    // Must be called when monitor of this registry is held.
+    private void removeFromIndexes(String machineId, String workspaceId, String owner) {
+        if (workspaceId != null) {
+            removeFromIndex(workspaceMachines, workspaceId, machineId);
+        }
+        if (owner != null) {
+            removeFromIndex(ownerMachines, owner, machineId);
+        }
+    }
+
+    private static void removeFromIndex(ConcurrentMap<String, Set<String>> index, String key, String machineId) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(machineId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Set<String> getIds(ConcurrentMap<String, Set<String>> index, String key) {
+        final Set<String> ids = key == null ? null : index.get(key);
+        return ids == null ? Collections.emptySet() : ids;
+    }
+
+    // Must be called when monitor of this registry is held.
+    private void publishSnapshot() {
+        snapshot = new Snapshot(ImmutableList.copyOf(instances.values()), ImmutableList.copyOf(states.values()));
+    }
+
+    private List<MachineStateImpl> toStates(Snapshot machines) {
+        final List<MachineStateImpl> list = new ArrayList<>(machines.states.size() + machines.instances.size());
+        list.addAll(machines.states);
+        for (Instance instance : machines.instances) {
+            list.add(getState(instance));
+        }
+        return list;
     }
 
     private MachineStateImpl getState(Instance instance) {
@@ -160,4 +289,15 @@ public class MachineRegistry {
                                     instance.getEnvName(),
                                     instance.getStatus());
     }
-}
\ No newline at end of file
+
+    /** Immutable view of all machines of registry. */
+    private static final class Snapshot {
+        final List<Instance>         instances;
+        final List<MachineStateImpl> states;
+
+        Snapshot(List<Instance> instances, List<MachineStateImpl> states) {
+            this.instances = instances;
+            this.states = states;
+        }
+    }
+}
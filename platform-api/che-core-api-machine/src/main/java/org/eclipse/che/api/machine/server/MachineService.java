@@ -17,7 +17,6 @@ import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 
 import com.google.common.collect.Lists;
-import com.google.common.io.CharStreams;
 
 import org.eclipse.che.api.core.BadRequestException;
 import org.eclipse.che.api.core.ForbiddenException;
@@ -26,6 +25,7 @@ import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.core.rest.Service;
 import org.eclipse.che.api.core.rest.shared.dto.Link;
 import org.eclipse.che.api.core.rest.shared.dto.LinkParameter;
+import org.eclipse.che.api.core.util.LogFileReader;
 import org.eclipse.che.api.machine.server.exception.MachineException;
 import org.eclipse.che.api.machine.server.impl.SnapshotImpl;
 import org.eclipse.che.api.machine.server.model.impl.MachineStateImpl;
@@ -54,8 +54,8 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.UriBuilder;
+import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -75,6 +75,16 @@ import static org.eclipse.che.dto.server.DtoFactory.newDto;
 @Api(value = "/machine", description = "Machine REST API")
 @Path("/machine")
 public class MachineService extends Service {
+    /** Response header that contains offset in the log file which should be used to get lines which follow returned ones. */
+    public static final String LOGS_OFFSET_HEADER     = "X-Logs-Offset";
+    /**
+     * Response header that contains identifier of the log file, it changes when log is rotated. Client should send it back with
+     * the offset, so offset isn't applied to another file.
+     */
+    public static final String LOGS_FILE_ID_HEADER    = "X-Logs-File-Id";
+    /** Max time that request for logs in follow mode waits for new lines. */
+    static final        long   LOGS_FOLLOW_TIMEOUT_MS = 30000;
+
     private MachineManager machineManager;
 
     @Inject
@@ -360,16 +370,34 @@ public class MachineService extends Service {
     public void getMachineLogs(@ApiParam(value = "Machine ID")
                                @PathParam("machineId")
                                String machineId,
+                               @ApiParam(value = "Byte offset in the log file to start reading from, " +
+                                                 "offset returned in the " + LOGS_OFFSET_HEADER + " header of the previous response")
+                               @QueryParam("offset")
+                               @DefaultValue("0")
+                               long offset,
+                               @ApiParam(value = "Identifier of the log file to which offset belongs, " +
+                                                 "identifier returned in the " + LOGS_FILE_ID_HEADER + " header of the previous response")
+                               @QueryParam("fileId")
+                               String fileId,
+                               @ApiParam(value = "Number of the last lines of the log to return, all lines if not specified")
+                               @QueryParam("tail")
+                               @DefaultValue("0")
+                               int tail,
+                               @ApiParam(value = "Wait for new lines if there are no lines after the offset")
+                               @QueryParam("follow")
+                               @DefaultValue("false")
+                               boolean follow,
                                @Context
                                HttpServletResponse httpServletResponse)
             throws NotFoundException,
                    ForbiddenException,
                    ServerException,
+                   BadRequestException,
                    IOException {
 
         checkCurrentUserPermissions(machineManager.getMachine(machineId));
 
-        addLogsToResponse(machineManager.getMachineLogReader(machineId), httpServletResponse);
+        addLogsToResponse(machineManager.getMachineLogFile(machineId), offset, fileId, tail, follow, httpServletResponse);
     }
 
     @GET
@@ -386,16 +414,34 @@ public class MachineService extends Service {
                                @ApiParam(value = "Process ID")
                                @PathParam("pid")
                                int pid,
+                               @ApiParam(value = "Byte offset in the log file to start reading from, " +
+                                                 "offset returned in the " + LOGS_OFFSET_HEADER + " header of the previous response")
+                               @QueryParam("offset")
+                               @DefaultValue("0")
+                               long offset,
+                               @ApiParam(value = "Identifier of the log file to which offset belongs, " +
+                                                 "identifier returned in the " + LOGS_FILE_ID_HEADER + " header of the previous response")
+                               @QueryParam("fileId")
+                               String fileId,
+                               @ApiParam(value = "Number of the last lines of the log to return, all lines if not specified")
+                               @QueryParam("tail")
+                               @DefaultValue("0")
+                               int tail,
+                               @ApiParam(value = "Wait for new lines if there are no lines after the offset")
+                               @QueryParam("follow")
+                               @DefaultValue("false")
+                               boolean follow,
                                @Context
                                HttpServletResponse httpServletResponse)
             throws NotFoundException,
                    ForbiddenException,
                    ServerException,
+                   BadRequestException,
                    IOException {
 
         checkCurrentUserPermissions(machineManager.getMachine(machineId));
 
-        addLogsToResponse(machineManager.getProcessLogReader(machineId, pid), httpServletResponse);
+        addLogsToResponse(machineManager.getProcessLogFile(machineId, pid), offset, fileId, tail, follow, httpServletResponse);
     }
 
     /**
@@ -656,11 +702,49 @@ public class MachineService extends Service {
                                                            Constants.LINK_REL_REMOVE_SNAPSHOT)));
     }
 
-    private void addLogsToResponse(Reader logsReader, HttpServletResponse httpServletResponse) throws IOException {
+    /**
+     * Writes part of log file to the response. Only bytes between the offset (or the beginning of the last {@code tail} lines,
+     * whichever is bigger) and the current end of file are sent, and the end of file is returned in the {@link
+     * #LOGS_OFFSET_HEADER} header and identifier of file in the {@link #LOGS_FILE_ID_HEADER} header, so client may get new
+     * lines with the next request. If identifier of file is different from {@code fileId} or log file is smaller than offset,
+     * log was rotated, and it is read from the beginning. In follow mode request waits up to {@link #LOGS_FOLLOW_TIMEOUT_MS}
+     * for new lines if there are no lines after the offset, the request thread is held while it waits.
+     */
+    private void addLogsToResponse(File logsFile,
+                                   long offset,
+                                   String fileId,
+                                   int tail,
+                                   boolean follow,
+                                   HttpServletResponse httpServletResponse) throws BadRequestException, IOException {
+        if (offset < 0) {
+            throw new BadRequestException("Offset of logs must not be negative");
+        }
+        if (tail < 0) {
+            throw new BadRequestException("Number of lines of logs must not be negative");
+        }
+        String currentFileId = LogFileReader.getFileId(logsFile);
+        long from = fileId == null || fileId.equals(currentFileId) ? offset : 0;
+        long length = logsFile.length();
+        if (follow && from == length) {
+            length = LogFileReader.waitForChange(logsFile, length, LOGS_FOLLOW_TIMEOUT_MS);
+            final String changedFileId = LogFileReader.getFileId(logsFile);
+            if (!changedFileId.equals(currentFileId)) {
+                // Rotated while waiting
+                currentFileId = changedFileId;
+                from = 0;
+                length = logsFile.length();
+            }
+        }
+        long start = from > length ? 0 : from;
+        if (tail > 0) {
+            start = Math.max(start, Math.min(LogFileReader.findTailOffset(logsFile, tail), length));
+        }
         // Response is written directly to the servlet request stream
         httpServletResponse.setContentType("text/plain");
-        CharStreams.copy(logsReader, httpServletResponse.getWriter());
-        httpServletResponse.getWriter().flush();
+        httpServletResponse.setHeader(LOGS_OFFSET_HEADER, Long.toString(length));
+        httpServletResponse.setHeader(LOGS_FILE_ID_HEADER, currentFileId);
+        LogFileReader.copy(logsFile, start, length, httpServletResponse.getOutputStream());
+        httpServletResponse.getOutputStream().flush();
     }
 
     private void checkCurrentUserPermissions(SnapshotImpl snapshot) throws ForbiddenException, ServerException {
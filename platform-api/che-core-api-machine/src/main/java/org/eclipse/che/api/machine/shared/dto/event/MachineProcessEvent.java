@@ -12,6 +12,7 @@ package org.eclipse.che.api.machine.shared.dto.event;
 
 import org.eclipse.che.api.core.notification.EventOrigin;
 import org.eclipse.che.dto.shared.DTO;
+import org.eclipse.che.dto.shared.SerializationIndex;
 
 /**
  * Describes event about state of process in machine machine
@@ -27,24 +28,28 @@ public interface MachineProcessEvent {
         ERROR
     }
 
+    @SerializationIndex(1)
     EventType getEventType();
 
     void setEventType(EventType eventType);
 
     MachineProcessEvent withEventType(EventType eventType);
 
+    @SerializationIndex(2)
     String getMachineId();
 
     void setMachineId(String machineId);
 
     MachineProcessEvent withMachineId(String machineId);
 
+    @SerializationIndex(3)
     int getProcessId();
 
     void setProcessId(int processId);
 
     MachineProcessEvent withProcessId(int processId);
 
+    @SerializationIndex(4)
     String getError();
 
     void setError(String error);
@@ -12,6 +12,7 @@ package org.eclipse.che.api.machine.shared.dto.event;
 
 import org.eclipse.che.api.core.notification.EventOrigin;
 import org.eclipse.che.dto.shared.DTO;
+import org.eclipse.che.dto.shared.SerializationIndex;
 
 /**
  * Describes event about status of machine
@@ -30,34 +31,40 @@ public interface MachineStatusEvent {
         ERROR
     }
 
+    @SerializationIndex(1)
     boolean isDev();
 
     MachineStatusEvent withDev(boolean isDev);
 
     void setDev(boolean isDev);
 
+    @SerializationIndex(2)
     EventType getEventType();
 
     void setEventType(EventType eventType);
 
     MachineStatusEvent withEventType(EventType eventType);
 
+    @SerializationIndex(3)
     String getMachineId();
 
     void setMachineId(String machineId);
 
     MachineStatusEvent withMachineId(String machineId);
 
+    @SerializationIndex(4)
     String getError();
 
     void setError(String error);
 
     MachineStatusEvent withError(String error);
 
+    @SerializationIndex(5)
     String getWorkspaceId();
 
     MachineStatusEvent withWorkspaceId(String workspaceId);
 
+    @SerializationIndex(6)
     String getMachineName();
 
     MachineStatusEvent withMachineName(String machineName);
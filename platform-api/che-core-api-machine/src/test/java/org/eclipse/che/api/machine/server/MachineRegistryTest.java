@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.machine.server;
+
+import org.eclipse.che.api.core.NotFoundException;
+import org.eclipse.che.api.core.model.machine.MachineStatus;
+import org.eclipse.che.api.machine.server.model.impl.LimitsImpl;
+import org.eclipse.che.api.machine.server.model.impl.MachineStateImpl;
+import org.eclipse.che.api.machine.server.spi.Instance;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests of {@link MachineRegistry}.
+ */
+public class MachineRegistryTest {
+    private static final String WS_ID = "workspace123";
+    private static final String OWNER = "user123";
+
+    private MachineRegistry registry;
+
+    @BeforeMethod
+    public void setUp() {
+        registry = new MachineRegistry();
+    }
+
+    @Test
+    public void shouldFindDevMachineOfWorkspace() throws Exception {
+        final Instance dev = instance("machine1", WS_ID, OWNER, true);
+        registry.add(instance("machine2", WS_ID, OWNER, false));
+        registry.add(dev);
+        registry.add(instance("machine3", "otherWorkspace", OWNER, true));
+
+        assertSame(registry.getDevMachine(WS_ID), dev);
+    }
+
+    @Test(expectedExceptions = NotFoundException.class)
+    public void shouldNotFindDevMachineAfterItIsRemoved() throws Exception {
+        registry.add(instance("machine1", WS_ID, OWNER, true));
+
+        registry.remove("machine1");
+
+        registry.getDevMachine(WS_ID);
+    }
+
+    @Test
+    public void shouldMoveMachineFromStatesToInstancesOnUpdate() throws Exception {
+        registry.add(state("machine1", WS_ID, OWNER));
+        assertEquals(registry.getStates(WS_ID).size(), 1);
+        assertTrue(registry.getMachines(WS_ID).isEmpty());
+
+        final Instance instance = instance("machine1", WS_ID, OWNER, true);
+        registry.update(instance);
+
+        assertEquals(registry.getStates().size(), 1);
+        assertEquals(registry.getStates(WS_ID).size(), 1);
+        assertEquals(registry.getMachines(WS_ID), singletonList(instance));
+        assertSame(registry.getDevMachine(WS_ID), instance);
+    }
+
+    @Test
+    public void shouldIndexMachinesByWorkspaceAndOwner() throws Exception {
+        final Instance machine1 = instance("machine1", WS_ID, OWNER, true);
+        final Instance machine2 = instance("machine2", "otherWorkspace", OWNER, true);
+        final Instance machine3 = instance("machine3", "otherWorkspace", "otherUser", false);
+        registry.add(machine1);
+        registry.add(machine2);
+        registry.add(machine3);
+
+        assertEquals(registry.getMachines(WS_ID), singletonList(machine1));
+        assertEquals(registry.getMachines("otherWorkspace").size(), 2);
+        assertEquals(registry.getMachinesByOwner(OWNER).size(), 2);
+
+        registry.remove("machine2");
+
+        assertEquals(registry.getMachines("otherWorkspace"), singletonList(machine3));
+        assertEquals(registry.getMachinesByOwner(OWNER), singletonList(machine1));
+        assertTrue(registry.getMachines("unknown").isEmpty());
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void shouldReturnUnmodifiableListOfMachines() throws Exception {
+        registry.add(instance("machine1", WS_ID, OWNER, true));
+
+        final List<Instance> machines = registry.getMachines();
+        assertEquals(machines.size(), 1);
+
+        machines.clear();
+    }
+
+    private static Instance instance(String id, String workspaceId, String owner, boolean isDev) {
+        final Instance instance = mock(Instance.class);
+        when(instance.getId()).thenReturn(id);
+        when(instance.getWorkspaceId()).thenReturn(workspaceId);
+        when(instance.getOwner()).thenReturn(owner);
+        when(instance.isDev()).thenReturn(isDev);
+        return instance;
+    }
+
+    private static MachineStateImpl state(String id, String workspaceId, String owner) {
+        return new MachineStateImpl(true,
+                                    "docker",
+                                    "dev-machine",
+                                    null,
+                                    new LimitsImpl(1024),
+                                    id,
+                                    null,
+                                    workspaceId,
+                                    owner,
+                                    "env",
+                                    MachineStatus.CREATING);
+    }
+}
@@ -14,6 +14,8 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.inject.Provider;
 
 import org.eclipse.che.api.core.ApiException;
@@ -41,8 +43,11 @@ import org.eclipse.che.api.project.server.type.BaseProjectType;
 import org.eclipse.che.api.project.server.type.ProjectTypeDef;
 import org.eclipse.che.api.project.server.type.ProjectTypeRegistry;
 import org.eclipse.che.api.project.server.type.Variable;
+import org.eclipse.che.api.project.server.watcher.FileChangesEvent;
 import org.eclipse.che.api.project.shared.dto.SourceEstimation;
 import org.eclipse.che.api.vfs.server.VirtualFileSystemRegistry;
+import org.eclipse.che.api.vfs.server.observation.MoveEvent;
+import org.eclipse.che.api.vfs.server.observation.RenameEvent;
 import org.eclipse.che.api.vfs.server.observation.VirtualFileEvent;
 import org.eclipse.che.api.workspace.server.WorkspaceService;
 import org.eclipse.che.api.workspace.shared.dto.ProjectConfigDto;
@@ -52,6 +57,7 @@ import org.eclipse.che.api.workspace.shared.dto.WorkspaceConfigDto;
 import org.eclipse.che.commons.annotation.Nullable;
 import org.eclipse.che.commons.env.EnvironmentContext;
 import org.eclipse.che.commons.lang.Pair;
+import org.eclipse.che.commons.lang.concurrent.ThreadLocalPropagateContext;
 import org.eclipse.che.dto.server.DtoFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -73,6 +79,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -93,12 +106,40 @@ public final class DefaultProjectManager implements ProjectManager {
     private static final int CACHE_MASK = CACHE_NUM - 1;
     private static final int SEG_SIZE   = 32;
 
+    /**
+     * Max time (in seconds) that project configurations fetched from Workspace API are reused. Configurations which are updated
+     * through this manager are dropped from cache immediately, this timeout limits the time of seeing stale configurations
+     * which were updated by somebody else.
+     */
+    private static final long WORKSPACE_PROJECTS_CACHE_EXPIRE_SECONDS = 10;
+
+    /** Max number of folders which estimations of project types are cached. */
+    private static final int SOURCE_ESTIMATIONS_CACHE_SIZE = 256;
+
+    /**
+     * Max time (in seconds) that estimations of project types are reused. Changes on file system are reported with
+     * {@link FileChangesEvent} only while workspace is watched, this timeout limits the time of seeing stale estimations of
+     * folders which are changed without notification.
+     */
+    private static final long SOURCE_ESTIMATIONS_CACHE_EXPIRE_SECONDS = 60;
+
+    /** Attributes of project type which doesn't match folder. */
+    private static final Map<String, List<String>> NOT_MATCHED = Collections.emptyMap();
+
     private final Lock[]                                     miscLocks;
     private final Cache<Pair<String, String>, ProjectMisc>[] miscCaches;
+    private final Cache<String, WorkspaceProjects>           workspaceProjectsCache;
+    /**
+     * Estimated attributes of project types by path of folder. Entries are dropped when anything under the folder is changed
+     * through virtual file system or on file system, see {@link #invalidateSourceEstimations(String, String)}.
+     */
+    private final Cache<Pair<String, String>, ConcurrentMap<String, Map<String, List<String>>>> sourceEstimationsCache;
+    private final ExecutorService                                                            estimationExecutor;
 
     private final VirtualFileSystemRegistry         fileSystemRegistry;
     private final EventService                      eventService;
     private final EventSubscriber<VirtualFileEvent> vfsSubscriber;
+    private final EventSubscriber<FileChangesEvent> fileChangesSubscriber;
     private final ProjectTypeRegistry               projectTypeRegistry;
     private final ProjectHandlerRegistry            handlers;
     private final String                            apiEndpoint;
@@ -147,6 +188,21 @@ public final class DefaultProjectManager implements ProjectManager {
                                         }).build();
         }
 
+        workspaceProjectsCache = CacheBuilder.newBuilder()
+                                             .concurrencyLevel(SEG_SIZE)
+                                             .expireAfterWrite(WORKSPACE_PROJECTS_CACHE_EXPIRE_SECONDS, TimeUnit.SECONDS)
+                                             .build();
+
+        sourceEstimationsCache = CacheBuilder.newBuilder()
+                                             .concurrencyLevel(SEG_SIZE)
+                                             .maximumSize(SOURCE_ESTIMATIONS_CACHE_SIZE)
+                                             .expireAfterWrite(SOURCE_ESTIMATIONS_CACHE_EXPIRE_SECONDS, TimeUnit.SECONDS)
+                                             .build();
+        estimationExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                                                          new ThreadFactoryBuilder().setNameFormat("ProjectTypeEstimation-%d")
+                                                                                    .setDaemon(true)
+                                                                                    .build());
+
         vfsSubscriber = new EventSubscriber<VirtualFileEvent>() {
             @Override
             public void onEvent(VirtualFileEvent event) {
@@ -155,6 +211,21 @@ public final class DefaultProjectManager implements ProjectManager {
                 if (path.endsWith(Constants.CODENVY_MISC_FILE_RELATIVE_PATH)) {
                     return;
                 }
+                switch (event.getType()) {
+                    case MOVED:
+                        invalidateSourceEstimations(workspace, ((MoveEvent)event).getOldPath());
+                        invalidateSourceEstimations(workspace, path);
+                        break;
+                    case RENAMED:
+                        invalidateSourceEstimations(workspace, ((RenameEvent)event).getOldPath());
+                        invalidateSourceEstimations(workspace, path);
+                        break;
+                    case CONTENT_UPDATED:
+                    case CREATED:
+                    case DELETED:
+                        invalidateSourceEstimations(workspace, path);
+                        break;
+                }
                 switch (event.getType()) {
                     case CONTENT_UPDATED:
                     case CREATED:
@@ -178,6 +249,20 @@ public final class DefaultProjectManager implements ProjectManager {
                 }
             }
         };
+
+        fileChangesSubscriber = new EventSubscriber<FileChangesEvent>() {
+            @Override
+            public void onEvent(FileChangesEvent event) {
+                final String workspace = event.getWorkspaceId();
+                for (FileChangesEvent.Change change : event.getChanges()) {
+                    // Path is relative to the root of workspace and uses separator of file system.
+                    final String path = '/' + change.getPath().replace(File.separatorChar, '/');
+                    if (!path.endsWith(Constants.CODENVY_MISC_FILE_RELATIVE_PATH)) {
+                        invalidateSourceEstimations(workspace, path);
+                    }
+                }
+            }
+        };
     }
 
     private static String projectPath(String path) {
@@ -191,11 +276,14 @@ public final class DefaultProjectManager implements ProjectManager {
     @PostConstruct
     void start() {
         eventService.subscribe(vfsSubscriber);
+        eventService.subscribe(fileChangesSubscriber);
     }
 
     @PreDestroy
     void stop() {
         eventService.unsubscribe(vfsSubscriber);
+        eventService.unsubscribe(fileChangesSubscriber);
+        estimationExecutor.shutdownNow();
         for (int i = 0, length = miscLocks.length; i < length; i++) {
             miscLocks[i].lock();
             try {
@@ -561,22 +649,44 @@ public final class DefaultProjectManager implements ProjectManager {
         }
     }
 
-    @Override
-    public ProjectConfigDto getProjectFromWorkspace(@NotNull String wsId, @NotNull String projectPath) throws ServerException {
-        final UsersWorkspaceDto usersWorkspaceDto = getWorkspace(wsId);
-        final String path = projectPath.startsWith("/") ? projectPath : "/" + projectPath;
-        for (ProjectConfigDto projectConfig : usersWorkspaceDto.getProjects()) {
-            if (path.equals(projectConfig.getPath())) {
-                return projectConfig;
+    /**
+     * Gets project configurations of workspace. Workspace is fetched from Workspace API once and its configurations are reused
+     * until they are updated through this manager or cache entry expires. Concurrent calls for the same workspace wait for
+     * the single fetch.
+     */
+    private WorkspaceProjects getWorkspaceProjects(String wsId) throws ServerException {
+        try {
+            return workspaceProjectsCache.get(wsId, () -> new WorkspaceProjects(getWorkspace(wsId).getProjects()));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ServerException) {
+                throw (ServerException)cause;
             }
+            throw new ServerException(cause.getMessage(), cause);
         }
-        return null;
     }
 
+    /** Returns copy of cached configuration, so caller may modify it. */
+    @Override
+    public ProjectConfigDto getProjectFromWorkspace(@NotNull String wsId, @NotNull String projectPath) throws ServerException {
+        final ProjectConfigDto projectConfig = findCachedProject(wsId, projectPath);
+        return projectConfig == null ? null : DtoFactory.getInstance().clone(projectConfig);
+    }
+
+    /** Returns copies of cached configurations, so caller may modify them. */
     public List<ProjectConfigDto> getAllProjectsFromWorkspace(@NotNull String workspaceId) throws ServerException {
-        UsersWorkspaceDto usersWorkspaceDto = getWorkspace(workspaceId);
+        final List<ProjectConfigDto> projects = getWorkspaceProjects(workspaceId).projects;
+        final List<ProjectConfigDto> copies = new ArrayList<>(projects.size());
+        for (ProjectConfigDto projectConfig : projects) {
+            copies.add(DtoFactory.getInstance().clone(projectConfig));
+        }
+        return copies;
+    }
 
-        return usersWorkspaceDto.getProjects();
+    /** Returns cached configuration which is shared between callers, it must not be modified. */
+    private ProjectConfigDto findCachedProject(String wsId, String projectPath) throws ServerException {
+        final String path = projectPath.startsWith("/") ? projectPath : "/" + projectPath;
+        return getWorkspaceProjects(wsId).byPath.get(path);
     }
 
     private void updateWorkspace(String wsId, WorkspaceConfigDto workspaceConfig) throws ServerException {
@@ -591,6 +701,8 @@ public final class DefaultProjectManager implements ProjectManager {
                                   .request();
         } catch (IOException | ApiException e) {
             throw new ServerException(e.getMessage());
+        } finally {
+            workspaceProjectsCache.invalidate(wsId);
         }
     }
 
@@ -618,6 +730,9 @@ public final class DefaultProjectManager implements ProjectManager {
             }
         } catch (IOException | ApiException e) {
             throw new ServerException(e.getMessage());
+        } finally {
+            // Workspace might be updated even if request failed, drop cached configurations anyway.
+            workspaceProjectsCache.invalidate(wsId);
         }
     }
 
@@ -756,6 +871,10 @@ public final class DefaultProjectManager implements ProjectManager {
             throw new NotFoundException("Not a folder: " + path);
         }
 
+        return estimateProject(projectType, (FolderEntry)baseFolder);
+    }
+
+    private Map<String, AttributeValue> estimateProject(ProjectType projectType, FolderEntry baseFolder) throws ValueStorageException {
         Map<String, AttributeValue> attributes = new HashMap<>();
 
         for (Attribute attr : projectType.getAttributes()) {
@@ -763,7 +882,7 @@ public final class DefaultProjectManager implements ProjectManager {
 
                 Variable var = (Variable)attr;
                 // getValue throws ValueStorageException if not valid
-                attributes.put(attr.getName(), var.getValue((FolderEntry)baseFolder));
+                attributes.put(attr.getName(), var.getValue(baseFolder));
             }
         }
 
@@ -773,29 +892,84 @@ public final class DefaultProjectManager implements ProjectManager {
     // ProjectSuggestion
     public List<SourceEstimation> resolveSources(String workspace, String path, boolean transientOnly)
             throws ServerException, ForbiddenException, NotFoundException, ProjectTypeConstraintException {
-        final List<SourceEstimation> estimations = new ArrayList<>();
-        boolean isPresentPrimaryType = false;
+        String folderPath = path.startsWith("/") ? path.substring(1) : path;
+        if (folderPath.endsWith("/")) {
+            folderPath = folderPath.substring(0, folderPath.length() - 1);
+        }
+        final Pair<String, String> cacheKey = Pair.of(workspace, '/' + folderPath);
+        final ConcurrentMap<String, Map<String, List<String>>> cached;
+        try {
+            cached = sourceEstimationsCache.get(cacheKey, ConcurrentHashMap::new);
+        } catch (ExecutionException e) {
+            throw new ServerException(e.getCause());
+        }
+
+        final List<ProjectType> types = new ArrayList<>();
         for (ProjectType type : projectTypeRegistry.getProjectTypes(ProjectTypeRegistry.CHILD_TO_PARENT_COMPARATOR)) {
-            if (transientOnly && type.isPersisted()) {
-                continue;
+            if (!(transientOnly && type.isPersisted())) {
+                types.add(type);
             }
+        }
 
-            final HashMap<String, List<String>> attributes = new HashMap<>();
-
-            try {
-                for (Map.Entry<String, AttributeValue> attr : estimateProject(workspace, path, type.getId()).entrySet()) {
-                    attributes.put(attr.getKey(), attr.getValue().getList());
+        final Map<String, Future<Map<String, List<String>>>> futures = new HashMap<>();
+        try {
+            FolderSnapshot snapshot = null;
+            for (ProjectType type : types) {
+                if (cached.containsKey(type.getId())) {
+                    continue;
                 }
-
-                if (!attributes.isEmpty()) {
-                    estimations.add(newDto(SourceEstimation.class).withType(type.getId()).withAttributes(attributes));
-                    ProjectType projectType = projectTypeRegistry.getProjectType(type.getId());
-                    if (projectType.isPrimaryable()) {
-                        isPresentPrimaryType = true;
+                if (snapshot == null) {
+                    final VirtualFileEntry baseFolder = getProjectsRoot(workspace).getChild(folderPath);
+                    if (baseFolder == null || !baseFolder.isFolder()) {
+                        throw new NotFoundException("Not a folder: " + path);
                     }
+                    snapshot = new FolderSnapshot((FolderEntry)baseFolder);
+                    // Most of value providers look at children of folder, list them once before providers are started.
+                    snapshot.getChildren();
+                }
+                final FolderSnapshot folder = snapshot;
+                futures.put(type.getId(), estimationExecutor.submit(ThreadLocalPropagateContext.wrap(() -> {
+                    final Map<String, List<String>> attributes = new HashMap<>();
+                    try {
+                        for (Map.Entry<String, AttributeValue> attr : estimateProject(type, folder).entrySet()) {
+                            attributes.put(attr.getKey(), attr.getValue().getList());
+                        }
+                    } catch (ValueStorageException e) {
+                        LOG.warn(e.getLocalizedMessage(), e);
+                        return NOT_MATCHED;
+                    }
+                    return attributes.isEmpty() ? NOT_MATCHED : attributes;
+                })));
+            }
+            for (Map.Entry<String, Future<Map<String, List<String>>>> entry : futures.entrySet()) {
+                cached.put(entry.getKey(), entry.getValue().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ServerException) {
+                throw (ServerException)cause;
+            } else if (cause instanceof ForbiddenException) {
+                throw (ForbiddenException)cause;
+            }
+            throw new ServerException(cause.getMessage(), cause);
+        } finally {
+            for (Future<Map<String, List<String>>> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+
+        final List<SourceEstimation> estimations = new ArrayList<>();
+        boolean isPresentPrimaryType = false;
+        for (ProjectType type : types) {
+            final Map<String, List<String>> attributes = cached.get(type.getId());
+            if (attributes != NOT_MATCHED) {
+                estimations.add(newDto(SourceEstimation.class).withType(type.getId()).withAttributes(new HashMap<>(attributes)));
+                if (type.isPrimaryable()) {
+                    isPresentPrimaryType = true;
                 }
-            } catch (ValueStorageException e) {
-                LOG.warn(e.getLocalizedMessage(), e);
             }
         }
         if (!isPresentPrimaryType) {
@@ -805,6 +979,26 @@ public final class DefaultProjectManager implements ProjectManager {
         return estimations;
     }
 
+    /** Drops cached estimations of project types for folder {@code path}, its parents and children. */
+    private void invalidateSourceEstimations(String workspace, String path) {
+        if (sourceEstimationsCache.size() == 0) {
+            return;
+        }
+        for (Pair<String, String> key : sourceEstimationsCache.asMap().keySet()) {
+            if (workspace.equals(key.first)) {
+                final String folder = key.second;
+                if (isSameOrChild(path, folder) || isSameOrChild(folder, path)) {
+                    sourceEstimationsCache.invalidate(key);
+                }
+            }
+        }
+    }
+
+    private static boolean isSameOrChild(String path, String parent) {
+        return path.startsWith(parent)
+               && (path.length() == parent.length() || parent.endsWith("/") || path.charAt(parent.length()) == '/');
+    }
+
     @Override
     public Project convertFolderToProject(String workspace, String path, ProjectConfig projectConfig) throws ConflictException,
                                                                                                              ForbiddenException,
@@ -859,12 +1053,10 @@ public final class DefaultProjectManager implements ProjectManager {
         } else if (entry.isFolder() && !isProjectFolder((FolderEntry)entry)) {
             entry.rename(newName);
         } else if (isProjectFolder((FolderEntry)entry)) {
-            UsersWorkspaceDto usersWorkspace = getWorkspace(workspace);
-
             String oldProjectPath = path.startsWith("/") ? path : "/" + path;
             String newProjectPath = '/' + newName;
 
-            List<ProjectConfigDto> projects = usersWorkspace.getProjects();
+            List<ProjectConfigDto> projects = getAllProjectsFromWorkspace(workspace);
 
             if (projects.isEmpty()) {
                 renameProjectOnFileSystem(workspace, oldProjectPath, newName);
@@ -1044,13 +1236,15 @@ public final class DefaultProjectManager implements ProjectManager {
                                   .request();
         } catch (IOException | ApiException exception) {
             throw new ServerException(exception.getLocalizedMessage(), exception);
+        } finally {
+            workspaceProjectsCache.invalidate(wsId);
         }
     }
 
     @Override
     public boolean isProjectFolder(FolderEntry folder) throws ServerException {
         try {
-            return getProjectFromWorkspace(folder.getWorkspace(), folder.getPath()) != null;
+            return findCachedProject(folder.getWorkspace(), folder.getPath()) != null;
         } catch (ApiException e) {
             throw new ServerException(e);
         }
@@ -1062,8 +1256,24 @@ public final class DefaultProjectManager implements ProjectManager {
 
         String[] pathToModuleParts = pathToModuleFolder.split(String.format("(?=[%s])", File.separator));
 
-        ProjectConfigDto projectFromWorkspace = getProjectFromWorkspace(folder.getWorkspace(), pathToModuleParts[0]);
+        ProjectConfigDto projectFromWorkspace = findCachedProject(folder.getWorkspace(), pathToModuleParts[0]);
 
         return projectFromWorkspace != null && projectFromWorkspace.findModule(pathToModuleFolder) != null;
     }
+
+    /** Project configurations of workspace indexed by path. */
+    private static final class WorkspaceProjects {
+        final List<ProjectConfigDto>        projects;
+        final Map<String, ProjectConfigDto> byPath;
+
+        WorkspaceProjects(List<ProjectConfigDto> projects) {
+            this.projects = projects == null ? Collections.<ProjectConfigDto>emptyList() : projects;
+            byPath = new HashMap<>();
+            for (ProjectConfigDto projectConfig : this.projects) {
+                if (projectConfig.getPath() != null) {
+                    byPath.putIfAbsent(projectConfig.getPath(), projectConfig);
+                }
+            }
+        }
+    }
 }
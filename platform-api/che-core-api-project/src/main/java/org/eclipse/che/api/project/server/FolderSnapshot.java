@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import org.eclipse.che.api.core.ForbiddenException;
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.vfs.server.VirtualFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Read-only view of folder which is used for estimation of project types. Lists of children and content of small files are
+ * read from virtual file system once and then shared by all value providers which look at the folder, its sub-folders and
+ * files, so each of many project types doesn't scan the same folder again. View is thread-safe and may be used by value
+ * providers of different project types concurrently.
+ * <p/>
+ * View doesn't see updates of folder which are made after the first access, it must not be kept longer than one estimation.
+ */
+class FolderSnapshot extends FolderEntry {
+    /** Max size of file which content is kept in memory, content of bigger files is read on each request. */
+    static final int MAX_CACHED_CONTENT = 64 * 1024;
+
+    private static final Object NO_CHILD = new Object();
+
+    private final Cache cache;
+
+    FolderSnapshot(FolderEntry folder) {
+        this(folder.getWorkspace(), folder.getVirtualFile(), new Cache());
+    }
+
+    private FolderSnapshot(String workspace, VirtualFile virtualFile, Cache cache) {
+        super(workspace, virtualFile);
+        this.cache = cache;
+    }
+
+    @Override
+    public VirtualFileEntry getChild(String path) throws ForbiddenException, ServerException {
+        final String childPath = getPath() + '/' + path;
+        final Object cached = cache.children.get(childPath);
+        if (cached != null) {
+            return cached == NO_CHILD ? null : (VirtualFileEntry)cached;
+        }
+        final VirtualFile child = getVirtualFile().getChild(path);
+        final VirtualFileEntry entry = child == null ? null : wrap(child);
+        cache.children.putIfAbsent(childPath, entry == null ? NO_CHILD : entry);
+        return entry;
+    }
+
+    @Override
+    public List<VirtualFileEntry> getChildren() throws ServerException {
+        return new ArrayList<>(list());
+    }
+
+    @Override
+    public List<FileEntry> getChildFiles() throws ServerException {
+        final List<FileEntry> files = new ArrayList<>();
+        for (VirtualFileEntry child : list()) {
+            if (child.isFile()) {
+                files.add((FileEntry)child);
+            }
+        }
+        return files;
+    }
+
+    @Override
+    public List<FolderEntry> getChildFolders() throws ServerException {
+        final List<FolderEntry> folders = new ArrayList<>();
+        for (VirtualFileEntry child : list()) {
+            if (child.isFolder()) {
+                folders.add((FolderEntry)child);
+            }
+        }
+        return folders;
+    }
+
+    @Override
+    public List<VirtualFileEntry> getChildFoldersFiles() throws ServerException {
+        return getChildren();
+    }
+
+    private List<VirtualFileEntry> list() throws ServerException {
+        final String path = getPath();
+        List<VirtualFileEntry> children = cache.lists.get(path);
+        if (children == null) {
+            children = new ArrayList<>();
+            for (VirtualFileEntry child : super.getChildFoldersFiles()) {
+                children.add(wrap(child.getVirtualFile()));
+            }
+            final List<VirtualFileEntry> existed = cache.lists.putIfAbsent(path, children);
+            if (existed != null) {
+                children = existed;
+            }
+        }
+        return children;
+    }
+
+    private VirtualFileEntry wrap(VirtualFile virtualFile) {
+        if (virtualFile.isFile()) {
+            return new FileSnapshot(getWorkspace(), virtualFile, cache);
+        }
+        return new FolderSnapshot(getWorkspace(), virtualFile, cache);
+    }
+
+    /** State shared by all items of one snapshot. Keys are paths of items. */
+    private static class Cache {
+        final ConcurrentMap<String, Object>                 children = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, List<VirtualFileEntry>> lists    = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, byte[]>                 contents = new ConcurrentHashMap<>();
+    }
+
+    private static class FileSnapshot extends FileEntry {
+        private final Cache cache;
+
+        FileSnapshot(String workspace, VirtualFile virtualFile, Cache cache) {
+            super(workspace, virtualFile);
+            this.cache = cache;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException, ServerException {
+            final byte[] content = cache.contents.get(getPath());
+            if (content != null) {
+                return new ByteArrayInputStream(content);
+            }
+            if (getVirtualFile().getLength() > MAX_CACHED_CONTENT) {
+                return super.getInputStream();
+            }
+            return new ByteArrayInputStream(contentAsBytes());
+        }
+
+        @Override
+        public byte[] contentAsBytes() throws IOException, ServerException {
+            final String path = getPath();
+            byte[] content = cache.contents.get(path);
+            if (content == null) {
+                content = super.contentAsBytes();
+                if (content.length > MAX_CACHED_CONTENT) {
+                    return content;
+                }
+                final byte[] existed = cache.contents.putIfAbsent(path, content);
+                if (existed != null) {
+                    content = existed;
+                }
+            }
+            // Callers may modify array, don't give them cached one.
+            return content.clone();
+        }
+    }
+}
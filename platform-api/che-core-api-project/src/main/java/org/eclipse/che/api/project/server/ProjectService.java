@@ -88,6 +88,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 import static org.eclipse.che.api.project.server.DtoConverter.toProjectConfig;
@@ -114,6 +115,8 @@ public class ProjectService extends Service {
                                                                              new ThreadFactoryBuilder()
                                                                                      .setNameFormat("ProjectService-IndexingThread-")
                                                                                      .setDaemon(true).build());
+    /** Builds subtrees of project tree in parallel. */
+    private final ForkJoinPool    treePool    = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
     @Inject
     private ProjectManager          projectManager;
     @Inject
@@ -128,6 +131,7 @@ public class ProjectService extends Service {
     @PreDestroy
     void stop() {
         executor.shutdownNow();
+        treePool.shutdownNow();
     }
 
     @ApiOperation(value = "Gets list of projects in root folder",
@@ -1124,22 +1128,42 @@ public class ProjectService extends Service {
     @GET
     @Path("/tree/{parent:.*}")
     @Produces(MediaType.APPLICATION_JSON)
-    public TreeElement getTree(@ApiParam(value = "Workspace ID", required = true)
-                               @PathParam("ws-id") String workspace,
-                               @ApiParam(value = "Path to resource. Can be project or its folders", required = true)
-                               @PathParam("parent") String path,
-                               @ApiParam(value = "Tree depth. This parameter can be dropped. If not specified ?depth=1 is used by default")
-                               @DefaultValue("1") @QueryParam("depth") int depth,
-                               @ApiParam(value = "include children files (in addition to children folders). This parameter can be dropped" +
-                                                 ". If not specified ?includeFiles=false is used by default")
-                               @DefaultValue("false") @QueryParam("includeFiles") boolean includeFiles)
-            throws NotFoundException, ForbiddenException, ServerException {
+    public Response getTree(@ApiParam(value = "Workspace ID", required = true)
+                            @PathParam("ws-id") String workspace,
+                            @ApiParam(value = "Path to resource. Can be project or its folders", required = true)
+                            @PathParam("parent") String path,
+                            @ApiParam(value = "Tree depth. This parameter can be dropped. If not specified ?depth=1 is used by default")
+                            @DefaultValue("1") @QueryParam("depth") int depth,
+                            @ApiParam(value = "include children files (in addition to children folders). This parameter can be dropped" +
+                                              ". If not specified ?includeFiles=false is used by default")
+                            @DefaultValue("false") @QueryParam("includeFiles") boolean includeFiles,
+                            @ApiParam(value = "Max number of items in the tree. Folders which children are not included in the tree " +
+                                              "because of this limit get continuation token. By default number of items isn't limited")
+                            @DefaultValue("0") @QueryParam("maxItems") int maxItems,
+                            @ApiParam(value = "Continuation token of folder got in previous request, replaces depth parameter. " +
+                                              "Children which are already got in previous request are skipped")
+                            @QueryParam("continuation") String continuation,
+                            @ApiParam(value = "Write tree to the response while it's being built. If subtree of some child can't " +
+                                              "be listed after response is started then response is cut off and isn't a valid JSON")
+                            @DefaultValue("false") @QueryParam("stream") boolean stream)
+            throws NotFoundException, ForbiddenException, ServerException, BadRequestException {
+        int offset = 0;
+        if (continuation != null) {
+            try {
+                final ProjectTreeBuilder.Continuation parsed = ProjectTreeBuilder.parseContinuationToken(continuation);
+                depth = parsed.depth;
+                offset = parsed.offset;
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException(e.getMessage());
+            }
+        }
         final FolderEntry folder = asFolder(workspace, path);
-        final UriBuilder uriBuilder = getServiceContext().getServiceUriBuilder();
-        final DtoFactory dtoFactory = DtoFactory.getInstance();
-        return dtoFactory.createDto(TreeElement.class)
-                         .withNode(DtoConverter.toItemReference(folder, uriBuilder.clone(), projectManager))
-                         .withChildren(getTree(folder, depth, includeFiles, uriBuilder, dtoFactory));
+        final ProjectTreeBuilder treeBuilder =
+                new ProjectTreeBuilder(treePool, projectManager, getServiceContext().getServiceUriBuilder(), includeFiles, maxItems);
+        if (!stream) {
+            return Response.ok(treeBuilder.build(folder, depth, offset), MediaType.APPLICATION_JSON).build();
+        }
+        return Response.ok(treeBuilder.stream(folder, depth, offset), MediaType.APPLICATION_JSON).build();
     }
 
     @ApiOperation(value = "Get file or folder",
@@ -1190,33 +1214,6 @@ public class ProjectService extends Service {
         return item;
     }
 
-    private List<TreeElement> getTree(FolderEntry folder, int depth, boolean includeFiles, UriBuilder uriBuilder, DtoFactory dtoFactory)
-            throws ServerException {
-        if (depth == 0) {
-            return null;
-        }
-        final List<? extends VirtualFileEntry> children;
-
-        if (includeFiles) {
-            children = folder.getChildFoldersFiles();
-        } else {
-            children = folder.getChildFolders();
-        }
-
-        final List<TreeElement> nodes = new ArrayList<>(children.size());
-        for (VirtualFileEntry child : children) {
-            if (child.isFolder()) {
-                nodes.add(dtoFactory.createDto(TreeElement.class)
-                                    .withNode(DtoConverter.toItemReference((FolderEntry)child, uriBuilder.clone(), projectManager))
-                                    .withChildren(getTree((FolderEntry)child, depth - 1, includeFiles, uriBuilder, dtoFactory)));
-            } else { // child.isFile()
-                nodes.add(dtoFactory.createDto(TreeElement.class)
-                                    .withNode(DtoConverter.toItemReference((FileEntry)child, uriBuilder.clone())));
-            }
-        }
-        return nodes;
-    }
-
     @ApiOperation(value = "Search for resources",
                   notes = "Search for resources applying a number of search filters as query parameters",
                   response = ItemReference.class,
@@ -1258,7 +1255,8 @@ public class ProjectService extends Service {
                                                                .setSkipCount(skipCount)
                                                                .setMaxItems(maxItems);
 
-            final String[] paths = searcherProvider.getSearcher(folder.getVirtualFile().getMountPoint(), true).search(query);
+            final String[] paths =
+                    searcherProvider.getSearcher(folder.getVirtualFile().getMountPoint(), true).search(query).getFilePaths();
             final List<ItemReference> items = new ArrayList<>(paths.length);
             final FolderEntry root = projectManager.getProjectsRoot(workspace);
             final UriBuilder uriBuilder = getServiceContext().getServiceUriBuilder();
@@ -0,0 +1,286 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.project.shared.dto.TreeElement;
+import org.eclipse.che.commons.lang.concurrent.ThreadLocalPropagateContext;
+import org.eclipse.che.dto.server.DtoFactory;
+
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriBuilder;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds tree of folders and files for {@link ProjectService#getTree}. Children of every folder are listed in a separate
+ * task of fork-join pool, so subtrees are built in parallel.
+ * <p/>
+ * Number of items in the tree may be limited. When the limit is reached, folders stay not expanded (or partially expanded)
+ * and get continuation token, see {@link TreeElement#getContinuation()}. The same token passed to the tree request of such
+ * folder returns the rest of its subtree, token contains remaining depth and number of children which are already included in
+ * the tree. Children are always listed in the same (sorted) order, so listing is resumed from the first not included child.
+ * Which folders stay not expanded depends on the order in which tasks are executed.
+ * <p/>
+ * Tree may be either built whole, see {@link #build(FolderEntry, int, int)}, or written to the stream while subtrees are being
+ * built, see {@link #stream(FolderEntry, int, int)}.
+ */
+class ProjectTreeBuilder {
+    private final ForkJoinPool   pool;
+    private final ProjectManager projectManager;
+    private final UriBuilder     uriBuilder;
+    private final DtoFactory     dtoFactory;
+    private final boolean        includeFiles;
+    private final AtomicInteger  budget;
+
+    /**
+     * @param maxItems
+     *         max number of items in the tree (excluding the root), zero or negative value means no limit
+     */
+    ProjectTreeBuilder(ForkJoinPool pool, ProjectManager projectManager, UriBuilder uriBuilder, boolean includeFiles, int maxItems) {
+        this.pool = pool;
+        this.projectManager = projectManager;
+        this.uriBuilder = uriBuilder;
+        this.includeFiles = includeFiles;
+        dtoFactory = DtoFactory.getInstance();
+        budget = new AtomicInteger(maxItems > 0 ? maxItems : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates continuation token for folder which children are not (completely) included in the tree.
+     *
+     * @param depth
+     *         depth of the rest of folder's subtree
+     * @param offset
+     *         number of folder's children which are already included in the tree
+     */
+    static String continuationToken(int depth, int offset) {
+        return depth + ":" + offset;
+    }
+
+    /**
+     * Parses continuation token created with {@link #continuationToken(int, int)}.
+     *
+     * @throws IllegalArgumentException
+     *         if token is invalid
+     */
+    static Continuation parseContinuationToken(String token) {
+        final int separator = token.indexOf(':');
+        final int depth;
+        final int offset;
+        try {
+            if (separator < 0) {
+                // Token without offset, folder isn't expanded at all.
+                depth = Integer.parseInt(token);
+                offset = 0;
+            } else {
+                depth = Integer.parseInt(token.substring(0, separator));
+                offset = Integer.parseInt(token.substring(separator + 1));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid continuation token '%s'", token));
+        }
+        if (depth < 1 || offset < 0) {
+            throw new IllegalArgumentException(String.format("Invalid continuation token '%s'", token));
+        }
+        return new Continuation(depth, offset);
+    }
+
+    /** Builds tree of {@code folder} with specified {@code depth}, children of {@code folder} are listed from {@code offset}. */
+    TreeElement build(FolderEntry folder, int depth, int offset) throws ServerException {
+        final Subtree root = expand(folder, depth, offset);
+        try {
+            return assemble(root);
+        } catch (RuntimeException e) {
+            throw toServerException(e);
+        }
+    }
+
+    /**
+     * Creates output which writes tree of {@code folder} with specified {@code depth} as JSON, subtrees are written as soon as they
+     * are built. Children of {@code folder} are listed from {@code offset}.
+     * <p/>
+     * Children of {@code folder} are listed before this method returns, so failure to list them is reported with
+     * {@code ServerException} before response is committed. Failure to list deeper subtree may happen when part of the tree is
+     * already sent, then output throws {@code IOException} and the response is cut off, i.e. it isn't a valid JSON.
+     */
+    StreamingOutput stream(FolderEntry folder, int depth, int offset) throws ServerException {
+        final Subtree root = expand(folder, depth, offset);
+        if (root.children != null) {
+            try {
+                root.children.join();
+            } catch (RuntimeException e) {
+                throw toServerException(e);
+            }
+        }
+        return out -> {
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try {
+                write(root, writer, true);
+            } catch (RuntimeException e) {
+                final ServerException error = toServerException(e);
+                throw new IOException(error.getMessage(), error);
+            }
+            writer.flush();
+        };
+    }
+
+    private Subtree expand(FolderEntry folder, int depth, int offset) throws ServerException {
+        final Subtree root = new Subtree(newElement(folder));
+        if (depth > 0) {
+            root.children = pool.submit(new ExpandTask(folder, root.element, depth, offset));
+        }
+        return root;
+    }
+
+    private List<Subtree> listChildren(FolderEntry folder, TreeElement element, int depth, int offset) throws ServerException {
+        final List<? extends VirtualFileEntry> children = includeFiles ? folder.getChildFoldersFiles() : folder.getChildFolders();
+        final int from = Math.min(offset, children.size());
+        final int size = reserve(children.size() - from);
+        if (from + size < children.size()) {
+            element.setContinuation(continuationToken(depth, from + size));
+        }
+        final List<Subtree> subtrees = new ArrayList<>(size);
+        for (int i = from, to = from + size; i < to; i++) {
+            final VirtualFileEntry child = children.get(i);
+            if (child.isFolder()) {
+                final Subtree subtree = new Subtree(newElement((FolderEntry)child));
+                if (depth > 1) {
+                    if (budget.get() > 0) {
+                        subtree.children = new ExpandTask((FolderEntry)child, subtree.element, depth - 1, 0).fork();
+                    } else {
+                        subtree.element.setContinuation(continuationToken(depth - 1, 0));
+                    }
+                }
+                subtrees.add(subtree);
+            } else { // child.isFile()
+                subtrees.add(new Subtree(dtoFactory.createDto(TreeElement.class)
+                                                   .withNode(DtoConverter.toItemReference((FileEntry)child, uriBuilder.clone()))));
+            }
+        }
+        return subtrees;
+    }
+
+    /** Takes up to {@code items} from budget and returns number of taken items. */
+    private int reserve(int items) {
+        for (; ; ) {
+            final int available = budget.get();
+            final int reserved = Math.min(available, items);
+            if (budget.compareAndSet(available, available - reserved)) {
+                return reserved;
+            }
+        }
+    }
+
+    private TreeElement newElement(FolderEntry folder) throws ServerException {
+        return dtoFactory.createDto(TreeElement.class)
+                         .withNode(DtoConverter.toItemReference(folder, uriBuilder.clone(), projectManager));
+    }
+
+    private TreeElement assemble(Subtree subtree) {
+        if (subtree.children != null) {
+            final List<Subtree> children = subtree.children.join();
+            final List<TreeElement> elements = new ArrayList<>(children.size());
+            for (Subtree child : children) {
+                elements.add(assemble(child));
+            }
+            subtree.element.setChildren(elements);
+        }
+        return subtree.element;
+    }
+
+    private void write(Subtree subtree, Writer writer, boolean flush) throws IOException {
+        writer.write("{\"node\":");
+        writer.write(dtoFactory.toJson(subtree.element.getNode()));
+        writer.write(",\"children\":[");
+        if (subtree.children != null) {
+            final List<Subtree> children = subtree.children.join();
+            for (int i = 0, size = children.size(); i < size; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                write(children.get(i), writer, false);
+                // Release built subtree, it isn't needed any more.
+                children.set(i, null);
+                if (flush) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.write(']');
+        // Continuation is set when children are listed, so it is known after the join above.
+        final String continuation = subtree.element.getContinuation();
+        if (continuation != null) {
+            writer.write(",\"continuation\":\"");
+            writer.write(continuation);
+            writer.write('"');
+        }
+        writer.write('}');
+    }
+
+    private static ServerException toServerException(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ServerException) {
+                return (ServerException)cause;
+            }
+        }
+        return new ServerException(e.getMessage(), e);
+    }
+
+    /** Depth and offset of children of folder which tree is continued. */
+    static class Continuation {
+        final int depth;
+        final int offset;
+
+        Continuation(int depth, int offset) {
+            this.depth = depth;
+            this.offset = offset;
+        }
+    }
+
+    private static class Subtree {
+        final TreeElement            element;
+        RecursiveTask<List<Subtree>> children;
+
+        Subtree(TreeElement element) {
+            this.element = element;
+        }
+    }
+
+    /** Lists children of folder. Thread local context of request (e.g. current user) is propagated to the pool thread. */
+    private class ExpandTask extends RecursiveTask<List<Subtree>> {
+        private final Callable<List<Subtree>> task;
+
+        ExpandTask(FolderEntry folder, TreeElement element, int depth, int offset) {
+            task = ThreadLocalPropagateContext.wrap(() -> listChildren(folder, element, depth, offset));
+        }
+
+        @Override
+        protected List<Subtree> compute() {
+            try {
+                return task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server.watcher;
+
+import org.eclipse.che.api.core.notification.EventOrigin;
+
+import java.util.List;
+
+/**
+ * Published when files of workspace are changed on file system. Changes that happen in short time are published together in
+ * one event, changes of the same file are merged.
+ */
+@EventOrigin("project")
+public class FileChangesEvent {
+    public enum ChangeType {
+        CREATED,
+        MODIFIED,
+        DELETED
+    }
+
+    /** Change of one file or folder. */
+    public static class Change {
+        private final String     path;
+        private final ChangeType type;
+
+        public Change(String path, ChangeType type) {
+            this.path = path;
+            this.type = type;
+        }
+
+        /** Path of changed file relative to the root of workspace. */
+        public String getPath() {
+            return path;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        @Override
+        public String toString() {
+            return "Change{" +
+                   "path='" + path + '\'' +
+                   ", type=" + type +
+                   '}';
+        }
+    }
+
+    private final String       workspaceId;
+    private final List<Change> changes;
+
+    public FileChangesEvent(String workspaceId, List<Change> changes) {
+        this.workspaceId = workspaceId;
+        this.changes = changes;
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    @Override
+    public String toString() {
+        return "FileChangesEvent{" +
+               "workspaceId='" + workspaceId + '\'' +
+               ", changes=" + changes +
+               '}';
+    }
+}
@@ -10,13 +10,21 @@
  *******************************************************************************/
 package org.eclipse.che.api.project.server.watcher;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.eclipse.che.api.core.notification.EventService;
 import org.eclipse.che.api.project.server.FilesBuffer;
+import org.eclipse.che.api.project.server.watcher.FileChangesEvent.Change;
+import org.eclipse.che.api.project.server.watcher.FileChangesEvent.ChangeType;
 import org.everrest.websockets.WSConnectionContext;
 import org.everrest.websockets.message.ChannelBroadcastMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.validation.constraints.NotNull;
 import javax.websocket.EncodeException;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -26,8 +34,19 @@ import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
@@ -37,63 +56,129 @@ import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 import static org.eclipse.che.api.project.server.Constants.CODENVY_DIR;
 
 /**
- * The class contains business logic which allows describe on some folder on file system and handle all changes related to
- * described folder.
+ * Watches folders of workspaces on file system and notifies about all changes in them.
+ * <p/>
+ * One instance of watcher serves all workspaces of node. Workspaces are distributed between small number of {@link
+ * WatchService}s, each of them is served by one thread. Folder is registered in watch service once even if it belongs to
+ * many workspaces and is unregistered when the last of them stops watching it. Watching of the same workspace twice does
+ * nothing.
+ * <p/>
+ * Changes are collected per workspace and sent when there are no new changes during short quiet period, or when the max delay
+ * is reached if changes don't stop. Changes of the same file are merged, e.g. file that is created and deleted in the same
+ * batch is not reported at all. Every batch is published with {@link EventService} as {@link FileChangesEvent}. Paths of created
+ * and deleted files are sent to the client through web socket, one path per message as before, so the client is not changed.
+ * <p/>
+ * Sub-folders of workspace are registered when workspace is started to be watched, not lazily when they are opened: there is
+ * no signal about folders that are opened by the client and server side consumers of {@link FileChangesEvent} need changes of
+ * all files. Service folders, e.g. {@code .git} or {@code target}, are not registered.
  *
  * @author Dmitry Shnurenko
  */
 class Watcher {
+    private static final Logger LOG = LoggerFactory.getLogger(Watcher.class);
 
     private static final String WATCHER_WS_CHANEL = "watcher:chanel:%s";
 
-    private final WatchService        watcher;
-    private final Map<WatchKey, Path> keys;
-    private final FilesBuffer         filesBuffer;
-    private final boolean             recursive;
+    /** Number of watch services (and threads) shared by all workspaces. */
+    static final int  WATCH_SERVICES  = 2;
+    /** Changes are sent when there are no new changes in workspace during this period. */
+    static final long QUIET_PERIOD_MS = 200;
+    /** Max time that first change in batch may wait to be sent. */
+    static final long MAX_DELAY_MS    = 1000;
 
-    private final String pathToRoot;
+    private final EventService                     eventService;
+    private final FilesBuffer                      filesBuffer;
+    private final WatchGroup[]                     groups;
+    private final ConcurrentMap<String, Workspace> workspaces;
+    private final ScheduledExecutorService         flushExecutor;
 
     /**
-     * Creates entity of {@link Watcher} to listen changes on file system.
+     * Creates watcher and starts threads that process events of file system.
      *
-     * @param dir
-     *         directory which will be registered via watcher
+     * @param eventService
+     *         service to publish {@link FileChangesEvent}s
      * @param filesBuffer
      *         buffer which need to separate actions IDE and file systems
-     * @param recursive
-     *         <code>true</code> watcher will be registered on current directory and all inner directories
-     *         <code>false</code>  watcher will be registered only on current directory
      * @throws IOException
+     *         if watch service can't be created
      */
-    Watcher(Path dir, FilesBuffer filesBuffer, boolean recursive) throws IOException {
-        this.watcher = FileSystems.getDefault().newWatchService();
-        this.keys = new HashMap<>();
-        this.recursive = recursive;
+    Watcher(EventService eventService, FilesBuffer filesBuffer) throws IOException {
+        this.eventService = eventService;
         this.filesBuffer = filesBuffer;
-        this.pathToRoot = dir.toString();
+        this.workspaces = new ConcurrentHashMap<>();
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("FileWatcher-Flush").setDaemon(true).build());
+        this.groups = new WatchGroup[WATCH_SERVICES];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = new WatchGroup(FileSystems.getDefault().newWatchService());
+            final Thread thread = new Thread(groups[i], "FileWatcher-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Starts watching of {@code root} folder of workspace and all its sub-folders. Does nothing if workspace is already watched.
+     *
+     * @param workspaceId
+     *         id of workspace
+     * @param root
+     *         root folder of workspace
+     * @throws IOException
+     *         if folder can't be registered
+     */
+    void watch(String workspaceId, Path root) throws IOException {
+        final Workspace workspace = new Workspace(workspaceId, root, groups[Math.floorMod(root.hashCode(), groups.length)]);
+        final Workspace existing = workspaces.putIfAbsent(workspaceId, workspace);
+        if (existing != null) {
+            if (existing.root.equals(root)) {
+                return;
+            }
+            // Workspace is mounted to the other folder, stop watching of the old one.
+            unwatch(workspaceId);
+            watch(workspaceId, root);
+            return;
+        }
+        boolean success = false;
+        try {
+            registerTree(workspace, root);
+            success = true;
+        } finally {
+            if (!success) {
+                unwatch(workspaceId);
+            }
+        }
+    }
 
-        if (recursive) {
-            registerAll(dir);
-        } else {
-            register(dir);
+    /** Stops watching of workspace. Folders that aren't watched by other workspaces are unregistered. */
+    void unwatch(String workspaceId) {
+        final Workspace workspace = workspaces.remove(workspaceId);
+        if (workspace != null) {
+            workspace.group.unregisterAll(workspace);
         }
     }
 
-    private void register(Path dir) throws IOException {
-        WatchKey key = dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
-        keys.put(key, dir);
+    /** Stops all threads and releases all watch services. */
+    void close() {
+        workspaces.clear();
+        for (WatchGroup group : groups) {
+            try {
+                group.watchService.close();
+            } catch (IOException e) {
+                LOG.warn(e.getMessage(), e);
+            }
+        }
+        flushExecutor.shutdownNow();
     }
 
-    private void registerAll(final Path start) throws IOException {
+    private void registerTree(final Workspace workspace, Path start) throws IOException {
         Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
             @Override
             public FileVisitResult preVisitDirectory(Path directoryToRegister, BasicFileAttributes attrs) throws IOException {
-                String relativePath = directoryToRegister.toString().substring(pathToRoot.length());
-
-                if (absentServiceDirectory(relativePath)) {
-                    register(directoryToRegister);
+                if (!absentServiceDirectory(workspace.relativePath(directoryToRegister))) {
+                    return FileVisitResult.SKIP_SUBTREE;
                 }
-
+                workspace.group.register(directoryToRegister, workspace);
                 return FileVisitResult.CONTINUE;
             }
         });
@@ -111,91 +196,252 @@ class Watcher {
         return !isCheFolder && !isCodenvyFolder && !isTargetFolder && !isVfsFolder && !isGitFolder && !isMvnFolder;
     }
 
-    /**
-     * Starts process events to catch all actions related to file system and sends special event on client through web socket
-     * when something changed on file system. This method is started in separated thread.
-     */
-    void processEvents() {
-        while (true) {
-
+    private void onEvent(Workspace workspace, WatchEvent.Kind<?> kind, Path child) {
+        if (workspaces.get(workspace.id) != workspace) {
+            // Workspace is not watched any more.
+            return;
+        }
+        final String relativePath = workspace.relativePath(child);
+        if (!absentServiceDirectory(relativePath)) {
+            return;
+        }
+        if (kind == ENTRY_CREATE && Files.isDirectory(child, NOFOLLOW_LINKS)) {
             try {
-                WatchKey key = watcher.take();
-
-                Path changedDirectory = keys.get(key);
+                registerTree(workspace, child);
+            } catch (IOException e) {
+                // Folder may be already removed.
+                LOG.debug(e.getMessage(), e);
+            }
+        }
+        final ChangeType type = kind == ENTRY_CREATE ? ChangeType.CREATED : kind == ENTRY_DELETE ? ChangeType.DELETED : ChangeType.MODIFIED;
+        final boolean scheduleFlush;
+        synchronized (workspace) {
+            scheduleFlush = workspace.addChange(relativePath, type);
+        }
+        if (scheduleFlush) {
+            scheduleFlush(workspace, QUIET_PERIOD_MS);
+        }
+    }
 
-                if (changedDirectory == null) {
-                    continue;
+    private void scheduleFlush(final Workspace workspace, long delay) {
+        try {
+            flushExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flush(workspace);
                 }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // Rejected when watcher is closed.
+            LOG.debug(e.getMessage(), e);
+        }
+    }
 
-                for (WatchEvent<?> event : key.pollEvents()) {
-                    WatchEvent.Kind kind = event.kind();
+    private void flush(Workspace workspace) {
+        final Map<String, ChangeType> changes;
+        synchronized (workspace) {
+            final long now = System.currentTimeMillis();
+            final long delay = Math.min(workspace.lastChangeTime + QUIET_PERIOD_MS, workspace.firstChangeTime + MAX_DELAY_MS) - now;
+            if (delay > 0) {
+                scheduleFlush(workspace, delay);
+                return;
+            }
+            changes = workspace.takeChanges();
+        }
+        if (changes.isEmpty() || workspaces.get(workspace.id) != workspace) {
+            return;
+        }
+        final List<Change> changeList = new ArrayList<>(changes.size());
+        final List<String> pathsToSend = new ArrayList<>();
+        for (Map.Entry<String, ChangeType> entry : changes.entrySet()) {
+            final String relativePath = entry.getKey();
+            final ChangeType type = entry.getValue();
+            changeList.add(new Change(relativePath, type));
+            if (type != ChangeType.MODIFIED && !filesBuffer.isContainsPath(relativePath) && !correctNodeName(relativePath)) {
+                pathsToSend.add(relativePath);
+            }
+        }
+        eventService.publish(new FileChangesEvent(workspace.id, changeList));
+        for (String path : pathsToSend) {
+            sendMessage(path);
+        }
+    }
 
-                    if (kind == OVERFLOW) {
-                        continue;
-                    }
+    /** Sends path of created or deleted file to the client. Client expects one path in message. */
+    private void sendMessage(String path) {
+        ChannelBroadcastMessage broadcastMessage = new ChannelBroadcastMessage();
 
-                    //noinspection unchecked
-                    WatchEvent<Path> watchEvent = (WatchEvent<Path>)event;
-                    Path name = watchEvent.context();
-                    Path child = changedDirectory.resolve(name);
+        broadcastMessage.setChannel(String.format(WATCHER_WS_CHANEL, "1"));
+        broadcastMessage.setBody(path);
 
-                    registerChild(kind, child);
+        try {
+            WSConnectionContext.sendMessage(broadcastMessage);
+        } catch (EncodeException | IOException e) {
+            LOG.warn(e.getMessage(), e);
+        }
+    }
 
-                    sendEvents(kind, changedDirectory.toString() + '/' + name.toString());
-                }
+    //need for cloud
+    private boolean correctNodeName(@NotNull String relativePath) {
+        int startName = relativePath.lastIndexOf("/") + 1;
+        String name = relativePath.substring(startName);
 
-                boolean valid = key.reset();
-                if (!valid) {
-                    keys.remove(key);
+        return name.startsWith(".");
+    }
 
-                    if (keys.isEmpty()) {
-                        break;
-                    }
+    /** Watched workspace and changes in it that are not sent yet. */
+    private static class Workspace {
+        final String     id;
+        final Path       root;
+        final WatchGroup group;
+
+        // Fields below are guarded by monitor of this workspace.
+        Map<String, ChangeType> changes = new LinkedHashMap<>();
+        long firstChangeTime;
+        long lastChangeTime;
+
+        Workspace(String id, Path root, WatchGroup group) {
+            this.id = id;
+            this.root = root;
+            this.group = group;
+        }
+
+        String relativePath(Path path) {
+            return root.relativize(path).toString();
+        }
+
+        /**
+         * Merges change with previous change of the same file.
+         *
+         * @return {@code true} if this is the first change in batch and batch must be scheduled to send
+         */
+        boolean addChange(String relativePath, ChangeType type) {
+            final long now = System.currentTimeMillis();
+            final boolean first = changes.isEmpty();
+            if (first) {
+                firstChangeTime = now;
+            }
+            lastChangeTime = now;
+            final ChangeType previous = changes.remove(relativePath);
+            if (previous == null) {
+                changes.put(relativePath, type);
+            } else if (previous == ChangeType.CREATED) {
+                // Created and deleted in the same batch, client never saw it.
+                if (type != ChangeType.DELETED) {
+                    changes.put(relativePath, ChangeType.CREATED);
                 }
-            } catch (InterruptedException x) {
-                Thread.currentThread().interrupt();
+            } else if (previous == ChangeType.DELETED) {
+                // Deleted and created again, file or folder is replaced and client must drop old one and load new one.
+                changes.put(relativePath, type == ChangeType.DELETED ? ChangeType.DELETED : ChangeType.CREATED);
+            } else {
+                // Modified several times or modified and deleted.
+                changes.put(relativePath, type == ChangeType.DELETED ? ChangeType.DELETED : ChangeType.MODIFIED);
             }
+            return first;
+        }
+
+        Map<String, ChangeType> takeChanges() {
+            final Map<String, ChangeType> result = changes;
+            changes = new LinkedHashMap<>();
+            return result;
         }
     }
 
-    private void registerChild(@NotNull WatchEvent.Kind kind, @NotNull Path pathToChild) {
-        if (recursive && (kind == ENTRY_CREATE)) {
-            try {
-                if (Files.isDirectory(pathToChild, NOFOLLOW_LINKS)) {
-                    registerAll(pathToChild);
-                }
-            } catch (IOException x) {
-                //to do nothing
-            }
+    /** Registered folder and workspaces that watch it. */
+    private static class Directory {
+        final Path           path;
+        final WatchKey       key;
+        final Set<Workspace> workspaces = new HashSet<>();
+
+        Directory(Path path, WatchKey key) {
+            this.path = path;
+            this.key = key;
         }
     }
 
-    private void sendEvents(@NotNull WatchEvent.Kind eventKind, @NotNull String pathToNewFile) {
-        String relativePath = pathToNewFile.substring(pathToRoot.length() + 1);
+    /** Watch service and thread that processes its events. */
+    private class WatchGroup implements Runnable {
+        final WatchService watchService;
 
-        if (eventKind == ENTRY_CREATE || eventKind == ENTRY_DELETE) {
-            ChannelBroadcastMessage broadcastMessage = new ChannelBroadcastMessage();
+        // Fields below are guarded by monitor of this group.
+        final Map<Path, Directory>     directories = new HashMap<>();
+        final Map<WatchKey, Directory> keys        = new HashMap<>();
 
-            broadcastMessage.setChannel(String.format(WATCHER_WS_CHANEL, "1"));
-            broadcastMessage.setBody(String.format(relativePath));
+        WatchGroup(WatchService watchService) {
+            this.watchService = watchService;
+        }
 
-            boolean bufferContainsPath = filesBuffer.isContainsPath(relativePath);
+        synchronized void register(Path dir, Workspace workspace) throws IOException {
+            Directory directory = directories.get(dir);
+            if (directory == null) {
+                final WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                directory = keys.get(key);
+                if (directory == null) {
+                    directory = new Directory(dir, key);
+                    keys.put(key, directory);
+                }
+                directories.put(dir, directory);
+            }
+            directory.workspaces.add(workspace);
+        }
 
-            try {
-                if (!bufferContainsPath && absentServiceDirectory(relativePath) && !correctNodeName(relativePath)) {
-                    WSConnectionContext.sendMessage(broadcastMessage);
+        synchronized void unregisterAll(Workspace workspace) {
+            for (Iterator<Directory> iterator = directories.values().iterator(); iterator.hasNext(); ) {
+                final Directory directory = iterator.next();
+                if (directory.workspaces.remove(workspace) && directory.workspaces.isEmpty()) {
+                    directory.key.cancel();
+                    keys.remove(directory.key);
+                    iterator.remove();
                 }
-            } catch (EncodeException | IOException exception) {
-                Thread.currentThread().interrupt();
             }
         }
-    }
 
-    //need for cloud
-    private boolean correctNodeName(@NotNull String relativePath) {
-        int startName = relativePath.lastIndexOf("/") + 1;
-        String name = relativePath.substring(startName);
+        private synchronized void unregister(Directory directory) {
+            keys.remove(directory.key);
+            directories.remove(directory.path);
+        }
 
-        return name.startsWith(".");
+        private synchronized List<Workspace> getWorkspaces(Directory directory) {
+            return new ArrayList<>(directory.workspaces);
+        }
+
+        private synchronized Directory getDirectory(WatchKey key) {
+            return keys.get(key);
+        }
+
+        @Override
+        public void run() {
+            for (; ; ) {
+                final WatchKey key;
+                try {
+                    key = watchService.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ClosedWatchServiceException e) {
+                    return;
+                }
+                final Directory directory = getDirectory(key);
+                if (directory == null) {
+                    key.cancel();
+                    continue;
+                }
+                final List<Workspace> owners = getWorkspaces(directory);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    final WatchEvent.Kind<?> kind = event.kind();
+                    // Some events are lost, report that content of folder is changed.
+                    final Path child = kind == OVERFLOW ? directory.path : directory.path.resolve((Path)event.context());
+                    for (Workspace workspace : owners) {
+                        if (!child.equals(workspace.root)) {
+                            onEvent(workspace, kind == OVERFLOW ? ENTRY_MODIFY : kind, child);
+                        }
+                    }
+                }
+                if (!key.reset()) {
+                    // Folder is removed.
+                    unregister(directory);
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -15,12 +15,14 @@ import com.google.inject.Singleton;
 
 import org.eclipse.che.api.core.NotFoundException;
 import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.core.notification.EventService;
 import org.eclipse.che.api.project.server.FilesBuffer;
 import org.eclipse.che.api.vfs.server.MountPoint;
 import org.eclipse.che.api.vfs.server.VirtualFile;
 import org.eclipse.che.api.vfs.server.VirtualFileSystem;
 import org.eclipse.che.api.vfs.server.VirtualFileSystemRegistry;
 
+import javax.annotation.PreDestroy;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -28,14 +30,22 @@ import java.io.File;
 import java.io.IOException;
 
 /**
+ * Starts and stops watching of workspace folders on file system. All workspaces share one {@link Watcher}.
+ *
  * @author Dmitry Shnurenko
  */
 @Path("/watcher")
 @Singleton
 public class WatcherService {
 
+    private final VirtualFileSystemRegistry virtualFileSystemRegistry;
+    private final Watcher                   watcher;
+
     @Inject
-    private VirtualFileSystemRegistry virtualFileSystemRegistry;
+    public WatcherService(VirtualFileSystemRegistry virtualFileSystemRegistry, EventService eventService) throws IOException {
+        this.virtualFileSystemRegistry = virtualFileSystemRegistry;
+        this.watcher = new Watcher(eventService, FilesBuffer.get());
+    }
 
     @GET
     @Path("/{workspaceId}/register")
@@ -48,18 +58,17 @@ public class WatcherService {
 
         File ioFile = root.getIoFile();
 
-        final Watcher watcher = new Watcher(ioFile.toPath(), FilesBuffer.get(), true);
-
-        Runnable runnable = new Runnable() {
-            @Override
-            public void run() {
-                watcher.processEvents();
-            }
-        };
-        Thread watcherThread = new Thread(runnable, "Thread of file system listener");
+        watcher.watch(workspaceId, ioFile.toPath());
+    }
 
-        watcherThread.setDaemon(true);
+    @GET
+    @Path("/{workspaceId}/unregister")
+    public void unregisterWatcher(@PathParam("workspaceId") String workspaceId) {
+        watcher.unwatch(workspaceId);
+    }
 
-        watcherThread.start();
+    @PreDestroy
+    public void stop() {
+        watcher.close();
     }
 }
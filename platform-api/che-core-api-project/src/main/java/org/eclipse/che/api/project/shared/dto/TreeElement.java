@@ -30,4 +30,15 @@ public interface TreeElement {
     void setChildren(List<TreeElement> children);
 
     TreeElement withChildren(List<TreeElement> children);
+
+    /**
+     * Gets continuation token. Token is set when children of this folder are not (completely) included in the tree because
+     * of limit of number of items. Token should be passed to the tree request of this folder to get its subtree. Token is
+     * opaque for client and {@code null} if subtree of this folder is complete.
+     */
+    String getContinuation();
+
+    void setContinuation(String continuation);
+
+    TreeElement withContinuation(String continuation);
 }
@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.eclipse.che.api.core.model.workspace.WorkspaceStatus;
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.api.machine.shared.dto.CommandDto;
+import org.eclipse.che.api.vfs.shared.ItemType;
+import org.eclipse.che.api.vfs.shared.dto.Item;
+import org.eclipse.che.api.vfs.shared.dto.ItemList;
+import org.eclipse.che.api.vfs.shared.dto.Property;
+import org.eclipse.che.api.workspace.shared.dto.ProjectConfigDto;
+import org.eclipse.che.api.workspace.shared.dto.SourceStorageDto;
+import org.eclipse.che.api.workspace.shared.dto.UsersWorkspaceDto;
+import org.eclipse.che.dto.server.DtoFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.eclipse.che.dto.server.DtoFactory.newDto;
+
+/**
+ * Compares parsing and serialization of DTOs through JSON tree ({@code JsonElement}) and through streaming {@code
+ * JsonReader}/{@code JsonWriter}.
+ * <p/>
+ * Run with: {@code java -cp <test classpath> org.eclipse.che.api.project.server.DtoFactoryBenchmark}.
+ * GC profiler is enabled, see {@code gc.alloc.rate.norm} for number of bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoFactoryBenchmark {
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    @Param({"UsersWorkspaceDto", "ItemList", "ProjectConfigDto"})
+    private String dtoType;
+
+    private DtoFactory dtoFactory;
+    private Class<?>   dtoInterface;
+    private Object     dto;
+    private String     json;
+
+    @Setup
+    public void setUp() {
+        dtoFactory = DtoFactory.getInstance();
+        switch (dtoType) {
+            case "UsersWorkspaceDto":
+                dtoInterface = UsersWorkspaceDto.class;
+                dto = createWorkspace(20);
+                break;
+            case "ItemList":
+                dtoInterface = ItemList.class;
+                dto = createItemList(500);
+                break;
+            case "ProjectConfigDto":
+                dtoInterface = ProjectConfigDto.class;
+                dto = createProject("/project", 3);
+                break;
+            default:
+                throw new IllegalArgumentException(dtoType);
+        }
+        json = dtoFactory.toJson(dto);
+    }
+
+    /** Parses JSON into JsonElement and then creates DTO from it. */
+    @Benchmark
+    public Object parseTree() {
+        return dtoFactory.createDtoFromJson(json, dtoInterface);
+    }
+
+    /** Creates DTO while reading JSON. */
+    @Benchmark
+    public Object parseStream() throws IOException {
+        return dtoFactory.createDtoFromJson(new StringReader(json), dtoInterface);
+    }
+
+    /** Builds JsonElement from DTO and then prints it. */
+    @Benchmark
+    public String serializeTree() {
+        return GSON.toJson(dtoFactory.toJsonElement(dto));
+    }
+
+    /** Writes JSON while traversing DTO. */
+    @Benchmark
+    public String serializeStream() {
+        return dtoFactory.toJson(dto);
+    }
+
+    private static UsersWorkspaceDto createWorkspace(int projects) {
+        final List<ProjectConfigDto> projectConfigs = new ArrayList<>(projects);
+        for (int i = 0; i < projects; i++) {
+            projectConfigs.add(createProject("/project" + i, 1));
+        }
+        final List<CommandDto> commands = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            commands.add(newDto(CommandDto.class).withName("build" + i)
+                                                 .withType("mvn")
+                                                 .withCommandLine("mvn -f ${current.project.path} clean install")
+                                                 .withAttributes(singletonMap("previewUrl", "http://localhost:8080/" + i)));
+        }
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("stackId", "java-default");
+        attributes.put("created", "1456837200000");
+        return newDto(UsersWorkspaceDto.class).withId("workspace123456789")
+                                              .withName("workspace")
+                                              .withOwner("user123456789")
+                                              .withDefaultEnv("default")
+                                              .withDescription("Java workspace")
+                                              .withStatus(WorkspaceStatus.RUNNING)
+                                              .withAttributes(attributes)
+                                              .withCommands(commands)
+                                              .withProjects(projectConfigs)
+                                              .withLinks(createLinks("/workspace/workspace123456789", 5));
+    }
+
+    private static ProjectConfigDto createProject(String path, int depth) {
+        final Map<String, List<String>> attributes = new HashMap<>();
+        attributes.put("language", singletonList("java"));
+        attributes.put("builder.name", singletonList("maven"));
+        attributes.put("maven.source.folder", Arrays.asList("src/main/java", "src/main/resources"));
+        attributes.put("maven.test.source.folder", Arrays.asList("src/test/java", "src/test/resources"));
+        final List<ProjectConfigDto> modules = new ArrayList<>();
+        if (depth > 1) {
+            for (int i = 0; i < 5; i++) {
+                modules.add(createProject(path + "/module" + i, depth - 1));
+            }
+        }
+        return newDto(ProjectConfigDto.class).withName(path.substring(path.lastIndexOf('/') + 1))
+                                             .withPath(path)
+                                             .withType("maven")
+                                             .withDescription("Maven project " + path)
+                                             .withMixins(singletonList("git"))
+                                             .withAttributes(attributes)
+                                             .withModules(modules)
+                                             .withSource(newDto(SourceStorageDto.class)
+                                                                 .withType("git")
+                                                                 .withLocation("https://github.com/codenvy/che-core.git")
+                                                                 .withParameters(singletonMap("branch", "master")))
+                                             .withLinks(createLinks("/project/workspace123456789" + path, 3));
+    }
+
+    private static ItemList createItemList(int items) {
+        final List<Item> list = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            final String path = "/project/src/main/java/org/eclipse/che/File" + i + ".java";
+            final Map<String, org.eclipse.che.api.vfs.shared.dto.Link> links = new HashMap<>();
+            for (String rel : Arrays.asList("self", "content", "parent")) {
+                links.put(rel, newDto(org.eclipse.che.api.vfs.shared.dto.Link.class)
+                                       .withHref("http://localhost:8080/api/vfs/workspace123456789/v2/" + rel + path)
+                                       .withRel(rel)
+                                       .withType("application/json"));
+            }
+            list.add(newDto(Item.class).withVfsId("workspace123456789")
+                                       .withId("ZmlsZSBpZCBmb3IgaXRlbQ" + i)
+                                       .withName("File" + i + ".java")
+                                       .withItemType(ItemType.FILE)
+                                       .withPath(path)
+                                       .withParentId("cGFyZW50IGZvbGRlciBpZA")
+                                       .withCreationDate(1456837200000L + i)
+                                       .withMimeType("text/x-java")
+                                       .withPermissions(Arrays.asList("read", "write"))
+                                       .withProperties(singletonList(newDto(Property.class).withName("vcs.status")
+                                                                                            .withValue(singletonList("modified"))))
+                                       .withLinks(links));
+        }
+        return newDto(ItemList.class).withItems(list).withNumItems(items).withHasMoreItems(false);
+    }
+
+    private static List<Link> createLinks(String href, int count) {
+        final List<Link> links = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            links.add(newDto(Link.class).withHref("http://localhost:8080/api" + href + "/" + i)
+                                        .withRel("rel" + i)
+                                        .withMethod("GET")
+                                        .withProduces("application/json"));
+        }
+        return links;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Options options = new OptionsBuilder().include(DtoFactoryBenchmark.class.getSimpleName())
+                                                    .addProfiler(GCProfiler.class)
+                                                    .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import org.eclipse.che.api.core.notification.EventService;
+import org.eclipse.che.api.vfs.server.SystemPathsFilter;
+import org.eclipse.che.api.vfs.server.VirtualFile;
+import org.eclipse.che.api.vfs.server.VirtualFileSystemUser;
+import org.eclipse.che.api.vfs.server.VirtualFileSystemUserContext;
+import org.eclipse.che.api.vfs.server.impl.memory.MemoryMountPoint;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public class FolderSnapshotTest {
+    private static final String      workspace     = "my_ws";
+    private static final String      vfsUserName   = "dev";
+    private static final Set<String> vfsUserGroups = new LinkedHashSet<>(Arrays.asList("workspace/developer"));
+
+    private VirtualFile    myVfFolder;
+    private FolderSnapshot snapshot;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        MemoryMountPoint mmp = new MemoryMountPoint(workspace, new EventService(), null, new VirtualFileSystemUserContext() {
+            @Override
+            public VirtualFileSystemUser getVirtualFileSystemUser() {
+                return new VirtualFileSystemUser(vfsUserName, vfsUserGroups);
+            }
+        }, new SystemPathsFilter(Collections.singleton(new ProjectMiscPathFilter())));
+        myVfFolder = mmp.getRoot().createFolder("my_project");
+        myVfFolder.createFile("pom.xml", new ByteArrayInputStream("<project/>".getBytes()));
+        myVfFolder.createFolder("src").createFile("Main.java", new ByteArrayInputStream("class Main {}".getBytes()));
+        snapshot = new FolderSnapshot(new FolderEntry(workspace, myVfFolder));
+    }
+
+    @Test
+    public void testChildrenAreListedOnce() throws Exception {
+        Assert.assertEquals(snapshot.getChildren().size(), 2);
+        myVfFolder.createFile("package.json", new ByteArrayInputStream("{}".getBytes()));
+        Assert.assertEquals(snapshot.getChildren().size(), 2);
+        Assert.assertEquals(snapshot.getChildFiles().size(), 1);
+        Assert.assertEquals(snapshot.getChildFolders().size(), 1);
+    }
+
+    @Test
+    public void testMissedChildIsRemembered() throws Exception {
+        Assert.assertNull(snapshot.getChild("package.json"));
+        myVfFolder.createFile("package.json", new ByteArrayInputStream("{}".getBytes()));
+        Assert.assertNull(snapshot.getChild("package.json"));
+    }
+
+    @Test
+    public void testContentOfSmallFileIsShared() throws Exception {
+        FileEntry pom = (FileEntry)snapshot.getChild("pom.xml");
+        Assert.assertEquals(new String(pom.contentAsBytes()), "<project/>");
+        myVfFolder.getChild("pom.xml").updateContent(new ByteArrayInputStream("<updated/>".getBytes()), null);
+        FileEntry samePom = snapshot.getChildFiles().get(0);
+        Assert.assertEquals(new String(samePom.contentAsBytes()), "<project/>");
+    }
+
+    @Test
+    public void testSubFoldersShareSnapshot() throws Exception {
+        FolderEntry src = snapshot.getChildFolders().get(0);
+        Assert.assertTrue(src instanceof FolderSnapshot);
+        Assert.assertEquals(new String(((FileEntry)src.getChild("Main.java")).contentAsBytes()), "class Main {}");
+    }
+}
@@ -36,9 +36,11 @@ import org.eclipse.che.api.project.server.handlers.ProjectHandlerRegistry;
 import org.eclipse.che.api.project.server.type.AttributeValue;
 import org.eclipse.che.api.project.server.type.ProjectTypeDef;
 import org.eclipse.che.api.project.server.type.ProjectTypeRegistry;
+import org.eclipse.che.api.project.server.watcher.FileChangesEvent;
 import org.eclipse.che.api.project.shared.dto.CopyOptions;
 import org.eclipse.che.api.project.shared.dto.ItemReference;
 import org.eclipse.che.api.project.shared.dto.MoveOptions;
+import org.eclipse.che.api.project.shared.dto.SourceEstimation;
 import org.eclipse.che.api.project.shared.dto.TreeElement;
 import org.eclipse.che.api.user.server.dao.UserDao;
 import org.eclipse.che.api.vfs.server.ContentStream;
@@ -88,6 +90,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Application;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -102,6 +105,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -119,12 +123,16 @@ import static org.eclipse.che.dto.server.DtoFactory.newDto;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * @author andrew00x
@@ -140,6 +148,7 @@ public class ProjectServiceTest {
     private static final String      apiEndpoint   = "http://localhost:8080/che/api";
 
     private ProjectManager          pm;
+    private EventService            eventService;
     private ResourceLauncher        launcher;
     private ProjectImporterRegistry importerRegistry;
     private ProjectHandlerRegistry  phRegistry;
@@ -166,7 +175,7 @@ public class ProjectServiceTest {
     @BeforeMethod
     public void setUp() throws Exception {
         when(filterProvider.get()).thenReturn(filter);
-        final EventService eventService = new EventService();
+        eventService = new EventService();
         VirtualFileSystemRegistry vfsRegistry = new VirtualFileSystemRegistry();
 
         final MemoryFileSystemProvider memoryFileSystemProvider =
@@ -304,6 +313,25 @@ public class ProjectServiceTest {
         assertNotNull(badProject.getProblems());
     }
 
+    @Test
+    public void testGetProjectsFetchesWorkspaceOnce() throws Exception {
+        final FolderEntry root = pm.getProjectsRoot(workspace);
+        for (int i = 0; i < 5; i++) {
+            root.createFolder("project" + i);
+            projects.add(newDto(ProjectConfigDto.class).withPath("/project" + i)
+                                                       .withName("project" + i)
+                                                       .withType("my_project_type"));
+        }
+        final HttpJsonResponse workspaceResponse = mock(HttpJsonResponse.class);
+        when(workspaceResponse.asDto(UsersWorkspaceDto.class)).thenReturn(usersWorkspaceMock);
+        when(httpJsonRequest.request()).thenReturn(workspaceResponse);
+
+        assertEquals(pm.getProjects(workspace).size(), 6);
+        assertEquals(pm.getProjects(workspace).size(), 6);
+
+        verify(workspaceResponse, times(1)).asDto(UsersWorkspaceDto.class);
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void testGetModules() throws Exception {
@@ -649,17 +677,27 @@ public class ProjectServiceTest {
         when(projectConfig.getType()).thenReturn("my_project_type");
 
         final ProjectConfigDto moduleConfig = mock(ProjectConfigDto.class);
-        when(moduleConfig.getPath()).thenReturn("/todel");
+        when(moduleConfig.getPath()).thenReturn("/my_project/todel");
         when(moduleConfig.getName()).thenReturn("todel");
         when(moduleConfig.getType()).thenReturn("my_project_type");
 
         when(projectConfig.getModules()).thenReturn(singletonList(moduleConfig));
 
+        // Manager returns copies of configurations, so Workspace API must keep updated configuration of project
+        doAnswer(invocation -> {
+            final Object body = invocation.getArguments()[0];
+            if (body instanceof ProjectConfigDto && "/my_project".equals(((ProjectConfigDto)body).getPath())) {
+                projects.set(0, (ProjectConfigDto)body);
+            }
+            return httpJsonRequest;
+        }).when(httpJsonRequest).setBody(any(Object.class));
+
         pm.createProject(workspace, "project", new ProjectConfigImpl(projectConfig), null);
         pm.addModule(workspace, "my_project", moduleConfig, null);
 
         assertEquals(pm.getProject(workspace, "my_project").getConfig().getModules().size(), 1);
-        assertEquals(pm.getProject(workspace, "my_project").getConfig().getModules().iterator().next().getPath(), "/todel");
+        assertEquals(pm.getProject(workspace, "my_project").getConfig().getModules().iterator().next().getPath(),
+                     "/my_project/todel");
 
         ContainerResponse response = launcher.service(DELETE,
                                                       String.format("http://localhost:8080/api/project/%s/module/my_project?" +
@@ -669,6 +707,35 @@ public class ProjectServiceTest {
 
         assertEquals(response.getStatus(), 204, "Error: " + response.getEntity());
         verify(projectConfig, times(2)).getModules();
+        assertTrue(pm.getProject(workspace, "my_project").getConfig().getModules().isEmpty());
+    }
+
+    @Test
+    public void testProjectConfigurationsFromWorkspaceAreCopies() throws Exception {
+        final ProjectConfigDto projectConfig = pm.getProjectFromWorkspace(workspace, "my_project");
+        projectConfig.setDescription("changed");
+        projectConfig.getModules().add(newDto(ProjectConfigDto.class).withPath("/my_project/phantom"));
+        ((DefaultProjectManager)pm).getAllProjectsFromWorkspace(workspace).get(0).setDescription("changed");
+
+        final ProjectConfigDto cached = pm.getProjectFromWorkspace(workspace, "my_project");
+        assertEquals(cached.getDescription(), "my test project");
+        assertTrue(cached.getModules().isEmpty());
+        assertTrue(modules.isEmpty());
+    }
+
+    @Test
+    public void testFailedModuleCreationDoesNotChangeCachedProject() throws Exception {
+        final ProjectConfigDto moduleConfig = newDto(ProjectConfigDto.class).withName("phantom").withType("my_project_type");
+
+        try {
+            // parent folder of module doesn't exist
+            pm.addModule(workspace, "my_project/missing", moduleConfig, null);
+            fail("NotFoundException expected");
+        } catch (NotFoundException expected) {
+        }
+
+        assertTrue(pm.getProjectFromWorkspace(workspace, "my_project").getModules().isEmpty());
+        assertTrue(modules.isEmpty());
     }
 
     @Test
@@ -1973,6 +2040,106 @@ public class ProjectServiceTest {
         Assert.assertFalse(names.contains("x/test.txt"));
     }
 
+    @Test
+    public void testGetTreeWithMaxItems() throws Exception {
+        Project myProject = pm.getProject(workspace, "my_project");
+        FolderEntry a = myProject.getBaseFolder().createFolder("a");
+        a.createFolder("b/c");
+        a.createFolder("x/y");
+        ContainerResponse response = launcher.service(GET,
+                                                      String.format(
+                                                              "http://localhost:8080/api/project/%s/tree/my_project/a?depth=2&maxItems=2",
+                                                              workspace),
+                                                      "http://localhost:8080/api", null, null, null);
+        assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
+        TreeElement tree = (TreeElement)response.getEntity();
+        Assert.assertNull(tree.getContinuation());
+        List<TreeElement> children = tree.getChildren();
+        assertEquals(children.size(), 2);
+        Map<String, String> continuations = new HashMap<>(2);
+        for (TreeElement subTree : children) {
+            Assert.assertTrue(subTree.getChildren().isEmpty());
+            continuations.put(subTree.getNode().getName(), subTree.getContinuation());
+        }
+        assertEquals(continuations.keySet(), new HashSet<>(Arrays.asList("b", "x")));
+        assertNotNull(continuations.get("b"));
+
+        response = launcher.service(GET,
+                                    String.format("http://localhost:8080/api/project/%s/tree/my_project/a/b?continuation=%s",
+                                                  workspace, continuations.get("b")),
+                                    "http://localhost:8080/api", null, null, null);
+        assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
+        tree = (TreeElement)response.getEntity();
+        assertEquals(tree.getChildren().size(), 1);
+        assertEquals(tree.getChildren().get(0).getNode().getName(), "c");
+    }
+
+    @Test
+    public void testGetTreeContinuesPartiallyExpandedFolder() throws Exception {
+        FolderEntry a = pm.getProject(workspace, "my_project").getBaseFolder().createFolder("a");
+        a.createFolder("b");
+        a.createFolder("x");
+        a.createFolder("y");
+        ContainerResponse response = launcher.service(GET,
+                                                      String.format(
+                                                              "http://localhost:8080/api/project/%s/tree/my_project/a?maxItems=2",
+                                                              workspace),
+                                                      "http://localhost:8080/api", null, null, null);
+        assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
+        TreeElement tree = (TreeElement)response.getEntity();
+        assertEquals(tree.getChildren().size(), 2);
+        assertEquals(tree.getChildren().get(0).getNode().getName(), "b");
+        assertEquals(tree.getChildren().get(1).getNode().getName(), "x");
+        assertNotNull(tree.getContinuation());
+
+        response = launcher.service(GET,
+                                    String.format("http://localhost:8080/api/project/%s/tree/my_project/a?continuation=%s",
+                                                  workspace, tree.getContinuation()),
+                                    "http://localhost:8080/api", null, null, null);
+        assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
+        tree = (TreeElement)response.getEntity();
+        assertEquals(tree.getChildren().size(), 1);
+        assertEquals(tree.getChildren().get(0).getNode().getName(), "y");
+        Assert.assertNull(tree.getContinuation());
+    }
+
+    @Test
+    public void testGetTreeWithInvalidContinuation() throws Exception {
+        pm.getProject(workspace, "my_project").getBaseFolder().createFolder("a");
+        ContainerResponse response = launcher.service(GET,
+                                                      String.format(
+                                                              "http://localhost:8080/api/project/%s/tree/my_project/a?continuation=xxx",
+                                                              workspace),
+                                                      "http://localhost:8080/api", null, null, null);
+        assertEquals(response.getStatus(), 400);
+    }
+
+    @Test
+    public void testGetTreeStream() throws Exception {
+        Project myProject = pm.getProject(workspace, "my_project");
+        FolderEntry a = myProject.getBaseFolder().createFolder("a");
+        a.createFolder("b/c");
+        a.createFolder("x").createFile("test.txt", "test".getBytes());
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+        ContainerResponse response = launcher.service(GET,
+                                                      String.format(
+                                                              "http://localhost:8080/api/project/%s/tree/my_project/a?depth=100&includeFiles=true&stream=true",
+                                                              workspace),
+                                                      "http://localhost:8080/api", null, null, writer, null);
+        assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
+        TreeElement tree = DtoFactory.getInstance().createDtoFromJson(new String(writer.getBody(), "UTF-8"), TreeElement.class);
+        assertEquals(tree.getNode().getName(), "a");
+        Set<String> names = new LinkedHashSet<>(4);
+        for (TreeElement subTree : tree.getChildren()) {
+            String name = subTree.getNode().getName();
+            names.add(name);
+            for (TreeElement subSubTree : subTree.getChildren()) {
+                names.add(name + "/" + subSubTree.getNode().getName());
+            }
+        }
+        assertEquals(names, new HashSet<>(Arrays.asList("b", "x", "b/c", "x/test.txt")));
+    }
+
     @Test
     public void testSwitchProjectVisibilityToPrivate() throws Exception {
         Project myProject = pm.getProject(workspace, "my_project");
@@ -2433,6 +2600,100 @@ public class ProjectServiceTest {
         assertEquals(response.getStatus(), 409, "Error: " + response.getEntity());
     }
 
+    @Test
+    public void testResolveSourcesReusesEstimations() throws Exception {
+        VirtualFile root = pm.getVirtualFileSystemRegistry().getProvider("my_ws").getMountPoint(false).getRoot();
+        root.createFolder("testResolveSources").createFolder("check");
+        AtomicInteger estimations = registerCountingProjectType();
+
+        assertTrue(containsType(pm.resolveSources(workspace, "/testResolveSources", false), "testResolveSourcesPT"));
+        assertTrue(containsType(pm.resolveSources(workspace, "testResolveSources/", false), "testResolveSourcesPT"));
+        assertEquals(estimations.get(), 1);
+    }
+
+    @Test
+    public void testResolveSourcesAfterFolderIsChanged() throws Exception {
+        VirtualFile root = pm.getVirtualFileSystemRegistry().getProvider("my_ws").getMountPoint(false).getRoot();
+        VirtualFile folder = root.createFolder("testResolveSources");
+        AtomicInteger estimations = registerCountingProjectType();
+        ((DefaultProjectManager)pm).start();
+        try {
+            assertFalse(containsType(pm.resolveSources(workspace, "/testResolveSources", false), "testResolveSourcesPT"));
+
+            folder.createFolder("check");
+
+            assertTrue(containsType(pm.resolveSources(workspace, "/testResolveSources", false), "testResolveSourcesPT"));
+            assertEquals(estimations.get(), 2);
+        } finally {
+            ((DefaultProjectManager)pm).stop();
+        }
+    }
+
+    @Test
+    public void testResolveSourcesAfterFilesAreChangedOnFileSystem() throws Exception {
+        VirtualFile root = pm.getVirtualFileSystemRegistry().getProvider("my_ws").getMountPoint(false).getRoot();
+        root.createFolder("testResolveSources").createFolder("check");
+        AtomicInteger estimations = registerCountingProjectType();
+        ((DefaultProjectManager)pm).start();
+        try {
+            pm.resolveSources(workspace, "/testResolveSources", false);
+
+            eventService.publish(new FileChangesEvent("another_ws", singletonList(
+                    new FileChangesEvent.Change("testResolveSources" + File.separator + "pom.xml", FileChangesEvent.ChangeType.CREATED))));
+            eventService.publish(new FileChangesEvent(workspace, singletonList(
+                    new FileChangesEvent.Change("my_project" + File.separator + "pom.xml", FileChangesEvent.ChangeType.CREATED))));
+            pm.resolveSources(workspace, "/testResolveSources", false);
+            assertEquals(estimations.get(), 1);
+
+            eventService.publish(new FileChangesEvent(workspace, singletonList(
+                    new FileChangesEvent.Change("testResolveSources" + File.separator + "pom.xml", FileChangesEvent.ChangeType.CREATED))));
+            pm.resolveSources(workspace, "/testResolveSources", false);
+            assertEquals(estimations.get(), 2);
+        } finally {
+            ((DefaultProjectManager)pm).stop();
+        }
+    }
+
+    /** Registers project type which matches folder with child 'check' and counts estimations of folders. */
+    private AtomicInteger registerCountingProjectType() throws Exception {
+        final AtomicInteger estimations = new AtomicInteger();
+        final ValueProviderFactory vpf = projectFolder -> new ValueProvider() {
+            @Override
+            public List<String> getValues(String attributeName) throws ValueStorageException {
+                estimations.incrementAndGet();
+                VirtualFileEntry file;
+                try {
+                    file = projectFolder.getChild("check");
+                } catch (ForbiddenException | ServerException e) {
+                    throw new ValueStorageException(e.getMessage());
+                }
+                if (file == null) {
+                    throw new ValueStorageException("Check not found");
+                }
+                return singletonList("checked");
+            }
+
+            @Override
+            public void setValues(String attributeName, List<String> value) {
+            }
+        };
+        pm.getProjectTypeRegistry().registerProjectType(new ProjectTypeDef("testResolveSourcesPT", "testResolveSources type", true, false) {
+            {
+                addVariableDefinition("calculated_attribute", "attr description", true, vpf);
+            }
+        });
+        return estimations;
+    }
+
+    private boolean containsType(List<SourceEstimation> estimations, String type) {
+        for (SourceEstimation estimation : estimations) {
+            if (type.equals(estimation.getType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void validateFileLinks(ItemReference item) {
         Link link = item.getLink("delete");
         assertNotNull(link);
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.project.shared.dto.TreeElement;
+import org.everrest.core.impl.uri.UriBuilderImpl;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class ProjectTreeBuilderTest {
+    private ForkJoinPool   pool;
+    private ProjectManager projectManager;
+    private UriBuilder     uriBuilder;
+
+    @BeforeMethod
+    public void setUp() {
+        pool = new ForkJoinPool(2);
+        projectManager = mock(ProjectManager.class);
+        uriBuilder = new UriBuilderImpl().uri("http://localhost:8080/api").path(ProjectService.class);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void shouldParseContinuationToken() {
+        ProjectTreeBuilder.Continuation continuation =
+                ProjectTreeBuilder.parseContinuationToken(ProjectTreeBuilder.continuationToken(3, 5));
+        assertEquals(continuation.depth, 3);
+        assertEquals(continuation.offset, 5);
+
+        continuation = ProjectTreeBuilder.parseContinuationToken("2");
+        assertEquals(continuation.depth, 2);
+        assertEquals(continuation.offset, 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void shouldRejectContinuationTokenWithNegativeOffset() {
+        ProjectTreeBuilder.parseContinuationToken("1:-1");
+    }
+
+    @Test
+    public void shouldResumeListingOfChildrenFromContinuationToken() throws Exception {
+        FolderEntry root = folder("/my_project/a", folder("/my_project/a/b"), folder("/my_project/a/c"), folder("/my_project/a/d"));
+
+        TreeElement tree = new ProjectTreeBuilder(pool, projectManager, uriBuilder, false, 2).build(root, 1, 0);
+        assertEquals(names(tree.getChildren()), Arrays.asList("b", "c"));
+        assertEquals(tree.getContinuation(), ProjectTreeBuilder.continuationToken(1, 2));
+
+        ProjectTreeBuilder.Continuation continuation = ProjectTreeBuilder.parseContinuationToken(tree.getContinuation());
+        tree = new ProjectTreeBuilder(pool, projectManager, uriBuilder, false, 2).build(root, continuation.depth, continuation.offset);
+        assertEquals(names(tree.getChildren()), Collections.singletonList("d"));
+        assertNull(tree.getContinuation());
+    }
+
+    @Test
+    public void shouldFailBeforeStreamIsWrittenWhenChildrenOfRootCannotBeListed() throws Exception {
+        FolderEntry root = folder("/my_project/a");
+        when(root.getChildFolders()).thenThrow(new ServerException("listing failed"));
+
+        try {
+            new ProjectTreeBuilder(pool, projectManager, uriBuilder, false, 0).stream(root, 2, 0);
+            fail("ServerException expected");
+        } catch (ServerException e) {
+            assertEquals(e.getMessage(), "listing failed");
+        }
+    }
+
+    @Test
+    public void shouldCutOffStreamWhenSubtreeCannotBeListed() throws Exception {
+        FolderEntry b = folder("/my_project/a/b");
+        when(b.getChildFolders()).thenThrow(new ServerException("listing failed"));
+        FolderEntry root = folder("/my_project/a", folder("/my_project/a/a"), b);
+
+        StreamingOutput output = new ProjectTreeBuilder(pool, projectManager, uriBuilder, false, 0).stream(root, 2, 0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            output.write(out);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "listing failed");
+        }
+        String json = out.toString("UTF-8");
+        assertTrue(json.startsWith("{\"node\":"));
+        assertFalse(json.endsWith("}"));
+    }
+
+    private FolderEntry folder(String path, FolderEntry... children) throws ServerException {
+        FolderEntry folder = mock(FolderEntry.class);
+        when(folder.getWorkspace()).thenReturn("my_ws");
+        when(folder.getPath()).thenReturn(path);
+        when(folder.getName()).thenReturn(path.substring(path.lastIndexOf('/') + 1));
+        when(folder.isFolder()).thenReturn(true);
+        when(folder.getChildFolders()).thenReturn(Arrays.asList(children));
+        return folder;
+    }
+
+    private List<String> names(List<TreeElement> elements) {
+        List<String> names = new ArrayList<>(elements.size());
+        for (TreeElement element : elements) {
+            names.add(element.getNode().getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server.watcher;
+
+import org.eclipse.che.api.core.notification.EventService;
+import org.eclipse.che.api.core.notification.EventSubscriber;
+import org.eclipse.che.api.project.server.FilesBuffer;
+import org.eclipse.che.api.project.server.watcher.FileChangesEvent.Change;
+import org.eclipse.che.api.project.server.watcher.FileChangesEvent.ChangeType;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+public class WatcherTest {
+    private static final long TIMEOUT_MS = 10000;
+
+    private EventService                      eventService;
+    private BlockingQueue<FileChangesEvent>   events;
+    private EventSubscriber<FileChangesEvent> subscriber;
+    private Watcher                           watcher;
+    private Path                              root;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("watcher");
+        eventService = new EventService();
+        events = new LinkedBlockingQueue<>();
+        subscriber = new EventSubscriber<FileChangesEvent>() {
+            @Override
+            public void onEvent(FileChangesEvent event) {
+                events.add(event);
+            }
+        };
+        eventService.subscribe(subscriber);
+        watcher = new Watcher(eventService, FilesBuffer.get());
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        watcher.close();
+        eventService.unsubscribe(subscriber);
+        delete(root.toFile());
+    }
+
+    @Test
+    public void shouldPublishChangesInOneBatch() throws Exception {
+        watcher.watch("ws", root);
+
+        Files.createFile(root.resolve("a.txt"));
+        Files.createFile(root.resolve("b.txt"));
+        Files.createFile(root.resolve("c.txt"));
+
+        FileChangesEvent event = events.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(event);
+        assertEquals(event.getChanges().size(), 3);
+        for (Change change : event.getChanges()) {
+            assertEquals(change.getType(), ChangeType.CREATED);
+        }
+    }
+
+    @Test
+    public void shouldWatchFoldersCreatedAfterRegistration() throws Exception {
+        watcher.watch("ws", root);
+
+        Files.createDirectory(root.resolve("src"));
+        assertEquals(collectChanges(1).get("src"), ChangeType.CREATED);
+
+        Files.createFile(root.resolve("src").resolve("Main.java"));
+        assertEquals(collectChanges(1).get("src" + File.separator + "Main.java"), ChangeType.CREATED);
+    }
+
+    @Test
+    public void shouldNotWatchServiceFolders() throws Exception {
+        Files.createDirectory(root.resolve(".git"));
+        watcher.watch("ws", root);
+
+        Files.createFile(root.resolve(".git").resolve("index"));
+        Files.createFile(root.resolve("a.txt"));
+
+        Map<String, ChangeType> changes = collectChanges(1);
+        assertEquals(changes.get("a.txt"), ChangeType.CREATED);
+        assertNull(changes.get(".git" + File.separator + "index"));
+    }
+
+    @Test
+    public void shouldPublishFileDeletedAndCreatedInOneBatchAsCreated() throws Exception {
+        Path file = Files.createFile(root.resolve("a.txt"));
+        Path folder = Files.createDirectory(root.resolve("src"));
+        watcher.watch("ws", root);
+
+        Files.delete(file);
+        Files.delete(folder);
+        Files.createFile(file);
+        Files.createDirectory(folder);
+
+        Map<String, ChangeType> changes = collectChanges(2);
+        assertEquals(changes.get("a.txt"), ChangeType.CREATED);
+        assertEquals(changes.get("src"), ChangeType.CREATED);
+    }
+
+    @Test
+    public void shouldIgnoreRepeatedRegistration() throws Exception {
+        watcher.watch("ws", root);
+        watcher.watch("ws", root);
+
+        Files.createFile(root.resolve("a.txt"));
+
+        FileChangesEvent event = events.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(event);
+        assertEquals(event.getWorkspaceId(), "ws");
+        assertEquals(event.getChanges().size(), 1);
+        assertNull(events.poll(Watcher.MAX_DELAY_MS * 2, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldNotifyAllWorkspacesThatWatchFolder() throws Exception {
+        watcher.watch("ws1", root);
+        watcher.watch("ws2", root);
+
+        Files.createFile(root.resolve("a.txt"));
+
+        Map<String, Integer> workspaces = new HashMap<>();
+        for (int i = 0; i < 2; i++) {
+            FileChangesEvent event = events.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            assertNotNull(event);
+            workspaces.put(event.getWorkspaceId(), event.getChanges().size());
+        }
+        assertEquals(workspaces.get("ws1"), Integer.valueOf(1));
+        assertEquals(workspaces.get("ws2"), Integer.valueOf(1));
+    }
+
+    @Test
+    public void shouldStopPublishingChangesWhenWorkspaceIsNotWatched() throws Exception {
+        watcher.watch("ws", root);
+        watcher.unwatch("ws");
+
+        Files.createFile(root.resolve("a.txt"));
+
+        assertNull(events.poll(Watcher.MAX_DELAY_MS * 2, TimeUnit.MILLISECONDS));
+    }
+
+    /** Collects changes from published events until {@code expected} number of files are changed. */
+    private Map<String, ChangeType> collectChanges(int expected) throws Exception {
+        Map<String, ChangeType> changes = new HashMap<>();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (changes.size() < expected) {
+            FileChangesEvent event = events.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            assertNotNull(event, "Changes are not published, got only " + changes);
+            for (Change change : event.getChanges()) {
+                changes.put(change.getPath(), change.getType());
+            }
+        }
+        return changes;
+    }
+
+    private void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
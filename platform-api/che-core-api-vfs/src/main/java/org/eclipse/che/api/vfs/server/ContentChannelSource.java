@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Content of file that is read from the file system when it is needed. Implementation may send content directly from the
+ * {@link java.nio.channels.FileChannel} of file, see {@link java.nio.channels.FileChannel#transferTo(long, long,
+ * WritableByteChannel)}, instead of copying it to the temporary file or
+ * memory buffer.
+ *
+ * @see ContentStream#getChannelSource()
+ */
+public interface ContentChannelSource {
+    /**
+     * Opens new stream to read content of file. Stream doesn't depend on the state of file after this method returns.
+     *
+     * @throws IOException
+     *         if file can't be read or it was changed after {@link ContentStream} was created
+     */
+    InputStream openStream() throws IOException;
+
+    /**
+     * Copies part of content of file to the {@code target} channel.
+     *
+     * @param position
+     *         position in file of the first byte to copy
+     * @param count
+     *         number of bytes to copy
+     * @param target
+     *         target channel
+     * @throws IOException
+     *         if file can't be read or it was changed after {@link ContentStream} was created. In latter case some bytes
+     *         might be already written to the {@code target} channel
+     */
+    void transferTo(long position, long count, WritableByteChannel target) throws IOException;
+}
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.eclipse.che.api.vfs.server;
 
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Date;
 
@@ -21,18 +24,18 @@ public final class ContentStream {
 
     private final InputStream stream;
 
+    private final ContentChannelSource channelSource;
+
     private final String mimeType;
 
+    private final long offset;
+
     private final long length;
 
     private final Date lastModificationDate;
 
     public ContentStream(String fileName, InputStream stream, String mimeType, long length, Date lastModificationDate) {
-        this.fileName = fileName;
-        this.stream = stream;
-        this.mimeType = mimeType;
-        this.length = length;
-        this.lastModificationDate = lastModificationDate;
+        this(fileName, stream, null, mimeType, 0, length, lastModificationDate);
     }
 
     public ContentStream(String fileName, InputStream stream, String mimeType, Date lastModificationDate) {
@@ -43,6 +46,31 @@ public final class ContentStream {
         this(fileName, stream, mimeType, -1, new Date());
     }
 
+    /**
+     * Creates ContentStream that reads content of file with {@code channelSource} only when content is needed.
+     *
+     * @param length
+     *         length of file, must not be negative
+     */
+    public ContentStream(String fileName, ContentChannelSource channelSource, String mimeType, long length, Date lastModificationDate) {
+        this(fileName, new RangeInputStream(null, channelSource, 0, length), channelSource, mimeType, 0, length,
+             lastModificationDate);
+        if (length < 0) {
+            throw new IllegalArgumentException("Length of file must not be negative. ");
+        }
+    }
+
+    private ContentStream(String fileName, InputStream stream, ContentChannelSource channelSource, String mimeType, long offset,
+                          long length, Date lastModificationDate) {
+        this.fileName = fileName;
+        this.stream = stream;
+        this.channelSource = channelSource;
+        this.mimeType = mimeType;
+        this.offset = offset;
+        this.length = length;
+        this.lastModificationDate = lastModificationDate;
+    }
+
     public String getFileName() {
         return fileName;
     }
@@ -51,10 +79,24 @@ public final class ContentStream {
         return stream;
     }
 
+    /**
+     * Gets source that gives direct access to the file. If this method returns not {@code null} value then content may be sent
+     * with {@link ContentChannelSource#transferTo(long, long, java.nio.channels.WritableByteChannel)} instead of reading it
+     * from {@link #getStream()}. Content starts at position {@link #getOffset()} of file and has {@link #getLength()} bytes.
+     */
+    public ContentChannelSource getChannelSource() {
+        return channelSource;
+    }
+
     public String getMimeType() {
         return mimeType;
     }
 
+    /** Position of the first byte of this content in file. Is not zero if this ContentStream is created with {@link #range}. */
+    public long getOffset() {
+        return offset;
+    }
+
     public long getLength() {
         return length;
     }
@@ -62,4 +104,93 @@ public final class ContentStream {
     public Date getLastModificationDate() {
         return lastModificationDate;
     }
+
+    /**
+     * Creates ContentStream that contains part of this content. This ContentStream must not be used after calling of this
+     * method.
+     *
+     * @param offset
+     *         position of the first byte of part relative to the start of this content
+     * @param length
+     *         number of bytes in part
+     */
+    public ContentStream range(long offset, long length) {
+        if (offset < 0 || length < 0 || (this.length >= 0 && offset + length > this.length)) {
+            throw new IllegalArgumentException(String.format("Invalid range %d-%d. ", offset, offset + length - 1));
+        }
+        if (channelSource != null) {
+            return new ContentStream(fileName, new RangeInputStream(null, channelSource, this.offset + offset, length),
+                                     channelSource, mimeType, this.offset + offset, length, lastModificationDate);
+        }
+        return new ContentStream(fileName, new RangeInputStream(stream, null, offset, length), null, mimeType, 0, length,
+                                 lastModificationDate);
+    }
+
+    /** Stream that is opened at first read and returns {@code length} bytes starting from {@code offset} of the source. */
+    private static final class RangeInputStream extends InputStream {
+        private final InputStream          source;
+        private final ContentChannelSource channelSource;
+        private final long                 offset;
+        private final long                 length;
+
+        private InputStream delegate;
+        private boolean     closed;
+
+        RangeInputStream(InputStream source, ContentChannelSource channelSource, long offset, long length) {
+            this.source = source;
+            this.channelSource = channelSource;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private InputStream delegate() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed. ");
+            }
+            if (delegate == null) {
+                final InputStream in = channelSource == null ? source : channelSource.openStream();
+                try {
+                    ByteStreams.skipFully(in, offset);
+                } catch (IOException e) {
+                    in.close();
+                    throw e;
+                }
+                delegate = length < 0 ? in : ByteStreams.limit(in, length);
+            }
+            return delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return delegate().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return delegate().read(b, off, len);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return delegate().skip(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate().available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (delegate != null) {
+                delegate.close();
+            } else if (source != null) {
+                source.close();
+            }
+        }
+    }
 }
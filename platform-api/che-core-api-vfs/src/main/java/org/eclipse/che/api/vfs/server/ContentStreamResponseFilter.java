@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server;
+
+import org.everrest.core.ApplicationContext;
+import org.everrest.core.Filter;
+import org.everrest.core.GenericContainerResponse;
+import org.everrest.core.ResponseFilter;
+import org.everrest.core.impl.ApplicationContextImpl;
+
+import javax.inject.Singleton;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Supports conditional and partial requests for content of files. Filter is applied to successful GET responses that contain
+ * {@link ContentStream} with known length and modification date.
+ * <ul>
+ * <li>ETag of content is built from modification date and length of file. Requests with matched {@code If-None-Match} or
+ * {@code If-Modified-Since} header get response 304 without content.</li>
+ * <li>Requests with {@code Range} header get response 206 with requested part of content. Only single range of bytes is
+ * supported, for multiple ranges the whole content is sent. Range is ignored if {@code If-Range} header doesn't match
+ * current ETag or modification date of file.</li>
+ * </ul>
+ */
+@Filter
+@Singleton
+public class ContentStreamResponseFilter implements ResponseFilter {
+    private static final String ACCEPT_RANGES = "Accept-Ranges";
+    private static final String CONTENT_RANGE = "Content-Range";
+    private static final String RANGE         = "Range";
+    private static final String IF_RANGE      = "If-Range";
+
+    private static final int PARTIAL_CONTENT                 = 206;
+    private static final int REQUESTED_RANGE_NOT_SATISFIABLE = 416;
+
+    @Override
+    public void doFilter(GenericContainerResponse containerResponse) {
+        final Object entity = containerResponse.getEntity();
+        if (!(entity instanceof ContentStream) || containerResponse.getStatus() != Response.Status.OK.getStatusCode()) {
+            return;
+        }
+        final ContentStream content = (ContentStream)entity;
+        final Date lastModificationDate = content.getLastModificationDate();
+        final long length = content.getLength();
+        if (lastModificationDate == null || length < 0) {
+            return;
+        }
+        final ApplicationContext applicationContext = ApplicationContextImpl.getCurrent();
+        final Request request = applicationContext.getRequest();
+        if (!(HttpMethod.GET.equals(request.getMethod()) || HttpMethod.HEAD.equals(request.getMethod()))) {
+            return;
+        }
+
+        final EntityTag entityTag = getEntityTag(lastModificationDate, length);
+        final Response.ResponseBuilder notModified = request.evaluatePreconditions(lastModificationDate, entityTag);
+        if (notModified != null) {
+            closeContent(content);
+            containerResponse.setResponse(notModified.tag(entityTag).build());
+            return;
+        }
+
+        final Response.ResponseBuilder responseBuilder = Response.fromResponse(containerResponse.getResponse())
+                                                                 .tag(entityTag)
+                                                                 .header(ACCEPT_RANGES, "bytes");
+        final String range = getSingleHeader(applicationContext, RANGE);
+        if (range != null && isRangeApplicable(getSingleHeader(applicationContext, IF_RANGE), entityTag, lastModificationDate)) {
+            final long[] firstLast = parseRange(range, length);
+            if (firstLast == null) {
+                // Syntax is invalid or multiple ranges are requested, send the whole content.
+            } else if (firstLast.length == 0) {
+                closeContent(content);
+                containerResponse.setResponse(Response.status(REQUESTED_RANGE_NOT_SATISFIABLE)
+                                                      .header(CONTENT_RANGE, "bytes */" + length)
+                                                      .build());
+                return;
+            } else {
+                final long first = firstLast[0];
+                final long last = firstLast[1];
+                responseBuilder.status(PARTIAL_CONTENT)
+                               .entity(content.range(first, last - first + 1))
+                               .header(CONTENT_RANGE, String.format("bytes %d-%d/%d", first, last, length));
+            }
+        }
+        containerResponse.setResponse(responseBuilder.build());
+    }
+
+    static EntityTag getEntityTag(Date lastModificationDate, long length) {
+        return new EntityTag(Long.toHexString(lastModificationDate.getTime()) + '-' + Long.toHexString(length));
+    }
+
+    /** Range is applied if request has no {@code If-Range} header or it matches current state of file. */
+    private boolean isRangeApplicable(String ifRange, EntityTag entityTag, Date lastModificationDate) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(entityTag.toString());
+        }
+        final Date date = parseHttpDate(ifRange);
+        // HTTP dates have precision in seconds.
+        return date != null && date.getTime() / 1000 == lastModificationDate.getTime() / 1000;
+    }
+
+    /**
+     * Parses value of {@code Range} header.
+     *
+     * @return pair of the first and the last position of range; empty array if range can't be satisfied; {@code null} if
+     * header is invalid or contains multiple ranges
+     */
+    static long[] parseRange(String range, long length) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+        final String spec = range.substring("bytes=".length()).trim();
+        final int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        final long first;
+        long last;
+        try {
+            if (dash == 0) {
+                // Suffix range, last N bytes.
+                final long suffix = Long.parseLong(spec.substring(1));
+                if (suffix == 0) {
+                    return new long[0];
+                }
+                first = Math.max(0, length - suffix);
+                last = length - 1;
+            } else {
+                first = Long.parseLong(spec.substring(0, dash));
+                last = dash == spec.length() - 1 ? length - 1 : Long.parseLong(spec.substring(dash + 1));
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (first < 0 || last < first) {
+            return null;
+        }
+        if (first >= length) {
+            return new long[0];
+        }
+        if (last >= length) {
+            last = length - 1;
+        }
+        return new long[]{first, last};
+    }
+
+    private String getSingleHeader(ApplicationContext applicationContext, String name) {
+        final List<String> values = applicationContext.getHttpHeaders().getRequestHeader(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private Date parseHttpDate(String value) {
+        try {
+            return Date.from(ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private void closeContent(ContentStream content) {
+        try {
+            content.getStream().close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -22,11 +22,14 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.channels.Channels;
 import java.util.Date;
 
 /**
  * Serializer for ContentStream. Copy headers and content provided by method {@link ContentStream#getStream()} to HTTP
- * output stream.
+ * output stream. If ContentStream gives direct access to the file with {@link ContentStream#getChannelSource()} then content
+ * is transferred from the file channel with {@link java.nio.channels.FileChannel#transferTo(long, long,
+ * java.nio.channels.WritableByteChannel)} without making temporary copy of file.
  *
  * @author <a href="mailto:aparfonov@exoplatform.com">Andrey Parfonov</a>
  */
@@ -72,6 +75,18 @@ public final class ContentStreamWriter implements MessageBodyWriter<ContentStrea
 
         httpHeaders.putSingle(HttpHeaders.CACHE_CONTROL, "public, no-cache, no-store, no-transform");
 
+        final ContentChannelSource channelSource = t.getChannelSource();
+        if (channelSource != null) {
+            // Content is sent directly from file, stream is not opened at all.
+            try {
+                channelSource.transferTo(t.getOffset(), t.getLength(), Channels.newChannel(entityStream));
+                entityStream.flush();
+            } finally {
+                t.getStream().close();
+            }
+            return;
+        }
+
         try (InputStream content = t.getStream()) {
             byte[] buf = new byte[8192];
             int rd;
@@ -0,0 +1,462 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Advisory file locks. It does not prevent access to the file from other programs.
+ * <p/>
+ * Has the same semantic as {@link PathLockFactory}: shared and exclusive locks, locks are reentrant for the owner thread and
+ * lock of a path conflicts with locks of its parents and children. Unlike {@link PathLockFactory} there is no global monitor.
+ * Locks are kept in a trie that mirrors the locked paths. To lock a path, thread takes intention locks on every parent of the
+ * path (from root to the top) and then the shared or exclusive lock on the path itself. Conflicts with locks of children are
+ * detected by the intention locks so there is no need to look through the whole lock table.
+ * <p/>
+ * Intention locks are taken on the root and on the folders of every locked path, so they are counted in an atomic word of
+ * the node without its monitor. Monitor of the node is used only while shared or exclusive lock of the same node is held or
+ * waited for, then intention locks are taken under the monitor too. Releasing of lock wakes up only threads that wait for the
+ * same node of the trie.
+ * <p/>
+ * Usage:
+ * <pre>
+ *      HierarchicalPathLockFactory lockFactory = ...
+ *
+ *      public void doSomething(Path path)
+ *      {
+ *         HierarchicalPathLockFactory.PathLock exclusiveLock = lockFactory.getLock(path, true).acquire(30000);
+ *         try
+ *         {
+ *            ... // do something
+ *         }
+ *         finally
+ *         {
+ *            exclusiveLock.release();
+ *         }
+ *      }
+ * </pre>
+ */
+public final class HierarchicalPathLockFactory {
+    private static final int MAX_RECURSIVE_LOCKS = (1 << 10) - 1;
+
+    /* Lock modes. Intention modes are taken on all parents of the locked path. */
+    private static final int INTENTION_SHARED    = 0;
+    private static final int INTENTION_EXCLUSIVE = 1;
+    private static final int SHARED              = 2;
+    private static final int EXCLUSIVE           = 3;
+    private static final int MODES               = 4;
+
+    /* Layout of Node.state: number of intention locks taken without monitor of node for each intention mode and flags. */
+    private static final int  INTENTION_BITS = 30;
+    private static final long INTENTION_MASK = (1L << INTENTION_BITS) - 1;
+    /** Shared or exclusive lock of node is held or waited for, intention locks must be taken under monitor of node. */
+    private static final long GUARDED        = 1L << 61;
+    /** Node is removed from the trie. */
+    private static final long RETIRED        = 1L << 62;
+
+    private static final boolean[][] COMPATIBLE = {
+            /*                     IS     IX     S      X    */
+            /* INTENTION_SHARED */ {true, true, true, false},
+            /* INTENTION_EXCL.  */ {true, true, false, false},
+            /* SHARED           */ {true, false, true, false},
+            /* EXCLUSIVE        */ {false, false, false, false}
+    };
+
+    private final Node                       root          = new Node(null, null);
+    /** Intention locks which current thread took without monitor of node, see {@link Node#tryAcquireIntention(int)}. */
+    private final ThreadLocal<OwnIntentions> ownIntentions = ThreadLocal.withInitial(OwnIntentions::new);
+
+    public PathLock getLock(Path path, boolean exclusive) {
+        return new PathLock(path, exclusive);
+    }
+
+    /**
+     * Acquires lock.
+     *
+     * @param timeoutMilliseconds
+     *         maximum time (in milliseconds) to wait for lock, negative value means wait without timeout
+     */
+    private void acquire(Path path, boolean exclusive, long timeoutMilliseconds) {
+        final long endTime = timeoutMilliseconds < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + timeoutMilliseconds;
+        final long threadId = Thread.currentThread().getId();
+        final OwnIntentions intentions = ownIntentions.get();
+        final int depth = path.length();
+        final Node[] locked = new Node[depth + 1];
+        int lockedNum = 0;
+        boolean success = false;
+        try {
+            Node parent = null;
+            for (int i = 0; i <= depth; i++) {
+                final int mode = modeOf(exclusive, i == depth);
+                final String name = i == 0 ? null : path.element(i - 1);
+                final Node node = lockNode(parent, name, mode, threadId, intentions, endTime, path);
+                locked[lockedNum++] = node;
+                parent = node;
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                for (int i = lockedNum - 1; i >= 0; i--) {
+                    releaseNode(locked[i], modeOf(exclusive, i == depth), threadId, intentions);
+                }
+            }
+        }
+    }
+
+    private void release(Path path, boolean exclusive) {
+        final long threadId = Thread.currentThread().getId();
+        final OwnIntentions intentions = ownIntentions.get();
+        final int depth = path.length();
+        final Node[] nodes = new Node[depth + 1];
+        Node node = root;
+        nodes[0] = node;
+        for (int i = 1; i <= depth; i++) {
+            node = node.children.get(path.element(i - 1));
+            if (node == null) {
+                throw new IllegalStateException(String.format("Lock for '%s' is not held by current thread. ", path));
+            }
+            nodes[i] = node;
+        }
+        // Release from the top to the root. Parent must not be released before its children.
+        for (int i = depth; i >= 0; i--) {
+            releaseNode(nodes[i], modeOf(exclusive, i == depth), threadId, intentions);
+        }
+    }
+
+    private Node lockNode(Node parent, String name, int mode, long threadId, OwnIntentions intentions, long endTime, Path path) {
+        for (; ; ) {
+            final Node node = parent == null ? root : parent.getOrCreateChild(name);
+            if (mode < SHARED && node.tryAcquireIntention(mode)) {
+                intentions.add(node, mode);
+                return node;
+            }
+            synchronized (node) {
+                if (node.isRetired()) {
+                    // Node was removed from the trie after we got it, get new one.
+                    continue;
+                }
+                node.acquire(mode, threadId, intentions, endTime, path);
+                return node;
+            }
+        }
+    }
+
+    private void releaseNode(Node node, int mode, long threadId, OwnIntentions intentions) {
+        if (mode < SHARED && intentions.remove(node, mode)) {
+            node.releaseIntention(mode);
+            return;
+        }
+        node.release(mode, threadId);
+    }
+
+    private static int modeOf(boolean exclusive, boolean target) {
+        if (target) {
+            return exclusive ? EXCLUSIVE : SHARED;
+        }
+        return exclusive ? INTENTION_EXCLUSIVE : INTENTION_SHARED;
+    }
+
+    public void checkClean() {
+        synchronized (root) {
+            assert root.holdsByThread.isEmpty() && root.children.isEmpty() && root.state.get() == 0;
+        }
+    }
+
+   /* =============================================== */
+
+    private static class Node {
+        final Node                      parent;
+        final String                    name;
+        final ConcurrentMap<String, Node> children = new ConcurrentHashMap<>();
+        final AtomicLong                state         = new AtomicLong();
+        // Fields below are guarded by monitor of this node.
+        final int[]                     holds         = new int[MODES];
+        final Map<Long, int[]>          holdsByThread = new HashMap<>(4);
+        int                             waiters;
+        /** Number of shared and exclusive locks which are held or waited for, {@link #GUARDED} is set while it isn't zero. */
+        int                             guards;
+
+        Node(Node parent, String name) {
+            this.parent = parent;
+            this.name = name;
+        }
+
+        Node getOrCreateChild(String name) {
+            Node child = children.get(name);
+            if (child == null) {
+                final Node newChild = new Node(this, name);
+                child = children.putIfAbsent(name, newChild);
+                if (child == null) {
+                    child = newChild;
+                }
+            }
+            return child;
+        }
+
+        boolean isRetired() {
+            return (state.get() & RETIRED) != 0;
+        }
+
+        /** Takes intention lock without monitor of this node, fails if lock must be taken under monitor or node is retired. */
+        boolean tryAcquireIntention(int mode) {
+            for (; ; ) {
+                final long current = state.get();
+                if ((current & (GUARDED | RETIRED)) != 0) {
+                    return false;
+                }
+                if (state.compareAndSet(current, current + intentionUnit(mode))) {
+                    return true;
+                }
+            }
+        }
+
+        /** Releases intention lock taken with {@link #tryAcquireIntention(int)}. */
+        void releaseIntention(int mode) {
+            final long current = state.addAndGet(-intentionUnit(mode));
+            if ((current & GUARDED) != 0) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            } else if (current == 0 && parent != null) {
+                synchronized (this) {
+                    retireIfUnused();
+                }
+            }
+        }
+
+        // Must be called when monitor of this node is held.
+        void acquire(int mode, long threadId, OwnIntentions ownIntentions, long endTime, Path path) {
+            int[] own = holdsByThread.get(threadId);
+            if (own != null && own[mode] > MAX_RECURSIVE_LOCKS) {
+                throw new Error("Max number of recursive locks exceeded. ");
+            }
+            final boolean guard = mode >= SHARED;
+            if (guard && guards++ == 0) {
+                // From now on intention locks are taken under monitor, so their releasing wakes up this thread.
+                setGuarded(true);
+            }
+            if (!canAcquire(mode, own, ownIntentions)) {
+                ++waiters;
+                boolean success = false;
+                try {
+                    while (!canAcquire(mode, own, ownIntentions)) {
+                        if (endTime == Long.MAX_VALUE) {
+                            wait();
+                        } else {
+                            final long waitTime = endTime - System.currentTimeMillis();
+                            if (waitTime <= 0) {
+                                throw new RuntimeException(String.format("Get lock timeout for '%s'. ", path));
+                            }
+                            wait(waitTime);
+                        }
+                    }
+                    success = true;
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    --waiters;
+                    if (!success) {
+                        if (guard && --guards == 0) {
+                            setGuarded(false);
+                        }
+                        retireIfUnused();
+                    }
+                }
+            }
+            if (own == null) {
+                own = new int[MODES];
+                holdsByThread.put(threadId, own);
+            }
+            ++own[mode];
+            ++holds[mode];
+        }
+
+        synchronized void release(int mode, long threadId) {
+            final int[] own = holdsByThread.get(threadId);
+            if (own == null || own[mode] == 0) {
+                throw new IllegalStateException("Lock is not held by current thread. ");
+            }
+            --own[mode];
+            --holds[mode];
+            if (mode >= SHARED && --guards == 0) {
+                setGuarded(false);
+            }
+            if (isEmpty(own)) {
+                holdsByThread.remove(threadId);
+            }
+            if (waiters > 0) {
+                notifyAll();
+            } else {
+                retireIfUnused();
+            }
+        }
+
+        /** Locks held by the current thread never prevent it from getting the lock. */
+        private boolean canAcquire(int mode, int[] own, OwnIntentions ownIntentions) {
+            final long current = state.get();
+            for (int m = 0; m < MODES; m++) {
+                int others = holds[m] - (own == null ? 0 : own[m]);
+                if (m < SHARED) {
+                    others += (int)((current >>> (m * INTENTION_BITS)) & INTENTION_MASK)
+                              - ownIntentions.count(this, m);
+                }
+                if (others > 0 && !COMPATIBLE[mode][m]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void setGuarded(boolean guarded) {
+            for (; ; ) {
+                final long current = state.get();
+                if (state.compareAndSet(current, guarded ? current | GUARDED : current & ~GUARDED)) {
+                    return;
+                }
+            }
+        }
+
+        private void retireIfUnused() {
+            // Fails if somebody has taken intention lock without monitor.
+            if (parent != null && waiters == 0 && holdsByThread.isEmpty() && state.compareAndSet(0, RETIRED)) {
+                parent.children.remove(name, this);
+            }
+        }
+
+        private static long intentionUnit(int mode) {
+            return 1L << (mode * INTENTION_BITS);
+        }
+
+        private static boolean isEmpty(int[] holds) {
+            for (int hold : holds) {
+                if (hold != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "Node{" +
+                   "name=" + name +
+                   ", holdsByThread=" + holdsByThread.keySet() +
+                   ", state=" + Long.toHexString(state.get()) +
+                   ", waiters=" + waiters +
+                   '}';
+        }
+    }
+
+    /** Intention locks which thread took without monitor of node. Thread holds few locks at once, so search is linear. */
+    private static class OwnIntentions {
+        Node[] nodes  = new Node[8];
+        // Two intention modes for each node.
+        int[]  counts = new int[16];
+        int    size;
+
+        void add(Node node, int mode) {
+            int index = indexOf(node);
+            if (index < 0) {
+                if (size == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, size * 2);
+                    counts = Arrays.copyOf(counts, size * 4);
+                }
+                index = size++;
+                nodes[index] = node;
+            }
+            ++counts[index * SHARED + mode];
+        }
+
+        /** Returns {@code false} if lock isn't taken by this thread without monitor of node. */
+        boolean remove(Node node, int mode) {
+            final int index = indexOf(node);
+            if (index < 0 || counts[index * SHARED + mode] == 0) {
+                return false;
+            }
+            --counts[index * SHARED + mode];
+            if (counts[index * SHARED] + counts[index * SHARED + 1] == 0) {
+                // Move the last node to the free slot.
+                final int last = --size;
+                nodes[index] = nodes[last];
+                counts[index * SHARED] = counts[last * SHARED];
+                counts[index * SHARED + 1] = counts[last * SHARED + 1];
+                nodes[last] = null;
+                counts[last * SHARED] = 0;
+                counts[last * SHARED + 1] = 0;
+            }
+            return true;
+        }
+
+        int count(Node node, int mode) {
+            final int index = indexOf(node);
+            return index < 0 ? 0 : counts[index * SHARED + mode];
+        }
+
+        private int indexOf(Node node) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] == node) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    public final class PathLock {
+        private final Path    path;
+        private final boolean exclusive;
+
+        private PathLock(Path path, boolean exclusive) {
+            this.path = path;
+            this.exclusive = exclusive;
+        }
+
+        /**
+         * Acquire permit for file. Method is blocked until permit available.
+         *
+         * @return this PathLock instance
+         */
+        public PathLock acquire() {
+            HierarchicalPathLockFactory.this.acquire(path, exclusive, -1);
+            return this;
+        }
+
+        /**
+         * Acquire permit for file if it becomes available within the given timeout. It is the same as method {@link
+         * #acquire()} but with waiting timeout. If waiting timeout reached then RuntimeException thrown.
+         *
+         * @param timeoutMilliseconds
+         *         maximum time (in milliseconds) to wait for access permit
+         * @return this PathLock instance
+         * @throws RuntimeException
+         *         if waiting timeout reached
+         */
+        public PathLock acquire(long timeoutMilliseconds) {
+            HierarchicalPathLockFactory.this.acquire(path, exclusive, timeoutMilliseconds);
+            return this;
+        }
+
+        /** Release file permit. */
+        public void release() {
+            HierarchicalPathLockFactory.this.release(path, exclusive);
+        }
+
+        /** Returns <code>true</code> if this lock is exclusive and <code>false</code> otherwise. */
+        public boolean isExclusive() {
+            return exclusive;
+        }
+    }
+}
@@ -361,7 +361,8 @@ public interface VirtualFile extends Comparable<VirtualFile> {
      *
      * @param filter
      *         filter of file. Only files that are matched to the filter are added in the zip archive
-     * @return zipped content of folder denoted by this VirtualFile
+     * @return zipped content of folder denoted by this VirtualFile. Implementation may write archive while caller reads it, in
+     * this case length of content is unknown and {@link ContentStream#getLength()} returns {@code -1}
      * @throws ForbiddenException
      *         if this item doesn't denote a folder
      * @throws ServerException
@@ -694,7 +694,8 @@ public interface VirtualFileSystem {
      *
      * @param query
      *         set of opaque parameters of query statement. Set of parameters that can be passed by client and how SQL statement (in case
-     *         of SQL storage) created from this parameters is implementation specific
+     *         of SQL storage) created from this parameters is implementation specific. Parameter {@code pageToken} may contain value of
+     *         {@link ItemList#getNextPageToken()} of the previous page of results, in this case {@code skipCount} is ignored
      * @param maxItems
      *         max number of items in response. If {@code -1} then no limit of max items in result set
      * @param skipCount
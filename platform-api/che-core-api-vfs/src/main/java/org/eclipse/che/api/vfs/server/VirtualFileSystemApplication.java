@@ -30,6 +30,7 @@ public class VirtualFileSystemApplication extends Application {
         classes.add(VirtualFileSystemFactory.class);
         singletons = new HashSet<>(4);
         singletons.add(new ContentStreamWriter());
+        singletons.add(new ContentStreamResponseFilter());
         singletons.add(new ApiExceptionMapper());
         singletons.add(new CodenvyJsonProvider(Collections.singleton(ContentStream.class)));
     }
@@ -15,6 +15,7 @@ import org.eclipse.che.api.core.ForbiddenException;
 import org.eclipse.che.api.core.NotFoundException;
 import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.vfs.server.search.QueryExpression;
+import org.eclipse.che.api.vfs.server.search.SearchResult;
 import org.eclipse.che.api.vfs.server.search.SearcherProvider;
 import org.eclipse.che.api.vfs.server.util.LinksHelper;
 import org.eclipse.che.api.vfs.shared.ItemType;
@@ -538,26 +539,26 @@ public abstract class VirtualFileSystemImpl implements VirtualFileSystem {
                     .setMediaType(query.getFirst("mediaType"))
                     .setText(query.getFirst("text"))
                     .setSkipCount(skipCount)
-                    .setMaxItems(maxItems);
+                    .setMaxItems(maxItems)
+                    .setPageToken(query.getFirst("pageToken"));
 
-            final String[] result = searcherProvider.getSearcher(mountPoint, true).search(expr);
-            if (skipCount > 0) {
-                if (skipCount > result.length) {
-                    throw new ConflictException("'skipCount' parameter is greater then total number of items. ");
-                }
+            final SearchResult result = searcherProvider.getSearcher(mountPoint, true).search(expr);
+            if (expr.getPageToken() == null && skipCount > 0 && skipCount > result.getTotalHits()) {
+                throw new ConflictException("'skipCount' parameter is greater then total number of items. ");
             }
-            final int length = maxItems > 0 ? Math.min(result.length, maxItems) : result.length;
-            final List<Item> items = new ArrayList<>(length);
-            for (int i = skipCount; i < length; i++) {
-                String path = result[i];
+            // Searcher already skipped items and limited size of result.
+            final String[] paths = result.getFilePaths();
+            final List<Item> items = new ArrayList<>(paths.length);
+            for (String path : paths) {
                 try {
                     items.add(fromVirtualFile(mountPoint.getVirtualFile(path), false, propertyFilter));
                 } catch (NotFoundException | ForbiddenException ignored) {
                 }
             }
 
-            return DtoFactory.getInstance().createDto(ItemList.class).withItems(items).withNumItems(result.length)
-                             .withHasMoreItems(length < result.length);
+            return DtoFactory.getInstance().createDto(ItemList.class).withItems(items).withNumItems(result.getTotalHits())
+                             .withHasMoreItems(result.getNextPageToken() != null)
+                             .withNextPageToken(result.getNextPageToken());
         }
         throw new ServerException("Not supported. ");
     }
@@ -656,7 +657,10 @@ public abstract class VirtualFileSystemImpl implements VirtualFileSystem {
         final List<OutputItem> multipart = new LinkedList<>();
         // String name, Object entity, MediaType mediaType, String fileName
         final OutputItem updates = OutputItem.create("updates", zip.getStream(), ExtMediaType.APPLICATION_ZIP_TYPE, zip.getFileName());
-        updates.getHeaders().putSingle(HttpHeaders.CONTENT_LENGTH, Long.toString(zip.getLength()));
+        if (zip.getLength() >= 0) {
+            // Length is unknown if zip is streamed while it is created.
+            updates.getHeaders().putSingle(HttpHeaders.CONTENT_LENGTH, Long.toString(zip.getLength()));
+        }
         multipart.add(updates);
 
         if (!deleted.isEmpty()) {
@@ -682,8 +686,11 @@ public abstract class VirtualFileSystemImpl implements VirtualFileSystem {
         final Response.ResponseBuilder responseBuilder = Response
                 .ok(zip.getStream(), zip.getMimeType())
                 .lastModified(zip.getLastModificationDate())
-                .header(HttpHeaders.CONTENT_LENGTH, Long.toString(zip.getLength()))
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + zip.getFileName() + '"');
+        if (zip.getLength() >= 0) {
+            // Length is unknown if zip is streamed while it is created.
+            responseBuilder.header(HttpHeaders.CONTENT_LENGTH, Long.toString(zip.getLength()));
+        }
         if (!deleted.isEmpty()) {
             final StringBuilder buff = new StringBuilder();
             for (String str : deleted) {
@@ -29,6 +29,7 @@ public class VirtualFileSystemModule extends AbstractModule {
         Multibinder.newSetBinder(binder(), Class.class, Names.named("codenvy.json.ignored_classes"))
                    .addBinding().toInstance(ContentStream.class);
         bind(ContentStreamWriter.class);
+        bind(ContentStreamResponseFilter.class);
         bind(RequestValidator.class).toProvider(Providers.<RequestValidator>of(null));
         bind(VirtualFileSystemFactory.class);
         bind(URLHandlerFactorySetup.Initializer.class).asEagerSingleton();
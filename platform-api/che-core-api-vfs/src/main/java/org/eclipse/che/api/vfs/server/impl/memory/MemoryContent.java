@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.impl.memory;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable content of {@link MemoryVirtualFile}. Content is never changed after creation so the same instance is shared
+ * between file and all its copies. Updated file gets new instance of content.
+ * <p/>
+ * Content is reference counted. Every file that holds content owns one reference, when the last reference is released
+ * memory or temporary file used by content is given back to {@link MemoryContentStore}.
+ */
+abstract class MemoryContent extends ByteSource {
+    private static final Logger LOG = LoggerFactory.getLogger(MemoryContent.class);
+
+    /** Content of empty file, not reference counted. */
+    static final MemoryContent EMPTY = new InMemoryContent(null, new ArrayList<byte[]>(0), 0) {
+        @Override
+        boolean tryRetain() {
+            return true;
+        }
+
+        @Override
+        void release() {
+        }
+    };
+
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    /** Length of content in bytes. */
+    abstract long length();
+
+    @Override
+    public long size() {
+        return length();
+    }
+
+    /**
+     * Gets one more reference to this content.
+     *
+     * @return {@code false} if all references to this content are already released and content may not be used any more
+     */
+    boolean tryRetain() {
+        for (; ; ) {
+            final int current = references.get();
+            if (current == 0) {
+                return false;
+            }
+            if (references.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Releases reference to this content. */
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            dispose();
+        }
+    }
+
+    /**
+     * Opens stream to read this content. Reference to content that is held by the caller is passed to the stream and released when
+     * the stream is closed, so content is not disposed while it is read.
+     */
+    InputStream openReleasingStream() throws IOException {
+        return new FilterInputStream(openStream()) {
+            private final AtomicBoolean closed = new AtomicBoolean();
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (closed.compareAndSet(false, true)) {
+                        release();
+                    }
+                }
+            }
+        };
+    }
+
+    /** Called when the last reference to content is released. */
+    abstract void dispose();
+
+    /** Content that is kept in memory in chunks of {@link MemoryContentStore#CHUNK_SIZE} bytes. */
+    static class InMemoryContent extends MemoryContent {
+        private final MemoryContentStore store;
+        private final List<byte[]>       chunks;
+        private final long               length;
+
+        InMemoryContent(MemoryContentStore store, List<byte[]> chunks, long length) {
+            this.store = store;
+            this.chunks = chunks;
+            this.length = length;
+        }
+
+        @Override
+        long length() {
+            return length;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            final List<ByteSource> sources = new ArrayList<>(chunks.size());
+            for (byte[] chunk : chunks) {
+                sources.add(ByteSource.wrap(chunk));
+            }
+            return ByteSource.concat(sources).openStream();
+        }
+
+        @Override
+        void dispose() {
+            store.releaseMemory(length);
+        }
+    }
+
+    /** Content that doesn't fit in memory limit of {@link MemoryContentStore} and is kept in temporary file. */
+    static class FileContent extends MemoryContent {
+        private final java.io.File file;
+        private final long         length;
+
+        FileContent(java.io.File file, long length) {
+            this.file = file;
+            this.length = length;
+        }
+
+        @Override
+        long length() {
+            return length;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return Files.asByteSource(file).openStream();
+        }
+
+        @Override
+        void dispose() {
+            if (!file.delete()) {
+                LOG.warn("Unable delete file '{}'", file);
+            }
+        }
+    }
+}
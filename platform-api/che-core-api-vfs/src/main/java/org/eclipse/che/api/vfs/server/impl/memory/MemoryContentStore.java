@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.impl.memory;
+
+import com.google.common.io.ByteStreams;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates content of files of {@link MemoryMountPoint} and controls amount of memory used by content. Content is read in
+ * chunks, if the limit of memory is reached then content is written to temporary file instead.
+ */
+class MemoryContentStore {
+    /** Max number of bytes of content of files that are kept in memory by one mount point, may be overridden with system property. */
+    static final String MAX_MEMORY_PROPERTY = "org.eclipse.che.vfs.memory.max_content_memory";
+
+    static final int CHUNK_SIZE = 64 * 1024; // 64k
+
+    private static final long DEFAULT_MAX_MEMORY = Long.getLong(MAX_MEMORY_PROPERTY, -1);
+
+    private final long         maxMemory;
+    private final java.io.File spillDir;
+    private final AtomicLong   usedMemory;
+
+    /** Creates store with memory limit that is set by system property, by default memory is not limited. */
+    MemoryContentStore() {
+        this(DEFAULT_MAX_MEMORY, new java.io.File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @param maxMemory
+     *         max number of bytes of content that may be kept in memory, negative value means no limit
+     * @param spillDir
+     *         directory for content that doesn't fit in memory
+     */
+    MemoryContentStore(long maxMemory, java.io.File spillDir) {
+        this.maxMemory = maxMemory;
+        this.spillDir = spillDir;
+        usedMemory = new AtomicLong();
+    }
+
+    /** Reads {@code in} to new content. Caller owns the only reference to the returned content. */
+    MemoryContent newContent(InputStream in) throws IOException {
+        if (in == null) {
+            return MemoryContent.EMPTY;
+        }
+        final List<byte[]> chunks = new ArrayList<>();
+        long length = 0;
+        boolean success = false;
+        try {
+            for (; ; ) {
+                final byte[] chunk = readChunk(in);
+                if (chunk == null) {
+                    break;
+                }
+                if (!tryReserveMemory(chunk.length)) {
+                    final MemoryContent content = spill(chunks, chunk, in);
+                    releaseMemory(length);
+                    success = true;
+                    return content;
+                }
+                chunks.add(chunk);
+                length += chunk.length;
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                releaseMemory(length);
+            }
+        }
+        return length == 0 ? MemoryContent.EMPTY : new MemoryContent.InMemoryContent(this, chunks, length);
+    }
+
+    /** Number of bytes of content that are kept in memory. */
+    long getUsedMemory() {
+        return usedMemory.get();
+    }
+
+    void releaseMemory(long bytes) {
+        if (bytes > 0) {
+            usedMemory.addAndGet(-bytes);
+        }
+    }
+
+    private boolean tryReserveMemory(long bytes) {
+        if (maxMemory < 0) {
+            usedMemory.addAndGet(bytes);
+            return true;
+        }
+        for (; ; ) {
+            final long current = usedMemory.get();
+            if (current + bytes > maxMemory) {
+                return false;
+            }
+            if (usedMemory.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    /** Returns next chunk of {@code in} or {@code null} if end of stream is reached. */
+    private static byte[] readChunk(InputStream in) throws IOException {
+        final byte[] chunk = new byte[CHUNK_SIZE];
+        final int read = ByteStreams.read(in, chunk, 0, CHUNK_SIZE);
+        if (read == 0) {
+            return null;
+        }
+        return read == CHUNK_SIZE ? chunk : Arrays.copyOf(chunk, read);
+    }
+
+    /** Writes already read chunks and the rest of {@code in} to temporary file. */
+    private MemoryContent spill(List<byte[]> chunks, byte[] lastChunk, InputStream in) throws IOException {
+        final java.io.File file = java.io.File.createTempFile("memory-vfs-", ".content", spillDir);
+        long length = 0;
+        boolean success = false;
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            for (byte[] chunk : chunks) {
+                out.write(chunk);
+                length += chunk.length;
+            }
+            out.write(lastChunk);
+            length += lastChunk.length;
+            length += ByteStreams.copy(in, out);
+            success = true;
+        } finally {
+            if (!success) {
+                file.delete();
+            }
+        }
+        return new MemoryContent.FileContent(file, length);
+    }
+}
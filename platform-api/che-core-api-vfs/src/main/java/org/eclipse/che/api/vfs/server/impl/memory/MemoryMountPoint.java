@@ -29,11 +29,12 @@ import org.eclipse.che.api.vfs.shared.dto.VirtualFileSystemInfo;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * In-memory implementation of MountPoint.
  * <p/>
- * NOTE: This implementation is not thread safe.
+ * Mount point may be used by many threads concurrently, see {@link MemoryVirtualFile}.
  *
  * @author andrew00x
  */
@@ -45,6 +46,7 @@ public class MemoryMountPoint implements MountPoint {
     private final Map<String, VirtualFile>     entries;
     private final VirtualFile                  root;
     private final SystemPathsFilter            systemFilter;
+    private final MemoryContentStore           contentStore;
 
     public MemoryMountPoint(String workspaceId, EventService eventService, SearcherProvider searcherProvider,
                             VirtualFileSystemUserContext userContext, SystemPathsFilter systemFilter) {
@@ -52,7 +54,8 @@ public class MemoryMountPoint implements MountPoint {
         this.eventService = eventService;
         this.searcherProvider = searcherProvider;
         this.userContext = userContext;
-        entries = new HashMap<>();
+        entries = new ConcurrentHashMap<>();
+        contentStore = new MemoryContentStore();
         root = new MemoryVirtualFile(this);
         this.systemFilter = systemFilter;
     }
@@ -165,4 +168,8 @@ public class MemoryMountPoint implements MountPoint {
     VirtualFileSystemUserContext getUserContext() {
         return userContext;
     }
+
+    MemoryContentStore getContentStore() {
+        return contentStore;
+    }
 }
@@ -12,8 +12,6 @@ package org.eclipse.che.api.vfs.server.impl.memory;
 
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
-import com.google.common.io.ByteSource;
-import com.google.common.io.ByteStreams;
 
 import org.eclipse.che.api.core.ConflictException;
 import org.eclipse.che.api.core.ForbiddenException;
@@ -68,6 +66,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -75,7 +75,9 @@ import java.util.zip.ZipOutputStream;
 /**
  * In-memory implementation of VirtualFile.
  * <p/>
- * NOTE: This implementation is not thread safe.
+ * Every item may be used by many threads concurrently. There is no lock for the whole tree: children of folder are kept in
+ * concurrent map, content of file is immutable {@link MemoryContent} that is replaced on update and shared between copies of
+ * file. Lock of file is guarded by monitor of file itself.
  *
  * @author andrew00x
  */
@@ -86,10 +88,12 @@ public class MemoryVirtualFile implements VirtualFile {
 
     private static MemoryVirtualFile newFile(MemoryVirtualFile parent, String name, InputStream content)
             throws IOException {
-        return new MemoryVirtualFile(parent, ObjectIdGenerator.generateId(), name, content);
+        return new MemoryVirtualFile(parent, ObjectIdGenerator.generateId(), name,
+                                     ((MemoryMountPoint)parent.getMountPoint()).getContentStore().newContent(content));
     }
 
-    private static MemoryVirtualFile newFile(MemoryVirtualFile parent, String name, byte[] content) {
+    /** Creates new file, the caller must pass own reference to {@code content} to the new file. */
+    private static MemoryVirtualFile newFile(MemoryVirtualFile parent, String name, MemoryContent content) {
         return new MemoryVirtualFile(parent, ObjectIdGenerator.generateId(), name, content);
     }
 
@@ -105,32 +109,29 @@ public class MemoryVirtualFile implements VirtualFile {
     private final long                      creationDate;
     private final Map<String, VirtualFile>  children;
     private final MemoryMountPoint          mountPoint;
-
-    private String                      name;
-    private MemoryVirtualFile           parent;
-    private Path                        path;
-    private byte[]                      content;
-    private long                        lastModificationDate;
-    private LockHolder                  lock;
-    private Map<Principal, Set<String>> permissionsMap;
-    private boolean exists = true;
+    /** Content of file, file owns one reference to it. Content is replaced atomically to release previous one exactly once. */
+    private final AtomicReference<MemoryContent> content = new AtomicReference<>();
+
+    private volatile String                      name;
+    private volatile MemoryVirtualFile           parent;
+    private volatile Path                        path;
+    private volatile long                        lastModificationDate;
+    private volatile Map<Principal, Set<String>> permissionsMap;
+    private volatile boolean exists = true;
+    // Guarded by monitor of this file.
+    private LockHolder lock;
 
     // --- File ---
-    private MemoryVirtualFile(MemoryVirtualFile parent, String id, String name, InputStream content)
-            throws IOException {
-        this(parent, id, name, content == null ? null : ByteStreams.toByteArray(content));
-    }
-
-    private MemoryVirtualFile(MemoryVirtualFile parent, String id, String name, byte[] content) {
+    private MemoryVirtualFile(MemoryVirtualFile parent, String id, String name, MemoryContent content) {
         this.mountPoint = (MemoryMountPoint)parent.getMountPoint();
         this.parent = parent;
         this.type = FILE;
         this.id = id;
         this.name = name;
         this.permissionsMap = new HashMap<>();
-        this.properties = new HashMap<>();
+        this.properties = new ConcurrentHashMap<>();
         this.creationDate = this.lastModificationDate = System.currentTimeMillis();
-        this.content = content == null ? new byte[0] : content;
+        this.content.set(content);
         children = Collections.emptyMap();
     }
 
@@ -142,9 +143,9 @@ public class MemoryVirtualFile implements VirtualFile {
         this.id = id;
         this.name = name;
         this.permissionsMap = new HashMap<>();
-        this.properties = new HashMap<>();
+        this.properties = new ConcurrentHashMap<>();
         this.creationDate = this.lastModificationDate = System.currentTimeMillis();
-        children = new HashMap<>();
+        children = new ConcurrentHashMap<>();
     }
 
     /* root folder */ MemoryVirtualFile(MountPoint mountPoint) {
@@ -165,9 +166,9 @@ public class MemoryVirtualFile implements VirtualFile {
         final Set<String> anyPermissions = new HashSet<>(4);
         anyPermissions.add(BasicPermissions.READ.value());
         this.permissionsMap.put(anyPrincipal, anyPermissions);
-        this.properties = new HashMap<>();
+        this.properties = new ConcurrentHashMap<>();
         this.creationDate = this.lastModificationDate = System.currentTimeMillis();
-        children = new HashMap<>();
+        children = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -415,13 +416,15 @@ public class MemoryVirtualFile implements VirtualFile {
             public void visit(final VirtualFile virtualFile) {
                 try {
                     if (virtualFile.isFile()) {
-                        try (InputStream stream = virtualFile.getContent().getStream()) {
-                            final String hexHash = ByteSource.wrap(ByteStreams.toByteArray(stream)).hash(hashFunction).toString();
+                        // Hash content directly without copying it to byte array.
+                        final MemoryContent content = ((MemoryVirtualFile)virtualFile).retainContent();
+                        try {
+                            final String hexHash = content.hash(hashFunction).toString();
                             hashes.add(Pair.of(hexHash, virtualFile.getPath().substring(trimPathLength)));
-                        } catch (ForbiddenException e) {
-                            throw new ServerException(e.getServiceError());
                         } catch (IOException e) {
                             throw new ServerException(e);
+                        } finally {
+                            content.release();
                         }
                     } else {
                         final LazyIterator<VirtualFile> children = virtualFile.getChildren(VirtualFileFilter.ALL);
@@ -500,25 +503,52 @@ public class MemoryVirtualFile implements VirtualFile {
 
     private boolean addChild(VirtualFile child) {
         checkExist();
-        final String childName = child.getName();
-        if (children.get(childName) == null) {
-            children.put(childName, child);
-            return true;
-        }
-        return false;
+        return children.putIfAbsent(child.getName(), child) == null;
     }
 
     @Override
-    public ContentStream getContent() throws ForbiddenException {
+    public ContentStream getContent() throws ForbiddenException, ServerException {
         checkExist();
         if (!isFile()) {
             throw new ForbiddenException(String.format("We were unable to retrieve the content. Item '%s' is not a file. ", getPath()));
         }
-        if (content == null) {
-            content = new byte[0];
+        final MemoryContent myContent = retainContent();
+        boolean opened = false;
+        try {
+            // Reference to content is released when the stream is closed.
+            final ContentStream contentStream = new ContentStream(getName(), myContent.openReleasingStream(), getMediaType(),
+                                                                  myContent.length(), new Date(lastModificationDate));
+            opened = true;
+            return contentStream;
+        } catch (IOException e) {
+            throw new ServerException(String.format("We were unable to read the content of '%s'. ", getPath()), e);
+        } finally {
+            if (!opened) {
+                myContent.release();
+            }
+        }
+    }
+
+    /**
+     * Gets content of file and holds reference to it so content is not disposed if file is updated or removed concurrently.
+     * Caller must release content.
+     */
+    private MemoryContent retainContent() {
+        for (; ; ) {
+            final MemoryContent myContent = content.get();
+            if (myContent.tryRetain()) {
+                return myContent;
+            }
+            // Content was just replaced, read new one.
+        }
+    }
+
+    /** Replaces content of file and releases previous one. */
+    private void setContent(MemoryContent newContent) {
+        final MemoryContent oldContent = content.getAndSet(newContent);
+        if (oldContent != null) {
+            oldContent.release();
         }
-        return new ContentStream(getName(), new ByteArrayInputStream(content), getMediaType(), content.length,
-                                 new Date(lastModificationDate));
     }
 
     @Override
@@ -548,7 +578,7 @@ public class MemoryVirtualFile implements VirtualFile {
         }
 
         try {
-            this.content = ByteStreams.toByteArray(content);
+            setContent(mountPoint.getContentStore().newContent(content));
         } catch (IOException e) {
             throw new ServerException(String.format("We were unable to set the content of '%s'. ", getPath()));
         }
@@ -576,7 +606,7 @@ public class MemoryVirtualFile implements VirtualFile {
         if (!isFile()) {
             return 0;
         }
-        return content.length;
+        return content.get().length();
     }
 
     @Override
@@ -658,7 +688,8 @@ public class MemoryVirtualFile implements VirtualFile {
 
         VirtualFile virtualFile;
         if (isFile()) {
-            virtualFile = newFile((MemoryVirtualFile) parent, nameToCopy, Arrays.copyOf(content, content.length));
+            // Content is immutable, copy shares it with this file.
+            virtualFile = newFile((MemoryVirtualFile) parent, nameToCopy, retainContent());
         } else {
             virtualFile = newFolder((MemoryVirtualFile) parent, nameToCopy);
             LazyIterator<VirtualFile> children = getChildren(VirtualFileFilter.ALL);
@@ -675,6 +706,9 @@ public class MemoryVirtualFile implements VirtualFile {
             }
         }
         if (!((MemoryVirtualFile)parent).addChild(virtualFile)) {
+            if (isFile()) {
+                ((MemoryVirtualFile)virtualFile).setContent(MemoryContent.EMPTY);
+            }
             throw new ConflictException(String.format("Item '%s' already exists. ", (parent.getPath() + '/' + name)));
         }
         return virtualFile;
@@ -784,18 +818,17 @@ public class MemoryVirtualFile implements VirtualFile {
          * intended to change the VirtualFile name after moving
          */
         if (!("".equals(String.valueOf(newName).trim()) || null == newName)) {
-            if (((MemoryVirtualFile) parent).children.containsKey(destinationName)) {
+            if (((MemoryVirtualFile) parent).children.putIfAbsent(destinationName, this) != null) {
                 throw new ConflictException(String.format("Item '%s' already exists. ", (parent.getPath() + '/' + destinationName)));
             }
-            this.parent.children.remove(getName());
+            this.parent.children.remove(getName(), this);
             this.parent = (MemoryVirtualFile) parent;
-            this.parent.children.put(destinationName, this);
             this.name = destinationName;
         } else { // default behavior is to move with current name
             if (!((MemoryVirtualFile) parent).addChild(this)) {
             throw new ConflictException(String.format("Item '%s' already exists. ", (parent.getPath() + '/' + name)));
         }
-        this.parent.children.remove(getName());
+        this.parent.children.remove(getName(), this);
             this.parent = (MemoryVirtualFile) parent;
         }
         this.path = null;
@@ -878,11 +911,10 @@ public class MemoryVirtualFile implements VirtualFile {
             }
         }
 
-        if (parent.getChild(newName) != null) {
+        if (parent.children.putIfAbsent(newName, this) != null) {
             throw new ConflictException(String.format("Item '%s' already exists. ", newName));
         }
-        parent.children.remove(name);
-        parent.children.put(newName, this);
+        parent.children.remove(name, this);
         name = newName;
         path = null;
 
@@ -962,14 +994,18 @@ public class MemoryVirtualFile implements VirtualFile {
             for (VirtualFile virtualFile : toDelete) {
                 mountPoint.deleteItem(virtualFile.getId());
                 ((MemoryVirtualFile)virtualFile).exists = false;
+                if (virtualFile.isFile()) {
+                    ((MemoryVirtualFile)virtualFile).setContent(MemoryContent.EMPTY);
+                }
             }
         } else {
             if (!validateLockTokenIfLocked(lockToken)) {
                 throw new ForbiddenException(String.format("Unable delete item '%s'. Item is locked. ", getPath()));
             }
             mountPoint.deleteItem(getId());
+            setContent(MemoryContent.EMPTY);
         }
-        parent.children.remove(name);
+        parent.children.remove(name, this);
         exists = false;
         parent = null;
         path = null;
@@ -1005,7 +1041,12 @@ public class MemoryVirtualFile implements VirtualFile {
                         final ZipEntry zipEntry = new ZipEntry(zipEntryName);
                         zipEntry.setTime(current.getLastModificationDate());
                         zipOut.putNextEntry(zipEntry);
-                        zipOut.write(((MemoryVirtualFile)current).content);
+                        final MemoryContent currentContent = ((MemoryVirtualFile)current).retainContent();
+                        try {
+                            currentContent.copyTo(zipOut);
+                        } finally {
+                            currentContent.release();
+                        }
                         zipOut.closeEntry();
                     } else if (current.isFolder()) {
                         final ZipEntry zipEntry = new ZipEntry(zipEntryName + '/');
@@ -1121,7 +1162,7 @@ public class MemoryVirtualFile implements VirtualFile {
     }
 
     @Override
-    public String lock(long timeout) throws ForbiddenException, ConflictException {
+    public synchronized String lock(long timeout) throws ForbiddenException, ConflictException {
         checkExist();
         if (!isFile()) {
             throw new ForbiddenException(String.format("Unable lock '%s'. Locking allowed for files only. ", getPath()));
@@ -1141,7 +1182,7 @@ public class MemoryVirtualFile implements VirtualFile {
     }
 
     @Override
-    public VirtualFile unlock(String lockToken) throws ForbiddenException, ConflictException {
+    public synchronized VirtualFile unlock(String lockToken) throws ForbiddenException, ConflictException {
         checkExist();
         if (!isFile()) {
             throw new ForbiddenException(String.format("Unable unlock '%s'. Locking allowed for files only. ", getPath()));
@@ -1164,7 +1205,7 @@ public class MemoryVirtualFile implements VirtualFile {
     }
 
     @Override
-    public boolean isLocked() {
+    public synchronized boolean isLocked() {
         checkExist();
         final LockHolder myLock = lock;
         if (lock != null) {
@@ -1200,6 +1241,7 @@ public class MemoryVirtualFile implements VirtualFile {
             throw new ServerException(String.format("Unable set content of '%s'. ", getPath() + e.getMessage()));
         }
         if (!addChild(newFile)) {
+            newFile.setContent(MemoryContent.EMPTY);
             throw new ConflictException(String.format("Item with the name '%s' already exists. ", name));
         }
         mountPoint.putItem(newFile);
@@ -1297,7 +1339,7 @@ public class MemoryVirtualFile implements VirtualFile {
         }
     }
 
-    private boolean validateLockTokenIfLocked(String lockToken) {
+    private synchronized boolean validateLockTokenIfLocked(String lockToken) {
         if (!isLocked()) {
             return true;
         }
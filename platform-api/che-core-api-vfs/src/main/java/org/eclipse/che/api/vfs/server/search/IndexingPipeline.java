@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.search;
+
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.vfs.server.VirtualFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Applies changes of {@link LuceneSearcher} index asynchronously. Changes are kept in the bounded queue, repeated changes of
+ * the same path are coalesced, so only the latest one is applied. Changes are applied in batches by the task that runs in
+ * the {@code executor} while there are pending changes. Index searcher is refreshed in background after batch is applied
+ * if it wasn't refreshed for {@code maxStalenessMillis} and when all pending changes are applied.
+ * <p/>
+ * Threads that add changes are blocked when queue is full until some changes are applied.
+ */
+class IndexingPipeline {
+    private static final Logger LOG            = LoggerFactory.getLogger(IndexingPipeline.class);
+    private static final int    MAX_BATCH_SIZE = 512;
+
+    enum ChangeType {
+        ADD_TREE,
+        UPDATE_FILE,
+        DELETE_FILE,
+        DELETE_TREE
+    }
+
+    private static class Change {
+        final ChangeType  type;
+        final String      path;
+        final VirtualFile virtualFile;
+        final long        time;
+
+        Change(ChangeType type, String path, VirtualFile virtualFile) {
+            this.type = type;
+            this.path = path;
+            this.virtualFile = virtualFile;
+            this.time = System.currentTimeMillis();
+        }
+    }
+
+    private final LuceneSearcher searcher;
+    private final Executor       executor;
+    private final int            maxPendingChanges;
+    private final long           maxStalenessMillis;
+
+    // Fields below are guarded by monitor of this pipeline.
+    /** Pending changes. Key is path of item, folder paths end with '/'. Iteration order is order of changes. */
+    private final LinkedHashMap<String, Change> pending = new LinkedHashMap<>();
+    private       boolean                       draining;
+    private       Thread                        drainThread;
+    private       boolean                       closed;
+
+    /** Accessed from draining thread only. */
+    private long lastRefreshTime;
+
+    IndexingPipeline(LuceneSearcher searcher, Executor executor, int maxPendingChanges, long maxStalenessMillis) {
+        this.searcher = searcher;
+        this.executor = executor;
+        this.maxPendingChanges = maxPendingChanges;
+        this.maxStalenessMillis = maxStalenessMillis;
+        lastRefreshTime = System.currentTimeMillis();
+    }
+
+    void add(ChangeType type, String path, VirtualFile virtualFile) throws ServerException {
+        final String key = (type == ChangeType.ADD_TREE || type == ChangeType.DELETE_TREE) ? path + '/' : path;
+        final Change change = new Change(type, path, virtualFile);
+        synchronized (this) {
+            try {
+                while (!closed && pending.size() >= maxPendingChanges && !pending.containsKey(key)) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServerException(String.format("Interrupted while waiting to index '%s'. ", path));
+            }
+            if (closed) {
+                return;
+            }
+            // Remove first to move the latest change to the end of queue.
+            pending.remove(key);
+            pending.put(key, change);
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                draining = false;
+                notifyAll();
+            }
+            throw new ServerException(String.format("Unable index '%s'. Indexing executor is shut down. ", path));
+        }
+    }
+
+    /** Number of changes that are not applied yet. */
+    synchronized int getPendingChanges() {
+        return pending.size();
+    }
+
+    /** Time in milliseconds since the oldest pending change was added, zero if there is no pending change. */
+    synchronized long getLag() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        return System.currentTimeMillis() - pending.values().iterator().next().time;
+    }
+
+    /** Waits until all pending changes are applied and index searcher is refreshed. */
+    synchronized void flush() throws InterruptedException {
+        while (!closed && draining) {
+            wait();
+        }
+    }
+
+    /** Drops all pending changes and waits for changes that are applied at the moment. */
+    synchronized void close() {
+        closed = true;
+        pending.clear();
+        notifyAll();
+        // Searcher may be closed from the drain thread itself, e.g. on OutOfMemoryError.
+        while (draining && drainThread != Thread.currentThread()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        synchronized (this) {
+            drainThread = Thread.currentThread();
+        }
+        boolean finished = false;
+        try {
+            for (; ; ) {
+                final List<Change> batch = takeBatch();
+                if (batch == null) {
+                    finished = true;
+                    return;
+                }
+                if (batch.isEmpty()) {
+                    refresh();
+                    synchronized (this) {
+                        // Must stop draining under the same lock that sees empty queue, otherwise change which is added
+                        // after the check but before the stop isn't applied until the next change comes.
+                        if (closed || pending.isEmpty()) {
+                            stopDraining();
+                            finished = true;
+                            return;
+                        }
+                    }
+                } else {
+                    final long start = System.currentTimeMillis();
+                    for (Change change : batch) {
+                        apply(change);
+                    }
+                    final long end = System.currentTimeMillis();
+                    LOG.debug("Applied {} index changes, time: {} ms", batch.size(), (end - start));
+                    if (end - lastRefreshTime >= maxStalenessMillis) {
+                        refresh();
+                    }
+                }
+            }
+        } finally {
+            if (!finished) {
+                synchronized (this) {
+                    stopDraining();
+                }
+            }
+        }
+    }
+
+    /** Must be called when monitor of this pipeline is held. */
+    private void stopDraining() {
+        drainThread = null;
+        draining = false;
+        notifyAll();
+    }
+
+    /**
+     * Takes next batch of changes. Empty list means that there is no pending changes, {@code null} means that pipeline is
+     * closed, draining is stopped in this case.
+     */
+    private synchronized List<Change> takeBatch() {
+        if (closed) {
+            stopDraining();
+            return null;
+        }
+        final List<Change> batch = new ArrayList<>(Math.min(pending.size(), MAX_BATCH_SIZE));
+        for (Iterator<Change> iterator = pending.values().iterator(); iterator.hasNext() && batch.size() < MAX_BATCH_SIZE; ) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        notifyAll();
+        return batch;
+    }
+
+    private void apply(Change change) {
+        try {
+            switch (change.type) {
+                case ADD_TREE:
+                    // Folder may replace deleted one with the same path.
+                    searcher.deleteDocuments(change.path, false);
+                    searcher.addTree(change.virtualFile);
+                    break;
+                case UPDATE_FILE:
+                    searcher.addFile(change.virtualFile);
+                    break;
+                case DELETE_FILE:
+                    searcher.deleteDocuments(change.path, true);
+                    break;
+                case DELETE_TREE:
+                    searcher.deleteDocuments(change.path, false);
+                    break;
+            }
+        } catch (ServerException | RuntimeException e) {
+            LOG.error(String.format("Unable update index for '%s'. %s", change.path, e.getMessage()), e);
+        }
+    }
+
+    private void refresh() {
+        try {
+            searcher.refresh();
+        } catch (Exception e) {
+            LOG.error(e.getMessage(), e);
+        }
+        lastRefreshTime = System.currentTimeMillis();
+    }
+}
@@ -17,10 +17,16 @@ import org.apache.lucene.analysis.core.LowerCaseFilter;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LiveIndexWriterConfig;
+import org.apache.lucene.index.MultiFields;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
@@ -36,6 +42,7 @@ import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.WildcardQuery;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.IOUtils;
 import org.eclipse.che.api.core.ForbiddenException;
 import org.eclipse.che.api.core.ServerException;
@@ -51,7 +58,19 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Lucene based searcher.
@@ -62,12 +81,21 @@ public abstract class LuceneSearcher implements Searcher {
     private static final Logger LOG          = LoggerFactory.getLogger(LuceneSearcher.class);
     private static final int    RESULT_LIMIT = 1000;
 
+    /* Parameters of parallel indexing, see indexTree(). */
+    /** Size of RAM buffer of index writer while tree is indexed. */
+    private static final double      BULK_RAM_BUFFER_SIZE_MB = 64.0;
+    /** Max number of files in the same folder that are indexed by one task. */
+    private static final int         BULK_FILES_PER_TASK     = 32;
+    private static final Set<String> INDEXED_FILE_FIELDS     = new HashSet<>(Arrays.asList("path", "modified"));
+
     private final VirtualFileFilter filter;
 
     private IndexWriter     luceneIndexWriter;
     private SearcherManager searcherManager;
     private boolean         closed;
 
+    private volatile IndexingPipeline indexingPipeline;
+
     public LuceneSearcher() {
         this(new MediaTypeFilter());
     }
@@ -89,6 +117,10 @@ public abstract class LuceneSearcher implements Searcher {
 
     protected abstract Directory makeDirectory() throws ServerException;
 
+    protected IndexWriterConfig makeIndexWriterConfig() {
+        return new IndexWriterConfig(makeAnalyzer());
+    }
+
     /**
      * Init lucene index. Need call this method if index directory is clean. Scan all files in virtual filesystem and add to index.
      *
@@ -104,21 +136,70 @@ public abstract class LuceneSearcher implements Searcher {
 
     protected final synchronized void doInit() throws ServerException {
         try {
-            luceneIndexWriter = new IndexWriter(makeDirectory(), new IndexWriterConfig(makeAnalyzer()));
+            luceneIndexWriter = new IndexWriter(makeDirectory(), makeIndexWriterConfig());
             searcherManager = new SearcherManager(luceneIndexWriter, true, new SearcherFactory());
         } catch (IOException e) {
             throw new ServerException(e);
         }
     }
 
-    public synchronized void close() {
-        if (!closed) {
-            try {
-                IOUtils.close(getIndexWriter(), getIndexWriter().getDirectory(), searcherManager);
-            } catch (IOException e) {
-                LOG.error(e.getMessage(), e);
+    /**
+     * Switches this searcher to asynchronous indexing. After call of this method changes passed to methods {@link #add},
+     * {@link #update} and {@link #delete} are queued and applied in batches in background, so they don't become visible for
+     * {@link #search} immediately. Searcher is refreshed in background and method {@link #search} doesn't refresh it.
+     *
+     * @param executor
+     *         executor that applies changes and refreshes searcher
+     * @param maxPendingChanges
+     *         max number of changes that are not applied yet, threads that add changes are blocked when this limit is reached
+     * @param maxStalenessMillis
+     *         max time in milliseconds between refreshes of searcher while changes are applied
+     */
+    protected final synchronized void startBatchIndexing(Executor executor, int maxPendingChanges, long maxStalenessMillis) {
+        if (indexingPipeline == null) {
+            indexingPipeline = new IndexingPipeline(this, executor, maxPendingChanges, maxStalenessMillis);
+        }
+    }
+
+    /** Number of changes that are not applied to index yet. Always zero if indexing is synchronous. */
+    public int getPendingChanges() {
+        final IndexingPipeline myIndexingPipeline = indexingPipeline;
+        return myIndexingPipeline == null ? 0 : myIndexingPipeline.getPendingChanges();
+    }
+
+    /** Time in milliseconds since the oldest change that is not applied to index yet was added. */
+    public long getIndexingLag() {
+        final IndexingPipeline myIndexingPipeline = indexingPipeline;
+        return myIndexingPipeline == null ? 0 : myIndexingPipeline.getLag();
+    }
+
+    /** Waits until all changes are applied to index and they become visible for {@link #search}. */
+    public void flush() throws InterruptedException {
+        final IndexingPipeline myIndexingPipeline = indexingPipeline;
+        if (myIndexingPipeline != null) {
+            myIndexingPipeline.flush();
+        }
+    }
+
+    void refresh() throws IOException {
+        searcherManager.maybeRefresh();
+    }
+
+    public void close() {
+        // Stop pipeline before lock this searcher. Changes that are applied at the moment need index writer.
+        final IndexingPipeline myIndexingPipeline = indexingPipeline;
+        if (myIndexingPipeline != null) {
+            myIndexingPipeline.close();
+        }
+        synchronized (this) {
+            if (!closed) {
+                try {
+                    IOUtils.close(getIndexWriter(), getIndexWriter().getDirectory(), searcherManager);
+                } catch (IOException e) {
+                    LOG.error(e.getMessage(), e);
+                }
+                closed = true;
             }
-            closed = true;
         }
     }
 
@@ -127,27 +208,49 @@ public abstract class LuceneSearcher implements Searcher {
     }
 
     @Override
-    public String[] search(QueryExpression query) throws ServerException {
+    public SearchResult search(QueryExpression query) throws ServerException {
         IndexSearcher luceneSearcher = null;
         try {
-            searcherManager.maybeRefresh();
+            if (indexingPipeline == null) {
+                searcherManager.maybeRefresh();
+            }
             luceneSearcher = searcherManager.acquire();
 
-            Query luceneQuery = createLuceneQuery(query);
+            final Query luceneQuery = createLuceneQuery(query);
+            final long indexVersion = getIndexVersion(luceneSearcher);
+            final int queryHash = luceneQuery.toString().hashCode();
 
             ScoreDoc after = null;
-            final int numSkipDocs = Math.max(0, query.getSkipCount());
-            if (numSkipDocs > 0) {
-                after = skipScoreDocs(luceneSearcher, luceneQuery, numSkipDocs);
+            final int offset;
+            final PageToken pageToken = PageToken.parse(query.getPageToken());
+            if (pageToken != null) {
+                offset = pageToken.offset;
+                if (pageToken.indexVersion == indexVersion && pageToken.queryHash == queryHash) {
+                    // Index is not changed since previous page was found, continue right after the last found document.
+                    after = pageToken.lastScoreDoc;
+                } else {
+                    after = skipScoreDocs(luceneSearcher, luceneQuery, offset);
+                }
+            } else {
+                offset = Math.max(0, query.getSkipCount());
+                if (offset > 0) {
+                    after = skipScoreDocs(luceneSearcher, luceneQuery, offset);
+                }
             }
 
             final int numDocs = query.getMaxItems() > 0 ? Math.min(query.getMaxItems(), RESULT_LIMIT) : RESULT_LIMIT;
             final TopDocs topDocs = luceneSearcher.searchAfter(after, luceneQuery, numDocs);
-            final String[] result = new String[topDocs.scoreDocs.length];
-            for (int i = 0, length = result.length; i < length; i++) {
-                result[i] = luceneSearcher.doc(topDocs.scoreDocs[i].doc).getField("path").stringValue();
+            final ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+            final String[] paths = new String[scoreDocs.length];
+            for (int i = 0, length = paths.length; i < length; i++) {
+                paths[i] = luceneSearcher.doc(scoreDocs[i].doc).getField("path").stringValue();
             }
-            return result;
+            String nextPageToken = null;
+            final int nextOffset = offset + scoreDocs.length;
+            if (scoreDocs.length > 0 && nextOffset < topDocs.totalHits) {
+                nextPageToken = new PageToken(indexVersion, queryHash, nextOffset, scoreDocs[scoreDocs.length - 1]).toString();
+            }
+            return new SearchResult(paths, topDocs.totalHits, nextPageToken);
         } catch (IOException e) {
             throw new ServerException(e.getMessage(), e);
         } finally {
@@ -161,6 +264,12 @@ public abstract class LuceneSearcher implements Searcher {
         }
     }
 
+    private static long getIndexVersion(IndexSearcher luceneSearcher) {
+        final IndexReader reader = luceneSearcher.getIndexReader();
+        // Reader that is got from SearcherManager is always DirectoryReader.
+        return reader instanceof DirectoryReader ? ((DirectoryReader)reader).getVersion() : -1;
+    }
+
     private Query createLuceneQuery(QueryExpression query) throws ServerException {
         final BooleanQuery luceneQuery = new BooleanQuery();
         final String name = query.getName();
@@ -211,7 +320,14 @@ public abstract class LuceneSearcher implements Searcher {
 
     @Override
     public final void add(VirtualFile virtualFile) throws ServerException {
-        doAdd(virtualFile);
+        final IndexingPipeline myIndexingPipeline = indexingPipeline;
+        if (myIndexingPipeline == null) {
+            doAdd(virtualFile);
+        } else if (virtualFile.isFolder()) {
+            myIndexingPipeline.add(IndexingPipeline.ChangeType.ADD_TREE, virtualFile.getPath(), virtualFile);
+        } else {
+            myIndexingPipeline.add(IndexingPipeline.ChangeType.UPDATE_FILE, virtualFile.getPath(), virtualFile);
+        }
     }
 
     protected void doAdd(VirtualFile virtualFile) throws ServerException {
@@ -246,6 +362,160 @@ public abstract class LuceneSearcher implements Searcher {
         LOG.debug("Indexed {} files from {}, time: {} ms", indexedFiles, tree.getPath(), (end - start));
     }
 
+    /**
+     * Indexes all files in the {@code tree} in parallel. Folders and big sets of files of the same folder are indexed by
+     * separate tasks in the {@code pool}, all tasks feed the same index writer. Index may already contain documents for the
+     * {@code tree}, e.g. if index was saved by previous run. In this case document of file is updated only if modification
+     * date of file is changed and documents of files that don't exist any more are removed.
+     *
+     * @param tree
+     *         folder to index
+     * @param pool
+     *         pool for indexing tasks
+     * @throws ServerException
+     *         if any error occurs
+     */
+    protected void indexTree(VirtualFile tree, ForkJoinPool pool) throws ServerException {
+        final long start = System.currentTimeMillis();
+        final IndexWriter indexWriter = getIndexWriter();
+        final LiveIndexWriterConfig config = indexWriter.getConfig();
+        final double ramBufferSize = config.getRAMBufferSizeMB();
+        config.setRAMBufferSizeMB(Math.max(ramBufferSize, BULK_RAM_BUFFER_SIZE_MB));
+        try {
+            final ConcurrentMap<String, Long> indexedFiles = readIndexedFiles(tree.getPath());
+            final TreeIndexingState state = new TreeIndexingState(indexedFiles);
+            pool.invoke(new FolderIndexingTask(tree, state));
+            if (state.complete.get()) {
+                // Files that are still in the map were not found in the tree.
+                for (String path : indexedFiles.keySet()) {
+                    indexWriter.deleteDocuments(new Term("path", path));
+                }
+            }
+            indexWriter.commit();
+            searcherManager.maybeRefresh();
+            final long end = System.currentTimeMillis();
+            LOG.debug("Indexed {} files, skipped {} not modified files, removed {} files from {}, time: {} ms",
+                      state.indexed.get(), state.skipped.get(), state.complete.get() ? indexedFiles.size() : 0, tree.getPath(),
+                      (end - start));
+        } catch (OutOfMemoryError oome) {
+            close();
+            throw oome;
+        } catch (IOException e) {
+            throw new ServerException(e.getMessage(), e);
+        } finally {
+            config.setRAMBufferSizeMB(ramBufferSize);
+        }
+    }
+
+    /** Gets modification dates of files in the {@code tree} which are already indexed. */
+    private ConcurrentMap<String, Long> readIndexedFiles(String tree) throws IOException {
+        final ConcurrentMap<String, Long> indexedFiles = new ConcurrentHashMap<>();
+        final String prefix = "/".equals(tree) ? tree : tree + '/';
+        searcherManager.maybeRefresh();
+        final IndexSearcher luceneSearcher = searcherManager.acquire();
+        try {
+            final IndexReader reader = luceneSearcher.getIndexReader();
+            final Bits liveDocs = MultiFields.getLiveDocs(reader);
+            for (int i = 0, maxDoc = reader.maxDoc(); i < maxDoc; i++) {
+                if (liveDocs == null || liveDocs.get(i)) {
+                    final Document doc = reader.document(i, INDEXED_FILE_FIELDS);
+                    final String path = doc.get("path");
+                    if (path != null && path.startsWith(prefix)) {
+                        final IndexableField modified = doc.getField("modified");
+                        // Documents without modification date are always updated.
+                        indexedFiles.put(path, modified == null ? -1L : modified.numericValue().longValue());
+                    }
+                }
+            }
+        } finally {
+            searcherManager.release(luceneSearcher);
+        }
+        return indexedFiles;
+    }
+
+    private static class TreeIndexingState {
+        final ConcurrentMap<String, Long> indexedFiles;
+        final AtomicInteger               indexed  = new AtomicInteger();
+        final AtomicInteger               skipped  = new AtomicInteger();
+        /** Becomes {@code false} if any folder can't be read, then we don't know which files are removed. */
+        final AtomicBoolean               complete = new AtomicBoolean(true);
+
+        TreeIndexingState(ConcurrentMap<String, Long> indexedFiles) {
+            this.indexedFiles = indexedFiles;
+        }
+    }
+
+    private class FolderIndexingTask extends RecursiveAction {
+        private final VirtualFile       folder;
+        private final TreeIndexingState state;
+
+        FolderIndexingTask(VirtualFile folder, TreeIndexingState state) {
+            this.folder = folder;
+            this.state = state;
+        }
+
+        @Override
+        protected void compute() {
+            final List<RecursiveAction> tasks = new ArrayList<>();
+            final List<VirtualFile> files = new ArrayList<>();
+            try {
+                final LazyIterator<VirtualFile> children = folder.getChildren(VirtualFileFilter.ALL);
+                while (children.hasNext()) {
+                    final VirtualFile child = children.next();
+                    if (child.isFolder()) {
+                        tasks.add(new FolderIndexingTask(child, state));
+                    } else {
+                        files.add(child);
+                    }
+                }
+            } catch (ServerException e) {
+                state.complete.set(false);
+                LOG.error(String.format("Unable index folder '%s'. %s", folder.getPath(), e.getMessage()), e);
+            }
+            if (!files.isEmpty()) {
+                tasks.add(new FilesIndexingTask(files, 0, files.size(), state));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private class FilesIndexingTask extends RecursiveAction {
+        private final List<VirtualFile> files;
+        private final int               from;
+        private final int               to;
+        private final TreeIndexingState state;
+
+        FilesIndexingTask(List<VirtualFile> files, int from, int to, TreeIndexingState state) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.state = state;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BULK_FILES_PER_TASK) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new FilesIndexingTask(files, from, middle, state), new FilesIndexingTask(files, middle, to, state));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                final VirtualFile file = files.get(i);
+                final Long indexedModified = state.indexedFiles.remove(file.getPath());
+                if (indexedModified != null && indexedModified == file.getLastModificationDate()) {
+                    state.skipped.incrementAndGet();
+                    continue;
+                }
+                try {
+                    addFile(file);
+                    state.indexed.incrementAndGet();
+                } catch (ServerException e) {
+                    LOG.error(String.format("Unable index file '%s'. %s", file.getPath(), e.getMessage()), e);
+                }
+            }
+        }
+    }
+
     protected void addFile(VirtualFile virtualFile) throws ServerException {
         if (virtualFile.exists()) {
             if (!filter.accept(virtualFile)) {
@@ -266,6 +536,16 @@ public abstract class LuceneSearcher implements Searcher {
 
     @Override
     public final void delete(String path, boolean isFile) throws ServerException {
+        final IndexingPipeline myIndexingPipeline = indexingPipeline;
+        if (myIndexingPipeline == null) {
+            deleteDocuments(path, isFile);
+        } else {
+            myIndexingPipeline.add(isFile ? IndexingPipeline.ChangeType.DELETE_FILE : IndexingPipeline.ChangeType.DELETE_TREE,
+                                   path, null);
+        }
+    }
+
+    void deleteDocuments(String path, boolean isFile) throws ServerException {
         try {
             if (isFile) {
                 Term term = new Term("path", path);
@@ -284,7 +564,12 @@ public abstract class LuceneSearcher implements Searcher {
 
     @Override
     public final void update(VirtualFile virtualFile) throws ServerException {
-        doUpdate(new Term("path", virtualFile.getPath()), virtualFile);
+        final IndexingPipeline myIndexingPipeline = indexingPipeline;
+        if (myIndexingPipeline == null) {
+            doUpdate(new Term("path", virtualFile.getPath()), virtualFile);
+        } else {
+            myIndexingPipeline.add(IndexingPipeline.ChangeType.UPDATE_FILE, virtualFile.getPath(), virtualFile);
+        }
     }
 
     protected void doUpdate(Term deleteTerm, VirtualFile virtualFile) throws ServerException {
@@ -308,6 +593,7 @@ public abstract class LuceneSearcher implements Searcher {
         doc.add(new StringField("path", virtualFile.getPath(), Field.Store.YES));
         doc.add(new StringField("name", virtualFile.getName(), Field.Store.YES));
         doc.add(new StringField("mediatype", getMediaType(virtualFile), Field.Store.YES));
+        doc.add(new StoredField("modified", virtualFile.getLastModificationDate()));
         doc.add(new TextField("text", inReader));
         return doc;
     }
@@ -322,4 +608,52 @@ public abstract class LuceneSearcher implements Searcher {
         return mediaType;
     }
 
+
+    /**
+     * Position of the next page of search results. Token refers to the last document of the previous page and is valid
+     * only while index is not changed, otherwise the documents before the next page are skipped again.
+     */
+    private static class PageToken {
+        final long     indexVersion;
+        final int      queryHash;
+        final int      offset;
+        final ScoreDoc lastScoreDoc;
+
+        PageToken(long indexVersion, int queryHash, int offset, ScoreDoc lastScoreDoc) {
+            this.indexVersion = indexVersion;
+            this.queryHash = queryHash;
+            this.offset = offset;
+            this.lastScoreDoc = lastScoreDoc;
+        }
+
+        /** Returns {@code null} if {@code token} is {@code null} or malformed. */
+        static PageToken parse(String token) {
+            if (token == null) {
+                return null;
+            }
+            final String[] parts = token.split("\\.");
+            if (parts.length != 5) {
+                return null;
+            }
+            try {
+                final int offset = Integer.parseInt(parts[2], 16);
+                if (offset < 0) {
+                    return null;
+                }
+                return new PageToken(Long.parseUnsignedLong(parts[0], 16),
+                                     Integer.parseUnsignedInt(parts[1], 16),
+                                     offset,
+                                     new ScoreDoc(Integer.parseInt(parts[3], 16),
+                                                  Float.intBitsToFloat(Integer.parseUnsignedInt(parts[4], 16))));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return Long.toHexString(indexVersion) + '.' + Integer.toHexString(queryHash) + '.' + Integer.toHexString(offset) + '.' +
+                   Integer.toHexString(lastScoreDoc.doc) + '.' + Integer.toHexString(Float.floatToIntBits(lastScoreDoc.score));
+        }
+    }
 }
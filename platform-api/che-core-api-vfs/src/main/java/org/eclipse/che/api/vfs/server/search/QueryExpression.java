@@ -18,6 +18,7 @@ public class QueryExpression {
     private String text;
     private int    skipCount;
     private int    maxItems;
+    private String pageToken;
 
     public String getPath() {
         return path;
@@ -73,6 +74,19 @@ public class QueryExpression {
         return this;
     }
 
+    public String getPageToken() {
+        return pageToken;
+    }
+
+    /**
+     * Sets token of page of results, see {@link SearchResult#getNextPageToken()}. If token is set then {@link #getSkipCount()}
+     * is ignored.
+     */
+    public QueryExpression setPageToken(String pageToken) {
+        this.pageToken = pageToken;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "QueryExpression{" +
@@ -82,6 +96,7 @@ public class QueryExpression {
                ", text='" + text + '\'' +
                ", skipCount=" + skipCount +
                ", maxItems=" + maxItems +
+               ", pageToken='" + pageToken + '\'' +
                '}';
     }
 }
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.search;
+
+import java.util.Arrays;
+
+/**
+ * Result of {@link Searcher#search(QueryExpression)}: paths of found files and token to get the next page of results.
+ */
+public class SearchResult {
+    private final String[] filePaths;
+    private final int      totalHits;
+    private final String   nextPageToken;
+
+    public SearchResult(String[] filePaths, int totalHits, String nextPageToken) {
+        this.filePaths = filePaths;
+        this.totalHits = totalHits;
+        this.nextPageToken = nextPageToken;
+    }
+
+    /** Paths of found files. */
+    public String[] getFilePaths() {
+        return filePaths;
+    }
+
+    /** Total number of files that match the query, it may be greater then number of files in this result. */
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    /**
+     * Opaque token that should be passed with {@link QueryExpression#setPageToken(String)} to get the next page of results.
+     * Returns {@code null} if there are no more results.
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{" +
+               "filePaths=" + Arrays.toString(filePaths) +
+               ", totalHits=" + totalHits +
+               ", nextPageToken='" + nextPageToken + '\'' +
+               '}';
+    }
+}
@@ -19,11 +19,11 @@ public interface Searcher {
      *
      * @param query
      *         query expression
-     * @return paths of matched items
+     * @return paths of matched items and token of the next page of results
      * @throws ServerException
      *         if an error occurs
      */
-    String[] search(QueryExpression query) throws ServerException;
+    SearchResult search(QueryExpression query) throws ServerException;
 
     /**
      * Add VirtualFile to index.
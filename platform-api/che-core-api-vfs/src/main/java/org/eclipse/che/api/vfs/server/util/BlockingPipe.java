@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipe between thread that produces data and thread that reads it. Unlike to {@link java.io.PipedOutputStream} writer doesn't
+ * wait for the reader forever: if reader doesn't take data during the {@code writeTimeout} or closes its end of pipe the
+ * writer gets IOException. Failure of the writer is reported to the reader as IOException after all data written before
+ * the failure is read, so the reader never takes truncated data for the complete one.
+ * <p/>
+ * Data is passed through the pipe by chunks, pipe keeps at most {@code maxChunks} chunks which are not read yet.
+ */
+public class BlockingPipe {
+    /** How often reader looks whether writer is done. */
+    private static final long POLL_MILLIS = 1000;
+
+    private final BlockingQueue<byte[]> chunks;
+    private final int                   chunkSize;
+    private final long                  writeTimeout;
+    private final InputStream           in;
+    private final OutputStream          out;
+
+    private volatile boolean   readerClosed;
+    private volatile boolean   writerDone;
+    private volatile Throwable error;
+
+    /**
+     * @param chunkSize
+     *         max size of chunk of data
+     * @param maxChunks
+     *         max number of chunks which are written but not read yet
+     * @param writeTimeout
+     *         max time in milliseconds that the writer waits for the reader
+     */
+    public BlockingPipe(int chunkSize, int maxChunks, long writeTimeout) {
+        if (chunkSize < 1 || maxChunks < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.chunkSize = chunkSize;
+        this.writeTimeout = writeTimeout;
+        chunks = new ArrayBlockingQueue<>(maxChunks);
+        in = new PipeInputStream();
+        out = new PipeOutputStream();
+    }
+
+    public InputStream getInputStream() {
+        return in;
+    }
+
+    public OutputStream getOutputStream() {
+        return out;
+    }
+
+    /**
+     * Reports failure of the writer. Reader gets IOException with {@code error} as cause when it reads all data which was
+     * written before. Writer must not use the pipe after call of this method.
+     */
+    public void fail(Throwable error) {
+        this.error = error;
+        writerDone = true;
+    }
+
+    private class PipeOutputStream extends OutputStream {
+        private byte[] buffer = new byte[chunkSize];
+        private int    count;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                sendBuffer();
+            }
+            buffer[count++] = (byte)b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    sendBuffer();
+                }
+                final int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                sendBuffer();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writerDone) {
+                return;
+            }
+            try {
+                flush();
+            } finally {
+                writerDone = true;
+            }
+        }
+
+        private void sendBuffer() throws IOException {
+            if (writerDone) {
+                throw new IOException("Pipe is closed. ");
+            }
+            final byte[] chunk = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+            checkReader();
+            try {
+                if (!chunks.offer(chunk, writeTimeout, TimeUnit.MILLISECONDS)) {
+                    throw new IOException(String.format("Reader didn't take data from pipe during %d ms. ", writeTimeout));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while writing to pipe. ", e);
+            }
+            // Reader may close pipe while we were waiting for the free space.
+            checkReader();
+            if (chunk == buffer) {
+                buffer = new byte[chunkSize];
+            }
+            count = 0;
+        }
+
+        private void checkReader() throws IOException {
+            if (readerClosed) {
+                throw new IOException("Reader closed pipe. ");
+            }
+        }
+    }
+
+    private class PipeInputStream extends InputStream {
+        private byte[] chunk;
+        private int    pos;
+
+        @Override
+        public int read() throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+            return chunk[pos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextChunk()) {
+                return -1;
+            }
+            final int n = Math.min(len, chunk.length - pos);
+            System.arraycopy(chunk, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return chunk == null ? 0 : chunk.length - pos;
+        }
+
+        @Override
+        public void close() {
+            readerClosed = true;
+            chunk = null;
+            // Let writer which waits for free space go and see that pipe is closed.
+            chunks.clear();
+        }
+
+        /** Returns {@code false} if all data is read. */
+        private boolean nextChunk() throws IOException {
+            if (readerClosed) {
+                throw new IOException("Pipe is closed. ");
+            }
+            while (chunk == null || pos == chunk.length) {
+                final byte[] next;
+                try {
+                    next = chunks.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while reading from pipe. ", e);
+                }
+                if (next != null) {
+                    chunk = next;
+                    pos = 0;
+                } else if (writerDone && chunks.isEmpty()) {
+                    final Throwable myError = error;
+                    if (myError != null) {
+                        throw new IOException(myError.getMessage(), myError);
+                    }
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,488 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.util;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes zip archive to the stream without spooling it to a file. Unlike to {@link java.util.zip.ZipOutputStream} files are
+ * read and compressed by the worker threads while entries are written to the output stream in the same order as they were
+ * added. Files that are not compressible (images, archives, etc) are stored without compression.
+ * <p/>
+ * Files bigger than {@code maxInMemoryEntrySize} are not read by worker threads but compressed directly to the output
+ * stream by the thread that adds entries. Such files that are not compressible are read twice: first time to count CRC32
+ * which must be written before content of stored entry and second time to copy content to the output.
+ * <p/>
+ * Instance of this class is not thread-safe, all entries must be added by one thread.
+ */
+public class ParallelZipOutputStream implements Closeable {
+    /** Extensions of files that are stored without compression. */
+    private static final Set<String> NOT_COMPRESSIBLE = ImmutableSet.of("7z", "bz2", "ear", "gif", "gz", "ico", "jar", "jpeg", "jpg",
+                                                                        "mp3", "mp4", "png", "rar", "tgz", "war", "webp", "woff",
+                                                                        "woff2", "xz", "zip");
+
+    private static final int  LOCAL_HEADER_SIG     = 0x04034b50;
+    private static final int  DATA_DESCRIPTOR_SIG  = 0x08074b50;
+    private static final int  CENTRAL_HEADER_SIG   = 0x02014b50;
+    private static final int  ZIP64_END_SIG        = 0x06064b50;
+    private static final int  ZIP64_LOCATOR_SIG    = 0x07064b50;
+    private static final int  END_SIG              = 0x06054b50;
+    private static final int  ZIP64_EXTRA_ID       = 0x0001;
+    private static final int  FLAG_DATA_DESCRIPTOR = 1 << 3;
+    private static final int  FLAG_UTF8            = 1 << 11;
+    private static final int  STORED               = 0;
+    private static final int  DEFLATED             = 8;
+    private static final int  VERSION              = 20;
+    private static final int  VERSION_ZIP64        = 45;
+    private static final long ZIP64_MAGIC          = 0xFFFFFFFFL;
+    private static final int  ZIP64_MAGIC_COUNT    = 0xFFFF;
+    /** Stored blocks of deflate format add few bytes per block, keep enough space for it when decide about zip64 format. */
+    private static final long ZIP64_THRESHOLD      = ZIP64_MAGIC - (1 << 20);
+    private static final int  BUFFER_SIZE          = 8 * 1024;
+
+    private final CountingOutputStream out;
+    private final ExecutorService      executor;
+    private final int                  maxPendingEntries;
+    private final long                 maxInMemoryEntrySize;
+    private final Deque<Future<Entry>> pending;
+    private final List<Entry>          written;
+
+    private boolean finished;
+
+    /**
+     * @param out
+     *         output stream
+     * @param executor
+     *         executor for reading and compressing of files
+     * @param maxPendingEntries
+     *         max number of entries that may be prepared in advance by the worker threads
+     * @param maxInMemoryEntrySize
+     *         max size of file that may be read and compressed by the worker thread
+     */
+    public ParallelZipOutputStream(OutputStream out, ExecutorService executor, int maxPendingEntries, long maxInMemoryEntrySize) {
+        if (maxPendingEntries < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.out = new CountingOutputStream(out);
+        this.executor = executor;
+        this.maxPendingEntries = maxPendingEntries;
+        this.maxInMemoryEntrySize = maxInMemoryEntrySize;
+        pending = new ArrayDeque<>(maxPendingEntries + 1);
+        written = new ArrayList<>();
+    }
+
+    /**
+     * Adds folder entry.
+     *
+     * @param name
+     *         name of entry, must end with '/'
+     * @param time
+     *         modification time of folder
+     */
+    public void putFolder(String name, long time) throws IOException {
+        enqueue(CompletableFuture.completedFuture(new Entry(name, time, STORED)));
+    }
+
+    /**
+     * Adds file entry.
+     *
+     * @param name
+     *         name of entry
+     * @param time
+     *         modification time of file
+     * @param length
+     *         length of file, it is used to decide whether content of file may be prepared by worker thread
+     * @param content
+     *         content of file
+     */
+    public void putFile(final String name, final long time, long length, final ByteSource content) throws IOException {
+        if (length > maxInMemoryEntrySize) {
+            final Entry entry = new Entry(name, time, isCompressible(name) ? DEFLATED : STORED);
+            entry.size = length;
+            entry.content = content;
+            enqueue(CompletableFuture.completedFuture(entry));
+        } else {
+            enqueue(executor.submit(() -> prepare(name, time, content)));
+        }
+    }
+
+    /** Writes all pending entries and central directory. Does not close the underlying stream. */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        while (!pending.isEmpty()) {
+            writeEntry(take());
+        }
+        writeCentralDirectory();
+        out.flush();
+        finished = true;
+    }
+
+    /** Stops writing of archive and cancels all pending entries. Does not close the underlying stream. */
+    public void abort() {
+        finished = true;
+        for (Future<Entry> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void enqueue(Future<Entry> future) throws IOException {
+        if (finished) {
+            throw new IOException("Archive is already finished. ");
+        }
+        pending.add(future);
+        while (!pending.isEmpty() && (pending.size() > maxPendingEntries || pending.peek().isDone())) {
+            writeEntry(take());
+        }
+    }
+
+    private Entry take() throws IOException {
+        final Future<Entry> future = pending.poll();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for zip entry. ", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    // Run by worker threads.
+    private static Entry prepare(String name, long time, ByteSource content) throws IOException {
+        final byte[] data;
+        try (InputStream in = content.openStream()) {
+            data = ByteStreams.toByteArray(in);
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(data);
+
+        byte[] compressed = null;
+        if (isCompressible(name)) {
+            final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+                final ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(data.length / 2, 64));
+                final byte[] buff = new byte[BUFFER_SIZE];
+                while (!deflater.finished()) {
+                    buffer.write(buff, 0, deflater.deflate(buff));
+                }
+                if (buffer.size() < data.length) {
+                    compressed = buffer.toByteArray();
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+
+        final Entry entry = new Entry(name, time, compressed == null ? STORED : DEFLATED);
+        entry.crc = crc.getValue();
+        entry.size = data.length;
+        entry.data = compressed == null ? data : compressed;
+        entry.compressedSize = entry.data.length;
+        return entry;
+    }
+
+    private static boolean isCompressible(String name) {
+        final int dot = name.lastIndexOf('.');
+        return dot < 0 || !NOT_COMPRESSIBLE.contains(name.substring(dot + 1).toLowerCase());
+    }
+
+    private void writeEntry(Entry entry) throws IOException {
+        entry.offset = out.getCount();
+        if (entry.content != null) {
+            if (entry.method == STORED) {
+                writeStoredEntry(entry);
+            } else {
+                writeStreamedEntry(entry);
+            }
+        } else {
+            writeLocalHeader(entry, false);
+            if (entry.data != null) {
+                out.write(entry.data);
+                entry.data = null; // not need it any more
+            }
+        }
+        written.add(entry);
+        out.flush();
+    }
+
+    private void writeStreamedEntry(Entry entry) throws IOException {
+        final boolean zip64 = entry.size >= ZIP64_THRESHOLD;
+        entry.flags |= FLAG_DATA_DESCRIPTOR;
+        writeLocalHeader(entry, zip64);
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        final CRC32 crc = new CRC32();
+        final byte[] buff = new byte[BUFFER_SIZE];
+        final byte[] deflated = new byte[BUFFER_SIZE];
+        final long start = out.getCount();
+        long size = 0;
+        try (InputStream in = entry.content.openStream()) {
+            int r;
+            while ((r = in.read(buff)) != -1) {
+                crc.update(buff, 0, r);
+                size += r;
+                deflater.setInput(buff, 0, r);
+                while (!deflater.needsInput()) {
+                    out.write(deflated, 0, deflater.deflate(deflated));
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                out.write(deflated, 0, deflater.deflate(deflated));
+            }
+        } finally {
+            deflater.end();
+        }
+        entry.content = null;
+        entry.crc = crc.getValue();
+        entry.size = size;
+        entry.compressedSize = out.getCount() - start;
+        if (!zip64 && (entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC)) {
+            throw new IOException(String.format("File '%s' was changed while it was added to zip. ", entry.name));
+        }
+        final ByteBuffer descriptor = newBuffer(zip64 ? 24 : 16);
+        descriptor.putInt(DATA_DESCRIPTOR_SIG);
+        descriptor.putInt((int)entry.crc);
+        if (zip64) {
+            descriptor.putLong(entry.compressedSize);
+            descriptor.putLong(entry.size);
+        } else {
+            descriptor.putInt((int)entry.compressedSize);
+            descriptor.putInt((int)entry.size);
+        }
+        write(descriptor);
+    }
+
+    private void writeStoredEntry(Entry entry) throws IOException {
+        final CRC32 crc = new CRC32();
+        final byte[] buff = new byte[BUFFER_SIZE];
+        long size = 0;
+        try (InputStream in = entry.content.openStream()) {
+            int r;
+            while ((r = in.read(buff)) != -1) {
+                crc.update(buff, 0, r);
+                size += r;
+            }
+        }
+        entry.crc = crc.getValue();
+        entry.size = size;
+        entry.compressedSize = size;
+        writeLocalHeader(entry, size >= ZIP64_MAGIC);
+        crc.reset();
+        long copied = 0;
+        try (InputStream in = entry.content.openStream()) {
+            int r;
+            while ((r = in.read(buff)) != -1) {
+                copied += r;
+                if (copied > size) {
+                    break;
+                }
+                crc.update(buff, 0, r);
+                out.write(buff, 0, r);
+            }
+        }
+        entry.content = null;
+        if (copied != size || crc.getValue() != entry.crc) {
+            throw new IOException(String.format("File '%s' was changed while it was added to zip. ", entry.name));
+        }
+    }
+
+    private void writeLocalHeader(Entry entry, boolean zip64) throws IOException {
+        final boolean dataDescriptor = (entry.flags & FLAG_DATA_DESCRIPTOR) != 0;
+        final ByteBuffer header = newBuffer(30 + entry.nameBytes.length + (zip64 ? 20 : 0));
+        header.putInt(LOCAL_HEADER_SIG);
+        header.putShort((short)(zip64 ? VERSION_ZIP64 : VERSION));
+        header.putShort((short)entry.flags);
+        header.putShort((short)entry.method);
+        header.putInt((int)entry.dosTime);
+        if (dataDescriptor) {
+            header.putInt(0);
+            header.putInt(zip64 ? (int)ZIP64_MAGIC : 0);
+            header.putInt(zip64 ? (int)ZIP64_MAGIC : 0);
+        } else {
+            header.putInt((int)entry.crc);
+            header.putInt(zip64 ? (int)ZIP64_MAGIC : (int)entry.compressedSize);
+            header.putInt(zip64 ? (int)ZIP64_MAGIC : (int)entry.size);
+        }
+        header.putShort((short)entry.nameBytes.length);
+        header.putShort((short)(zip64 ? 20 : 0));
+        header.put(entry.nameBytes);
+        if (zip64) {
+            header.putShort((short)ZIP64_EXTRA_ID);
+            header.putShort((short)16);
+            // Sizes of entry with data descriptor are unknown yet, they are written in the descriptor.
+            header.putLong(dataDescriptor ? 0 : entry.size);
+            header.putLong(dataDescriptor ? 0 : entry.compressedSize);
+        }
+        write(header);
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        final long start = out.getCount();
+        for (Entry entry : written) {
+            final boolean sizeZip64 = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC;
+            final boolean offsetZip64 = entry.offset >= ZIP64_MAGIC;
+            final int extraLength = sizeZip64 || offsetZip64 ? 4 + (sizeZip64 ? 16 : 0) + (offsetZip64 ? 8 : 0) : 0;
+            final ByteBuffer header = newBuffer(46 + entry.nameBytes.length + extraLength);
+            header.putInt(CENTRAL_HEADER_SIG);
+            header.putShort((short)(extraLength > 0 ? VERSION_ZIP64 : VERSION));
+            header.putShort((short)(extraLength > 0 ? VERSION_ZIP64 : VERSION));
+            header.putShort((short)entry.flags);
+            header.putShort((short)entry.method);
+            header.putInt((int)entry.dosTime);
+            header.putInt((int)entry.crc);
+            header.putInt(sizeZip64 ? (int)ZIP64_MAGIC : (int)entry.compressedSize);
+            header.putInt(sizeZip64 ? (int)ZIP64_MAGIC : (int)entry.size);
+            header.putShort((short)entry.nameBytes.length);
+            header.putShort((short)extraLength);
+            header.putShort((short)0); // comment length
+            header.putShort((short)0); // disk number
+            header.putShort((short)0); // internal attributes
+            header.putInt(0); // external attributes
+            header.putInt(offsetZip64 ? (int)ZIP64_MAGIC : (int)entry.offset);
+            header.put(entry.nameBytes);
+            if (extraLength > 0) {
+                header.putShort((short)ZIP64_EXTRA_ID);
+                header.putShort((short)(extraLength - 4));
+                if (sizeZip64) {
+                    header.putLong(entry.size);
+                    header.putLong(entry.compressedSize);
+                }
+                if (offsetZip64) {
+                    header.putLong(entry.offset);
+                }
+            }
+            write(header);
+        }
+        final long end = out.getCount();
+        final long size = end - start;
+        final int count = written.size();
+        final boolean zip64 = count >= ZIP64_MAGIC_COUNT || size >= ZIP64_MAGIC || start >= ZIP64_MAGIC;
+        if (zip64) {
+            final ByteBuffer zip64End = newBuffer(56 + 20);
+            zip64End.putInt(ZIP64_END_SIG);
+            zip64End.putLong(44);
+            zip64End.putShort((short)VERSION_ZIP64);
+            zip64End.putShort((short)VERSION_ZIP64);
+            zip64End.putInt(0);
+            zip64End.putInt(0);
+            zip64End.putLong(count);
+            zip64End.putLong(count);
+            zip64End.putLong(size);
+            zip64End.putLong(start);
+            // locator
+            zip64End.putInt(ZIP64_LOCATOR_SIG);
+            zip64End.putInt(0);
+            zip64End.putLong(end);
+            zip64End.putInt(1);
+            write(zip64End);
+        }
+        final ByteBuffer endRecord = newBuffer(22);
+        endRecord.putInt(END_SIG);
+        endRecord.putShort((short)0);
+        endRecord.putShort((short)0);
+        endRecord.putShort((short)(zip64 ? ZIP64_MAGIC_COUNT : count));
+        endRecord.putShort((short)(zip64 ? ZIP64_MAGIC_COUNT : count));
+        endRecord.putInt(zip64 ? (int)ZIP64_MAGIC : (int)size);
+        endRecord.putInt(zip64 ? (int)ZIP64_MAGIC : (int)start);
+        endRecord.putShort((short)0);
+        write(endRecord);
+    }
+
+    private static ByteBuffer newBuffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    /** Converts java time to MS-DOS date and time, the same as {@link java.util.zip.ZipEntry#setTime(long)} does. */
+    private static long toDosTime(long time) {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        final int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (year - 1980) << 25
+               | (calendar.get(Calendar.MONTH) + 1) << 21
+               | calendar.get(Calendar.DAY_OF_MONTH) << 16
+               | calendar.get(Calendar.HOUR_OF_DAY) << 11
+               | calendar.get(Calendar.MINUTE) << 5
+               | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    private static class Entry {
+        final String name;
+        final byte[] nameBytes;
+        final long   dosTime;
+        final int    method;
+        int        flags;
+        long       crc;
+        long       size;
+        long       compressedSize;
+        long       offset;
+        /** Prepared content of entry. */
+        byte[]     data;
+        /** Content of entry that should be streamed to the output. */
+        ByteSource content;
+
+        Entry(String name, long time, int method) {
+            this.name = name;
+            this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            this.dosTime = toDosTime(time);
+            this.method = method;
+            this.flags = FLAG_UTF8;
+        }
+    }
+}
@@ -45,4 +45,14 @@ public interface ItemList {
     ItemList withHasMoreItems(boolean hasMoreItems);
 
     void setHasMoreItems(boolean hasMoreItems);
+
+    /**
+     * @return token that may be used to get the next page of items more efficiently than with skipping of items, or {@code null}
+     *         if this is last sub-set of items in paging or paging with token is not supported
+     */
+    String getNextPageToken();
+
+    ItemList withNextPageToken(String nextPageToken);
+
+    void setNextPageToken(String nextPageToken);
 }
@@ -0,0 +1,430 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HierarchicalPathLockFactoryTest extends TestCase {
+    private final Path path = Path.fromString("/a/b/c"); // Path not need to be real path on file system
+
+    private HierarchicalPathLockFactory pathLockFactory;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        pathLockFactory = new HierarchicalPathLockFactory();
+    }
+
+    public void testLock() throws Exception {
+        final AtomicBoolean acquired = new AtomicBoolean(false);
+        final CountDownLatch waiter = new CountDownLatch(1);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    pathLockFactory.getLock(path, true).acquire();
+                    acquired.set(true);
+                } finally {
+                    waiter.countDown();
+                }
+            }
+        };
+        t.start();
+        waiter.await();
+        assertTrue(acquired.get());
+    }
+
+    public void testConcurrentExclusiveLocks() throws Throwable {
+        final AtomicInteger acquired = new AtomicInteger(0);
+        final CountDownLatch waiter = new CountDownLatch(3);
+        final List<Throwable> errors = new ArrayList<>(3);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                HierarchicalPathLockFactory.PathLock exclusiveLock = pathLockFactory.getLock(path, true);
+                try {
+                    exclusiveLock.acquire();
+                    // Only one thread has exclusive access
+                    assertEquals(0, acquired.getAndIncrement());
+                    Thread.sleep(100);
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    acquired.getAndDecrement();
+                    exclusiveLock.release();
+                    waiter.countDown();
+                }
+            }
+        };
+        new Thread(task).start();
+        new Thread(task).start();
+        new Thread(task).start();
+        waiter.await();
+        assertEquals(0, acquired.get()); // all locks must be released
+        if (!errors.isEmpty()) {
+            throw errors.get(0);
+        }
+    }
+
+    public void testLockTimeout() throws Exception {
+        final CountDownLatch starter = new CountDownLatch(1);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                HierarchicalPathLockFactory.PathLock exclusiveLock = pathLockFactory.getLock(path, true);
+                try {
+                    exclusiveLock.acquire();
+                    starter.countDown();
+                    Thread.sleep(2000); // get lock and sleep
+                } catch (InterruptedException ignored) {
+                } finally {
+                    exclusiveLock.release();
+                }
+            }
+        };
+        new Thread(task).start();
+        starter.await(); // wait while child thread acquire exclusive lock
+        HierarchicalPathLockFactory.PathLock timeoutExclusiveLock = pathLockFactory.getLock(path, true);
+        try {
+            // Wait lock timeout is much less then sleep time of child thread.
+            // Here we must be failed to get exclusive permit.
+            timeoutExclusiveLock.acquire(100);
+            fail();
+        } catch (RuntimeException e) {
+            // OK
+        }
+    }
+
+    public void testConcurrentLocks() throws Throwable {
+        final AtomicInteger acquired = new AtomicInteger(0);
+        final CountDownLatch starter = new CountDownLatch(1);
+        final CountDownLatch waiter = new CountDownLatch(2);
+        Runnable task1 = new Runnable() {
+            @Override
+            public void run() {
+                HierarchicalPathLockFactory.PathLock lock = pathLockFactory.getLock(path, false);
+                lock.acquire();
+                acquired.incrementAndGet();
+                starter.countDown();
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ignored) {
+                } finally {
+                    acquired.getAndDecrement();
+                    lock.release();
+                    waiter.countDown();
+                }
+            }
+        };
+        final List<Throwable> errors = new ArrayList<>(1);
+        Runnable task2 = new Runnable() {
+            @Override
+            public void run() {
+                HierarchicalPathLockFactory.PathLock exclusiveLock = pathLockFactory.getLock(path, true);
+                try {
+                    exclusiveLock.acquire();
+                    // This thread must be blocked while another thread keeps lock.
+                    assertEquals(0, acquired.getAndIncrement());
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    acquired.getAndDecrement();
+                    exclusiveLock.release();
+                    waiter.countDown();
+                }
+            }
+        };
+        new Thread(task1).start();
+        starter.await();
+        new Thread(task2).start();
+        waiter.await();
+        assertEquals(0, acquired.get()); // all locks must be released
+
+        if (!errors.isEmpty()) {
+            throw errors.get(0);
+        }
+    }
+
+    public void testHierarchyLock() throws Throwable {
+        final AtomicInteger acquired = new AtomicInteger(0);
+        final Path parent = path.getParent();
+        final CountDownLatch starter = new CountDownLatch(1);
+        final CountDownLatch waiter = new CountDownLatch(2);
+        Runnable parentTask = new Runnable() {
+            @Override
+            public void run() {
+                HierarchicalPathLockFactory.PathLock lock = pathLockFactory.getLock(parent, true);
+                lock.acquire();
+                acquired.incrementAndGet();
+                starter.countDown();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ignored) {
+                } finally {
+                    acquired.getAndDecrement();
+                    lock.release();
+                    waiter.countDown();
+                }
+            }
+        };
+        final List<Throwable> errors = new ArrayList<>(1);
+        Runnable childTask = new Runnable() {
+            @Override
+            public void run() {
+                HierarchicalPathLockFactory.PathLock lock = pathLockFactory.getLock(path, false);
+                try {
+                    lock.acquire();
+                    // This thread must be blocked while another thread keeps lock.
+                    assertEquals(0, acquired.getAndIncrement());
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    lock.release();
+                    acquired.getAndDecrement();
+                    waiter.countDown();
+                }
+            }
+        };
+        new Thread(parentTask).start();
+        starter.await();
+        new Thread(childTask).start();
+        waiter.await();
+        assertEquals(0, acquired.get()); // all locks must be released
+
+        if (!errors.isEmpty()) {
+            throw errors.get(0);
+        }
+    }
+
+    public void testLockSameThread() throws Exception {
+        final AtomicInteger acquired = new AtomicInteger(0);
+        final CountDownLatch waiter = new CountDownLatch(1);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    HierarchicalPathLockFactory.PathLock lock1 = pathLockFactory.getLock(path, true);
+                    HierarchicalPathLockFactory.PathLock lock2 = pathLockFactory.getLock(path, true);
+                    lock1.acquire();
+                    acquired.incrementAndGet();
+                    lock2.acquire(1000); // try with timeout.
+                    acquired.incrementAndGet();
+                } finally {
+                    waiter.countDown();
+                }
+            }
+        };
+        new Thread(task).start();
+        waiter.await();
+        assertEquals(2, acquired.get());
+    }
+
+    public void testChildLockBlocksExclusiveParentLock() throws Throwable {
+        final AtomicInteger acquired = new AtomicInteger(0);
+        final Path parent = path.getParent().getParent();
+        final CountDownLatch starter = new CountDownLatch(1);
+        final CountDownLatch waiter = new CountDownLatch(2);
+        Runnable childTask = new Runnable() {
+            @Override
+            public void run() {
+                HierarchicalPathLockFactory.PathLock lock = pathLockFactory.getLock(path, false);
+                lock.acquire();
+                acquired.incrementAndGet();
+                starter.countDown();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ignored) {
+                } finally {
+                    acquired.getAndDecrement();
+                    lock.release();
+                    waiter.countDown();
+                }
+            }
+        };
+        final List<Throwable> errors = new ArrayList<>(1);
+        Runnable parentTask = new Runnable() {
+            @Override
+            public void run() {
+                HierarchicalPathLockFactory.PathLock lock = pathLockFactory.getLock(parent, true);
+                try {
+                    lock.acquire();
+                    // This thread must be blocked while another thread keeps lock of child.
+                    assertEquals(0, acquired.getAndIncrement());
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    lock.release();
+                    acquired.getAndDecrement();
+                    waiter.countDown();
+                }
+            }
+        };
+        new Thread(childTask).start();
+        starter.await();
+        new Thread(parentTask).start();
+        waiter.await();
+        assertEquals(0, acquired.get()); // all locks must be released
+
+        if (!errors.isEmpty()) {
+            throw errors.get(0);
+        }
+    }
+
+    public void testSharedLocksOfSiblings() throws Exception {
+        final Path sibling = path.getParent().newPath("d");
+        HierarchicalPathLockFactory.PathLock lock1 = pathLockFactory.getLock(path, true).acquire();
+        final AtomicBoolean acquired = new AtomicBoolean(false);
+        final CountDownLatch waiter = new CountDownLatch(1);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    HierarchicalPathLockFactory.PathLock lock2 = pathLockFactory.getLock(sibling, true).acquire(100);
+                    acquired.set(true);
+                    lock2.release();
+                } finally {
+                    waiter.countDown();
+                }
+            }
+        };
+        t.start();
+        waiter.await();
+        lock1.release();
+        assertTrue(acquired.get());
+        pathLockFactory.checkClean();
+    }
+
+    public void testTimeoutReleasesParentLocks() throws Exception {
+        final CountDownLatch starter = new CountDownLatch(1);
+        final CountDownLatch finisher = new CountDownLatch(1);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                HierarchicalPathLockFactory.PathLock lock = pathLockFactory.getLock(path, true).acquire();
+                starter.countDown();
+                try {
+                    finisher.await();
+                } catch (InterruptedException ignored) {
+                } finally {
+                    lock.release();
+                }
+            }
+        };
+        t.start();
+        starter.await();
+        try {
+            pathLockFactory.getLock(path, false).acquire(100);
+            fail();
+        } catch (RuntimeException e) {
+            // OK
+        }
+        finisher.countDown();
+        t.join();
+        pathLockFactory.checkClean();
+    }
+
+    public void testExclusiveRootLockWaitsForLocksOfChildren() throws Exception {
+        final CountDownLatch starter = new CountDownLatch(1);
+        final CountDownLatch finisher = new CountDownLatch(1);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                HierarchicalPathLockFactory.PathLock lock = pathLockFactory.getLock(path, false).acquire();
+                starter.countDown();
+                try {
+                    finisher.await();
+                } catch (InterruptedException ignored) {
+                } finally {
+                    lock.release();
+                }
+            }
+        };
+        t.start();
+        starter.await();
+        try {
+            pathLockFactory.getLock(Path.ROOT, true).acquire(100);
+            fail();
+        } catch (RuntimeException e) {
+            // OK
+        }
+        finisher.countDown();
+        t.join();
+        pathLockFactory.getLock(Path.ROOT, true).acquire(100).release();
+        pathLockFactory.checkClean();
+    }
+
+    public void testExclusiveParentLockOfThreadThatHoldsLockOfChild() throws Exception {
+        HierarchicalPathLockFactory.PathLock childLock = pathLockFactory.getLock(path, true).acquire();
+        Path parent = path.getParent().getParent();
+        HierarchicalPathLockFactory.PathLock parentLock = pathLockFactory.getLock(parent, true).acquire(100);
+        parentLock.release();
+        childLock.release();
+        pathLockFactory.checkClean();
+    }
+
+    public void testConflictingLocksAreNotHeldConcurrently() throws Throwable {
+        final Path[] paths = {Path.ROOT, Path.fromString("/a"), Path.fromString("/a/b"), Path.fromString("/a/b/c"),
+                              Path.fromString("/a/b/d"), Path.fromString("/a/e"), Path.fromString("/f")};
+        final Map<Thread, Object[]> held = new ConcurrentHashMap<>();
+        final List<Throwable> errors = new CopyOnWriteArrayList<>();
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    final Random random = new Random();
+                    for (int n = 0; n < 2000 && errors.isEmpty(); n++) {
+                        final Path lockPath = paths[random.nextInt(paths.length)];
+                        final boolean exclusive = random.nextInt(4) == 0;
+                        final HierarchicalPathLockFactory.PathLock lock =
+                                pathLockFactory.getLock(lockPath, exclusive).acquire(10000);
+                        try {
+                            for (Object[] other : held.values()) {
+                                final Path otherPath = (Path)other[0];
+                                final boolean related = lockPath.isChild(otherPath) || otherPath.isChild(lockPath)
+                                                        || lockPath.equals(otherPath);
+                                if (related && (exclusive || (Boolean)other[1])) {
+                                    errors.add(new AssertionError(
+                                            String.format("'%s' and '%s' are locked together", lockPath, otherPath)));
+                                }
+                            }
+                            held.put(this, new Object[]{lockPath, exclusive});
+                            Thread.yield();
+                            held.remove(this);
+                        } catch (Throwable e) {
+                            errors.add(e);
+                        } finally {
+                            lock.release();
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!errors.isEmpty()) {
+            throw errors.get(0);
+        }
+        pathLockFactory.checkClean();
+    }
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link PathLockFactory} and {@link HierarchicalPathLockFactory} under the load similar to one produced by
+ * FSMountPoint: many threads lock files of one project tree, most of locks are shared.
+ * <p/>
+ * Run with: {@code java -cp <test classpath> org.eclipse.che.api.vfs.server.PathLockFactoryBenchmark}.
+ * Each benchmark is executed with 1, 2, 4, 8, 16, 32 and 64 threads.
+ * <p/>
+ * All paths have common parents (root and {@code /project}) which get intention lock on every acquisition. Compare results
+ * of {@code hierarchicalPathLockFactory} with 1 and 64 threads: if intention locks of common parents were taken under
+ * monitor, all threads would queue on it and throughput would drop as threads are added.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathLockFactoryBenchmark {
+    private static final int   FOLDERS         = 16;
+    private static final int   FILES           = 64;
+    /** Every N-th lock is exclusive, others are shared. */
+    private static final int   EXCLUSIVE_RATIO = 10;
+    /** Work (in JMH tokens) done while lock is held. */
+    private static final long  WORK            = 50;
+    private static final int[] THREADS         = {1, 2, 4, 8, 16, 32, 64};
+
+    private Path[]                      paths;
+    private PathLockFactory             pathLockFactory;
+    private HierarchicalPathLockFactory hierarchicalPathLockFactory;
+
+    @Setup
+    public void setUp() {
+        paths = new Path[FOLDERS * FILES];
+        for (int i = 0; i < FOLDERS; i++) {
+            for (int j = 0; j < FILES; j++) {
+                paths[i * FILES + j] = Path.fromString("/project/folder" + i + "/file" + j);
+            }
+        }
+        pathLockFactory = new PathLockFactory(1024);
+        hierarchicalPathLockFactory = new HierarchicalPathLockFactory();
+    }
+
+    @Benchmark
+    public void pathLockFactory() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final PathLockFactory.PathLock lock =
+                pathLockFactory.getLock(paths[random.nextInt(paths.length)], random.nextInt(EXCLUSIVE_RATIO) == 0).acquire();
+        try {
+            Blackhole.consumeCPU(WORK);
+        } finally {
+            lock.release();
+        }
+    }
+
+    @Benchmark
+    public void hierarchicalPathLockFactory() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final HierarchicalPathLockFactory.PathLock lock =
+                hierarchicalPathLockFactory.getLock(paths[random.nextInt(paths.length)], random.nextInt(EXCLUSIVE_RATIO) == 0)
+                                           .acquire();
+        try {
+            Blackhole.consumeCPU(WORK);
+        } finally {
+            lock.release();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads : THREADS) {
+            final Options options = new OptionsBuilder().include(PathLockFactoryBenchmark.class.getSimpleName())
+                                                        .threads(threads)
+                                                        .build();
+            new Runner(options).run();
+        }
+    }
+}
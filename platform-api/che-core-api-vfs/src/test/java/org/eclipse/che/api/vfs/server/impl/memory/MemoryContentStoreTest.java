@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.impl.memory;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+public class MemoryContentStoreTest extends TestCase {
+    private java.io.File spillDir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        spillDir = Files.createTempDir();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (java.io.File file : spillDir.listFiles()) {
+            file.delete();
+        }
+        spillDir.delete();
+        super.tearDown();
+    }
+
+    public void testContentIsKeptInMemoryWhileLimitIsNotReached() throws Exception {
+        MemoryContentStore store = new MemoryContentStore(MemoryContentStore.CHUNK_SIZE * 4, spillDir);
+        byte[] bytes = randomBytes(MemoryContentStore.CHUNK_SIZE * 3 + 1);
+        MemoryContent content = store.newContent(new ByteArrayInputStream(bytes));
+        assertTrue(content instanceof MemoryContent.InMemoryContent);
+        assertEquals(bytes.length, content.length());
+        assertEquals(bytes.length, store.getUsedMemory());
+        assertTrue(Arrays.equals(bytes, ByteStreams.toByteArray(content.openStream())));
+
+        content.release();
+        assertEquals(0, store.getUsedMemory());
+    }
+
+    public void testContentIsWrittenToFileWhenLimitIsReached() throws Exception {
+        MemoryContentStore store = new MemoryContentStore(MemoryContentStore.CHUNK_SIZE * 4, spillDir);
+        byte[] bytes = randomBytes(MemoryContentStore.CHUNK_SIZE * 3);
+        MemoryContent inMemory = store.newContent(new ByteArrayInputStream(bytes));
+        MemoryContent spilled = store.newContent(new ByteArrayInputStream(bytes));
+        assertTrue(spilled instanceof MemoryContent.FileContent);
+        assertEquals(bytes.length, spilled.length());
+        assertEquals(bytes.length, store.getUsedMemory());
+        assertEquals(1, spillDir.list().length);
+        assertTrue(Arrays.equals(bytes, ByteStreams.toByteArray(spilled.openStream())));
+
+        spilled.release();
+        assertEquals(0, spillDir.list().length);
+        inMemory.release();
+        assertEquals(0, store.getUsedMemory());
+    }
+
+    public void testSharedContentIsDisposedWhenLastReferenceIsReleased() throws Exception {
+        MemoryContentStore store = new MemoryContentStore(-1, spillDir);
+        MemoryContent content = store.newContent(new ByteArrayInputStream(randomBytes(100)));
+        assertTrue(content.tryRetain());
+        content.release();
+        assertEquals(100, store.getUsedMemory());
+        content.release();
+        assertEquals(0, store.getUsedMemory());
+        assertFalse(content.tryRetain());
+    }
+
+    public void testContentIsNotDisposedUntilOpenedStreamIsClosed() throws Exception {
+        MemoryContentStore store = new MemoryContentStore(MemoryContentStore.CHUNK_SIZE, spillDir);
+        byte[] bytes = randomBytes(MemoryContentStore.CHUNK_SIZE * 2);
+        MemoryContent content = store.newContent(new ByteArrayInputStream(bytes));
+        assertTrue(content instanceof MemoryContent.FileContent);
+        assertTrue(content.tryRetain());
+        InputStream in = content.openReleasingStream();
+        // Content is replaced in file, file releases its reference.
+        content.release();
+        assertEquals(1, spillDir.list().length);
+        assertTrue(Arrays.equals(bytes, ByteStreams.toByteArray(in)));
+
+        in.close();
+        assertEquals(0, spillDir.list().length);
+        // Stream releases reference once.
+        in.close();
+        assertFalse(content.tryRetain());
+    }
+
+    public void testEmptyContent() throws Exception {
+        MemoryContentStore store = new MemoryContentStore(-1, spillDir);
+        assertSame(MemoryContent.EMPTY, store.newContent(new ByteArrayInputStream(new byte[0])));
+        assertSame(MemoryContent.EMPTY, store.newContent(null));
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random().nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.search;
+
+import junit.framework.TestCase;
+
+import org.eclipse.che.api.vfs.server.impl.memory.MemoryLuceneSearcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class IndexingPipelineTest extends TestCase {
+    private ExecutorService  executor;
+    private RecordingSearcher searcher;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        executor = Executors.newCachedThreadPool();
+        searcher = new RecordingSearcher();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        executor.shutdownNow();
+        super.tearDown();
+    }
+
+    public void testFlushWaitsForChangesAddedWhileDrainIsFinishing() throws Exception {
+        final IndexingPipeline pipeline = new IndexingPipeline(searcher, executor, 100, 1000);
+        final List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final String prefix = "/thread" + t + "/file";
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    final String path = prefix + i;
+                    pipeline.add(IndexingPipeline.ChangeType.DELETE_FILE, path, null);
+                    pipeline.flush();
+                    assertTrue("Change is not applied after flush: " + path, searcher.deleted.contains(path));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        assertEquals(0, pipeline.getPendingChanges());
+    }
+
+    public void testCloseDropsPendingChanges() throws Exception {
+        final IndexingPipeline pipeline = new IndexingPipeline(searcher, executor, 100, 1000);
+        pipeline.close();
+        pipeline.add(IndexingPipeline.ChangeType.DELETE_FILE, "/file", null);
+        pipeline.flush();
+        assertEquals(0, pipeline.getPendingChanges());
+        assertFalse(searcher.deleted.contains("/file"));
+    }
+
+    private static class RecordingSearcher extends MemoryLuceneSearcher {
+        final Set<String> deleted = ConcurrentHashMap.newKeySet();
+
+        @Override
+        void deleteDocuments(String path, boolean isFile) {
+            deleted.add(path);
+        }
+
+        @Override
+        void refresh() {
+        }
+    }
+}
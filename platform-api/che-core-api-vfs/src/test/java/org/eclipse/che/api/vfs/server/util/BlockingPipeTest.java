@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.util;
+
+import com.google.common.io.ByteStreams;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class BlockingPipeTest extends TestCase {
+    private ExecutorService executor;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        executor.shutdownNow();
+        super.tearDown();
+    }
+
+    public void testDataIsPassedToReader() throws Exception {
+        final byte[] data = new byte[10000];
+        new Random().nextBytes(data);
+        final BlockingPipe pipe = new BlockingPipe(64, 2, 10000);
+        executor.submit(() -> {
+            try (OutputStream out = pipe.getOutputStream()) {
+                out.write(data, 0, 100);
+                out.write(data[100]);
+                out.flush();
+                out.write(data, 101, data.length - 101);
+            }
+            return null;
+        });
+        assertTrue(Arrays.equals(data, ByteStreams.toByteArray(pipe.getInputStream())));
+    }
+
+    public void testFailureOfWriterIsReportedToReader() throws Exception {
+        final BlockingPipe pipe = new BlockingPipe(64, 2, 10000);
+        executor.submit(() -> {
+            pipe.getOutputStream().write(new byte[10]);
+            pipe.getOutputStream().flush();
+            pipe.fail(new IllegalStateException("writer failed"));
+            return null;
+        });
+        final InputStream in = pipe.getInputStream();
+        assertEquals(10, ByteStreams.read(in, new byte[10], 0, 10));
+        try {
+            in.read();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    public void testWriterFailsWhenReaderDoesNotRead() throws Exception {
+        final BlockingPipe pipe = new BlockingPipe(4, 1, 100);
+        final Future<?> writer = executor.submit(() -> {
+            try (OutputStream out = pipe.getOutputStream()) {
+                out.write(new byte[100]);
+            }
+            return null;
+        });
+        try {
+            writer.get();
+            fail("IOException expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    public void testWriterFailsWhenReaderClosesPipe() throws Exception {
+        final BlockingPipe pipe = new BlockingPipe(4, 1, 10000);
+        final Future<?> writer = executor.submit(() -> {
+            try (OutputStream out = pipe.getOutputStream()) {
+                out.write(new byte[100]);
+            }
+            return null;
+        });
+        pipe.getInputStream().read();
+        pipe.getInputStream().close();
+        try {
+            writer.get();
+            fail("IOException expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.server.util;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class ParallelZipOutputStreamTest extends TestCase {
+    private ExecutorService executor;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        executor.shutdownNow();
+        super.tearDown();
+    }
+
+    public void testEntriesKeepOrder() throws Exception {
+        final Random random = new Random();
+        final Map<String, byte[]> files = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            final byte[] content = new byte[random.nextInt(4096)];
+            if (i % 2 == 0) {
+                random.nextBytes(content); // not compressible
+            } else {
+                Arrays.fill(content, (byte)i);
+            }
+            files.put("folder/file" + i + (i % 5 == 0 ? ".png" : ".txt"), content);
+        }
+        // Bigger than limit for in-memory entries, must be streamed.
+        final byte[] big = new byte[4096 * 3];
+        Arrays.fill(big, (byte)'x');
+        files.put("folder/big.txt", big);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ParallelZipOutputStream zipOut = new ParallelZipOutputStream(out, executor, 8, 4096);
+        zipOut.putFolder("folder/", 0);
+        for (Map.Entry<String, byte[]> e : files.entrySet()) {
+            zipOut.putFile(e.getKey(), System.currentTimeMillis(), e.getValue().length, ByteSource.wrap(e.getValue()));
+        }
+        zipOut.close();
+
+        final List<String> names = new ArrayList<>();
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zipIn.getNextEntry()) != null) {
+                names.add(zipEntry.getName());
+                if (!zipEntry.isDirectory()) {
+                    assertTrue(Arrays.equals(files.get(zipEntry.getName()), ByteStreams.toByteArray(zipIn)));
+                }
+            }
+        }
+        final List<String> expected = new ArrayList<>();
+        expected.add("folder/");
+        expected.addAll(files.keySet());
+        assertEquals(expected, names);
+    }
+
+    public void testBigNotCompressibleFileIsStored() throws Exception {
+        final byte[] content = new byte[4096 * 3];
+        new Random().nextBytes(content);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ParallelZipOutputStream zipOut = new ParallelZipOutputStream(out, executor, 8, 4096);
+        zipOut.putFile("image.png", 0, content.length, ByteSource.wrap(content));
+        zipOut.close();
+
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            final ZipEntry zipEntry = zipIn.getNextEntry();
+            assertEquals("image.png", zipEntry.getName());
+            assertEquals(ZipEntry.STORED, zipEntry.getMethod());
+            assertTrue(Arrays.equals(content, ByteStreams.toByteArray(zipIn)));
+        }
+    }
+
+    public void testFileChangedWhileStoredFails() throws Exception {
+        final byte[] content = new byte[4096 * 3];
+        final ByteSource changing = new ByteSource() {
+            private int reads;
+
+            @Override
+            public InputStream openStream() {
+                if (reads++ > 0) {
+                    content[0]++;
+                }
+                return new ByteArrayInputStream(content);
+            }
+        };
+        final ParallelZipOutputStream zipOut = new ParallelZipOutputStream(new ByteArrayOutputStream(), executor, 8, 4096);
+        try {
+            zipOut.putFile("image.png", 0, content.length, changing);
+            zipOut.finish();
+            fail("IOException expected");
+        } catch (IOException expected) {
+        }
+    }
+
+    public void testNotCompressibleFileIsStored() throws Exception {
+        final byte[] content = new byte[1024];
+        Arrays.fill(content, (byte)'a');
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ParallelZipOutputStream zipOut = new ParallelZipOutputStream(out, executor, 8, 4096);
+        zipOut.putFile("image.png", 0, content.length, ByteSource.wrap(content));
+        zipOut.putFile("text.txt", 0, content.length, ByteSource.wrap(content));
+        zipOut.close();
+
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry zipEntry = zipIn.getNextEntry();
+            assertEquals("image.png", zipEntry.getName());
+            assertEquals(ZipEntry.STORED, zipEntry.getMethod());
+            zipEntry = zipIn.getNextEntry();
+            assertEquals("text.txt", zipEntry.getName());
+            assertEquals(ZipEntry.DEFLATED, zipEntry.getMethod());
+        }
+    }
+}
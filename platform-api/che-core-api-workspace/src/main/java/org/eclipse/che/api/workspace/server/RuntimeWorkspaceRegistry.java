@@ -11,8 +11,7 @@
 package org.eclipse.che.api.workspace.server;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.eclipse.che.api.core.BadRequestException;
 import org.eclipse.che.api.core.ConflictException;
@@ -34,14 +33,24 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
@@ -61,10 +70,17 @@ import static org.eclipse.che.api.core.model.workspace.WorkspaceStatus.STOPPING;
  * This is done for keeping data in actual state and for avoiding race-conditions.
  * All operations performed by registry are synchronous.
  *
- * <p>The implementation is thread-safe.
- * Workspaces are stored in memory - in 2 Maps. First for <i>identifier -> workspace</i> mapping,
- * second for <i>owner -> list of workspaces</i> mapping(which speeds up fetching workspaces by owner).
- * Maps are guarded by {@link ReentrantReadWriteLock}.
+ * <p>The implementation is thread-safe and doesn't use any registry-wide lock.
+ * Workspaces are stored in memory - in 2 concurrent Maps. First for <i>identifier -> workspace</i> mapping,
+ * second for <i>owner -> set of workspace identifiers</i> mapping(which speeds up fetching workspaces by owner).
+ * Status of every workspace is changed atomically: {@link WorkspaceStatus#STARTING} -> {@link WorkspaceStatus#RUNNING}
+ * -> {@link WorkspaceStatus#STOPPING}, machines of workspace are guarded by its own monitor,
+ * so operations on different workspaces never block each other.
+ *
+ * <p>Non-dev machines of workspace are started and stopped in parallel with the registry's thread pool.
+ * Number of machines of one workspace which are started at the same time is limited with
+ * {@code workspace.runtime.machine_start_concurrency}, size of the pool (so total number of machines which are
+ * started or stopped at the same time) is set with {@code workspace.runtime.machine_threads}.
  *
  * @author Yevhenii Voevodin
  * @author Alexander Garagatyi
@@ -74,19 +90,56 @@ public class RuntimeWorkspaceRegistry {
 
     private static final Logger LOG = LoggerFactory.getLogger(RuntimeWorkspaceRegistry.class);
 
-    private final Map<String, RuntimeWorkspaceImpl>          idToWorkspaces;
-    private final ListMultimap<String, RuntimeWorkspaceImpl> ownerToWorkspaces;
-    private final ReadWriteLock                              lock;
-    private final MachineManager                             machineManager;
+    static final int DEFAULT_MACHINE_START_CONCURRENCY = 4;
+    static final int DEFAULT_MACHINE_THREADS           = 20;
+
+    private final ConcurrentMap<String, WorkspaceState> idToWorkspaces;
+    private final ConcurrentMap<String, Set<String>>    ownerToWorkspaces;
+    private final MachineManager                        machineManager;
+    private final ThreadPoolExecutor                    machineExecutor;
 
+    private volatile int     machineStartConcurrency;
     private volatile boolean isStopped;
 
     @Inject
     public RuntimeWorkspaceRegistry(MachineManager machineManager) {
         this.machineManager = machineManager;
-        this.idToWorkspaces = new HashMap<>();
-        this.ownerToWorkspaces = ArrayListMultimap.create();
-        this.lock = new ReentrantReadWriteLock();
+        this.idToWorkspaces = new ConcurrentHashMap<>();
+        this.ownerToWorkspaces = new ConcurrentHashMap<>();
+        this.machineStartConcurrency = DEFAULT_MACHINE_START_CONCURRENCY;
+        this.machineExecutor = new ThreadPoolExecutor(DEFAULT_MACHINE_THREADS,
+                                                      DEFAULT_MACHINE_THREADS,
+                                                      60,
+                                                      TimeUnit.SECONDS,
+                                                      new LinkedBlockingQueue<>(),
+                                                      new ThreadFactoryBuilder().setNameFormat("RuntimeWorkspaceRegistry-%d")
+                                                                                .setDaemon(true)
+                                                                                .build());
+        this.machineExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /** Sets max number of non-dev machines of one workspace which are started at the same time. */
+    @com.google.inject.Inject(optional = true)
+    public void setMachineStartConcurrency(@Named("workspace.runtime.machine_start_concurrency") int machineStartConcurrency) {
+        if (machineStartConcurrency < 1) {
+            throw new IllegalArgumentException("Machine start concurrency must be greater than 0");
+        }
+        this.machineStartConcurrency = machineStartConcurrency;
+    }
+
+    /** Sets max number of machines which are started or stopped at the same time by all workspaces. */
+    @com.google.inject.Inject(optional = true)
+    public void setMachineThreads(@Named("workspace.runtime.machine_threads") int machineThreads) {
+        if (machineThreads < 1) {
+            throw new IllegalArgumentException("Number of machine threads must be greater than 0");
+        }
+        if (machineThreads > machineExecutor.getMaximumPoolSize()) {
+            machineExecutor.setMaximumPoolSize(machineThreads);
+            machineExecutor.setCorePoolSize(machineThreads);
+        } else {
+            machineExecutor.setCorePoolSize(machineThreads);
+            machineExecutor.setMaximumPoolSize(machineThreads);
+        }
     }
 
     /**
@@ -95,6 +148,7 @@ public class RuntimeWorkspaceRegistry {
      * <p>Dev-machine always starts before the other machines. If dev-machine start failed
      * method throws appropriate {@link ServerException} and removes runtime workspace instance from the registry.
      * During the start the runtime workspace is visible with {@link WorkspaceStatus#STARTING} status.
+     * The other machines are started in parallel after dev-machine.
      *
      * <p>Note that it doesn't provide any events for machines start, Machine API is responsible for it.
      *
@@ -129,19 +183,22 @@ public class RuntimeWorkspaceRegistry {
                                                                     .setStatus(STARTING)
                                                                     .build();
         // Save workspace with 'STARTING' status
-        lock.writeLock().lock();
-        try {
+        final WorkspaceState newState = new WorkspaceState(newRuntime);
+        final WorkspaceState running = idToWorkspaces.putIfAbsent(newRuntime.getId(), newState);
+        if (running != null) {
+            throw new ConflictException(format("Could not start workspace '%s' because its status is '%s'",
+                                               running.getName(),
+                                               running.getStatus()));
+        }
+        ownerToWorkspaces.compute(newRuntime.getOwner(), (owner, ids) -> {
+            final Set<String> result = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            result.add(newRuntime.getId());
+            return result;
+        });
+        // 'stopRegistry' might not see the workspace, so it must be removed here
+        if (isStopped) {
+            doRemoveWorkspace(newRuntime.getId());
             checkRegistryIsNotStopped();
-            final RuntimeWorkspace running = idToWorkspaces.get(newRuntime.getId());
-            if (running != null) {
-                throw new ConflictException(format("Could not start workspace '%s' because its status is '%s'",
-                                                   running.getName(),
-                                                   running.getStatus()));
-            }
-            idToWorkspaces.put(newRuntime.getId(), newRuntime);
-            ownerToWorkspaces.get(newRuntime.getOwner()).add(newRuntime);
-        } finally {
-            lock.writeLock().unlock();
         }
         startEnvironment(newRuntime.getActiveEnvironment(), newRuntime.getId(), recover);
         return get(newRuntime.getId());
@@ -182,8 +239,8 @@ public class RuntimeWorkspaceRegistry {
     /**
      * Stops running workspace.
      *
-     * <p>Stops all {@link RuntimeWorkspace#getMachines() running machines} one by one,
-     * non-dev machines first. During the workspace stopping the workspace
+     * <p>Stops all {@link RuntimeWorkspace#getMachines() running machines},
+     * non-dev machines are stopped in parallel before dev-machine. During the workspace stopping the workspace
      * will still be accessible with {@link WorkspaceStatus#STOPPING stopping} status.
      * Workspace may be stopped only if its status is {@link WorkspaceStatus#RUNNING}.
      *
@@ -202,24 +259,16 @@ public class RuntimeWorkspaceRegistry {
      */
     public void stop(String workspaceId) throws NotFoundException, ServerException, ConflictException {
         checkRegistryIsNotStopped();
-        lock.writeLock().lock();
-        final RuntimeWorkspaceImpl workspace;
-        try {
-            checkRegistryIsNotStopped();
-            workspace = idToWorkspaces.get(workspaceId);
-            if (workspace == null) {
-                throw new NotFoundException("Workspace with id " + workspaceId + " is not running.");
-            }
-            if (workspace.getStatus() != RUNNING) {
-                throw new ConflictException(format("Couldn't stop '%s' workspace because its status is '%s'",
-                                                   workspace.getName(),
-                                                   workspace.getStatus()));
-            }
-            workspace.setStatus(STOPPING);
-        } finally {
-            lock.writeLock().unlock();
+        final WorkspaceState state = idToWorkspaces.get(workspaceId);
+        if (state == null) {
+            throw new NotFoundException("Workspace with id " + workspaceId + " is not running.");
+        }
+        if (!state.transit(RUNNING, STOPPING)) {
+            throw new ConflictException(format("Couldn't stop '%s' workspace because its status is '%s'",
+                                               state.getName(),
+                                               state.getStatus()));
         }
-        stopMachines(workspace);
+        stopMachines(state);
     }
 
     /**
@@ -248,12 +297,7 @@ public class RuntimeWorkspaceRegistry {
      * @return true if workspace is running, otherwise false
      */
     public boolean hasRuntime(String workspaceId) {
-        lock.readLock().lock();
-        try {
-            return idToWorkspaces.containsKey(workspaceId);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return idToWorkspaces.containsKey(workspaceId);
     }
 
     /**
@@ -269,17 +313,11 @@ public class RuntimeWorkspaceRegistry {
      *         when workspace with specified {@code workspaceId} was not found
      */
     public RuntimeWorkspaceImpl get(String workspaceId) throws NotFoundException {
-        lock.readLock().lock();
-        final RuntimeWorkspaceImpl runtimeWorkspace;
-        try {
-            runtimeWorkspace = idToWorkspaces.get(workspaceId);
-            if (runtimeWorkspace == null) {
-                throw new NotFoundException("Workspace with id " + workspaceId + " is not running.");
-            }
-        } finally {
-            lock.readLock().unlock();
+        final WorkspaceState state = idToWorkspaces.get(workspaceId);
+        if (state == null) {
+            throw new NotFoundException("Workspace with id " + workspaceId + " is not running.");
         }
-        return new RuntimeWorkspaceImpl(runtimeWorkspace);
+        return state.copyWorkspace();
     }
 
     /**
@@ -293,15 +331,15 @@ public class RuntimeWorkspaceRegistry {
      * @return list of workspace owned by {@code ownerId} or empty list when user doesn't have any workspaces running
      */
     public List<RuntimeWorkspaceImpl> getByOwner(String ownerId) {
-        lock.readLock().lock();
-        try {
-            return ownerToWorkspaces.get(ownerId)
-                                    .stream()
-                                    .map(RuntimeWorkspaceImpl::new)
-                                    .collect(toList());
-        } finally {
-            lock.readLock().unlock();
+        final Set<String> ids = ownerToWorkspaces.get(ownerId);
+        if (ids == null) {
+            return new ArrayList<>();
         }
+        return ids.stream()
+                  .map(idToWorkspaces::get)
+                  .filter(Objects::nonNull)
+                  .map(WorkspaceState::copyWorkspace)
+                  .collect(toList());
     }
 
     /**
@@ -328,44 +366,143 @@ public class RuntimeWorkspaceRegistry {
         // 'stopRegistry' was performed and workspace was removed by 'stopRegistry',
         // in that case dev-machine must not be destroyed(MachineManager is responsible for it)
         // and another machines must not be started.
-        lock.writeLock().lock();
-        try {
-            if (!addRunningMachine(devMachine)) {
-                // Dev machine was started but workspace doesn't exist
-                // it means that registry was stopped, dev-machine must not be
-                // destroyed in this place as MachineManager#cleanup() does it
-                throw new ServerException("Workspace '" + workspaceId + "' had been stopped before its dev-machine was started");
-            }
-            idToWorkspaces.get(workspaceId).setStatus(RUNNING);
-        } finally {
-            lock.writeLock().unlock();
+        if (!addRunningMachine(devMachine)) {
+            // Dev machine was started but workspace doesn't exist
+            // it means that registry was stopped, dev-machine must not be
+            // destroyed in this place as MachineManager#cleanup() does it
+            throw new ServerException("Workspace '" + workspaceId + "' had been stopped before its dev-machine was started");
+        }
+        // If workspace was removed by 'stopRegistry' right after dev-machine was added
+        // then start of the other machines is cancelled
+        final WorkspaceState state = idToWorkspaces.get(workspaceId);
+        if (state != null) {
+            state.transit(STARTING, RUNNING);
         }
 
         // Try to start all the other machines different from the dev one.
         machineConfigs.remove(devCfg);
-        for (MachineConfig nonDevCfg : machineConfigs) {
-            try {
-                final MachineImpl nonDevMachine = createMachine(nonDevCfg, workspaceId, environment.getName(), recover);
-                if (!addRunningMachine(nonDevMachine)) {
-                    // Non dev machine was started but workspace doesn't exist
-                    // it means that either registry was stopped or runtime workspace
-                    // was stopped by client. In the case when it was stopped by
-                    // client we should destroy newly started non-dev machine
-                    // as it wasn't destroyed by 'stop' method. When 'stopRegistry' was performed we
-                    // must not destroy machine as MachineManager is responsible for it.
-                    if (!isStopped) {
-                        machineManager.destroy(nonDevMachine.getId(), false);
+        startNonDevMachines(machineConfigs, workspaceId, environment.getName(), recover);
+    }
+
+    /**
+     * Starts non-dev machines in parallel. Errors of machines start are logged and don't stop start of the other machines.
+     *
+     * @throws ServerException
+     *         if workspace was stopped before all machines were started or any other server error occurred,
+     *         machines which weren't started yet are not started
+     */
+    private void startNonDevMachines(List<? extends MachineConfig> machineConfigs,
+                                     String workspaceId,
+                                     String envName,
+                                     boolean recover) throws ServerException {
+        final Semaphore permits = new Semaphore(machineStartConcurrency);
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final List<Future<?>> futures = new ArrayList<>(machineConfigs.size());
+        try {
+            for (MachineConfig nonDevCfg : machineConfigs) {
+                permits.acquire();
+                if (stopped.get()) {
+                    permits.release();
+                    break;
+                }
+                try {
+                    futures.add(machineExecutor.submit(() -> {
+                        try {
+                            if (stopped.get() || isStartCancelled(workspaceId)) {
+                                stopped.set(true);
+                            } else if (!startNonDevMachine(nonDevCfg, workspaceId, envName, recover)) {
+                                stopped.set(true);
+                            }
+                        } catch (ServerException | RuntimeException | Error ex) {
+                            // Machines which weren't started yet are not started as it was when machines were started one by one
+                            stopped.set(true);
+                            throw ex;
+                        } finally {
+                            permits.release();
+                        }
+                        return null;
+                    }));
+                } catch (RejectedExecutionException ex) {
+                    // Registry is stopped
+                    permits.release();
+                    stopped.set(true);
+                    break;
+                }
+            }
+            // Wait for all started machines, so none of them is added to the workspace after this method returns
+            Throwable failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    if (failure == null) {
+                        failure = ex.getCause();
                     }
-                    throw new ServerException("Workspace '" + workspaceId + "' had been stopped before all its machines were started");
                 }
-            } catch (MachineException | BadRequestException | NotFoundException | SnapshotException | ConflictException ex) {
-                LOG.error(format("Error while creating machine '%s' in workspace '%s', environment '%s'",
-                                 nonDevCfg.getName(),
-                                 workspaceId,
-                                 environment.getName()),
-                          ex);
+            }
+            if (failure instanceof ServerException) {
+                throw (ServerException)failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException)failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error)failure;
+            }
+            if (failure != null) {
+                throw new ServerException(failure.getLocalizedMessage(), failure);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServerException("Interrupted while starting machines of workspace '" + workspaceId + "'");
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(false);
             }
         }
+        if (stopped.get()) {
+            throw new ServerException("Workspace '" + workspaceId + "' had been stopped before all its machines were started");
+        }
+    }
+
+    /**
+     * Starts non-dev machine and adds it to the running workspace.
+     *
+     * @return false if workspace had been stopped before machine was started, true otherwise
+     * @throws ServerException
+     *         if machine was started but it can't be added to the workspace or destroyed
+     */
+    private boolean startNonDevMachine(MachineConfig nonDevCfg, String workspaceId, String envName, boolean recover)
+            throws ServerException {
+        try {
+            final MachineImpl nonDevMachine = createMachine(nonDevCfg, workspaceId, envName, recover);
+            if (!addRunningMachine(nonDevMachine)) {
+                // Non dev machine was started but workspace doesn't exist or is stopping
+                // it means that either registry was stopped or runtime workspace
+                // was stopped by client. In the case when it was stopped by
+                // client we should destroy newly started non-dev machine
+                // as it wasn't destroyed by 'stop' method (it destroys only machines
+                // added before STOPPING status). When 'stopRegistry' was performed
+                // we must not destroy machine as MachineManager is responsible for it.
+                if (!isStopped) {
+                    machineManager.destroy(nonDevMachine.getId(), false);
+                }
+                return false;
+            }
+        } catch (MachineException | BadRequestException | NotFoundException | SnapshotException | ConflictException ex) {
+            LOG.error(format("Error while creating machine '%s' in workspace '%s', environment '%s'",
+                             nonDevCfg.getName(),
+                             workspaceId,
+                             envName),
+                      ex);
+        }
+        return true;
+    }
+
+    /** Returns true if workspace is not running any more or is being stopped, so its machines must not be started. */
+    private boolean isStartCancelled(String workspaceId) {
+        final WorkspaceState state = idToWorkspaces.get(workspaceId);
+        return state == null || state.getStatus() == STOPPING;
     }
 
     /**
@@ -409,31 +546,18 @@ public class RuntimeWorkspaceRegistry {
      */
     @VisibleForTesting
     boolean addRunningMachine(MachineImpl machine) throws ServerException {
-        lock.writeLock().lock();
-        try {
-            final RuntimeWorkspaceImpl workspace = idToWorkspaces.get(machine.getWorkspaceId());
-            if (workspace != null) {
-                if (machine.isDev()) {
-                    workspace.setDevMachine(machine);
-                }
-                workspace.getMachines().add(machine);
-            }
-            return workspace != null;
-        } finally {
-            lock.writeLock().unlock();
-        }
+        final WorkspaceState state = idToWorkspaces.get(machine.getWorkspaceId());
+        return state != null && state.addMachine(machine);
     }
 
     private void doRemoveWorkspace(String workspaceId) {
-        lock.writeLock().lock();
-        try {
-            final RuntimeWorkspaceImpl workspace = idToWorkspaces.get(workspaceId);
-            if (workspace != null) {
-                ownerToWorkspaces.get(workspace.getOwner()).removeIf(ws -> ws.getId().equals(workspaceId));
-            }
-            idToWorkspaces.remove(workspaceId);
-        } finally {
-            lock.writeLock().unlock();
+        final WorkspaceState state = idToWorkspaces.remove(workspaceId);
+        if (state != null) {
+            state.markRemoved();
+            ownerToWorkspaces.computeIfPresent(state.getOwner(), (owner, ids) -> {
+                ids.remove(workspaceId);
+                return ids.isEmpty() ? null : ids;
+            });
         }
     }
 
@@ -476,20 +600,33 @@ public class RuntimeWorkspaceRegistry {
     /**
      * Stops workspace destroying all its machines and removing it from in memory storage.
      */
-    private void stopMachines(RuntimeWorkspaceImpl workspace) throws NotFoundException, ServerException {
+    private void stopMachines(WorkspaceState state) throws NotFoundException, ServerException {
+        final RuntimeWorkspaceImpl workspace = state.copyWorkspace();
         final List<MachineImpl> machines = new ArrayList<>(workspace.getMachines());
         machines.remove(findDev(machines));
         // destroying all non-dev machines
+        final List<Future<?>> futures = new ArrayList<>(machines.size());
         for (MachineImpl machine : machines) {
             try {
-                machineManager.destroy(machine.getId(), false);
-            } catch (NotFoundException | MachineException ex) {
-                LOG.error(format("Could not destroy machine '%s' of workspace '%s'",
-                                 machine.getId(),
-                                 machine.getWorkspaceId()),
-                          ex);
+                futures.add(machineExecutor.submit(() -> destroyNonDevMachine(machine)));
+            } catch (RejectedExecutionException ex) {
+                // Registry is stopped, destroy in the current thread
+                destroyNonDevMachine(machine);
             }
         }
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            } catch (ExecutionException ex) {
+                LOG.error(ex.getCause().getLocalizedMessage(), ex.getCause());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
         // destroying dev-machine
         try {
             machineManager.destroy(workspace.getDevMachine().getId(), false);
@@ -498,21 +635,88 @@ public class RuntimeWorkspaceRegistry {
         }
     }
 
+    private void destroyNonDevMachine(MachineImpl machine) {
+        try {
+            machineManager.destroy(machine.getId(), false);
+        } catch (NotFoundException | MachineException ex) {
+            LOG.error(format("Could not destroy machine '%s' of workspace '%s'",
+                             machine.getId(),
+                             machine.getWorkspaceId()),
+                      ex);
+        }
+    }
+
     /**
      * Removes all workspaces from the in-memory storage, while
      * {@link MachineManager#cleanup()} is responsible for machines destroying.
+     * Machines which are waiting for start are not started.
      */
     @PreDestroy
     @VisibleForTesting
     void stopRegistry() {
         isStopped = true;
-        lock.writeLock().lock();
-        try {
-            new ArrayList<>(idToWorkspaces.values()).stream()
-                                                    .map(UsersWorkspace::getId)
-                                                    .forEach(this::doRemoveWorkspace);
-        } finally {
-            lock.writeLock().unlock();
+        new ArrayList<>(idToWorkspaces.keySet()).forEach(this::doRemoveWorkspace);
+        // Queued tasks see that workspaces are removed and complete without starting machines.
+        machineExecutor.shutdown();
+    }
+
+    /**
+     * Runtime workspace with atomic status. Machines of workspace are guarded by monitor of this object,
+     * status is changed without locking.
+     */
+    private static final class WorkspaceState {
+        private final RuntimeWorkspaceImpl             workspace;
+        private final AtomicReference<WorkspaceStatus> status;
+
+        // guarded by this
+        private boolean removed;
+
+        WorkspaceState(RuntimeWorkspaceImpl workspace) {
+            this.workspace = workspace;
+            this.status = new AtomicReference<>(workspace.getStatus());
+        }
+
+        String getName() {
+            return workspace.getName();
+        }
+
+        String getOwner() {
+            return workspace.getOwner();
+        }
+
+        WorkspaceStatus getStatus() {
+            return status.get();
+        }
+
+        /** Atomically changes status of workspace, returns false if current status is not {@code from}. */
+        boolean transit(WorkspaceStatus from, WorkspaceStatus to) {
+            return status.compareAndSet(from, to);
+        }
+
+        /**
+         * Adds machine to the workspace, sets up this machine as dev-machine if it is dev.
+         *
+         * @return false if workspace was removed from the registry or is being stopped
+         */
+        synchronized boolean addMachine(MachineImpl machine) {
+            if (removed || status.get() == STOPPING) {
+                return false;
+            }
+            if (machine.isDev()) {
+                workspace.setDevMachine(machine);
+            }
+            workspace.getMachines().add(machine);
+            return true;
+        }
+
+        synchronized void markRemoved() {
+            removed = true;
+        }
+
+        synchronized RuntimeWorkspaceImpl copyWorkspace() {
+            final RuntimeWorkspaceImpl copy = new RuntimeWorkspaceImpl(workspace);
+            copy.setStatus(status.get());
+            return copy;
         }
     }
 }
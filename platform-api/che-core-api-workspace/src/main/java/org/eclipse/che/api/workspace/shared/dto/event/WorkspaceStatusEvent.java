@@ -12,6 +12,7 @@ package org.eclipse.che.api.workspace.shared.dto.event;
 
 import org.eclipse.che.api.core.notification.EventOrigin;
 import org.eclipse.che.dto.shared.DTO;
+import org.eclipse.che.dto.shared.SerializationIndex;
 
 /**
  * Describes changes of state of a workspace.
@@ -25,18 +26,21 @@ public interface WorkspaceStatusEvent {
         STARTING, RUNNING, STOPPING, STOPPED, ERROR, SNAPSHOT_CREATED, SNAPSHOT_CREATION_ERROR
     }
 
+    @SerializationIndex(1)
     EventType getEventType();
 
     void setEventType(EventType eventType);
 
     WorkspaceStatusEvent withEventType(EventType eventType);
 
+    @SerializationIndex(2)
     String getWorkspaceId();
 
     void setWorkspaceId(String machineId);
 
     WorkspaceStatusEvent withWorkspaceId(String machineId);
 
+    @SerializationIndex(3)
     String getError();
 
     void setError(String error);
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2016 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.workspace.server;
+
+import org.eclipse.che.api.core.model.machine.MachineConfig;
+import org.eclipse.che.api.machine.server.MachineManager;
+import org.eclipse.che.api.machine.server.model.impl.LimitsImpl;
+import org.eclipse.che.api.machine.server.model.impl.MachineConfigImpl;
+import org.eclipse.che.api.machine.server.model.impl.MachineImpl;
+import org.eclipse.che.api.workspace.server.model.impl.EnvironmentStateImpl;
+import org.eclipse.che.api.workspace.server.model.impl.UsersWorkspaceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Measures contention in {@link RuntimeWorkspaceRegistry}: most threads poll status of running workspaces
+ * ({@link RuntimeWorkspaceRegistry#hasRuntime(String)}, {@link RuntimeWorkspaceRegistry#get(String)},
+ * {@link RuntimeWorkspaceRegistry#getByOwner(String)}) while the others start and stop own workspaces all the time.
+ * Starting and stopping of machines costs nothing here, so the benchmark shows the overhead of the registry itself.
+ * <p/>
+ * Run with: {@code java -cp <test classpath> org.eclipse.che.api.workspace.server.RuntimeWorkspaceRegistryBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RuntimeWorkspaceRegistryBenchmark {
+    private static final int    RUNNING_WORKSPACES = 256;
+    private static final int    OWNERS             = 16;
+    private static final String ENV_NAME           = "default";
+
+    private static final AtomicInteger WORKSPACE_COUNTER = new AtomicInteger();
+
+    private RuntimeWorkspaceRegistry registry;
+    private String[]                 runningIds;
+
+    @Setup
+    public void setUp() throws Exception {
+        registry = new RuntimeWorkspaceRegistry(new NoopMachineManager());
+        runningIds = new String[RUNNING_WORKSPACES];
+        for (int i = 0; i < RUNNING_WORKSPACES; i++) {
+            final UsersWorkspaceImpl workspace = newWorkspace("owner" + (i % OWNERS));
+            registry.start(workspace, ENV_NAME);
+            runningIds[i] = workspace.getId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        registry.stopRegistry();
+    }
+
+    @State(Scope.Thread)
+    public static class ChurnState {
+        UsersWorkspaceImpl workspace;
+
+        @Setup
+        public void setUp() {
+            workspace = newWorkspace("churn-owner" + WORKSPACE_COUNTER.get() % OWNERS);
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(7)
+    public void poll(Blackhole blackhole) throws Exception {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final String id = runningIds[random.nextInt(runningIds.length)];
+        if (registry.hasRuntime(id)) {
+            blackhole.consume(registry.get(id));
+        }
+        if (random.nextInt(10) == 0) {
+            blackhole.consume(registry.getByOwner("owner" + random.nextInt(OWNERS)));
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void churn(ChurnState state) throws Exception {
+        registry.start(state.workspace, ENV_NAME);
+        registry.stop(state.workspace.getId());
+    }
+
+    private static UsersWorkspaceImpl newWorkspace(String owner) {
+        final MachineConfig devCfg = new MachineConfigImpl(true, "dev", "docker", null, new LimitsImpl(1024));
+        return UsersWorkspaceImpl.builder()
+                                 .setId("workspace" + WORKSPACE_COUNTER.incrementAndGet())
+                                 .setName("name")
+                                 .setOwner(owner)
+                                 .setDefaultEnv(ENV_NAME)
+                                 .setEnvironments(singletonList(new EnvironmentStateImpl(ENV_NAME, null, singletonList(devCfg))))
+                                 .build();
+    }
+
+    /** Starts machines instantly and doesn't keep any state. */
+    private static class NoopMachineManager extends MachineManager {
+        NoopMachineManager() {
+            super(null, null, null, System.getProperty("java.io.tmpdir"), null, 0, null, null);
+        }
+
+        @Override
+        public MachineImpl createMachineSync(MachineConfig machineConfig, String workspaceId, String environmentName) {
+            return MachineImpl.builder()
+                              .setId(workspaceId + '-' + machineConfig.getName())
+                              .setWorkspaceId(workspaceId)
+                              .setName(machineConfig.getName())
+                              .setType(machineConfig.getType())
+                              .setDev(machineConfig.isDev())
+                              .setLimits(machineConfig.getLimits())
+                              .build();
+        }
+
+        @Override
+        public void destroy(String machineId, boolean async) {
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Options options = new OptionsBuilder().include(RuntimeWorkspaceRegistryBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
@@ -34,9 +34,17 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Listeners;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.mockito.Matchers.any;
@@ -55,6 +63,7 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * Tests for {@link RuntimeWorkspaceRegistry}.
@@ -65,6 +74,7 @@ import static org.testng.Assert.assertTrue;
 public class RuntimeWorkspaceRegistryTest {
 
     private static final String WORKSPACE_ID = "workspace123";
+    private static final String OWNER        = "owner123";
 
     @Mock
     private MachineManager machineManagerMock;
@@ -74,7 +84,8 @@ public class RuntimeWorkspaceRegistryTest {
     @BeforeMethod
     public void setUp() throws Exception {
         when(machineManagerMock.createMachineSync(any(), any(), any()))
-                .thenAnswer(invocation -> machineMock((MachineConfig)invocation.getArguments()[0]));
+                .thenAnswer(invocation -> machineMock((MachineConfig)invocation.getArguments()[0],
+                                                      (String)invocation.getArguments()[1]));
         registry = new RuntimeWorkspaceRegistry(machineManagerMock);
     }
 
@@ -184,6 +195,116 @@ public class RuntimeWorkspaceRegistryTest {
         registry.start(workspaceMock, workspaceMock.getDefaultEnv());
     }
 
+    @Test
+    public void shouldKeepStartingStatusWhenStopIsRejected() throws Exception {
+        final UsersWorkspaceImpl workspaceMock = workspaceMock();
+        doAnswer(invocation -> {
+            final MachineConfig machineCfg = (MachineConfig)invocation.getArguments()[0];
+            if (machineCfg.isDev()) {
+                try {
+                    registry.stop(workspaceMock.getId());
+                    fail("Workspace must not be stopped while it is starting");
+                } catch (ConflictException expected) {
+                    assertEquals(registry.get(workspaceMock.getId()).getStatus(), WorkspaceStatus.STARTING);
+                }
+            }
+            return machineMock(machineCfg);
+        }).when(machineManagerMock).createMachineSync(any(), anyString(), anyString());
+
+        final RuntimeWorkspaceImpl runtime = registry.start(workspaceMock, workspaceMock.getDefaultEnv());
+
+        assertEquals(runtime.getStatus(), WorkspaceStatus.RUNNING);
+        assertEquals(runtime.getMachines().size(), 2);
+        verify(machineManagerMock, never()).destroy(any(), anyBoolean());
+    }
+
+    @Test
+    public void shouldDestroyNonDevMachineWhichWasStartedWhileWorkspaceWasStopping() throws Exception {
+        final UsersWorkspaceImpl workspaceMock = workspaceMock();
+        final CountDownLatch nonDevStarting = new CountDownLatch(1);
+        final CountDownLatch stopping = new CountDownLatch(1);
+        final CountDownLatch nonDevDestroyed = new CountDownLatch(1);
+        final AtomicInteger destroyed = new AtomicInteger();
+        doAnswer(invocation -> {
+            final MachineConfig machineCfg = (MachineConfig)invocation.getArguments()[0];
+            if (!machineCfg.isDev()) {
+                nonDevStarting.countDown();
+                assertTrue(stopping.await(10, TimeUnit.SECONDS));
+            }
+            return machineMock(machineCfg);
+        }).when(machineManagerMock).createMachineSync(any(), anyString(), anyString());
+        doAnswer(invocation -> {
+            if (destroyed.incrementAndGet() == 1) {
+                // dev-machine is destroyed by 'stop', workspace is STOPPING until it's destroyed
+                stopping.countDown();
+                assertTrue(nonDevDestroyed.await(10, TimeUnit.SECONDS));
+            } else {
+                nonDevDestroyed.countDown();
+            }
+            return null;
+        }).when(machineManagerMock).destroy(anyString(), anyBoolean());
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<RuntimeWorkspaceImpl> start = executor.submit(() -> registry.start(workspaceMock,
+                                                                                            workspaceMock.getDefaultEnv()));
+            assertTrue(nonDevStarting.await(10, TimeUnit.SECONDS));
+
+            registry.stop(workspaceMock.getId());
+
+            try {
+                start.get(10, TimeUnit.SECONDS);
+                fail("Workspace start must fail as workspace was stopped");
+            } catch (ExecutionException ex) {
+                assertEquals(ex.getCause().getMessage(),
+                             "Workspace '" + WORKSPACE_ID + "' had been stopped before all its machines were started");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(destroyed.get(), 2);
+        assertFalse(registry.hasRuntime(workspaceMock.getId()));
+    }
+
+    @Test
+    public void shouldNotAddMachineToRemovedWorkspace() throws Exception {
+        final UsersWorkspaceImpl workspaceMock = workspaceMock();
+        final RuntimeWorkspaceImpl runtime = registry.start(workspaceMock, workspaceMock.getDefaultEnv());
+        registry.stop(workspaceMock.getId());
+
+        assertFalse(registry.addRunningMachine(runtime.getDevMachine()));
+        assertFalse(registry.hasRuntime(workspaceMock.getId()));
+    }
+
+    @Test
+    public void shouldKeepWorkspacesOfOwnerConsistentWhenTheyAreStartedAndStoppedConcurrently() throws Exception {
+        final int workspaces = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(workspaces);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workspaces; i++) {
+                final UsersWorkspaceImpl workspaceMock = workspaceMock("workspace" + i, 1);
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 20; j++) {
+                        registry.start(workspaceMock, workspaceMock.getDefaultEnv());
+                        registry.stop(workspaceMock.getId());
+                    }
+                    return registry.start(workspaceMock, workspaceMock.getDefaultEnv());
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(registry.getByOwner(OWNER).size(), workspaces);
+
+        for (int i = 0; i < workspaces; i++) {
+            registry.stop("workspace" + i);
+        }
+        assertTrue(registry.getByOwner(OWNER).isEmpty());
+    }
+
     @Test
     public void shouldDestroyDevMachineIfWorkspaceWasStoppedWhileDevMachineWasStarting() throws Exception {
         final UsersWorkspaceImpl workspaceMock = workspaceMock();
@@ -241,6 +362,52 @@ public class RuntimeWorkspaceRegistryTest {
         verify(machineManagerMock, never()).destroy(any(), anyBoolean());
     }
 
+    @Test
+    public void shouldStartNonDevMachinesInParallel() throws Exception {
+        final UsersWorkspaceImpl workspaceMock = workspaceMock(3);
+        final CountDownLatch allStarting = new CountDownLatch(3);
+        final AtomicInteger startedInParallel = new AtomicInteger();
+        doAnswer(invocation -> {
+            final MachineConfig machineCfg = (MachineConfig)invocation.getArguments()[0];
+            if (!machineCfg.isDev()) {
+                allStarting.countDown();
+                // Sequential start never gets here as other machines wait for this one
+                if (allStarting.await(10, TimeUnit.SECONDS)) {
+                    startedInParallel.incrementAndGet();
+                }
+            }
+            return machineMock(machineCfg);
+        }).when(machineManagerMock).createMachineSync(any(), anyString(), anyString());
+
+        final RuntimeWorkspaceImpl runtime = registry.start(workspaceMock, workspaceMock.getDefaultEnv());
+
+        assertEquals(startedInParallel.get(), 3);
+        assertEquals(runtime.getMachines().size(), 4);
+        assertEquals(runtime.getStatus(), WorkspaceStatus.RUNNING);
+    }
+
+    @Test
+    public void shouldLimitNumberOfMachinesStartedInParallel() throws Exception {
+        final UsersWorkspaceImpl workspaceMock = workspaceMock(6);
+        final AtomicInteger starting = new AtomicInteger();
+        final AtomicInteger maxStarting = new AtomicInteger();
+        doAnswer(invocation -> {
+            final MachineConfig machineCfg = (MachineConfig)invocation.getArguments()[0];
+            if (!machineCfg.isDev()) {
+                maxStarting.accumulateAndGet(starting.incrementAndGet(), Math::max);
+                Thread.sleep(50);
+                starting.decrementAndGet();
+            }
+            return machineMock(machineCfg);
+        }).when(machineManagerMock).createMachineSync(any(), anyString(), anyString());
+        registry.setMachineStartConcurrency(2);
+
+        final RuntimeWorkspaceImpl runtime = registry.start(workspaceMock, workspaceMock.getDefaultEnv());
+
+        assertTrue(maxStarting.get() <= 2);
+        assertEquals(runtime.getMachines().size(), 7);
+    }
+
     @Test
     public void shouldStopRunningWorkspace() throws Exception {
         final UsersWorkspaceImpl workspaceMock = workspaceMock();
@@ -288,9 +455,13 @@ public class RuntimeWorkspaceRegistryTest {
     }
 
     private static MachineImpl machineMock(MachineConfig cfg) {
+        return machineMock(cfg, WORKSPACE_ID);
+    }
+
+    private static MachineImpl machineMock(MachineConfig cfg, String workspaceId) {
         return MachineImpl.builder()
                           .setId(NameGenerator.generate("machine", 10))
-                          .setWorkspaceId(WORKSPACE_ID)
+                          .setWorkspaceId(workspaceId)
                           .setType(cfg.getType())
                           .setName(cfg.getName())
                           .setDev(cfg.isDev())
@@ -300,6 +471,14 @@ public class RuntimeWorkspaceRegistryTest {
     }
 
     private static UsersWorkspaceImpl workspaceMock() {
+        return workspaceMock(1);
+    }
+
+    private static UsersWorkspaceImpl workspaceMock(int nonDevMachines) {
+        return workspaceMock(WORKSPACE_ID, nonDevMachines);
+    }
+
+    private static UsersWorkspaceImpl workspaceMock(String workspaceId, int nonDevMachines) {
         // prepare default environment
         final EnvironmentStateImpl envState = mock(EnvironmentStateImpl.class, RETURNS_MOCKS);
 
@@ -310,14 +489,19 @@ public class RuntimeWorkspaceRegistryTest {
         final MachineStateImpl cfg = mock(MachineStateImpl.class);
         when(cfg.isDev()).thenReturn(true);
 
-        final MachineStateImpl cf2 = mock(MachineStateImpl.class);
-        when(envState.getMachineConfigs()).thenReturn((asList(cfg, cf2)));
+        final List<MachineStateImpl> machineConfigs = new ArrayList<>();
+        machineConfigs.add(cfg);
+        for (int i = 0; i < nonDevMachines; i++) {
+            machineConfigs.add(mock(MachineStateImpl.class));
+        }
+        when(envState.getMachineConfigs()).thenReturn(machineConfigs);
 
         // prepare workspace
         final RuntimeWorkspaceImpl workspace = mock(RuntimeWorkspaceImpl.class, RETURNS_MOCKS);
         when(workspace.getEnvironments()).thenReturn(Collections.singletonList(envState));
         when(workspace.getDevMachine()).thenReturn(mock(MachineImpl.class, RETURNS_MOCKS));
-        when(workspace.getId()).thenReturn(WORKSPACE_ID);
+        when(workspace.getId()).thenReturn(workspaceId);
+        when(workspace.getOwner()).thenReturn(OWNER);
 
         return workspace;
     }